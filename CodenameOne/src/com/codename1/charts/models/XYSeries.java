@@ -17,7 +17,6 @@ package com.codename1.charts.models;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
@@ -34,8 +33,14 @@ import com.codename1.charts.util.MathHelper;
 public class XYSeries{
   /** The series title. */
   private String mTitle;
-  /** A map to contain values for X and Y axes and index for each bundle */
-  private final IndexXYMap<Double, Double> mXY = new IndexXYMap<Double, Double>();
+  /** The X values in the order of their index, the arrays grow as values are appended. */
+  private double[] mXs = new double[16];
+  /** The Y values in the order of their index. */
+  private double[] mYs = new double[16];
+  /** The number of values in the series. */
+  private int mCount;
+  /** True while the X values are in ascending order which is the case when values are appended in order. */
+  private boolean mSortedX = true;
   /** The minimum value for the X axis. */
   private double mMinX = MathHelper.NULL_VALUE;
   /** The maximum value for the X axis. */
@@ -135,12 +140,12 @@ public class XYSeries{
    * @param y the value for the Y axis
    */
   public synchronized void add(double x, double y) {
-    while (mXY.get(x) != null) {
+    while (indexOfX(x) > -1) {
       // add a very small value to x such as data points sharing the same x will
       // still be added
       x += getPadding(x);
     }
-    mXY.put(x, y);
+    insert(mCount, x, y);
     updateRange(x, y);
   }
 
@@ -152,15 +157,133 @@ public class XYSeries{
    * @param y the value for the Y axis
    */
   public synchronized void add(int index, double x, double y) {
-    while (mXY.get(x) != null) {
+    while (indexOfX(x) > -1) {
       // add a very small value to x such as data points sharing the same x will
       // still be added
       x += getPadding(x);
     }
-    mXY.put(index, x, y);
+    if (index < 0 || index > mCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mCount);
+    }
+    insert(index, x, y);
     updateRange(x, y);
   }
 
+  private void insert(int index, double x, double y) {
+    if (mCount == mXs.length) {
+      double[] xs = new double[mCount * 2];
+      double[] ys = new double[mCount * 2];
+      System.arraycopy(mXs, 0, xs, 0, mCount);
+      System.arraycopy(mYs, 0, ys, 0, mCount);
+      mXs = xs;
+      mYs = ys;
+    }
+    if (index < mCount) {
+      System.arraycopy(mXs, index, mXs, index + 1, mCount - index);
+      System.arraycopy(mYs, index, mYs, index + 1, mCount - index);
+    }
+    mXs[index] = x;
+    mYs[index] = y;
+    mCount++;
+    if (mSortedX && (index > 0 && Double.compare(mXs[index - 1], x) > 0 || index < mCount - 1
+        && Double.compare(x, mXs[index + 1]) > 0)) {
+      mSortedX = false;
+    }
+  }
+
+  /**
+   * Returns the index of the given X value or -1 if the series doesn't contain it.
+   */
+  private int indexOfX(double x) {
+    if (mSortedX) {
+      // values are usually appended in order so this doesn't need a search
+      if (mCount == 0 || Double.compare(x, mXs[mCount - 1]) > 0) {
+        return -1;
+      }
+      int index = lowerBound(x);
+      if (index < mCount && Double.compare(mXs[index], x) == 0) {
+        return index;
+      }
+      return -1;
+    }
+    for (int iter = 0; iter < mCount; iter++) {
+      if (Double.compare(mXs[iter], x) == 0) {
+        return iter;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first X value that is greater than or equal to the given value, the X values
+   * must be sorted.
+   */
+  private int lowerBound(double x) {
+    int low = 0;
+    int high = mCount;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (Double.compare(mXs[mid], x) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Orders the values by their X value, this happens when values weren't added in order and the series is
+   * drawn or searched.
+   */
+  private void sortByX() {
+    if (mSortedX) {
+      return;
+    }
+    int[] order = new int[mCount];
+    for (int iter = 0; iter < mCount; iter++) {
+      order[iter] = iter;
+    }
+    sortIndexes(order, new int[mCount], 0, mCount);
+    double[] xs = new double[mXs.length];
+    double[] ys = new double[mYs.length];
+    for (int iter = 0; iter < mCount; iter++) {
+      xs[iter] = mXs[order[iter]];
+      ys[iter] = mYs[order[iter]];
+    }
+    mXs = xs;
+    mYs = ys;
+    mSortedX = true;
+    reorder(order);
+  }
+
+  private void sortIndexes(int[] order, int[] tmp, int from, int to) {
+    if (to - from < 2) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    sortIndexes(order, tmp, from, mid);
+    sortIndexes(order, tmp, mid, to);
+    int left = from;
+    int right = mid;
+    for (int iter = from; iter < to; iter++) {
+      if (right >= to || left < mid && Double.compare(mXs[order[left]], mXs[order[right]]) <= 0) {
+        tmp[iter] = order[left++];
+      } else {
+        tmp[iter] = order[right++];
+      }
+    }
+    System.arraycopy(tmp, from, order, from, to - from);
+  }
+
+  /**
+   * Invoked when the values were sorted by their X value so subclasses can reorder additional values.
+   * 
+   * @param order the previous index of every value in the new order
+   */
+  void reorder(int[] order) {
+  }
+
   protected double getPadding(double x) {
     return ulp(x);
   }
@@ -188,9 +311,12 @@ public class XYSeries{
    * @param index the index in the series of the value to remove
    */
   public synchronized void remove(int index) {
-    XYEntry<Double, Double> removedEntry = mXY.removeByIndex(index);
-    double removedX = removedEntry.getKey();
-    double removedY = removedEntry.getValue();
+    checkIndex(index);
+    double removedX = mXs[index];
+    double removedY = mYs[index];
+    System.arraycopy(mXs, index + 1, mXs, index, mCount - index - 1);
+    System.arraycopy(mYs, index + 1, mYs, index, mCount - index - 1);
+    mCount--;
     if (removedX == mMinX || removedX == mMaxX || removedY == mMinY || removedY == mMaxY) {
       initRange();
     }
@@ -208,7 +334,8 @@ public class XYSeries{
    * Removes all the existing values from the series but annotations.
    */
   public synchronized void clearSeriesValues() {
-    mXY.clear();
+    mCount = 0;
+    mSortedX = true;
     initRange();
   }
 
@@ -220,12 +347,24 @@ public class XYSeries{
   }
 
   /**
-   * Returns the current values that are used for drawing the series.
+   * Returns a copy of the current values that are used for drawing the series.
    * 
    * @return the XY map
+   * @deprecated the values are no longer stored in a map, use {@link #getX(int)} and {@link #getY(int)}
    */
+  @Deprecated
   public synchronized IndexXYMap<Double, Double> getXYMap() {
-    return mXY;
+    IndexXYMap<Double, Double> map = new IndexXYMap<Double, Double>();
+    for (int iter = 0; iter < mCount; iter++) {
+      map.put(mXs[iter], mYs[iter]);
+    }
+    return map;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mCount);
+    }
   }
 
   /**
@@ -235,7 +374,8 @@ public class XYSeries{
    * @return the X value
    */
   public synchronized double getX(int index) {
-    return mXY.getXByIndex(index);
+    checkIndex(index);
+    return mXs[index];
   }
 
   /**
@@ -245,7 +385,8 @@ public class XYSeries{
    * @return the Y value
    */
   public synchronized double getY(int index) {
-    return mXY.getYByIndex(index);
+    checkIndex(index);
+    return mYs[index];
   }
 
   /**
@@ -339,41 +480,57 @@ public class XYSeries{
    */
   public synchronized SortedMap<Double, Double> getRange(double start, double stop,
       boolean beforeAfterPoints) {
-    if (beforeAfterPoints) {
-      // we need to add one point before the start and one point after the end
-      // (if there are any)
-      // to ensure that line doesn't end before the end of the screen
-
-      // this would be simply: start = mXY.lowerKey(start) but NavigableMap is
-      // available since API 9
-      SortedMap<Double, Double> headMap = mXY.headMap(start);
-      if (!headMap.isEmpty()) {
-        start = headMap.lastKey();
-      }
+    int from = getRangeStart(start, beforeAfterPoints);
+    int to = getRangeEnd(stop, beforeAfterPoints);
+    SortedMap<Double, Double> range = new TreeMap<Double, Double>();
+    for (int iter = from; iter < to; iter++) {
+      range.put(mXs[iter], mYs[iter]);
+    }
+    return range;
+  }
 
-      // this would be simply: end = mXY.higherKey(end) but NavigableMap is
-      // available since API 9
-      // so we have to do this hack in order to support older versions
-      SortedMap<Double, Double> tailMap = mXY.tailMap(stop);
-      if (!tailMap.isEmpty()) {
-        Iterator<Double> tailIterator = tailMap.keySet().iterator();
-        Double next = tailIterator.next();
-        if (tailIterator.hasNext()) {
-          stop = tailIterator.next();
-        } else {
-          stop += next;
-        }
-      }
+  /**
+   * Returns the index of the first value within a range of X values. The values are sorted by their X value
+   * first so the indexes between this and {@link #getRangeEnd(double, boolean)} can be used with
+   * {@link #getX(int)} and {@link #getY(int)} without creating a submap.
+   * 
+   * @param start start x value
+   * @param beforeAfterPoints if the point before the first visible one must be included
+   * @return the index of the first value in the range
+   */
+  public synchronized int getRangeStart(double start, boolean beforeAfterPoints) {
+    sortByX();
+    int index = lowerBound(start);
+    if (beforeAfterPoints && index > 0) {
+      index--;
     }
-    if (start <= stop) {
-      return mXY.subMap(start, stop);
-    } else {
-      return new TreeMap<Double, Double>();
+    return index;
+  }
+
+  /**
+   * Returns the index following the last value within a range of X values. The values are sorted by their X
+   * value first, see {@link #getRangeStart(double, boolean)}.
+   * 
+   * @param stop stop x value, values equal to it are only included with the points before and after
+   * @param beforeAfterPoints if the point after the last visible one must be included
+   * @return the index following the last value in the range
+   */
+  public synchronized int getRangeEnd(double stop, boolean beforeAfterPoints) {
+    sortByX();
+    int index = lowerBound(stop);
+    if (beforeAfterPoints && index < mCount) {
+      index++;
     }
+    return index;
   }
 
-  public int getIndexForKey(double key) {
-    return mXY.getIndexForKey(key);
+  public synchronized int getIndexForKey(double key) {
+    sortByX();
+    int index = lowerBound(key);
+    if (index < mCount && Double.compare(mXs[index], key) == 0) {
+      return index;
+    }
+    return -(index + 1);
   }
 
   /**
@@ -382,7 +539,7 @@ public class XYSeries{
    * @return the series item count
    */
   public synchronized int getItemCount() {
-    return mXY.size();
+    return mCount;
   }
 
   /**
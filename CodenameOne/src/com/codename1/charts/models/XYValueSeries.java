@@ -15,9 +15,6 @@
  */
 package com.codename1.charts.models;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.codename1.charts.util.MathHelper;
 
 /**
@@ -25,8 +22,10 @@ import com.codename1.charts.util.MathHelper;
  * charts like bubble.
  */
 public class XYValueSeries extends XYSeries {
-  /** A list to contain the series values. */
-  private List<Double> mValue = new ArrayList<Double>();
+  /** The series values in the order of their index. */
+  private double[] mValue = new double[16];
+  /** The number of series values. */
+  private int mValueCount;
   /** The minimum value. */
   private double mMinValue = MathHelper.NULL_VALUE;
   /** The maximum value. */
@@ -50,7 +49,13 @@ public class XYValueSeries extends XYSeries {
    */
   public synchronized void add(double x, double y, double value) {
     super.add(x, y);
-    mValue.add(value);
+    if (mValueCount == mValue.length) {
+      double[] values = new double[mValueCount * 2];
+      System.arraycopy(mValue, 0, values, 0, mValueCount);
+      mValue = values;
+    }
+    mValue[mValueCount] = value;
+    mValueCount++;
     updateRange(value);
   }
 
@@ -93,7 +98,9 @@ public class XYValueSeries extends XYSeries {
    */
   public synchronized void remove(int index) {
     super.remove(index);
-    double removedValue = mValue.remove(index);
+    double removedValue = mValue[index];
+    System.arraycopy(mValue, index + 1, mValue, index, mValueCount - index - 1);
+    mValueCount--;
     if (removedValue == mMinValue || removedValue == mMaxValue) {
       initRange();
     }
@@ -104,7 +111,7 @@ public class XYValueSeries extends XYSeries {
    */
   public synchronized void clear() {
     super.clear();
-    mValue.clear();
+    mValueCount = 0;
     initRange();
   }
 
@@ -115,7 +122,21 @@ public class XYValueSeries extends XYSeries {
    * @return the value
    */
   public synchronized double getValue(int index) {
-    return mValue.get(index);
+    if (index < 0 || index >= mValueCount) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mValueCount);
+    }
+    return mValue[index];
+  }
+
+  void reorder(int[] order) {
+    if (order.length != mValueCount) {
+      return;
+    }
+    double[] values = new double[mValue.length];
+    for (int iter = 0; iter < mValueCount; iter++) {
+      values[iter] = mValue[order[iter]];
+    }
+    mValue = values;
   }
 
   /**
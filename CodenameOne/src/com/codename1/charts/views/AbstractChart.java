@@ -304,6 +304,11 @@ public abstract class AbstractChart  {
    * @param circular if the path ends with the start point
    */
   protected void drawPath(Canvas canvas, List<Float> points, Paint paint, boolean circular) {
+    if (points instanceof FloatList) {
+      // the points of an XY chart are kept in a float array, avoid boxing each of them
+      drawPath(canvas, ((FloatList) points).getArray(), points.size(), paint, circular);
+      return;
+    }
     GeneralPath path = new GeneralPath();
     int height = canvas.getHeight();
     int width = canvas.getWidth();
@@ -345,19 +350,22 @@ public abstract class AbstractChart  {
    * @param circular if the path ends with the start point
    */
   protected void drawPath(Canvas canvas, float[] points, Paint paint, boolean circular) {
+    drawPath(canvas, points, points.length, paint, circular);
+  }
+
+  private void drawPath(Canvas canvas, float[] points, int length, Paint paint, boolean circular) {
     GeneralPath path = new GeneralPath();
     int height = canvas.getHeight();
     int width = canvas.getWidth();
 
     float[] tempDrawPoints;
-    if (points.length < 4) {
+    if (length < 4) {
       return;
     }
     tempDrawPoints = calculateDrawPoints(points[0], points[1], points[2], points[3], height, width);
     path.moveTo(tempDrawPoints[0], tempDrawPoints[1]);
     path.lineTo(tempDrawPoints[2], tempDrawPoints[3]);
 
-    int length = points.length;
     for (int i = 4; i < length; i += 2) {
       if ((points[i - 1] < 0 && points[i + 1] < 0)
           || (points[i - 1] > height && points[i + 1] > height)) {
@@ -66,6 +66,16 @@ public class CubicLineChart extends LineChart {
     mSecondMultiplier = 1 - mFirstMultiplier;
   }
 
+  /**
+   * The curve is interpolated between consecutive points so decimating them would change its shape.
+   * 
+   * @param renderer the series renderer
+   */
+  @Override
+  protected boolean isDecimationSupported(XYSeriesRenderer renderer) {
+    return false;
+  }
+
   @Override
   protected void drawPath(Canvas canvas, List<Float> points, Paint paint, boolean circular) {
     GeneralPath p = new GeneralPath();
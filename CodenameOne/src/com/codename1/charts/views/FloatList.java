@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.charts.views;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list of floats backed by a growable float array so the points of a series aren't boxed while they're
+ * collected, values are only boxed when they're read through the list interface.
+ */
+final class FloatList extends AbstractList<Float> implements RandomAccess {
+  private float[] data;
+  private int size;
+
+  FloatList(int capacity) {
+    data = new float[Math.max(capacity, 8)];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > data.length) {
+      float[] d = new float[Math.max(capacity, data.length * 2)];
+      System.arraycopy(data, 0, d, 0, size);
+      data = d;
+    }
+  }
+
+  public Float get(int index) {
+    checkIndex(index);
+    return new Float(data[index]);
+  }
+
+  public Float set(int index, Float value) {
+    checkIndex(index);
+    float old = data[index];
+    data[index] = value.floatValue();
+    return new Float(old);
+  }
+
+  public void add(int index, Float value) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    ensureCapacity(size + 1);
+    System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = value.floatValue();
+    size++;
+    modCount++;
+  }
+
+  public Float remove(int index) {
+    checkIndex(index);
+    float old = data[index];
+    System.arraycopy(data, index + 1, data, index, size - index - 1);
+    size--;
+    modCount++;
+    return new Float(old);
+  }
+
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  void add(float value) {
+    ensureCapacity(size + 1);
+    data[size] = value;
+    size++;
+    modCount++;
+  }
+
+  float getFloat(int index) {
+    checkIndex(index);
+    return data[index];
+  }
+
+  /**
+   * Returns the backing array, only the first {@link #size()} entries are valid
+   */
+  float[] getArray() {
+    return data;
+  }
+
+  /**
+   * Truncates the list after the backing array was modified in place
+   */
+  void setSize(int size) {
+    this.size = size;
+    modCount++;
+  }
+}
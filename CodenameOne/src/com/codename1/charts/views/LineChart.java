@@ -258,6 +258,24 @@ public class LineChart extends XYChart {
     return ((XYSeriesRenderer) renderer).getPointStyle() != PointStyle.POINT;
   }
 
+  /**
+   * Lines can be decimated as long as no shape or value is rendered per point and the fills don't refer
+   * to point indexes.
+   * 
+   * @param renderer the series renderer
+   */
+  protected boolean isDecimationSupported(XYSeriesRenderer renderer) {
+    if (isRenderPoints(renderer) || renderer.isDisplayChartValues()) {
+      return false;
+    }
+    for (FillOutsideLine fill : renderer.getFillOutsideLine()) {
+      if (fill.getFillRange() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Returns the scatter chart to be used for drawing the data points.
    * 
@@ -21,7 +21,6 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 import com.codename1.charts.compat.Canvas;
 import com.codename1.charts.compat.Paint;
 import com.codename1.charts.compat.Paint.Align;
@@ -270,41 +269,44 @@ public abstract class XYChart extends AbstractChart {
       // int valuesLength = originalValuesLength;
       // int length = valuesLength * 2;
 
-      List<Float> points = new ArrayList<Float>();
-      List<Double> values = new ArrayList<Double>();
+      FloatList points = new FloatList(256);
+      DoubleList values = new DoubleList(256);
       float yAxisValue = Math.min(bottom, (float) (bottom + yPixelsPerUnit[scale] * minY[scale]));
       LinkedList<ClickableArea> clickableArea = new LinkedList<ClickableArea>();
 
       clickableAreas.put(i, clickableArea);
 
       synchronized (series) {
-        SortedMap<Double, Double> range = series.getRange(minX[scale], maxX[scale],
-            seriesRenderer.isDisplayBoundingPoints());
+        // the values are read by index within the visible range rather than through a submap so
+        // nothing is boxed while the points are collected
+        boolean boundingPoints = seriesRenderer.isDisplayBoundingPoints();
+        int rangeStart = series.getRangeStart(minX[scale], boundingPoints);
+        int rangeEnd = series.getRangeEnd(maxX[scale], boundingPoints);
+        boolean decimate = isDecimationSupported(seriesRenderer);
         int startIndex = -1;
 
-        for (Double value : range.keySet()) {
-          double xValue = value;
-          Double rValue = range.get(value);
-          double yValue = rValue.doubleValue();
+        for (int index = rangeStart; index < rangeEnd; index++) {
+          double xValue = series.getX(index);
+          double yValue = series.getY(index);
           if (startIndex < 0 && (!isNullValue(yValue) || isRenderNullValues())) {
-            startIndex = series.getIndexForKey(xValue);
+            startIndex = index;
           }
 
-          // points.add((float) (left + xPixelsPerUnit[scale]
-          // * (value.getKey().floatValue() - minX[scale])));
-          // points.add((float) (bottom - yPixelsPerUnit[scale]
-          // * (value.getValue().floatValue() - minY[scale])));
-          values.add(value);
-          values.add(rValue);
-
           if (!isNullValue(yValue)) {
             points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
             points.add((float) (bottom - yPixelsPerUnit[scale] * (yValue - minY[scale])));
+            values.add(xValue);
+            values.add(yValue);
           } else if (isRenderNullValues()) {
             points.add((float) (left + xPixelsPerUnit[scale] * (xValue - minX[scale])));
             points.add((float) (bottom - yPixelsPerUnit[scale] * (-minY[scale])));
+            values.add(xValue);
+            values.add(yValue);
           } else {
             if (points.size() > 0) {
+              if (decimate) {
+                decimate(points, values, right - left);
+              }
               drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or,
                   startIndex);
               ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
@@ -338,6 +340,9 @@ public abstract class XYChart extends AbstractChart {
         }
 
         if (points.size() > 0) {
+          if (decimate) {
+            decimate(points, values, right - left);
+          }
           drawSeries(series, canvas, paint, points, seriesRenderer, yAxisValue, i, or, startIndex);
           ClickableArea[] clickableAreasForSubSeries = clickableAreasForPoints(points, values,
               yAxisValue, i, startIndex);
@@ -1012,6 +1017,81 @@ public abstract class XYChart extends AbstractChart {
     return false;
   }
 
+  /**
+   * Returns true if the points of a series can be decimated to a few points per pixel column before they
+   * are drawn. This bounds the cost of drawing a series by the width of the chart rather than the number
+   * of values, it's only valid for charts that draw a line through the points and don't render anything
+   * per point.
+   * 
+   * @param renderer the series renderer
+   * @return true if the points can be decimated, false by default
+   */
+  protected boolean isDecimationSupported(XYSeriesRenderer renderer) {
+    return false;
+  }
+
+  /**
+   * Reduces the points to the first, last, lowest and highest point within every pixel column. A line
+   * through the remaining points covers the same pixels as a line through all the points.
+   * 
+   * @param points the x and y screen coordinates of the points ordered by x
+   * @param values the x and y values of the points
+   * @param width the width of the chart in pixels
+   */
+  static void decimate(FloatList points, DoubleList values, int width) {
+    int count = points.size() / 2;
+    if (count <= Math.max(width, 1) * 4) {
+      return;
+    }
+    float[] p = points.getArray();
+    double[] v = values.getArray();
+    int out = 0;
+    int index = 0;
+    while (index < count) {
+      int column = (int) Math.floor(p[index * 2]);
+      int first = index;
+      int min = index;
+      int max = index;
+      int next = index + 1;
+      while (next < count && (int) Math.floor(p[next * 2]) == column) {
+        float y = p[next * 2 + 1];
+        if (y < p[min * 2 + 1]) {
+          min = next;
+        }
+        if (y > p[max * 2 + 1]) {
+          max = next;
+        }
+        next++;
+      }
+      int last = next - 1;
+      int low = Math.min(min, max);
+      int high = Math.max(min, max);
+
+      // the kept points are copied in their original order, the target is never ahead of the source
+      out = copyPoint(p, v, first, out);
+      if (low > first) {
+        out = copyPoint(p, v, low, out);
+      }
+      if (high > low) {
+        out = copyPoint(p, v, high, out);
+      }
+      if (last > high) {
+        out = copyPoint(p, v, last, out);
+      }
+      index = next;
+    }
+    points.setSize(out * 2);
+    values.setSize(out * 2);
+  }
+
+  private static int copyPoint(float[] p, double[] v, int from, int to) {
+    p[to * 2] = p[from * 2];
+    p[to * 2 + 1] = p[from * 2 + 1];
+    v[to * 2] = v[from * 2];
+    v[to * 2 + 1] = v[from * 2 + 1];
+    return to + 1;
+  }
+
   /**
    * Returns if the chart should display the points as a certain shape.
    * 
@@ -0,0 +1,583 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.db;
+
+import java.io.IOException;
+
+/**
+ * <p>A cursor that reads the rows of an underlying cursor in pages and keeps them in columnar arrays.
+ * Reading the values of a buffered row is a plain array access so it doesn't need to hop to the
+ * database thread of a {@link ThreadSafeDatabase} for every column. The underlying cursor is only
+ * accessed when the cursor moves past the rows in the buffer.</p>
+ *
+ * <p>Every column is read with the getter matching its declared type, one of {@link #TYPE_STRING},
+ * {@link #TYPE_LONG}, {@link #TYPE_DOUBLE} or {@link #TYPE_BLOB}. Columns without a declared type are read as
+ * strings. The row getters convert between the types when a column is read with a different getter.</p>
+ *
+ * <p>Instances are created by {@link ThreadSafeDatabase#executeBufferedQuery(java.lang.String, int[], java.lang.Object...)}
+ * and {@link ThreadSafeDatabase#executeQueryAsync(java.lang.String, int[], java.lang.Object...)}.</p>
+ */
+public class BufferedCursor implements Cursor {
+    /**
+     * The column is read with {@link Row#getString(int)}
+     */
+    public static final int TYPE_STRING = 0;
+
+    /**
+     * The column is read with {@link Row#getLong(int)}, used for integer, long, short and boolean columns
+     */
+    public static final int TYPE_LONG = 1;
+
+    /**
+     * The column is read with {@link Row#getDouble(int)}, used for double and float columns
+     */
+    public static final int TYPE_DOUBLE = 2;
+
+    /**
+     * The column is read with {@link Row#getBlob(int)}
+     */
+    public static final int TYPE_BLOB = 3;
+
+    private final ThreadSafeDatabase owner;
+    private Cursor underlying;
+    private final int[] requestedTypes;
+    private final int pageSize;
+
+    private String[] columnNames;
+    private int[] types;
+    private long[][] longs;
+    private double[][] doubles;
+    private String[][] strings;
+    private byte[][][] blobs;
+    private boolean[][] nulls;
+    private int capacity;
+
+    /**
+     * The number of rows in the buffer and the position of the first one
+     */
+    private int size;
+    private int start;
+    private int position = -1;
+
+    /**
+     * True if the underlying cursor has no rows after the ones in the buffer
+     */
+    private boolean exhausted;
+    private boolean closed;
+
+    /**
+     * Creates a buffered cursor, the pages are fetched on the database thread of the owner
+     *
+     * @param owner the database whose thread is used to access the underlying cursor or null to access it
+     * directly
+     * @param underlying the cursor from which the rows are read
+     * @param columnTypes the types of the columns or null to read all the columns as strings
+     * @param pageSize the number of rows read at once, 0 or less to read all of them at once
+     */
+    BufferedCursor(ThreadSafeDatabase owner, Cursor underlying, int[] columnTypes, int pageSize) {
+        this.owner = owner;
+        this.underlying = underlying;
+        this.requestedTypes = columnTypes;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Reads the rows after the buffer into the buffer, must be invoked on the database thread
+     */
+    void fetchNextPage() throws IOException {
+        advance(fill(false));
+    }
+
+    /**
+     * Reads all the remaining rows and releases the underlying cursor, must be invoked on the database thread
+     */
+    void fetchAll() throws IOException {
+        advance(fill(false));
+        underlying.close();
+        underlying = null;
+        exhausted = true;
+    }
+
+    /**
+     * Makes the rows that were just filled into the buffer the current page, when no rows were read
+     * the buffer still holds the last page so it's kept as is
+     */
+    private void advance(int n) {
+        if(n > 0) {
+            start += size;
+            size = n;
+        }
+    }
+
+    private void fetchAt(int row) throws IOException {
+        boolean found = underlying.position(row);
+        start = row;
+        if(found) {
+            size = fill(true);
+        } else {
+            size = 0;
+            exhausted = true;
+        }
+    }
+
+    private int fill(boolean includeCurrent) throws IOException {
+        exhausted = false;
+        int n = 0;
+        while(pageSize <= 0 || n < pageSize) {
+            if(!(includeCurrent && n == 0) && !underlying.next()) {
+                exhausted = true;
+                break;
+            }
+            if(columnNames == null) {
+                readColumns();
+            }
+            if(n == capacity) {
+                grow(Math.max(16, capacity * 2));
+            }
+            Row r = underlying.getRow();
+            int columns = types.length;
+            for(int col = 0 ; col < columns ; col++) {
+                boolean isNull;
+                switch(types[col]) {
+                    case TYPE_LONG:
+                        longs[col][n] = r.getLong(col);
+                        isNull = Database.wasNull(r);
+                        break;
+                    case TYPE_DOUBLE:
+                        doubles[col][n] = r.getDouble(col);
+                        isNull = Database.wasNull(r);
+                        break;
+                    case TYPE_BLOB:
+                        blobs[col][n] = r.getBlob(col);
+                        isNull = blobs[col][n] == null;
+                        break;
+                    default:
+                        strings[col][n] = r.getString(col);
+                        isNull = strings[col][n] == null;
+                        break;
+                }
+                nulls[col][n] = isNull;
+            }
+            n++;
+        }
+        if(columnNames == null) {
+            // empty result, the metadata might still be available
+            try {
+                readColumns();
+            } catch(IOException err) {
+                columnNames = new String[0];
+                types = new int[0];
+            }
+        }
+        return n;
+    }
+
+    private void readColumns() throws IOException {
+        int columns = underlying.getColumnCount();
+        String[] names = new String[columns];
+        for(int iter = 0 ; iter < columns ; iter++) {
+            names[iter] = underlying.getColumnName(iter);
+        }
+        types = new int[columns];
+        for(int iter = 0 ; iter < columns ; iter++) {
+            if(requestedTypes != null && iter < requestedTypes.length) {
+                types[iter] = requestedTypes[iter];
+            } else {
+                types[iter] = TYPE_STRING;
+            }
+        }
+        longs = new long[columns][];
+        doubles = new double[columns][];
+        strings = new String[columns][];
+        blobs = new byte[columns][][];
+        nulls = new boolean[columns][];
+        columnNames = names;
+        capacity = 0;
+        if(pageSize > 0) {
+            grow(pageSize);
+        }
+    }
+
+    private void grow(int newCapacity) {
+        int columns = types.length;
+        for(int col = 0 ; col < columns ; col++) {
+            boolean[] n = new boolean[newCapacity];
+            if(nulls[col] != null) {
+                System.arraycopy(nulls[col], 0, n, 0, capacity);
+            }
+            nulls[col] = n;
+            switch(types[col]) {
+                case TYPE_LONG: {
+                    long[] arr = new long[newCapacity];
+                    if(longs[col] != null) {
+                        System.arraycopy(longs[col], 0, arr, 0, capacity);
+                    }
+                    longs[col] = arr;
+                    break;
+                }
+                case TYPE_DOUBLE: {
+                    double[] arr = new double[newCapacity];
+                    if(doubles[col] != null) {
+                        System.arraycopy(doubles[col], 0, arr, 0, capacity);
+                    }
+                    doubles[col] = arr;
+                    break;
+                }
+                case TYPE_BLOB: {
+                    byte[][] arr = new byte[newCapacity][];
+                    if(blobs[col] != null) {
+                        System.arraycopy(blobs[col], 0, arr, 0, capacity);
+                    }
+                    blobs[col] = arr;
+                    break;
+                }
+                default: {
+                    String[] arr = new String[newCapacity];
+                    if(strings[col] != null) {
+                        System.arraycopy(strings[col], 0, arr, 0, capacity);
+                    }
+                    strings[col] = arr;
+                    break;
+                }
+            }
+        }
+        capacity = newCapacity;
+    }
+
+    private void fetch(final int row) throws IOException {
+        if(underlying == null) {
+            throw new IOException("Row " + row + " isn't available");
+        }
+        if(owner == null) {
+            fetchImpl(row);
+            return;
+        }
+        owner.invokeWithException(new ThreadSafeDatabase.RunnableWithIOException() {
+            public void run() throws IOException {
+                fetchImpl(row);
+            }
+        });
+    }
+
+    private void fetchImpl(int row) throws IOException {
+        if(row < 0) {
+            fetchNextPage();
+        } else {
+            fetchAt(row);
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if(closed) {
+            throw new IOException("Cursor is closed");
+        }
+    }
+
+    /**
+     * Returns the number of rows currently held in the buffer
+     *
+     * @return the number of buffered rows
+     */
+    public int getBufferedRowCount() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean first() throws IOException {
+        return position(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean last() throws IOException {
+        checkClosed();
+        while(!exhausted) {
+            fetch(-1);
+        }
+        if(size == 0) {
+            return false;
+        }
+        position = start + size - 1;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean next() throws IOException {
+        checkClosed();
+        if(position + 1 < start) {
+            return position(position + 1);
+        }
+        if(position + 1 < start + size) {
+            position++;
+            return true;
+        }
+        if(exhausted) {
+            position = start + size;
+            return false;
+        }
+        fetch(-1);
+        if(position + 1 < start + size) {
+            position++;
+            return true;
+        }
+        position = start + size;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean prev() throws IOException {
+        checkClosed();
+        if(position <= 0) {
+            position = -1;
+            return false;
+        }
+        return position(position - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getColumnIndex(String columnName) throws IOException {
+        checkClosed();
+        if(columnNames == null) {
+            return -1;
+        }
+        for(int iter = 0 ; iter < columnNames.length ; iter++) {
+            if(columnNames[iter].equalsIgnoreCase(columnName)) {
+                return iter;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getColumnName(int columnIndex) throws IOException {
+        checkClosed();
+        if(columnNames == null || columnIndex < 0 || columnIndex >= columnNames.length) {
+            return null;
+        }
+        return columnNames[columnIndex];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getColumnCount() throws IOException {
+        checkClosed();
+        if(columnNames == null) {
+            return 0;
+        }
+        return columnNames.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getPosition() throws IOException {
+        checkClosed();
+        return position;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean position(int row) throws IOException {
+        checkClosed();
+        if(row < 0) {
+            return false;
+        }
+        if(row >= start && row < start + size) {
+            position = row;
+            return true;
+        }
+        if(row >= start + size) {
+            // moving forward reads the pages in between
+            while(row >= start + size) {
+                if(exhausted) {
+                    return false;
+                }
+                fetch(-1);
+            }
+        } else {
+            fetch(row);
+            if(size == 0) {
+                return false;
+            }
+        }
+        position = row;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        final Cursor c = underlying;
+        underlying = null;
+        longs = null;
+        doubles = null;
+        strings = null;
+        blobs = null;
+        if(c != null) {
+            if(owner == null) {
+                c.close();
+            } else {
+                owner.invokeWithException(new ThreadSafeDatabase.RunnableWithIOException() {
+                    public void run() throws IOException {
+                        c.close();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Row getRow() throws IOException {
+        checkClosed();
+        if(position < start || position >= start + size) {
+            throw new IOException("The cursor isn't positioned on a row");
+        }
+        return new BufferedRow(position - start);
+    }
+
+    class BufferedRow implements RowExt {
+        private final int row;
+        private boolean lastNull;
+
+        BufferedRow(int row) {
+            this.row = row;
+        }
+
+        private int column(int index) throws IOException {
+            checkClosed();
+            if(index < 0 || index >= types.length) {
+                throw new IOException("Invalid column index: " + index);
+            }
+            lastNull = nulls[index][row];
+            return types[index];
+        }
+
+        public byte[] getBlob(int index) throws IOException {
+            switch(column(index)) {
+                case TYPE_BLOB:
+                    return blobs[index][row];
+                case TYPE_STRING:
+                    String s = strings[index][row];
+                    return s == null ? null : s.getBytes("UTF-8");
+                default:
+                    return lastNull ? null : getString(index).getBytes("UTF-8");
+            }
+        }
+
+        public double getDouble(int index) throws IOException {
+            switch(column(index)) {
+                case TYPE_DOUBLE:
+                    return doubles[index][row];
+                case TYPE_LONG:
+                    return longs[index][row];
+                case TYPE_STRING:
+                    String s = strings[index][row];
+                    if(s == null) {
+                        return 0;
+                    }
+                    try {
+                        return Double.parseDouble(s);
+                    } catch(NumberFormatException err) {
+                        return 0;
+                    }
+                default:
+                    return 0;
+            }
+        }
+
+        public float getFloat(int index) throws IOException {
+            return (float)getDouble(index);
+        }
+
+        public int getInteger(int index) throws IOException {
+            return (int)getLong(index);
+        }
+
+        public long getLong(int index) throws IOException {
+            switch(column(index)) {
+                case TYPE_LONG:
+                    return longs[index][row];
+                case TYPE_DOUBLE:
+                    return (long)doubles[index][row];
+                case TYPE_STRING:
+                    String s = strings[index][row];
+                    if(s == null) {
+                        return 0;
+                    }
+                    try {
+                        return Long.parseLong(s);
+                    } catch(NumberFormatException err) {
+                        try {
+                            return (long)Double.parseDouble(s);
+                        } catch(NumberFormatException err2) {
+                            return 0;
+                        }
+                    }
+                default:
+                    return 0;
+            }
+        }
+
+        public short getShort(int index) throws IOException {
+            return (short)getLong(index);
+        }
+
+        public String getString(int index) throws IOException {
+            switch(column(index)) {
+                case TYPE_STRING:
+                    return strings[index][row];
+                case TYPE_LONG:
+                    return lastNull ? null : String.valueOf(longs[index][row]);
+                case TYPE_DOUBLE:
+                    return lastNull ? null : String.valueOf(doubles[index][row]);
+                default:
+                    byte[] b = blobs[index][row];
+                    return b == null ? null : new String(b, "UTF-8");
+            }
+        }
+
+        public boolean wasNull() throws IOException {
+            return lastNull;
+        }
+    }
+}
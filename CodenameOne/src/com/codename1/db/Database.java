@@ -265,6 +265,21 @@ public abstract class Database {
      * @throws IOException 
      */
     public abstract Cursor executeQuery(String sql) throws IOException;
+
+    /**
+     * Compiles the given sql so it can be executed many times with different parameters. Platforms that
+     * don't support native statements return a statement that executes the sql through
+     * {@link #execute(java.lang.String, java.lang.Object...)} and {@link #executeQuery(java.lang.String, java.lang.Object...)}.
+     * The statement should be closed when it's no longer needed and before the database is closed.
+     *
+     * @param sql the sql with '?' in place of the parameters
+     * @return a statement
+     *
+     * @throws IOException if the sql couldn't be compiled
+     */
+    public PreparedStatement prepareStatement(String sql) throws IOException {
+        return new PreparedStatement(this, sql);
+    }
     
     /**
      * Checks if the last value accessed from a given row was null.  Not all platforms
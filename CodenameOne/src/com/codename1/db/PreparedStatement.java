@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.db;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>A statement that is compiled once by {@link Database#prepareStatement(java.lang.String)} and can then be
+ * executed many times with different parameters. Ports that support native statements skip parsing the
+ * SQL on every execution, on other ports the statement falls back to {@link Database#execute(java.lang.String, java.lang.Object...)}
+ * so the code remains portable.</p>
+ *
+ * <p>Executing the statement again closes any cursor returned by a previous call to {@link #executeQuery(java.lang.Object...)}
+ * on some platforms so that cursor should be closed before the statement is reused.</p>
+ */
+public class PreparedStatement {
+    private final Database db;
+    private final String sql;
+    private boolean closed;
+
+    /**
+     * Creates a statement for the given database, invoked by {@link Database#prepareStatement(java.lang.String)}
+     *
+     * @param db the database
+     * @param sql the sql with '?' in place of the parameters
+     */
+    protected PreparedStatement(Database db, String sql) {
+        this.db = db;
+        this.sql = sql;
+    }
+
+    /**
+     * Returns the sql of this statement
+     *
+     * @return the sql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the database to which this statement belongs
+     *
+     * @return the database
+     */
+    public Database getDatabase() {
+        return db;
+    }
+
+    /**
+     * Indicates whether {@link #close()} was invoked
+     *
+     * @return true if the statement is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Throws an exception if the statement was closed
+     *
+     * @throws IOException if the statement was closed
+     */
+    protected void checkClosed() throws IOException {
+        if(closed) {
+            throw new IOException("Statement is closed: " + sql);
+        }
+    }
+
+    /**
+     * Executes an update statement such as INSERT, UPDATE or DELETE
+     *
+     * @param params values for the '?' in the sql, supported object types are String, byte[], Double, Long
+     * and null
+     * @throws IOException if the statement failed
+     */
+    public void execute(Object... params) throws IOException {
+        checkClosed();
+        db.execute(sql, params);
+    }
+
+    /**
+     * Executes the statement once for every entry in the list, this is typically used within a transaction to
+     * apply many changes at once
+     *
+     * @param params the parameters for each execution
+     * @throws IOException if one of the executions failed
+     */
+    public void executeBatch(List<Object[]> params) throws IOException {
+        int size = params.size();
+        for(int iter = 0 ; iter < size ; iter++) {
+            execute(params.get(iter));
+        }
+    }
+
+    /**
+     * Executes a SELECT statement
+     *
+     * @param params values for the '?' in the sql, supported object types are String, byte[], Double, Long
+     * and null
+     * @return a cursor to iterate over the results
+     * @throws IOException if the statement failed
+     */
+    public Cursor executeQuery(Object... params) throws IOException {
+        checkClosed();
+        return db.executeQuery(sql, params);
+    }
+
+    /**
+     * Releases the native resources of the statement
+     *
+     * @throws IOException if the statement couldn't be released
+     */
+    public void close() throws IOException {
+        closed = true;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.db;
+
+import com.codename1.io.Log;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A small least recently used cache of prepared statements keyed by their sql. Code that executes the same
+ * handful of statements over and over can fetch them from the cache instead of compiling them every time.
+ * Statements that fall out of the cache are closed.
+ */
+public class StatementCache {
+    private final Database db;
+    private final int size;
+    private final HashMap<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+
+    /**
+     * The sql of the cached statements, most recently used last
+     */
+    private final ArrayList<String> order = new ArrayList<String>();
+
+    /**
+     * Creates a statement cache
+     *
+     * @param db the database for which statements are prepared
+     * @param size the maximum number of statements kept open
+     */
+    public StatementCache(Database db, int size) {
+        this.db = db;
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Returns a prepared statement for the given sql, the statement is prepared if it isn't in the cache.
+     * The statement shouldn't be closed by the caller
+     *
+     * @param sql the sql of the statement
+     * @return a prepared statement
+     * @throws IOException if the statement couldn't be prepared
+     */
+    public synchronized PreparedStatement get(String sql) throws IOException {
+        PreparedStatement s = statements.get(sql);
+        if(s != null && !s.isClosed()) {
+            int pos = order.lastIndexOf(sql);
+            if(pos != order.size() - 1) {
+                order.remove(pos);
+                order.add(sql);
+            }
+            return s;
+        }
+        if(s != null) {
+            statements.remove(sql);
+            order.remove(sql);
+        }
+        s = db.prepareStatement(sql);
+        if(order.size() >= size) {
+            String eldest = order.remove(0);
+            closeQuietly(statements.remove(eldest));
+        }
+        statements.put(sql, s);
+        order.add(sql);
+        return s;
+    }
+
+    /**
+     * Returns the number of statements in the cache
+     *
+     * @return the number of statements
+     */
+    public synchronized int getCachedStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * Closes all the cached statements, this should be invoked before the database is closed
+     */
+    public synchronized void clear() {
+        for(PreparedStatement s : statements.values()) {
+            closeQuietly(s);
+        }
+        statements.clear();
+        order.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement s) {
+        if(s != null) {
+            try {
+                s.close();
+            } catch(IOException err) {
+                Log.e(err);
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@
 package com.codename1.db;
 
 import com.codename1.io.Log;
+import com.codename1.util.AsyncResource;
 import com.codename1.util.EasyThread;
 import com.codename1.util.RunnableWithResultSync;
 import java.io.IOException;
@@ -37,6 +38,7 @@ import java.io.IOException;
 public class ThreadSafeDatabase extends Database {
     private final Database underlying;
     private final EasyThread et;
+    private int fetchSize = 256;
     
     /**
      * Wraps the given database with a threadsafe version
@@ -54,6 +56,25 @@ public class ThreadSafeDatabase extends Database {
     public EasyThread getThread() {
         return et;
     }
+
+    /**
+     * Sets the number of rows a cursor returned by {@link #executeBufferedQuery(java.lang.String, int[], java.lang.Object...)}
+     * reads in a single call to the database thread
+     * 
+     * @param fetchSize the number of rows per page, 0 or less to read the entire result at once
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns the number of rows a buffered cursor reads in a single call to the database thread
+     * 
+     * @return the number of rows per page
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
     
     
     @Override
@@ -73,7 +94,7 @@ public class ThreadSafeDatabase extends Database {
         public Object run() throws IOException;
     }
     
-    private void invokeWithException(final RunnableWithIOException r) throws IOException {
+    void invokeWithException(final RunnableWithIOException r) throws IOException {
         IOException err = et.run(new RunnableWithResultSync<IOException>() {
             public IOException run() {
                 try {
@@ -368,4 +389,71 @@ public class ThreadSafeDatabase extends Database {
             }
         });
     }    
+
+    /**
+     * Executes a query and returns a cursor that reads the rows in pages of {@link #getFetchSize()} rows.
+     * The values of the rows are read on the database thread together with the page so reading them from 
+     * the returned cursor doesn't need to wait for the database thread. Since the cursor API doesn't expose
+     * the column types they should be provided by the caller, columns are read as strings by default.
+     * 
+     * @param sql the query
+     * @param columnTypes the types of the columns in the result, see {@link BufferedCursor#TYPE_STRING}, 
+     * {@link BufferedCursor#TYPE_LONG}, {@link BufferedCursor#TYPE_DOUBLE} and {@link BufferedCursor#TYPE_BLOB}.
+     * Might be null to read all the columns as strings
+     * @param params the query arguments
+     * @return a cursor which is already positioned before the first row
+     * @throws IOException if the query failed
+     */
+    public Cursor executeBufferedQuery(final String sql, final int[] columnTypes, final Object... params) throws IOException {
+        final BufferedCursor[] curs = new BufferedCursor[1];
+        final int pageSize = fetchSize;
+        invokeWithException(new RunnableWithIOException() {
+            public void run() throws IOException {
+                Cursor c = underlying.executeQuery(sql, params);
+                BufferedCursor b = new BufferedCursor(ThreadSafeDatabase.this, c, columnTypes, pageSize);
+                try {
+                    b.fetchNextPage();
+                } catch(IOException err) {
+                    c.close();
+                    throw err;
+                }
+                curs[0] = b;
+            }
+        });
+        return curs[0];
+    }
+
+    /**
+     * Executes a query on the database thread without blocking the calling thread. The entire result is 
+     * read into memory and the underlying cursor is closed before the resource completes, so the resulting
+     * cursor can be used from any thread.
+     * 
+     * @param sql the query
+     * @param columnTypes the types of the columns in the result, see {@link #executeBufferedQuery(java.lang.String, int[], java.lang.Object...)}
+     * @param params the query arguments
+     * @return a resource that completes with the cursor or fails with the error thrown by the query
+     */
+    public AsyncResource<Cursor> executeQueryAsync(final String sql, final int[] columnTypes, final Object... params) {
+        final AsyncResource<Cursor> res = new AsyncResource<Cursor>();
+        et.run(new Runnable() {
+            public void run() {
+                BufferedCursor b;
+                try {
+                    Cursor c = underlying.executeQuery(sql, params);
+                    b = new BufferedCursor(null, c, columnTypes, 0);
+                    try {
+                        b.fetchAll();
+                    } catch(IOException err) {
+                        c.close();
+                        throw err;
+                    }
+                } catch(Throwable t) {
+                    res.error(t);
+                    return;
+                }
+                res.complete(b);
+            }
+        });
+        return res;
+    }
 }
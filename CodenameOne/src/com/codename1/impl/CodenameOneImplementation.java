@@ -582,7 +582,83 @@ public abstract class CodenameOneImplementation {
      * a rectangle each time it is called.
      */
     private Rectangle paintDirtyTmpRect = new Rectangle();
-    
+
+    /**
+     * The damage regions of the current frame, each region is painted by painting its owner clipped
+     * to the region
+     */
+    private Component[] damageOwner = new Component[16];
+    private int[] damageX = new int[16];
+    private int[] damageY = new int[16];
+    private int[] damageW = new int[16];
+    private int[] damageH = new int[16];
+    private int[] damageDepth = new int[16];
+    private int damageCount;
+
+    /**
+     * The bounds flushed at the end of the frame as top x, top y, bottom x and bottom y
+     */
+    private final int[] flushBounds = new int[4];
+
+    private boolean coalesceRepaints = true;
+    private boolean countPaints;
+    private int framePaintedComponents;
+    private int framePaintedPixels;
+    private int frameDamageRegions;
+    private int paintedComponents;
+    private int paintedPixels;
+    private int damageRegions;
+
+    /**
+     * Indicates whether paintDirty merges the components queued for repaint into damage regions. When
+     * true the queued descendants of a queued component are dropped and overlapping regions are painted
+     * once by painting their common ancestor. When false every queued component is painted separately.
+     *
+     * @param coalesceRepaints true to coalesce the repaints, this is the default
+     */
+    public void setCoalesceRepaints(boolean coalesceRepaints) {
+        this.coalesceRepaints = coalesceRepaints;
+    }
+
+    /**
+     * Indicates whether paintDirty merges the components queued for repaint into damage regions
+     *
+     * @return true if repaints are coalesced
+     */
+    public boolean isCoalesceRepaints() {
+        return coalesceRepaints;
+    }
+
+    /**
+     * Returns the number of components painted by the last frame of paintDirty, a component painted more
+     * than once within the frame is counted every time
+     *
+     * @return the number of component paints
+     */
+    public int getPaintedComponents() {
+        return paintedComponents;
+    }
+
+    /**
+     * Returns the number of pixels covered by the clip regions painted in the last frame of paintDirty,
+     * pixels painted more than once are counted every time. Frames that paint an animation that isn't
+     * a component are counted as painting the entire display.
+     *
+     * @return the number of painted pixels
+     */
+    public int getPaintedPixels() {
+        return paintedPixels;
+    }
+
+    /**
+     * Returns the number of regions painted separately by the last frame of paintDirty
+     *
+     * @return the number of regions
+     */
+    public int getDamageRegionCount() {
+        return damageRegions;
+    }
+
     /**
      * Invoked by the EDT to paint the dirty regions
      */
@@ -599,52 +675,329 @@ public abstract class CodenameOneImplementation {
             Graphics wrapper = getCodenameOneGraphics();
             int dwidth = getDisplayWidth();
             int dheight = getDisplayHeight();
-            int topX = dwidth;
-            int topY = dheight;
-            int bottomX = 0;
-            int bottomY = 0;
-            for (int iter = 0; iter < size; iter++) {
-                Animation ani = paintQueueTemp[iter];
-                
-                // might happen due to paint queue removal
-                if(ani == null) {
-                    continue;
-                }
-                paintQueueTemp[iter] = null;
-                wrapper.translate(-wrapper.getTranslateX(), -wrapper.getTranslateY());
-                wrapper.resetAffine();
-                wrapper.setClip(0, 0, dwidth, dheight);
-                if (ani instanceof Component) {
-                    Component cmp = (Component) ani;
-                    Rectangle dirty = cmp.getDirtyRegion();
-                    if (dirty != null) {
-                        Dimension d = dirty.getSize();
-                        wrapper.setClip(dirty.getX(), dirty.getY(), d.getWidth(), d.getHeight());
-                        cmp.setDirtyRegion(null);
+            flushBounds[0] = dwidth;
+            flushBounds[1] = dheight;
+            flushBounds[2] = 0;
+            flushBounds[3] = 0;
+            framePaintedComponents = 0;
+            framePaintedPixels = 0;
+            frameDamageRegions = 0;
+            countPaints = true;
+            try {
+                // animations that aren't components paint on top of the queued components so the components
+                // queued before such an animation are painted before it
+                int segmentStart = 0;
+                for (int iter = 0; iter < size; iter++) {
+                    Animation ani = paintQueueTemp[iter];
+                    if(ani == null || ani instanceof Component) {
+                        continue;
                     }
-                    cmp.paintComponent(wrapper);
-                    getPaintableBounds(cmp, paintDirtyTmpRect);
-                    int cmpAbsX = paintDirtyTmpRect.getX();
-                    topX = Math.min(cmpAbsX, topX);
-                    bottomX = Math.max(cmpAbsX + paintDirtyTmpRect.getWidth(), bottomX);
-                    int cmpAbsY = paintDirtyTmpRect.getY();
-                    topY = Math.min(cmpAbsY, topY);
-                    bottomY = Math.max(cmpAbsY + paintDirtyTmpRect.getHeight(), bottomY);
-                } else {
-                    bottomX = dwidth;
-                    bottomY = dheight;
-                    topX = 0;
-                    topY = 0;
+                    paintComponents(wrapper, segmentStart, iter, dwidth, dheight);
+                    segmentStart = iter + 1;
+                    paintQueueTemp[iter] = null;
+                    resetPaintGraphics(wrapper, dwidth, dheight);
+                    flushBounds[0] = 0;
+                    flushBounds[1] = 0;
+                    flushBounds[2] = dwidth;
+                    flushBounds[3] = dheight;
+                    framePaintedPixels += dwidth * dheight;
+                    frameDamageRegions++;
                     ani.paint(wrapper);
                 }
+                paintComponents(wrapper, segmentStart, size, dwidth, dheight);
+            } finally {
+                countPaints = false;
             }
+            paintedComponents = framePaintedComponents;
+            paintedPixels = framePaintedPixels;
+            damageRegions = frameDamageRegions;
 
             paintOverlay(wrapper);
+            int topX = flushBounds[0];
+            int topY = flushBounds[1];
+            int bottomX = flushBounds[2];
+            int bottomY = flushBounds[3];
             //Log.p("Flushing graphics : "+topX+","+topY+","+bottomX+","+bottomY);
             flushGraphics(topX, topY, bottomX - topX, bottomY - topY);
         }
     }
 
+    private void resetPaintGraphics(Graphics wrapper, int dwidth, int dheight) {
+        wrapper.translate(-wrapper.getTranslateX(), -wrapper.getTranslateY());
+        wrapper.resetAffine();
+        wrapper.setClip(0, 0, dwidth, dheight);
+    }
+
+    private void addFlushBounds(int x, int y, int w, int h) {
+        flushBounds[0] = Math.min(x, flushBounds[0]);
+        flushBounds[1] = Math.min(y, flushBounds[1]);
+        flushBounds[2] = Math.max(x + w, flushBounds[2]);
+        flushBounds[3] = Math.max(y + h, flushBounds[3]);
+    }
+
+    /**
+     * Paints the components queued between the given offsets of the paint queue
+     */
+    private void paintComponents(Graphics wrapper, int start, int end, int dwidth, int dheight) {
+        if(!coalesceRepaints) {
+            for (int iter = start; iter < end; iter++) {
+                Component cmp = (Component)paintQueueTemp[iter];
+                if(cmp == null) {
+                    continue;
+                }
+                paintQueueTemp[iter] = null;
+                resetPaintGraphics(wrapper, dwidth, dheight);
+                Rectangle dirty = cmp.getDirtyRegion();
+                if (dirty != null) {
+                    Dimension d = dirty.getSize();
+                    wrapper.setClip(dirty.getX(), dirty.getY(), d.getWidth(), d.getHeight());
+                    cmp.setDirtyRegion(null);
+                }
+                getPaintableBounds(cmp, paintDirtyTmpRect);
+                int clipX = wrapper.getClipX();
+                int clipY = wrapper.getClipY();
+                int w = Math.min(clipX + wrapper.getClipWidth(), paintDirtyTmpRect.getX() + paintDirtyTmpRect.getWidth()) - Math.max(clipX, paintDirtyTmpRect.getX());
+                int h = Math.min(clipY + wrapper.getClipHeight(), paintDirtyTmpRect.getY() + paintDirtyTmpRect.getHeight()) - Math.max(clipY, paintDirtyTmpRect.getY());
+                if(w > 0 && h > 0) {
+                    framePaintedPixels += w * h;
+                }
+                frameDamageRegions++;
+                cmp.paintComponent(wrapper);
+                addFlushBounds(paintDirtyTmpRect.getX(), paintDirtyTmpRect.getY(), paintDirtyTmpRect.getWidth(), paintDirtyTmpRect.getHeight());
+            }
+            return;
+        }
+        collectDamage(start, end, dwidth, dheight);
+        for(int iter = 0 ; iter < damageCount ; iter++) {
+            resetPaintGraphics(wrapper, dwidth, dheight);
+            wrapper.setClip(damageX[iter], damageY[iter], damageW[iter], damageH[iter]);
+            framePaintedPixels += damageW[iter] * damageH[iter];
+            frameDamageRegions++;
+            damageOwner[iter].paintComponent(wrapper);
+            damageOwner[iter] = null;
+            addFlushBounds(damageX[iter], damageY[iter], damageW[iter], damageH[iter]);
+        }
+        damageCount = 0;
+    }
+
+    /**
+     * Converts the queued components into damage regions. Components whose region is within the region of
+     * a queued ancestor are dropped and regions whose union doesn't exceed their combined area are merged
+     * into a region owned by their common ancestor. The regions are sorted so ancestors paint first.
+     */
+    private void collectDamage(int start, int end, int dwidth, int dheight) {
+        damageCount = 0;
+        for (int iter = start; iter < end; iter++) {
+            Component cmp = (Component)paintQueueTemp[iter];
+            if(cmp == null) {
+                continue;
+            }
+            paintQueueTemp[iter] = null;
+            Rectangle dirty = cmp.getDirtyRegion();
+            if (dirty != null) {
+                cmp.setDirtyRegion(null);
+            }
+            if(!cmp.isVisible()) {
+                cmp.clearPendingRepaint();
+                continue;
+            }
+
+            // the clip paintComponent would use: the component bounds within the bounds of its parents
+            int x = cmp.getAbsoluteX();
+            int y = cmp.getAbsoluteY();
+            int x2 = x + cmp.getWidth();
+            int y2 = y + cmp.getHeight();
+            if(cmp.getParent() != null) {
+                getPaintableBounds(cmp.getParent(), paintDirtyTmpRect);
+                x = Math.max(x, paintDirtyTmpRect.getX());
+                y = Math.max(y, paintDirtyTmpRect.getY());
+                x2 = Math.min(x2, paintDirtyTmpRect.getX() + paintDirtyTmpRect.getWidth());
+                y2 = Math.min(y2, paintDirtyTmpRect.getY() + paintDirtyTmpRect.getHeight());
+            }
+            if (dirty != null) {
+                x = Math.max(x, dirty.getX());
+                y = Math.max(y, dirty.getY());
+                x2 = Math.min(x2, dirty.getX() + dirty.getSize().getWidth());
+                y2 = Math.min(y2, dirty.getY() + dirty.getSize().getHeight());
+            }
+            x = Math.max(x, 0);
+            y = Math.max(y, 0);
+            x2 = Math.min(x2, dwidth);
+            y2 = Math.min(y2, dheight);
+            if(x2 <= x || y2 <= y) {
+                cmp.clearPendingRepaint();
+                continue;
+            }
+            if(damageCount == damageOwner.length) {
+                growDamage();
+            }
+            damageOwner[damageCount] = cmp;
+            damageX[damageCount] = x;
+            damageY[damageCount] = y;
+            damageW[damageCount] = x2 - x;
+            damageH[damageCount] = y2 - y;
+            damageDepth[damageCount] = depthOf(cmp);
+            damageCount++;
+        }
+
+        // drop the regions of components whose queued ancestor already covers them
+        for(int iter = 0 ; iter < damageCount ; iter++) {
+            for(int other = 0 ; other < damageCount ; other++) {
+                if(other != iter && damageDepth[other] < damageDepth[iter] && 
+                        isAncestor(damageOwner[other], damageOwner[iter], damageDepth[iter] - damageDepth[other]) &&
+                        containsDamage(other, iter)) {
+                    damageOwner[iter].clearPendingRepaint();
+                    removeDamage(iter);
+                    iter--;
+                    break;
+                }
+            }
+        }
+
+        // merge regions as long as the merged region isn't larger than the regions it replaces
+        boolean merged = true;
+        while(merged) {
+            merged = false;
+            for(int a = 0 ; a < damageCount && !merged ; a++) {
+                for(int b = a + 1 ; b < damageCount ; b++) {
+                    int ux = Math.min(damageX[a], damageX[b]);
+                    int uy = Math.min(damageY[a], damageY[b]);
+                    int ux2 = Math.max(damageX[a] + damageW[a], damageX[b] + damageW[b]);
+                    int uy2 = Math.max(damageY[a] + damageH[a], damageY[b] + damageH[b]);
+                    long unionArea = ((long)(ux2 - ux)) * (uy2 - uy);
+                    if(unionArea > ((long)damageW[a]) * damageH[a] + ((long)damageW[b]) * damageH[b]) {
+                        continue;
+                    }
+                    Component owner = commonAncestor(a, b);
+                    if(owner == null) {
+                        continue;
+                    }
+                    if(owner != damageOwner[a]) {
+                        damageOwner[a].clearPendingRepaint();
+                    }
+                    if(owner != damageOwner[b]) {
+                        damageOwner[b].clearPendingRepaint();
+                    }
+                    damageDepth[a] = depthOf(owner);
+                    damageOwner[a] = owner;
+                    damageX[a] = ux;
+                    damageY[a] = uy;
+                    damageW[a] = ux2 - ux;
+                    damageH[a] = uy2 - uy;
+                    removeDamage(b);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+
+        // ancestors first so a region painted later isn't painted over by a region of its ancestor
+        for(int iter = 1 ; iter < damageCount ; iter++) {
+            int current = iter;
+            while(current > 0 && damageDepth[current - 1] > damageDepth[current]) {
+                swapDamage(current - 1, current);
+                current--;
+            }
+        }
+    }
+
+    private void growDamage() {
+        int newSize = damageOwner.length * 2;
+        Component[] owners = new Component[newSize];
+        System.arraycopy(damageOwner, 0, owners, 0, damageCount);
+        damageOwner = owners;
+        damageX = growArray(damageX, newSize);
+        damageY = growArray(damageY, newSize);
+        damageW = growArray(damageW, newSize);
+        damageH = growArray(damageH, newSize);
+        damageDepth = growArray(damageDepth, newSize);
+    }
+
+    private int[] growArray(int[] arr, int newSize) {
+        int[] n = new int[newSize];
+        System.arraycopy(arr, 0, n, 0, damageCount);
+        return n;
+    }
+
+    private void removeDamage(int index) {
+        damageCount--;
+        damageOwner[index] = damageOwner[damageCount];
+        damageX[index] = damageX[damageCount];
+        damageY[index] = damageY[damageCount];
+        damageW[index] = damageW[damageCount];
+        damageH[index] = damageH[damageCount];
+        damageDepth[index] = damageDepth[damageCount];
+        damageOwner[damageCount] = null;
+    }
+
+    private void swapDamage(int a, int b) {
+        Component c = damageOwner[a];
+        damageOwner[a] = damageOwner[b];
+        damageOwner[b] = c;
+        int t = damageX[a];
+        damageX[a] = damageX[b];
+        damageX[b] = t;
+        t = damageY[a];
+        damageY[a] = damageY[b];
+        damageY[b] = t;
+        t = damageW[a];
+        damageW[a] = damageW[b];
+        damageW[b] = t;
+        t = damageH[a];
+        damageH[a] = damageH[b];
+        damageH[b] = t;
+        t = damageDepth[a];
+        damageDepth[a] = damageDepth[b];
+        damageDepth[b] = t;
+    }
+
+    private boolean containsDamage(int outer, int inner) {
+        return damageX[inner] >= damageX[outer] && damageY[inner] >= damageY[outer] &&
+                damageX[inner] + damageW[inner] <= damageX[outer] + damageW[outer] &&
+                damageY[inner] + damageH[inner] <= damageY[outer] + damageH[outer];
+    }
+
+    private static int depthOf(Component cmp) {
+        int depth = 0;
+        Container parent = cmp.getParent();
+        while(parent != null) {
+            depth++;
+            parent = parent.getParent();
+        }
+        return depth;
+    }
+
+    private static boolean isAncestor(Component ancestor, Component cmp, int distance) {
+        Component c = cmp;
+        for(int iter = 0 ; iter < distance && c != null ; iter++) {
+            c = c.getParent();
+        }
+        return c == ancestor;
+    }
+
+    private Component commonAncestor(int a, int b) {
+        Component ca = damageOwner[a];
+        Component cb = damageOwner[b];
+        int da = damageDepth[a];
+        int db = damageDepth[b];
+        while(da > db) {
+            ca = ca.getParent();
+            da--;
+        }
+        while(db > da) {
+            cb = cb.getParent();
+            db--;
+        }
+        while(ca != cb) {
+            if(ca == null || cb == null) {
+                return null;
+            }
+            ca = ca.getParent();
+            cb = cb.getParent();
+        }
+        return ca;
+    }
+
     /**
      * This method is a callback from the edt before the edt enters to an idle 
      * state
@@ -4847,6 +5200,43 @@ public abstract class CodenameOneImplementation {
      */ 
     public void setChunkedStreamingMode(Object connection, int bufferLen){    
     }
+
+    /**
+     * This method is used to stream a HTTP request body whose length is known in advance without 
+     * buffering the whole body in memory. The body must be exactly the given length.
+     * This mode is supported on Android and the Desktop ports.
+     * 
+     * @param connection the connection object
+     * @param contentLength the number of bytes in the request body
+     */ 
+    public void setFixedLengthStreamingMode(Object connection, long contentLength){    
+    }
+
+    /**
+     * Allows a port to decompress deflate streams with a native implementation instead of the
+     * portable JZlib code in {@code com.codename1.io.gzip}. 
+     * 
+     * @param in the compressed stream
+     * @param gzip true for a gzip stream, false for a zlib stream
+     * @return a decompressing stream or null to use the portable implementation
+     * @throws IOException if reading the stream header failed
+     */ 
+    public InputStream createInflaterInputStream(InputStream in, boolean gzip) throws IOException {
+        return null;
+    }
+
+    /**
+     * Allows a port to compress deflate streams with a native implementation instead of the
+     * portable JZlib code in {@code com.codename1.io.gzip}. 
+     * 
+     * @param out the destination of the compressed data
+     * @param gzip true to write a gzip stream, false to write a zlib stream
+     * @return a compressing stream or null to use the portable implementation
+     * @throws IOException if writing the stream header failed
+     */ 
+    public OutputStream createDeflaterOutputStream(OutputStream out, boolean gzip) throws IOException {
+        return null;
+    }
     
     /**
      * Closes the object (connection, stream etc.) without throwing any exception, even if the
@@ -5009,6 +5399,28 @@ public abstract class CodenameOneImplementation {
      */
     public abstract String[] getHeaderFields(String name, Object connection) throws IOException;
 
+    /**
+     * Invoked by the network manager when the connection pool settings change so the implementation can
+     * tune the keep-alive behavior of its HTTP stack. The default implementation does nothing.
+     *
+     * @param maxConnectionsPerHost the maximum number of concurrent connections to a single host, 0 for no limit
+     * @param idleTimeout the time in milliseconds after which an idle keep-alive connection should be closed,
+     * -1 for the platform default
+     */
+    public void setConnectionPoolConfiguration(int maxConnectionsPerHost, int idleTimeout) {
+    }
+
+    /**
+     * Returns the number of physical connections opened to the given host so far, this is used for the
+     * connection pool metrics in {@link com.codename1.io.NetworkEvent#PROGRESS_TYPE_CONNECTION_POOL} events
+     *
+     * @param host the host in the form host:port
+     * @return the number of connections opened or -1 if the implementation doesn't track this
+     */
+    public int getOpenedConnectionCount(String host) {
+        return -1;
+    }
+
     /**
      * Indicates whether the underlying implementation supports the notion of a network operation
      * timeout. If not timeout is "faked"
@@ -6063,6 +6475,14 @@ public abstract class CodenameOneImplementation {
      * @param c the component about to be painted
      */
     public void beforeComponentPaint(Component c, Graphics g) {
+        if(countPaints && c.getWidth() > 0 && c.getHeight() > 0) {
+            int clipX = g.getClipX();
+            int clipY = g.getClipY();
+            if(c.getX() < clipX + g.getClipWidth() && c.getX() + c.getWidth() > clipX && 
+                    c.getY() < clipY + g.getClipHeight() && c.getY() + c.getHeight() > clipY) {
+                framePaintedComponents++;
+            }
+        }
     }
 
     /**
@@ -25,9 +25,12 @@
 package com.codename1.io;
 
 import com.codename1.ui.Display;
-import java.io.IOException;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Vector;
 
 /**
@@ -37,29 +40,121 @@ import java.util.Vector;
  * A cache hit is made both on fetching and putting, hence frequently fetched elements
  * will never be removed from a sufficiently large cache.
  * Cache can work purely in memory or swap data into storage based on user definitions.
- * Notice that this class isn't threadsafe.
+ * Entries are kept in access order so promotion and eviction are constant time operations,
+ * the memory cache can optionally be bounded by weight (e.g. bytes) in addition to the
+ * number of elements.
+ * The cache synchronizes on itself so a single instance can be shared between threads.
  *
  * @author Shai Almog
  */
 public class CacheMap {
     private int cacheSize = 10;
-    private Hashtable memoryCache = new Hashtable();
+    private long maxCacheWeight;
+    private long cacheWeight;
+    private LinkedHashMap memoryCache = new LinkedHashMap(16, 0.75f, true);
     private Hashtable weakCache = new Hashtable();
 
     private int storageCacheSize = 0;
-    private Vector storageCacheContentVec;
+    private LinkedHashMap storageIndex;
+    private boolean storageIndexDirty;
+    private boolean storageIndexFlushPending;
     private String cachePrefix = "";
     private boolean alwaysStore;
-    private int storageKey = -1;
     
-    private Vector getStorageCacheContent() {
-        if(storageCacheContentVec == null) {
-            storageCacheContentVec = (Vector)Storage.getInstance().readObject("$CACHE$Idx" + cachePrefix);
-            if(storageCacheContentVec == null) {
-                storageCacheContentVec = new Vector();
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    /**
+     * An entry in the memory cache
+     */
+    static class Entry {
+        Object value;
+        long lastAccess;
+        long weight;
+    }
+
+    /**
+     * The storage index maps keys to the last access time in LRU order, it's persisted as a
+     * vector of {time, key} arrays for compatibility with older versions of the cache
+     */
+    private synchronized LinkedHashMap getStorageIndex() {
+        if(storageIndex == null) {
+            storageIndex = new LinkedHashMap(16, 0.75f, true);
+            Vector v = (Vector)Storage.getInstance().readObject("$CACHE$Idx" + cachePrefix);
+            if(v != null) {
+                ArrayList entries = new ArrayList();
+                int s = v.size();
+                for(int iter = 0 ; iter < s ; iter++) {
+                    Object[] obj = (Object[])v.elementAt(iter);
+                    // older versions marked deleted entries with a Long.MIN_VALUE key
+                    if(!(obj[1] instanceof Long && ((Long)obj[1]).longValue() == Long.MIN_VALUE)) {
+                        entries.add(obj);
+                    }
+                }
+                Collections.sort(entries, new Comparator() {
+                    public int compare(Object o1, Object o2) {
+                        long l1 = ((Long)((Object[])o1)[0]).longValue();
+                        long l2 = ((Long)((Object[])o2)[0]).longValue();
+                        return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+                    }
+                });
+                s = entries.size();
+                for(int iter = 0 ; iter < s ; iter++) {
+                    Object[] obj = (Object[])entries.get(iter);
+                    storageIndex.put(obj[1], obj[0]);
+                }
             }
         }
-        return storageCacheContentVec;
+        return storageIndex;
+    }
+    
+    /**
+     * Marks the storage index as modified, the index is written once per EDT cycle so a burst
+     * of cache operations results in a single write
+     */
+    private synchronized void storageIndexChanged() {
+        storageIndexDirty = true;
+        if(!storageIndexFlushPending) {
+            if(Display.isInitialized()) {
+                storageIndexFlushPending = true;
+                Display.getInstance().callSerially(new Runnable() {
+                    public void run() {
+                        flushStorageIndex();
+                    }
+                });
+            } else {
+                flushStorageIndex();
+            }
+        }
+    }
+
+    /**
+     * Writes the storage index immediately if it has pending changes. The index is normally
+     * written automatically after a batch of changes, this method is useful before the app exits
+     */
+    public void flushStorageIndex() {
+        Vector v;
+        synchronized(this) {
+            storageIndexFlushPending = false;
+            if(!storageIndexDirty || storageIndex == null) {
+                return;
+            }
+            storageIndexDirty = false;
+            v = new Vector(storageIndex.size());
+            Iterator it = storageIndex.keySet().iterator();
+            while(it.hasNext()) {
+                Object key = it.next();
+                // the index is access ordered, get would reorder it while we iterate
+                v.addElement(new Object[] {null, key});
+            }
+            int s = v.size();
+            for(int iter = 0 ; iter < s ; iter++) {
+                Object[] obj = (Object[])v.elementAt(iter);
+                obj[0] = storageIndex.get(obj[1]);
+            }
+        }
+        Storage.getInstance().writeObject("$CACHE$Idx" + cachePrefix, v);
     }
     
     /**
@@ -99,62 +194,155 @@ public class CacheMap {
         this.cacheSize = cacheSize;
     }
 
+    /**
+     * Indicates the total weight of the memory cache after which the least recently used entries are
+     * evicted, the weight of an entry is determined by {@link #weigh(java.lang.Object, java.lang.Object)}.
+     * 0 (the default) means the cache is only bounded by the number of elements.
+     *
+     * @return the maximum weight or 0 for no weight limit
+     */
+    public long getMaxCacheWeight() {
+        return maxCacheWeight;
+    }
+
+    /**
+     * Indicates the total weight of the memory cache after which the least recently used entries are
+     * evicted, the weight of an entry is determined by {@link #weigh(java.lang.Object, java.lang.Object)}.
+     * 0 (the default) means the cache is only bounded by the number of elements.
+     *
+     * @param maxCacheWeight the maximum weight or 0 for no weight limit
+     */
+    public void setMaxCacheWeight(long maxCacheWeight) {
+        this.maxCacheWeight = maxCacheWeight;
+    }
+
+    /**
+     * Returns the current total weight of the entries in the memory cache
+     *
+     * @return the weight of the memory cache
+     */
+    public synchronized long getCacheWeight() {
+        return cacheWeight;
+    }
+
+    /**
+     * Returns the weight of an entry when a maximum cache weight is set, by default the weight of
+     * a byte array is its length, the weight of a String is its length and other objects weigh 1.
+     * Subclasses can override this to provide a more accurate size e.g. for images.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @return the weight of the entry
+     */
+    protected long weigh(Object key, Object value) {
+        if(value instanceof byte[]) {
+            return ((byte[])value).length;
+        }
+        if(value instanceof String) {
+            return ((String)value).length();
+        }
+        return 1;
+    }
+
+    /**
+     * The number of times get returned a value
+     *
+     * @return the hit count
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of times get returned null
+     *
+     * @return the miss count
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The number of entries evicted from the memory cache due to its size or weight limit
+     *
+     * @return the eviction count
+     */
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
     /**
      * Puts the given key/value pair in the cache
      *
      * @param key the key
      * @param value the value
      */
-    public void put(Object key, Object value) {
-        if(cacheSize <= memoryCache.size()) {
-            // we need to find the oldest entry
-            Enumeration e = memoryCache.keys();
-            long oldest = System.currentTimeMillis();
-            Object oldestKey = null;
-            Object[] oldestValue = null;
-            while(e.hasMoreElements()) {
-                Object currentKey = e.nextElement();
-                Object[] currentValue = (Object[])memoryCache.get(currentKey);
-                long currentAge = ((Long)currentValue[0]).longValue();
-                if(currentAge <= oldest || oldestValue == null) {
-                    oldest = currentAge;
-                    oldestKey = currentKey;
-                    oldestValue = currentValue;
-                }
-            }
-            placeInStorageCache(oldestKey, oldest, oldestValue[1]);
-            weakCache.put(oldestKey, Display.getInstance().createSoftWeakRef(oldestValue[1]));
-            memoryCache.remove(oldestKey);
-        }
+    public synchronized void put(Object key, Object value) {
         long lastAccess = System.currentTimeMillis();
-        memoryCache.put(key, new Object[]{new Long(lastAccess), value});
+        Entry e = new Entry();
+        e.value = value;
+        e.lastAccess = lastAccess;
+        if(maxCacheWeight > 0) {
+            e.weight = weigh(key, value);
+        }
+        Entry old = (Entry)memoryCache.put(key, e);
+        if(old != null) {
+            cacheWeight -= old.weight;
+        }
+        cacheWeight += e.weight;
+        evict();
         if(alwaysStore) {
             placeInStorageCache(key, lastAccess, value);
         }
     }
 
+    private void evict() {
+        while(memoryCache.size() > cacheSize || (maxCacheWeight > 0 && cacheWeight > maxCacheWeight && memoryCache.size() > 1)) {
+            // the map is in access order so the first entry is the least recently used
+            Iterator it = memoryCache.keySet().iterator();
+            Object oldestKey = it.next();
+            Entry oldest = (Entry)memoryCache.remove(oldestKey);
+            cacheWeight -= oldest.weight;
+            evictionCount++;
+            placeInStorageCache(oldestKey, oldest.lastAccess, oldest.value);
+            weakCache.put(oldestKey, Display.getInstance().createSoftWeakRef(oldest.value));
+        }
+    }
+
 
     /**
      * Deletes a cached entry
      * 
      * @param key entry to remove from the cache
      */
-    public void delete(Object key) {
-        memoryCache.remove(key);
+    public synchronized void delete(Object key) {
+        Entry e = (Entry)memoryCache.remove(key);
+        if(e != null) {
+            cacheWeight -= e.weight;
+        }
         weakCache.remove(key);
-        Vector storageCacheContent = getStorageCacheContent();
-        int s = storageCacheContent.size();
-        for(int iter = 0 ; iter < s ; iter++) {
-            Object[] obj = (Object[])storageCacheContent.elementAt(iter);
-            if(obj[1].equals(key)) {
-                Storage.getInstance().deleteStorageFile("$CACHE$" + cachePrefix + key.toString());
-                obj[0] = new Long(Long.MIN_VALUE);
-                obj[1] = obj[0];                
-                Storage.getInstance().writeObject("$CACHE$Idx" + cachePrefix, storageCacheContent);
-                return;
-            }
+        if(removeFromStorageIndex(key)) {
+            Storage.getInstance().deleteStorageFile("$CACHE$" + cachePrefix + key.toString());
+            storageIndexChanged();
         }
     }
+
+    private synchronized boolean removeFromStorageIndex(Object key) {
+        return getStorageIndex().remove(key) != null;
+    }
+
+    private synchronized boolean touchStorageIndex(Object key) {
+        return getStorageIndex().get(key) != null;
+    }
     
     /**
      * Returns the object matching the given key
@@ -162,36 +350,35 @@ public class CacheMap {
      * @param key key object
      * @return value from a previous put or null
      */
-    public Object get(Object key) {
-        Object[] o = (Object[])memoryCache.get(key);
-        if(o != null) {
-            return o[1];
+    public synchronized Object get(Object key) {
+        Entry e = (Entry)memoryCache.get(key);
+        if(e != null) {
+            e.lastAccess = System.currentTimeMillis();
+            hitCount++;
+            return e.value;
         }
         Object ref = weakCache.get(key);
         if(ref != null) {
             ref = Display.getInstance().extractHardRef(ref);
             if(ref != null) {
                 // cache hit! Promote it to the hard cache again
+                weakCache.remove(key);
+                hitCount++;
                 put(key, ref);
                 return ref;
             }
         }
-        if(storageCacheSize > 0) {
-            Vector storageCacheContent = getStorageCacheContent();
-            for(int iter = 0 ; iter < storageCacheContent.size() ; iter++) {
-                Object[] obj = (Object[])storageCacheContent.elementAt(iter);
-                if(obj[1].equals(key)) {
-                    // place the object back into the memory cache and return the value
-                    Vector v = (Vector)Storage.getInstance().readObject("$CACHE$" + cachePrefix + key.toString());
-                    if(v != null) {
-                        Object val = v.elementAt(0);
-                        put(key, val);
-                        return val;
-                    }
-                    return null;
-                }
+        if(storageCacheSize > 0 && touchStorageIndex(key)) {
+            // place the object back into the memory cache and return the value
+            Vector v = (Vector)Storage.getInstance().readObject("$CACHE$" + cachePrefix + key.toString());
+            if(v != null) {
+                Object val = v.elementAt(0);
+                hitCount++;
+                put(key, val);
+                return val;
             }
         }
+        missCount++;
         return null;
     }
 
@@ -206,65 +393,37 @@ public class CacheMap {
     /**
      * Clears the memory cache
      */
-    public void clearMemoryCache() {
+    public synchronized void clearMemoryCache() {
         memoryCache.clear();
         weakCache.clear();
+        cacheWeight = 0;
     }
 
     private void placeInStorageCache(Object key, long lastAccessed, Object value) {
         if(storageCacheSize < 1) {
             return;
         }
-
-        Vector storageCacheContent = getStorageCacheContent();
-        int vecSize = storageCacheContent.size();
-
-        // find the best place
-        for(int iter = 0 ; iter < vecSize ; iter++) {
-            Object[] index = (Object[])storageCacheContent.elementAt(iter);
-            Object indexKey = index[1];
-            if(indexKey.equals(key)) {
-                // already in storage just update the data
-                placeInStorageCache(iter, key, lastAccessed, value);
-                return;
+        Object evicted = null;
+        synchronized(this) {
+            LinkedHashMap index = getStorageIndex();
+            if(!index.containsKey(key) && index.size() >= storageCacheSize) {
+                Iterator it = index.keySet().iterator();
+                evicted = it.next();
+                index.remove(evicted);
             }
+            index.put(key, new Long(lastAccessed));
         }
-        
-        if(storageCacheContent.size() < storageCacheSize) {
-            placeInStorageCache(storageCacheContent.size(), key, lastAccessed, value);
-        } else {
-            long smallest = Long.MAX_VALUE;
-            int offset = 0;
-
-            // find the best place
-            for(int iter = 0 ; iter < vecSize ; iter++) {
-                Object[] index = (Object[])storageCacheContent.elementAt(iter);
-                long current = ((Long)index[0]).longValue();
-                if(smallest > current) {
-                    smallest = current;
-                    offset = iter;
-                }
-            }
-            placeInStorageCache(offset, key, lastAccessed, value);
+        if(evicted != null) {
+            Storage.getInstance().deleteStorageFile("$CACHE$" + cachePrefix + evicted.toString());
         }
-    }
-
-    private void placeInStorageCache(int offset, Object key, long lastAccessed, Object value) {
         Vector v = new Vector();
         v.addElement(value);
-        Long l = new Long(lastAccessed);
-        v.addElement(l);
+        v.addElement(new Long(lastAccessed));
         v.addElement(key);
         Storage.getInstance().writeObject("$CACHE$" + cachePrefix + key.toString(), v);
-        Vector storageCacheContent = getStorageCacheContent();
-        if(storageCacheContent.size() > offset) {
-            storageCacheContent.setElementAt(new Object[] {l, key}, offset);
-        } else {
-            storageCacheContent.insertElementAt(new Object[] {l, key}, offset);
-        }
-        Storage.getInstance().writeObject("$CACHE$Idx" + cachePrefix, storageCacheContent);
+        storageIndexChanged();
     }
-    
+
     /**
      * Returns the keys for all the objects currently in cache, this is useful
      * to traverse all the objects and refresh them without actually deleting
@@ -275,41 +434,37 @@ public class CacheMap {
      * @return a vector containing a snapshot of the current elements within the 
      * cache.
      */
-    public Vector getKeysInCache() {
+    public synchronized Vector getKeysInCache() {
         Vector r = new Vector();
-        Enumeration en = memoryCache.keys();
-        while(en.hasMoreElements()) {
-            r.addElement(en.nextElement());
+        Iterator it = memoryCache.keySet().iterator();
+        while(it.hasNext()) {
+            r.addElement(it.next());
         }
-        Vector storageCacheContent = getStorageCacheContent();
-        for(int iter = 0 ; iter < storageCacheContent.size() ; iter++) {
-            Object[] o = (Object[])storageCacheContent.elementAt(iter);
-            if(!r.contains(o[1])) {
-                r.addElement(o[1]);
+        it = getStorageIndex().keySet().iterator();
+        while(it.hasNext()) {
+            Object key = it.next();
+            if(!memoryCache.containsKey(key)) {
+                r.addElement(key);
             }
         }
         return r;
     }
 
-    private Vector fetchFromStorageCache(int offset) {
-        Vector v = getStorageCacheContent();
-        Object[] arr = (Object[])v.elementAt(offset);
-        return (Vector)Storage.getInstance().readObject("$CACHE$" + cachePrefix + arr[1].toString());
-    }
-
     /**
      * Clears the storage cache
      */
     public void clearStorageCache() {
         if(storageCacheSize > 0) {
-            Vector v = getStorageCacheContent();
-            int s = v.size();
-            for(int iter = 0 ; iter < s ; iter++) {
-                Object[] arr = (Object[])v.elementAt(iter);
-                Storage.getInstance().deleteStorageFile("$CACHE$" + cachePrefix + arr[iter].toString());
+            Object[] keys;
+            synchronized(this) {
+                keys = getStorageIndex().keySet().toArray();
+                storageIndex = new LinkedHashMap(16, 0.75f, true);
+                storageIndexDirty = false;
+            }
+            for(int iter = 0 ; iter < keys.length ; iter++) {
+                Storage.getInstance().deleteStorageFile("$CACHE$" + cachePrefix + keys[iter].toString());
             }
             Storage.getInstance().deleteStorageFile("$CACHE$Idx" + cachePrefix);
-            storageCacheContentVec = new Vector();
         }
     }
 
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import com.codename1.properties.PropertyBusinessObject;
+import com.codename1.ui.EncodedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * <p>Reads objects written by a {@link CompactDataOutputStream}. {@link Util#readObject(java.io.DataInputStream)}
+ * uses this format automatically when it's given an instance of this class or when the data starts with the
+ * header written by {@link Util#writeCompactObject(java.lang.Object, java.io.DataOutputStream)}.</p>
+ * 
+ * <p>Objects are decoded directly from the underlying stream, a sequence of objects written with 
+ * {@link CompactDataOutputStream#writeObject(java.lang.Object)} can be read back one at a time with 
+ * {@link #readObject()} without loading the whole sequence.</p>
+ */
+public class CompactDataInputStream extends DataInputStream {
+    private final ArrayList<String> keys = new ArrayList<String>();
+    private byte[] buffer = new byte[256];
+    private char[] chars = new char[256];
+
+    /**
+     * Creates a compact stream reading from the given stream
+     * 
+     * @param in the source stream
+     */
+    public CompactDataInputStream(InputStream in) {
+        super(in);
+    }
+
+    private byte[] buffer(int size) {
+        if(buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads an unsigned variable length int written by {@link CompactDataOutputStream#writeVarInt(int)}
+     * 
+     * @return the value
+     * @throws IOException thrown by the stream
+     */
+    public int readVarInt() throws IOException {
+        int result = 0;
+        for(int shift = 0 ; shift < 35 ; shift += 7) {
+            int b = readUnsignedByte();
+            result |= (b & 0x7f) << shift;
+            if((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length int");
+    }
+
+    /**
+     * Reads a signed variable length int written by {@link CompactDataOutputStream#writeSignedVarInt(int)}
+     * 
+     * @return the value
+     * @throws IOException thrown by the stream
+     */
+    public int readSignedVarInt() throws IOException {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Reads a signed variable length long written by {@link CompactDataOutputStream#writeSignedVarLong(long)}
+     * 
+     * @return the value
+     * @throws IOException thrown by the stream
+     */
+    public long readSignedVarLong() throws IOException {
+        long result = 0;
+        for(int shift = 0 ; shift < 70 ; shift += 7) {
+            int b = readUnsignedByte();
+            result |= ((long)(b & 0x7f)) << shift;
+            if((b & 0x80) == 0) {
+                return (result >>> 1) ^ -(result & 1);
+            }
+        }
+        throw new IOException("Malformed variable length long");
+    }
+
+    /**
+     * Reads a string written by {@link CompactDataOutputStream#writeString(java.lang.String)}
+     * 
+     * @return the string
+     * @throws IOException thrown by the stream
+     */
+    public String readString() throws IOException {
+        int count = readVarInt();
+        byte[] b = buffer(count);
+        readFully(b, 0, count);
+        if(chars.length < count) {
+            chars = new char[Math.max(count, chars.length * 2)];
+        }
+        char[] c = chars;
+        int len = 0;
+        int pos = 0;
+        while(pos < count) {
+            int v = b[pos] & 0xff;
+            if(v < 0x80) {
+                pos++;
+            } else if(v < 0xe0) {
+                if(pos + 1 >= count) {
+                    throw new IOException("Malformed string");
+                }
+                v = ((v & 0x1f) << 6) | (b[pos + 1] & 0x3f);
+                pos += 2;
+            } else {
+                if(pos + 2 >= count) {
+                    throw new IOException("Malformed string");
+                }
+                v = ((v & 0x0f) << 12) | ((b[pos + 1] & 0x3f) << 6) | (b[pos + 2] & 0x3f);
+                pos += 3;
+            }
+            c[len] = (char)v;
+            len++;
+        }
+        return new String(c, 0, len);
+    }
+
+    /**
+     * Reads a string written by {@link CompactDataOutputStream#writeKey(java.lang.String)}
+     * 
+     * @return the string
+     * @throws IOException thrown by the stream
+     */
+    public String readKey() throws IOException {
+        int index = readVarInt();
+        if(index == 0) {
+            String s = readString();
+            keys.add(s);
+            return s;
+        }
+        if(index > keys.size()) {
+            throw new IOException("Unknown key index: " + index);
+        }
+        return keys.get(index - 1);
+    }
+
+    private static int getInt(byte[] b, int pos) {
+        return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+    }
+
+    /**
+     * Reads the next object written by {@link CompactDataOutputStream#writeObject(java.lang.Object)}
+     * 
+     * @return the object which might be null
+     * @throws IOException thrown by the stream or for an unsupported object type
+     */
+    public Object readObject() throws IOException {
+        int tag = readUnsignedByte();
+        switch(tag) {
+            case CompactDataOutputStream.NULL:
+                return null;
+            case CompactDataOutputStream.TRUE:
+                return Boolean.TRUE;
+            case CompactDataOutputStream.FALSE:
+                return Boolean.FALSE;
+            case CompactDataOutputStream.INT:
+                return new Integer(readSignedVarInt());
+            case CompactDataOutputStream.LONG:
+                return new Long(readSignedVarLong());
+            case CompactDataOutputStream.BYTE:
+                return new Byte(readByte());
+            case CompactDataOutputStream.SHORT:
+                return new Short((short)readSignedVarInt());
+            case CompactDataOutputStream.FLOAT:
+                return new Float(readFloat());
+            case CompactDataOutputStream.DOUBLE:
+                return new Double(readDouble());
+            case CompactDataOutputStream.STRING:
+                return readString();
+            case CompactDataOutputStream.KEY:
+                return readKey();
+            case CompactDataOutputStream.DATE:
+                return new Date(readSignedVarLong());
+            case CompactDataOutputStream.VECTOR: {
+                int size = readVarInt();
+                Vector v = new Vector(size);
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.addElement(readObject());
+                }
+                return v;
+            }
+            case CompactDataOutputStream.SET: {
+                int size = readVarInt();
+                HashSet v = new HashSet();
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.add(readObject());
+                }
+                return v;
+            }
+            case CompactDataOutputStream.COLLECTION: {
+                int size = readVarInt();
+                ArrayList v = new ArrayList(size);
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.add(readObject());
+                }
+                return v;
+            }
+            case CompactDataOutputStream.HASHTABLE: {
+                int size = readVarInt();
+                Hashtable v = new Hashtable();
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.put(readObject(), readObject());
+                }
+                return v;
+            }
+            case CompactDataOutputStream.MAP: {
+                int size = readVarInt();
+                HashMap v = new HashMap();
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.put(readObject(), readObject());
+                }
+                return v;
+            }
+            case CompactDataOutputStream.OBJECT_ARRAY: {
+                Object[] v = new Object[readVarInt()];
+                for(int iter = 0 ; iter < v.length ; iter++) {
+                    v[iter] = readObject();
+                }
+                return v;
+            }
+            case CompactDataOutputStream.BYTE_ARRAY: {
+                byte[] v = new byte[readVarInt()];
+                readFully(v);
+                return v;
+            }
+            case CompactDataOutputStream.SHORT_ARRAY: {
+                short[] v = new short[readVarInt()];
+                for(int iter = 0 ; iter < v.length ; iter++) {
+                    v[iter] = (short)readSignedVarInt();
+                }
+                return v;
+            }
+            case CompactDataOutputStream.INT_ARRAY: {
+                int[] v = new int[readVarInt()];
+                for(int iter = 0 ; iter < v.length ; iter++) {
+                    v[iter] = readSignedVarInt();
+                }
+                return v;
+            }
+            case CompactDataOutputStream.LONG_ARRAY: {
+                long[] v = new long[readVarInt()];
+                for(int iter = 0 ; iter < v.length ; iter++) {
+                    v[iter] = readSignedVarLong();
+                }
+                return v;
+            }
+            case CompactDataOutputStream.FLOAT_ARRAY: {
+                float[] v = new float[readVarInt()];
+                int iter = 0;
+                while(iter < v.length) {
+                    int count = Math.min(v.length - iter, CompactDataOutputStream.CHUNK);
+                    byte[] b = buffer(count * 4);
+                    readFully(b, 0, count * 4);
+                    for(int pos = 0 ; pos < count * 4 ; pos += 4) {
+                        v[iter] = Float.intBitsToFloat(getInt(b, pos));
+                        iter++;
+                    }
+                }
+                return v;
+            }
+            case CompactDataOutputStream.DOUBLE_ARRAY: {
+                double[] v = new double[readVarInt()];
+                int iter = 0;
+                while(iter < v.length) {
+                    int count = Math.min(v.length - iter, CompactDataOutputStream.CHUNK);
+                    byte[] b = buffer(count * 8);
+                    readFully(b, 0, count * 8);
+                    for(int pos = 0 ; pos < count * 8 ; pos += 8) {
+                        long l = (((long)getInt(b, pos)) << 32) | (getInt(b, pos + 4) & 0xffffffffL);
+                        v[iter] = Double.longBitsToDouble(l);
+                        iter++;
+                    }
+                }
+                return v;
+            }
+            case CompactDataOutputStream.ENCODED_IMAGE: {
+                int width = readVarInt();
+                int height = readVarInt();
+                boolean op = readBoolean();
+                byte[] data = new byte[readVarInt()];
+                readFully(data);
+                return EncodedImage.create(data, width, height, op);
+            }
+            case CompactDataOutputStream.EXTERNALIZABLE:
+                return readExternalizable(readKey());
+        }
+        throw new IOException("Unknown object tag: " + tag);
+    }
+
+    private Object readExternalizable(String type) throws IOException {
+        Class cls = Util.getExternalizable(type);
+        if(cls == null) {
+            throw new IOException("Object type not supported: " + type);
+        }
+        Object o;
+        try {
+            o = cls.newInstance();
+        } catch(InstantiationException err) {
+            Log.e(err);
+            throw new IOException(err.getClass().getName() + ": " + err.getMessage());
+        } catch(IllegalAccessException err) {
+            Log.e(err);
+            throw new IOException(err.getClass().getName() + ": " + err.getMessage());
+        }
+        int version = readSignedVarInt();
+        if(o instanceof Externalizable) {
+            ((Externalizable)o).internalize(version, this);
+            return o;
+        }
+        ((PropertyBusinessObject)o).getPropertyIndex().asExternalizable().internalize(version, this);
+        return o;
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import com.codename1.properties.PropertyBusinessObject;
+import com.codename1.ui.EncodedImage;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * <p>A data output stream that writes the objects supported by {@link Util#writeObject(java.lang.Object, java.io.DataOutputStream)}
+ * in a compact binary format. Every value starts with a single tag byte instead of a type name, numbers and sizes
+ * are written as variable length integers and primitive arrays are encoded in bulk. Class names, property names
+ * and string map keys are written once per stream and referenced by index afterwards, so a list of thousands
+ * of business objects doesn't repeat the same names for every element.</p>
+ *
+ * <p>{@link Util#writeObject(java.lang.Object, java.io.DataOutputStream)} uses this format automatically when it's
+ * given an instance of this class, this includes the nested writes performed by an {@link Externalizable}.
+ * Data written to this stream must be read with a {@link CompactDataInputStream}, 
+ * {@link Util#writeCompactObject(java.lang.Object, java.io.DataOutputStream)} prefixes the data with a header so
+ * {@link Util#readObject(java.io.DataInputStream)} can detect the format.</p>
+ */
+public class CompactDataOutputStream extends DataOutputStream {
+    /**
+     * The first byte of a compact object written by {@link Util#writeCompactObject(java.lang.Object, java.io.DataOutputStream)},
+     * the regular format starts with a boolean so this value can't appear there
+     */
+    static final int MAGIC = 0xC1;
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int TRUE = 1;
+    static final int FALSE = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int BYTE = 5;
+    static final int SHORT = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int STRING = 9;
+    static final int KEY = 10;
+    static final int DATE = 11;
+    static final int VECTOR = 12;
+    static final int SET = 13;
+    static final int COLLECTION = 14;
+    static final int HASHTABLE = 15;
+    static final int MAP = 16;
+    static final int OBJECT_ARRAY = 17;
+    static final int BYTE_ARRAY = 18;
+    static final int SHORT_ARRAY = 19;
+    static final int INT_ARRAY = 20;
+    static final int LONG_ARRAY = 21;
+    static final int FLOAT_ARRAY = 22;
+    static final int DOUBLE_ARRAY = 23;
+    static final int ENCODED_IMAGE = 24;
+    static final int EXTERNALIZABLE = 25;
+
+    /**
+     * The number of array elements encoded in a single write
+     */
+    static final int CHUNK = 1024;
+
+    private final HashMap<String, Integer> keys = new HashMap<String, Integer>();
+    private byte[] buffer = new byte[256];
+
+    /**
+     * Creates a compact stream writing into the given stream
+     * 
+     * @param out the destination stream
+     */
+    public CompactDataOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    private byte[] buffer(int size) {
+        if(buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    private static int putVarInt(byte[] b, int pos, int v) {
+        while((v & 0xffffff80) != 0) {
+            b[pos] = (byte)((v & 0x7f) | 0x80);
+            pos++;
+            v >>>= 7;
+        }
+        b[pos] = (byte)v;
+        return pos + 1;
+    }
+
+    private static int putVarLong(byte[] b, int pos, long v) {
+        while((v & 0xffffffffffffff80L) != 0) {
+            b[pos] = (byte)((v & 0x7f) | 0x80);
+            pos++;
+            v >>>= 7;
+        }
+        b[pos] = (byte)v;
+        return pos + 1;
+    }
+
+    private static int putInt(byte[] b, int pos, int v) {
+        b[pos] = (byte)(v >>> 24);
+        b[pos + 1] = (byte)(v >>> 16);
+        b[pos + 2] = (byte)(v >>> 8);
+        b[pos + 3] = (byte)v;
+        return pos + 4;
+    }
+
+    /**
+     * Writes an unsigned variable length int, values below 128 take a single byte
+     * 
+     * @param v the value, negative values take 5 bytes
+     * @throws IOException thrown by the stream
+     */
+    public void writeVarInt(int v) throws IOException {
+        byte[] b = buffer(5);
+        write(b, 0, putVarInt(b, 0, v));
+    }
+
+    /**
+     * Writes a signed variable length int using zigzag encoding so small negative numbers
+     * are as compact as small positive numbers
+     * 
+     * @param v the value
+     * @throws IOException thrown by the stream
+     */
+    public void writeSignedVarInt(int v) throws IOException {
+        writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    /**
+     * Writes a signed variable length long using zigzag encoding
+     * 
+     * @param v the value
+     * @throws IOException thrown by the stream
+     */
+    public void writeSignedVarLong(long v) throws IOException {
+        byte[] b = buffer(10);
+        write(b, 0, putVarLong(b, 0, (v << 1) ^ (v >> 63)));
+    }
+
+    /**
+     * Writes a string of any length, unlike writeUTF this isn't limited to 64k
+     * 
+     * @param s the string
+     * @throws IOException thrown by the stream
+     */
+    public void writeString(String s) throws IOException {
+        int len = s.length();
+        byte[] b = buffer(len * 3 + 5);
+        // the length is written last into the space before the data once the byte count is known
+        int start = 5;
+        int pos = start;
+        for(int iter = 0 ; iter < len ; iter++) {
+            char c = s.charAt(iter);
+            if(c < 0x80) {
+                b[pos] = (byte)c;
+                pos++;
+            } else if(c < 0x800) {
+                b[pos] = (byte)(0xc0 | (c >> 6));
+                b[pos + 1] = (byte)(0x80 | (c & 0x3f));
+                pos += 2;
+            } else {
+                b[pos] = (byte)(0xe0 | (c >> 12));
+                b[pos + 1] = (byte)(0x80 | ((c >> 6) & 0x3f));
+                b[pos + 2] = (byte)(0x80 | (c & 0x3f));
+                pos += 3;
+            }
+        }
+        int count = pos - start;
+        int lengthSize = putVarInt(b, 0, count);
+        if(lengthSize < start) {
+            System.arraycopy(b, 0, b, start - lengthSize, lengthSize);
+        }
+        write(b, start - lengthSize, count + lengthSize);
+    }
+
+    /**
+     * Writes a string that's expected to repeat within the stream such as a class or property name, the
+     * string is written in full only the first time and as an index into the stream dictionary afterwards
+     * 
+     * @param s the string
+     * @throws IOException thrown by the stream
+     */
+    public void writeKey(String s) throws IOException {
+        Integer index = keys.get(s);
+        if(index != null) {
+            writeVarInt(index.intValue() + 1);
+            return;
+        }
+        writeVarInt(0);
+        writeString(s);
+        keys.put(s, new Integer(keys.size()));
+    }
+
+    /**
+     * Writes an object in the compact format, this can be invoked repeatedly to write a sequence
+     * of objects that {@link CompactDataInputStream#readObject()} reads back one at a time
+     * 
+     * @param o the object to write which can be null
+     * @throws IOException thrown by the stream or for an unsupported object type
+     */
+    public void writeObject(Object o) throws IOException {
+        if(o == null) {
+            write(NULL);
+            return;
+        }
+        if(o instanceof Externalizable) {
+            writeExternalizable((Externalizable)o);
+            return;
+        }
+        if(o instanceof PropertyBusinessObject) {
+            writeExternalizable(((PropertyBusinessObject)o).getPropertyIndex().asExternalizable());
+            return;
+        }
+        if(o instanceof Vector) {
+            Vector v = (Vector)o;
+            write(VECTOR);
+            int size = v.size();
+            writeVarInt(size);
+            for(int iter = 0 ; iter < size ; iter++) {
+                writeObject(v.elementAt(iter));
+            }
+            return;
+        }
+        if(o instanceof Collection) {
+            Collection v = (Collection)o;
+            write(o instanceof Set ? SET : COLLECTION);
+            writeVarInt(v.size());
+            for(Object cur : v) {
+                writeObject(cur);
+            }
+            return;
+        }
+        if(o instanceof Hashtable) {
+            Hashtable v = (Hashtable)o;
+            write(HASHTABLE);
+            writeVarInt(v.size());
+            Enumeration k = v.keys();
+            while(k.hasMoreElements()) {
+                Object key = k.nextElement();
+                writeMapKey(key);
+                writeObject(v.get(key));
+            }
+            return;
+        }
+        if(o instanceof Map) {
+            Map v = (Map)o;
+            write(MAP);
+            writeVarInt(v.size());
+            for(Object cur : v.entrySet()) {
+                Map.Entry e = (Map.Entry)cur;
+                writeMapKey(e.getKey());
+                writeObject(e.getValue());
+            }
+            return;
+        }
+        if(o instanceof String) {
+            write(STRING);
+            writeString((String)o);
+            return;
+        }
+        if(o instanceof Date) {
+            write(DATE);
+            writeSignedVarLong(((Date)o).getTime());
+            return;
+        }
+        if(o instanceof Integer) {
+            write(INT);
+            writeSignedVarInt(((Integer)o).intValue());
+            return;
+        }
+        if(o instanceof Long) {
+            write(LONG);
+            writeSignedVarLong(((Long)o).longValue());
+            return;
+        }
+        if(o instanceof Byte) {
+            write(BYTE);
+            write(((Byte)o).byteValue());
+            return;
+        }
+        if(o instanceof Short) {
+            write(SHORT);
+            writeSignedVarInt(((Short)o).shortValue());
+            return;
+        }
+        if(o instanceof Float) {
+            write(FLOAT);
+            writeFloat(((Float)o).floatValue());
+            return;
+        }
+        if(o instanceof Double) {
+            write(DOUBLE);
+            writeDouble(((Double)o).doubleValue());
+            return;
+        }
+        if(o instanceof Boolean) {
+            write(((Boolean)o).booleanValue() ? TRUE : FALSE);
+            return;
+        }
+        if(o instanceof EncodedImage) {
+            EncodedImage e = (EncodedImage)o;
+            write(ENCODED_IMAGE);
+            writeVarInt(e.getWidth());
+            writeVarInt(e.getHeight());
+            writeBoolean(e.isOpaque());
+            byte[] b = e.getImageData();
+            writeVarInt(b.length);
+            write(b);
+            return;
+        }
+        if(Util.instanceofObjArray(o)) {
+            Object[] v = (Object[])o;
+            write(OBJECT_ARRAY);
+            writeVarInt(v.length);
+            for(int iter = 0 ; iter < v.length ; iter++) {
+                writeObject(v[iter]);
+            }
+            return;
+        }
+        if(Util.instanceofByteArray(o)) {
+            byte[] v = (byte[])o;
+            write(BYTE_ARRAY);
+            writeVarInt(v.length);
+            write(v);
+            return;
+        }
+        if(Util.instanceofShortArray(o)) {
+            short[] v = (short[])o;
+            write(SHORT_ARRAY);
+            writeVarInt(v.length);
+            int iter = 0;
+            while(iter < v.length) {
+                int end = Math.min(v.length, iter + CHUNK);
+                byte[] b = buffer(CHUNK * 3);
+                int pos = 0;
+                for(; iter < end ; iter++) {
+                    int s = v[iter];
+                    pos = putVarInt(b, pos, (s << 1) ^ (s >> 31));
+                }
+                write(b, 0, pos);
+            }
+            return;
+        }
+        if(Util.instanceofIntArray(o)) {
+            int[] v = (int[])o;
+            write(INT_ARRAY);
+            writeVarInt(v.length);
+            int iter = 0;
+            while(iter < v.length) {
+                int end = Math.min(v.length, iter + CHUNK);
+                byte[] b = buffer(CHUNK * 5);
+                int pos = 0;
+                for(; iter < end ; iter++) {
+                    pos = putVarInt(b, pos, (v[iter] << 1) ^ (v[iter] >> 31));
+                }
+                write(b, 0, pos);
+            }
+            return;
+        }
+        if(Util.instanceofLongArray(o)) {
+            long[] v = (long[])o;
+            write(LONG_ARRAY);
+            writeVarInt(v.length);
+            int iter = 0;
+            while(iter < v.length) {
+                int end = Math.min(v.length, iter + CHUNK);
+                byte[] b = buffer(CHUNK * 10);
+                int pos = 0;
+                for(; iter < end ; iter++) {
+                    pos = putVarLong(b, pos, (v[iter] << 1) ^ (v[iter] >> 63));
+                }
+                write(b, 0, pos);
+            }
+            return;
+        }
+        if(Util.instanceofFloatArray(o)) {
+            float[] v = (float[])o;
+            write(FLOAT_ARRAY);
+            writeVarInt(v.length);
+            int iter = 0;
+            while(iter < v.length) {
+                int end = Math.min(v.length, iter + CHUNK);
+                byte[] b = buffer(CHUNK * 4);
+                int pos = 0;
+                for(; iter < end ; iter++) {
+                    pos = putInt(b, pos, Float.floatToIntBits(v[iter]));
+                }
+                write(b, 0, pos);
+            }
+            return;
+        }
+        if(Util.instanceofDoubleArray(o)) {
+            double[] v = (double[])o;
+            write(DOUBLE_ARRAY);
+            writeVarInt(v.length);
+            int iter = 0;
+            while(iter < v.length) {
+                int end = Math.min(v.length, iter + CHUNK);
+                byte[] b = buffer(CHUNK * 8);
+                int pos = 0;
+                for(; iter < end ; iter++) {
+                    long l = Double.doubleToLongBits(v[iter]);
+                    pos = putInt(b, pos, (int)(l >>> 32));
+                    pos = putInt(b, pos, (int)l);
+                }
+                write(b, 0, pos);
+            }
+            return;
+        }
+
+        throw new IOException("Object type not supported: " + o.getClass().getName()
+                + " value: " + o);
+    }
+
+    private void writeMapKey(Object key) throws IOException {
+        if(key instanceof String) {
+            write(KEY);
+            writeKey((String)key);
+        } else {
+            writeObject(key);
+        }
+    }
+
+    private void writeExternalizable(Externalizable e) throws IOException {
+        write(EXTERNALIZABLE);
+        writeKey(e.getObjectId());
+        writeSignedVarInt(e.getVersion());
+        e.externalize(this);
+    }
+}
@@ -53,6 +53,7 @@ import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -371,6 +372,20 @@ public class ConnectionRequest implements IOProgressListener {
     private int chunkedStreamingLen = -1;
     private Exception failureException;
     private int failureErrorCode;
+
+    /**
+     * Image downloads in progress by URL, requests for a URL that is already being downloaded are
+     * added to the list and receive the downloaded file instead of issuing another network request
+     */
+    private static final Map<String, ArrayList<ConnectionRequest>> sharedImageDownloads = new HashMap<String, ArrayList<ConnectionRequest>>();
+
+    /**
+     * The requests waiting for the image this request downloads, null if this request isn't shared
+     */
+    private ArrayList<ConnectionRequest> imageDownloadFollowers;
+    private SuccessCallback<Image> sharedImageSuccess;
+    private FailureCallback<Image> sharedImageFail;
+    private boolean shareImageDownload = true;
     private String destinationFile;
     private String destinationStorage;
     private SSLCertificate[] sslCertificates;
@@ -1543,6 +1558,9 @@ public class ConnectionRequest implements IOProgressListener {
                 data = Util.readInputStream(input);
             }
         }
+        if(imageDownloadFollowers != null) {
+            releaseImageDownloadFollowers(!isKilled());
+        }
         if(hasResponseListeners() && !isKilled()) {
             fireResponseListener(new NetworkEvent(this, data));
         }
@@ -1663,6 +1681,7 @@ public class ConnectionRequest implements IOProgressListener {
      */
     public void kill() {
         killed = true;
+        releaseImageDownloadFollowers(false);
         //if the connection is in the midle of a reading, stop it to release the 
         //resources
         if(input != null && input instanceof BufferedInputStream) {
@@ -2524,6 +2543,13 @@ public class ConnectionRequest implements IOProgressListener {
     public void setChunkedStreamingMode(int chunklen){    
         this.chunkedStreamingLen = chunklen;
     }
+
+    /**
+     * Returns true if {@link #setChunkedStreamingMode(int)} was invoked
+     */
+    boolean isChunkedStreaming() {
+        return chunkedStreamingLen > -1;
+    }
    
 
     /**
@@ -2830,6 +2856,20 @@ public class ConnectionRequest implements IOProgressListener {
             });
                 
         } else {
+            if(shareImageDownload && isShareableImageDownload()) {
+                synchronized(sharedImageDownloads) {
+                    ArrayList<ConnectionRequest> followers = sharedImageDownloads.get(url);
+                    if(followers != null) {
+                        // the same image is already being downloaded, we'll get a copy of the file once it's done
+                        sharedImageSuccess = onSuccess;
+                        sharedImageFail = onFail;
+                        followers.add(this);
+                        return;
+                    }
+                    imageDownloadFollowers = new ArrayList<ConnectionRequest>();
+                    sharedImageDownloads.put(url, imageDownloadFollowers);
+                }
+            }
             final ActionListener onDownload = new ActionListener<NetworkEvent>() {
 
                 public void actionPerformed(NetworkEvent nevt) {
@@ -2853,6 +2893,147 @@ public class ConnectionRequest implements IOProgressListener {
         
     }
 
+    private boolean isShareableImageDownload() {
+        return url != null && !post && requestArguments == null &&
+                (httpMethod == null || httpMethod.equalsIgnoreCase("GET")) &&
+                (destinationFile != null || destinationStorage != null);
+    }
+
+    /**
+     * <p>Adds this GET request to the network queue unless an image of the same URL is already being
+     * downloaded by one of the {@code downloadImageTo} methods, e.g. by a {@link com.codename1.ui.URLImage}.
+     * In that case no additional network request is made. Once the download completes the downloaded
+     * file is passed to {@link #readResponse(java.io.InputStream)} and {@link #postResponse()} is invoked
+     * on the EDT as if the file was the response of this request.</p>
+     * <p>If the shared download fails this request is added to the queue as usual.</p>
+     */
+    protected void addToQueueSharingImageDownload() {
+        if(url != null && !post && requestArguments == null) {
+            synchronized(sharedImageDownloads) {
+                ArrayList<ConnectionRequest> followers = sharedImageDownloads.get(url);
+                if(followers != null) {
+                    followers.add(this);
+                    return;
+                }
+            }
+        }
+        NetworkManager.getInstance().addToQueue(this);
+    }
+
+    /**
+     * Invoked by the network manager once a request finished, releases the requests waiting on a
+     * shared image download that didn't complete successfully
+     */
+    void requestCompleted() {
+        if(imageDownloadFollowers != null) {
+            releaseImageDownloadFollowers(false);
+        }
+    }
+
+    private void releaseImageDownloadFollowers(boolean success) {
+        final ArrayList<ConnectionRequest> followers;
+        synchronized(sharedImageDownloads) {
+            followers = imageDownloadFollowers;
+            if(followers == null) {
+                return;
+            }
+            imageDownloadFollowers = null;
+            if(sharedImageDownloads.get(url) == followers) {
+                sharedImageDownloads.remove(url);
+            }
+        }
+        if(followers.size() == 0) {
+            return;
+        }
+        if(!success) {
+            // every request goes to the network on its own
+            for(ConnectionRequest r : followers) {
+                r.shareImageDownload = false;
+                if(r.sharedImageSuccess != null) {
+                    r.downloadImage(r.sharedImageSuccess, r.sharedImageFail, false);
+                } else {
+                    NetworkManager.getInstance().addToQueue(r);
+                }
+            }
+            return;
+        }
+        final String sourceFile = destinationFile;
+        final String sourceStorage = destinationStorage;
+
+        // background tasks run in order so the copies are made before the requesting code of this
+        // download gets to process (and possibly delete) the downloaded file
+        Display.getInstance().scheduleBackgroundTask(new Runnable() {
+            public void run() {
+                for(ConnectionRequest r : followers) {
+                    r.receiveSharedImage(sourceFile, sourceStorage);
+                }
+            }
+        });
+    }
+
+    private static InputStream openDestination(String file, String storage) throws IOException {
+        if(file != null) {
+            return FileSystemStorage.getInstance().openInputStream(file);
+        }
+        return Storage.getInstance().createInputStream(storage);
+    }
+
+    /**
+     * Invoked on a background thread when this request was added with {@link #addToQueueSharingImageDownload()}
+     * and the shared download completed. The default implementation passes the downloaded file to 
+     * {@link #readResponse(java.io.InputStream)}, subclasses that write the response to a file should 
+     * override this to use the downloaded file directly when it's the same file instead of copying it 
+     * onto itself.
+     * 
+     * @param file the file the image was downloaded to or null if it was downloaded to storage
+     * @param storage the storage entry the image was downloaded to or null if it was downloaded to a file
+     * @throws IOException if reading the downloaded image failed
+     */
+    protected void readSharedImageResponse(String file, String storage) throws IOException {
+        InputStream i = openDestination(file, storage);
+        try {
+            readResponse(i);
+        } finally {
+            Util.cleanup(i);
+        }
+    }
+
+    private void receiveSharedImage(String sourceFile, String sourceStorage) {
+        if(isKilled()) {
+            return;
+        }
+        try {
+            if(sharedImageSuccess != null) {
+                boolean sameDestination = (destinationFile != null && destinationFile.equals(sourceFile)) ||
+                        (destinationStorage != null && destinationStorage.equals(sourceStorage));
+                if(!sameDestination) {
+                    InputStream i = openDestination(sourceFile, sourceStorage);
+                    OutputStream o;
+                    if(destinationFile != null) {
+                        o = FileSystemStorage.getInstance().openOutputStream(destinationFile);
+                    } else {
+                        o = Storage.getInstance().createOutputStream(destinationStorage);
+                    }
+                    Util.copy(i, o);
+                }
+                downloadImage(sharedImageSuccess, sharedImageFail, true);
+                return;
+            }
+            readSharedImageResponse(sourceFile, sourceStorage);
+            Display.getInstance().callSerially(new Runnable() {
+                public void run() {
+                    postResponse();
+                }
+            });
+        } catch(IOException err) {
+            if(sharedImageFail != null) {
+                CallbackDispatcher.dispatchError(sharedImageFail, err);
+            } else {
+                handleException(err);
+            }
+        }
+    }
+
     /**
      * The request body can be used instead of arguments to pass JSON data to a restful request,
      * it can't be used in a get request and will fail if you have arguments
@@ -177,6 +177,23 @@ public class JSONParser implements JSONParseCallback {
         useBooleanDefault = aUseBooleanDefault;
     }
 
+    /**
+     * Returns the value of a hex digit or -1 for an invalid digit, since the sign bit survives
+     * the shifts the combined value of 4 digits is negative if any digit is invalid
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
     static class ReaderClass {
         char[] buffer;
         int buffOffset;
@@ -304,13 +321,17 @@ public class JSONParser implements JSONParseCallback {
                         case '\\':
                             c = (char) rc.read(i);
                             if (c == 'u') {
-                                String unicode = "" + ((char) rc.read(i)) + ((char) rc.read(i)) + ((char) rc.read(i)) + ((char) rc.read(i));
-                                try {
-                                    c = (char) Integer.parseInt(unicode, 16);
-                                } catch (NumberFormatException err) {
+                                // decode the hex digits directly to avoid allocating a string per escape
+                                char h1 = (char) rc.read(i);
+                                char h2 = (char) rc.read(i);
+                                char h3 = (char) rc.read(i);
+                                char h4 = (char) rc.read(i);
+                                int unicode = (hexDigit(h1) << 12) | (hexDigit(h2) << 8) | (hexDigit(h3) << 4) | hexDigit(h4);
+                                if (unicode < 0) {
                                     // problem in parsing the u notation!
-                                    Log.e(err);
-                                    System.out.println("Error in parsing \\u" + unicode);
+                                    Log.p("Error in parsing \\u" + h1 + h2 + h3 + h4, Log.ERROR);
+                                } else {
+                                    c = (char) unicode;
                                 }
                             } else {
                                 switch(c) {
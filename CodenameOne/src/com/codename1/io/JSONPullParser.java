@@ -0,0 +1,763 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A pull style streaming JSON parser, unlike {@link JSONParser} this parser doesn't build a tree of
+ * the whole document and doesn't push events into a callback. Instead the code invokes {@link #next()}
+ * to move to the next event and reads the value of the current event. This allows processing documents
+ * that are far larger than the available memory e.g. binding the elements of a huge array one by one.</p>
+ *
+ * <p>The parser works directly on a {@code char[]} buffer, numbers are parsed without creating
+ * intermediate strings and keys are interned by default so the same key appearing in thousands of
+ * objects is only allocated once.</p>
+ *
+ * <pre>
+ * JSONPullParser p = new JSONPullParser(new InputStreamReader(is, "UTF-8"));
+ * int event = p.next();
+ * while(event != JSONPullParser.END_DOCUMENT) {
+ *     if(event == JSONPullParser.KEY &amp;&amp; "name".equals(p.getString())) {
+ *         p.next();
+ *         Log.p(p.getString());
+ *     }
+ *     event = p.next();
+ * }
+ * </pre>
+ *
+ * @see com.codename1.properties.PropertyIndex#populateFromJSON(com.codename1.io.JSONPullParser)
+ */
+public class JSONPullParser {
+    /**
+     * Event for the opening bracket of an object {
+     */
+    public static final int START_OBJECT = 1;
+
+    /**
+     * Event for the closing bracket of an object }
+     */
+    public static final int END_OBJECT = 2;
+
+    /**
+     * Event for the opening bracket of an array [
+     */
+    public static final int START_ARRAY = 3;
+
+    /**
+     * Event for the closing bracket of an array ]
+     */
+    public static final int END_ARRAY = 4;
+
+    /**
+     * Event for the key of an object entry, the key is returned by {@link #getString()}
+     */
+    public static final int KEY = 5;
+
+    /**
+     * Event for a string value, returned by {@link #getString()}
+     */
+    public static final int STRING = 6;
+
+    /**
+     * Event for a numeric value, returned by {@link #getDouble()}, {@link #getLong()} or {@link #getInt()}
+     */
+    public static final int NUMBER = 7;
+
+    /**
+     * Event for a true/false value, returned by {@link #getBoolean()}
+     */
+    public static final int BOOLEAN = 8;
+
+    /**
+     * Event for a null value
+     */
+    public static final int NULL = 9;
+
+    /**
+     * Indicates the end of the input was reached
+     */
+    public static final int END_DOCUMENT = 10;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    private char[] token = new char[64];
+    private int tokenLength;
+
+    private int event;
+    private String stringValue;
+    private boolean booleanValue;
+    private long longValue;
+    private double doubleValue;
+    private boolean integral;
+
+    private boolean[] objectStack = new boolean[16];
+    private int depth;
+    private boolean expectKey;
+
+    private boolean internKeys = true;
+    private String[] keyTable = new String[256];
+    private int keyCount;
+    private boolean useLongs = true;
+
+    /**
+     * Creates a parser for the given reader
+     *
+     * @param reader the source of the JSON data, the reader doesn't need to be buffered
+     */
+    public JSONPullParser(Reader reader) {
+        this(reader, 8192);
+    }
+
+    /**
+     * Creates a parser for the given reader
+     *
+     * @param reader the source of the JSON data, the reader doesn't need to be buffered
+     * @param bufferSize the size of the character buffer
+     */
+    public JSONPullParser(Reader reader, int bufferSize) {
+        this.reader = reader;
+        buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * Indicates whether object keys are interned in a table local to this parser, this is on by default
+     * and saves an allocation for every repeated key
+     *
+     * @param internKeys true to intern keys
+     */
+    public void setInternKeys(boolean internKeys) {
+        this.internKeys = internKeys;
+    }
+
+    /**
+     * Indicates whether object keys are interned in a table local to this parser
+     *
+     * @return true if keys are interned
+     */
+    public boolean isInternKeys() {
+        return internKeys;
+    }
+
+    /**
+     * Indicates whether {@link #getValue()} returns integral numbers as {@code Long} objects,
+     * this is on by default. When off all numbers are returned as {@code Double}.
+     *
+     * @param useLongs true to return Long objects for integral numbers
+     */
+    public void setUseLongs(boolean useLongs) {
+        this.useLongs = useLongs;
+    }
+
+    /**
+     * Indicates whether {@link #getValue()} returns integral numbers as {@code Long} objects
+     *
+     * @return true if Long objects are returned for integral numbers
+     */
+    public boolean isUseLongs() {
+        return useLongs;
+    }
+
+    /**
+     * Returns the current event
+     *
+     * @return one of the event constants or 0 if next() wasn't invoked yet
+     */
+    public int getEventType() {
+        return event;
+    }
+
+    /**
+     * The line number in the input of the current position
+     *
+     * @return the line number starting at 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * The nesting depth of the current event, the root object or array has depth 1
+     *
+     * @return the nesting depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the value of a KEY or STRING event, for other scalar events a string
+     * representation of the value is returned
+     *
+     * @return the string value or null
+     */
+    public String getString() {
+        switch(event) {
+            case KEY:
+            case STRING:
+                return stringValue;
+            case NUMBER:
+                return new String(token, 0, tokenLength);
+            case BOOLEAN:
+                return booleanValue ? "true" : "false";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a NUMBER event
+     *
+     * @return the numeric value
+     */
+    public double getDouble() {
+        return doubleValue;
+    }
+
+    /**
+     * Returns the value of a NUMBER event as a long, fractions are truncated
+     *
+     * @return the numeric value
+     */
+    public long getLong() {
+        if(integral) {
+            return longValue;
+        }
+        return (long)doubleValue;
+    }
+
+    /**
+     * Returns the value of a NUMBER event as an int, fractions are truncated
+     *
+     * @return the numeric value
+     */
+    public int getInt() {
+        return (int)getLong();
+    }
+
+    /**
+     * Indicates whether the current NUMBER has no fraction or exponent and fits in a long
+     *
+     * @return true for integral numbers
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Returns the value of a BOOLEAN event
+     *
+     * @return the boolean value
+     */
+    public boolean getBoolean() {
+        return booleanValue;
+    }
+
+    /**
+     * Returns the value of the current scalar event as an object: String, Long/Double, Boolean or null
+     *
+     * @return the value
+     */
+    public Object getValue() {
+        switch(event) {
+            case KEY:
+            case STRING:
+                return stringValue;
+            case NUMBER:
+                if(integral && useLongs) {
+                    return new Long(longValue);
+                }
+                return new Double(doubleValue);
+            case BOOLEAN:
+                return booleanValue ? Boolean.TRUE : Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Moves to the next event in the stream
+     *
+     * @return the event type
+     * @throws IOException if thrown by the reader or if the JSON is malformed
+     */
+    public int next() throws IOException {
+        while(true) {
+            int c = nextNonWhitespace();
+            switch(c) {
+                case -1:
+                    if(depth > 0) {
+                        throw error("Unexpected end of input");
+                    }
+                    event = END_DOCUMENT;
+                    return event;
+                case '{':
+                    push(true);
+                    expectKey = true;
+                    event = START_OBJECT;
+                    return event;
+                case '[':
+                    push(false);
+                    expectKey = false;
+                    event = START_ARRAY;
+                    return event;
+                case '}':
+                    pop(true);
+                    event = END_OBJECT;
+                    return event;
+                case ']':
+                    pop(false);
+                    event = END_ARRAY;
+                    return event;
+                case ',':
+                    expectKey = depth > 0 && objectStack[depth - 1];
+                    continue;
+                case ':':
+                    expectKey = false;
+                    continue;
+                case '"':
+                    if(expectKey) {
+                        readString(true);
+                        expectKey = false;
+                        event = KEY;
+                    } else {
+                        readString(false);
+                        event = STRING;
+                    }
+                    return event;
+                case 't':
+                    expectLiteral("rue");
+                    booleanValue = true;
+                    event = BOOLEAN;
+                    return event;
+                case 'f':
+                    expectLiteral("alse");
+                    booleanValue = false;
+                    event = BOOLEAN;
+                    return event;
+                case 'n':
+                    expectLiteral("ull");
+                    event = NULL;
+                    return event;
+                default:
+                    if(c == '-' || (c >= '0' && c <= '9')) {
+                        readNumber((char)c);
+                        event = NUMBER;
+                        return event;
+                    }
+                    throw error("Unexpected character '" + (char)c + "'");
+            }
+        }
+    }
+
+    /**
+     * Skips the value of the current event, if the current event is START_OBJECT or START_ARRAY the
+     * parser moves to the matching END_OBJECT/END_ARRAY. If the current event is a KEY the value of
+     * the key is skipped. Scalar values require no skipping.
+     *
+     * @throws IOException if thrown by the reader or if the JSON is malformed
+     */
+    public void skipValue() throws IOException {
+        if(event == KEY) {
+            next();
+        }
+        if(event == START_OBJECT || event == START_ARRAY) {
+            int target = depth - 1;
+            while(depth > target) {
+                if(next() == END_DOCUMENT) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the current value into the same structure the {@link JSONParser#parseJSON(java.io.Reader)}
+     * method produces: a {@code Map} for objects, a {@code List} for arrays and the scalar value otherwise.
+     * If the current event is a KEY the value of that key is read.
+     *
+     * @return the value
+     * @throws IOException if thrown by the reader or if the JSON is malformed
+     */
+    public Object readValue() throws IOException {
+        if(event == KEY) {
+            next();
+        }
+        switch(event) {
+            case START_OBJECT: {
+                Map<String, Object> m = new LinkedHashMap<String, Object>();
+                while(next() == KEY) {
+                    String key = stringValue;
+                    next();
+                    Object v = readValue();
+                    if(v != null) {
+                        m.put(key, v);
+                    }
+                }
+                checkEvent(END_OBJECT);
+                return m;
+            }
+            case START_ARRAY: {
+                List<Object> l = new ArrayList<Object>();
+                while(next() != END_ARRAY) {
+                    if(event == END_DOCUMENT || event == END_OBJECT) {
+                        checkEvent(END_ARRAY);
+                    }
+                    l.add(readValue());
+                }
+                return l;
+            }
+        }
+        return getValue();
+    }
+
+    /**
+     * Closes the underlying reader
+     *
+     * @throws IOException if thrown by the reader
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void checkEvent(int expected) throws IOException {
+        if(event != expected) {
+            throw error("Unexpected event " + event);
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " while parsing JSON at line: " + line);
+    }
+
+    private void push(boolean object) {
+        if(depth == objectStack.length) {
+            boolean[] n = new boolean[depth * 2];
+            System.arraycopy(objectStack, 0, n, 0, depth);
+            objectStack = n;
+        }
+        objectStack[depth] = object;
+        depth++;
+    }
+
+    private void pop(boolean object) throws IOException {
+        if(depth == 0 || objectStack[depth - 1] != object) {
+            throw error("Unbalanced " + (object ? "}" : "]"));
+        }
+        depth--;
+        expectKey = false;
+    }
+
+    private boolean fill() throws IOException {
+        int r = reader.read(buffer, 0, buffer.length);
+        while(r == 0) {
+            r = reader.read(buffer, 0, buffer.length);
+        }
+        if(r < 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = r;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if(position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while(true) {
+            if(position >= limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position++];
+            switch(c) {
+                case '\n':
+                    line++;
+                    // fall through
+                case ' ':
+                case '\r':
+                case '\t':
+                    continue;
+            }
+            return c;
+        }
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        int len = rest.length();
+        for(int iter = 0 ; iter < len ; iter++) {
+            if(read() != rest.charAt(iter)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private void appendToken(char c) {
+        if(tokenLength == token.length) {
+            char[] n = new char[token.length * 2];
+            System.arraycopy(token, 0, n, 0, tokenLength);
+            token = n;
+        }
+        token[tokenLength++] = c;
+    }
+
+    private static int hexValue(int c) {
+        if(c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if(c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if(c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void readString(boolean key) throws IOException {
+        // fast path: the whole string is in the buffer and has no escapes
+        for(int iter = position ; iter < limit ; iter++) {
+            char c = buffer[iter];
+            if(c == '"') {
+                int start = position;
+                position = iter + 1;
+                stringValue = key ? intern(buffer, start, iter - start) : new String(buffer, start, iter - start);
+                return;
+            }
+            if(c == '\\') {
+                break;
+            }
+        }
+        tokenLength = 0;
+        while(true) {
+            int c = read();
+            switch(c) {
+                case -1:
+                    throw error("Unterminated string");
+                case '"':
+                    stringValue = key ? intern(token, 0, tokenLength) : new String(token, 0, tokenLength);
+                    return;
+                case '\\':
+                    c = read();
+                    switch(c) {
+                        case 'n':
+                            appendToken('\n');
+                            break;
+                        case 't':
+                            appendToken('\t');
+                            break;
+                        case 'r':
+                            appendToken('\r');
+                            break;
+                        case 'b':
+                            appendToken('\b');
+                            break;
+                        case 'f':
+                            appendToken('\f');
+                            break;
+                        case 'u': {
+                            int value = 0;
+                            for(int iter = 0 ; iter < 4 ; iter++) {
+                                int h = hexValue(read());
+                                if(h < 0) {
+                                    throw error("Invalid unicode escape");
+                                }
+                                value = (value << 4) | h;
+                            }
+                            appendToken((char)value);
+                            break;
+                        }
+                        case -1:
+                            throw error("Unterminated string");
+                        default:
+                            appendToken((char)c);
+                            break;
+                    }
+                    break;
+                case '\n':
+                    line++;
+                    // fall through
+                default:
+                    appendToken((char)c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns a string with the given characters, repeated keys return the same string instance
+     */
+    private String intern(char[] chars, int offset, int length) {
+        if(!internKeys) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for(int iter = 0 ; iter < length ; iter++) {
+            hash = 31 * hash + chars[offset + iter];
+        }
+        int mask = keyTable.length - 1;
+        int slot = hash & mask;
+        while(true) {
+            String s = keyTable[slot];
+            if(s == null) {
+                String result = new String(chars, offset, length);
+                // once the table is full we stop interning new keys to keep memory bounded
+                if(keyCount < keyTable.length * 3 / 4) {
+                    keyTable[slot] = result;
+                    keyCount++;
+                }
+                return result;
+            }
+            if(s.length() == length && s.hashCode() == hash && equalChars(s, chars, offset, length)) {
+                return s;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean equalChars(String s, char[] chars, int offset, int length) {
+        for(int iter = 0 ; iter < length ; iter++) {
+            if(s.charAt(iter) != chars[offset + iter]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readNumber(char first) throws IOException {
+        tokenLength = 0;
+        appendToken(first);
+        boolean negative = first == '-';
+        long mantissa = negative ? 0 : first - '0';
+        boolean overflow = false;
+        boolean minLong = false;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean hasExponent = false;
+        int explicitExponent = 0;
+        boolean negativeExponent = false;
+        while(true) {
+            if(position >= limit && !fill()) {
+                break;
+            }
+            char c = buffer[position];
+            if(c >= '0' && c <= '9') {
+                appendToken(c);
+                position++;
+                if(hasExponent) {
+                    if(explicitExponent < 10000) {
+                        explicitExponent = explicitExponent * 10 + (c - '0');
+                    }
+                    continue;
+                }
+                int digit = c - '0';
+                if(!overflow && mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                    if(fraction) {
+                        exponent--;
+                    }
+                } else {
+                    // Long.MIN_VALUE has no positive counterpart but still fits in a long
+                    minLong = negative && !overflow && !fraction && mantissa == Long.MAX_VALUE / 10 && digit == 8;
+                    overflow = true;
+                    if(!fraction) {
+                        exponent++;
+                    }
+                }
+                continue;
+            }
+            if(c == '.' && !fraction && !hasExponent) {
+                fraction = true;
+                appendToken(c);
+                position++;
+                continue;
+            }
+            if((c == 'e' || c == 'E') && !hasExponent) {
+                hasExponent = true;
+                appendToken(c);
+                position++;
+                continue;
+            }
+            if((c == '-' || c == '+') && hasExponent && (token[tokenLength - 1] == 'e' || token[tokenLength - 1] == 'E')) {
+                negativeExponent = c == '-';
+                appendToken(c);
+                position++;
+                continue;
+            }
+            break;
+        }
+        if(tokenLength == 1 && negative) {
+            throw error("Invalid number");
+        }
+        if(negativeExponent) {
+            explicitExponent = -explicitExponent;
+        }
+        exponent += explicitExponent;
+        integral = !fraction && !hasExponent && (!overflow || minLong && exponent == 1);
+        if(integral) {
+            if(overflow) {
+                longValue = Long.MIN_VALUE;
+            } else {
+                longValue = negative ? -mantissa : mantissa;
+            }
+            doubleValue = longValue;
+            return;
+        }
+        if(!overflow && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // both the mantissa and the power of ten are exact doubles so a single
+            // multiplication or division is correctly rounded
+            double d = mantissa;
+            if(exponent < 0) {
+                d = d / POWERS_OF_TEN[-exponent];
+            } else {
+                d = d * POWERS_OF_TEN[exponent];
+            }
+            doubleValue = negative ? -d : d;
+        } else {
+            try {
+                doubleValue = Double.parseDouble(new String(token, 0, tokenLength));
+            } catch(NumberFormatException err) {
+                throw error("Invalid number " + new String(token, 0, tokenLength));
+            }
+        }
+        longValue = (long)doubleValue;
+    }
+}
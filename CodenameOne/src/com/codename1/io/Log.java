@@ -34,13 +34,16 @@ import com.codename1.ui.events.ActionListener;
 import com.codename1.io.FileSystemStorage;
 import com.codename1.ui.Dialog;
 import com.codename1.ui.layouts.BorderLayout;
+import com.codename1.util.StringUtil;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 
 
 /**
@@ -48,6 +51,13 @@ import java.io.Writer;
  * using the file connector API. It is highly recommended to use this 
  * class coupled with Netbeans preprocessing tags to reduce its overhead
  * completely in runtime.
+ * <p>
+ * By default every log record is written and flushed on the calling thread. When {@link #setAsync(boolean)} 
+ * is on records are placed in a bounded ring buffer and written in batches by a dedicated writer thread, 
+ * the {@link #setOverflowPolicy(int)} determines what happens when the buffer is full. When logging into 
+ * a file using {@link #setFileURL(java.lang.String)} the file can be rotated once it reaches a given size 
+ * using {@link #setMaxFileSize(long)}.
+ * </p>
  *
  * @author Shai Almog
  */
@@ -77,6 +87,15 @@ public class Log {
      */
     public static final int ERROR = 4;
     
+    /**
+     * Overflow policy for async logging, records are discarded when the buffer is full
+     */
+    public static final int OVERFLOW_DROP = 0;
+
+    /**
+     * Overflow policy for async logging, the logging thread waits for the writer when the buffer is full
+     */
+    public static final int OVERFLOW_BLOCK = 1;
     
     private int level = DEBUG;
     private static Log instance = new Log();
@@ -86,6 +105,28 @@ public class Log {
     private String fileURL = null;
     private boolean logDirty;
     
+    private boolean async;
+    private int overflowPolicy = OVERFLOW_DROP;
+    private int asyncBufferSize = 1024;
+    private final Object asyncLock = new Object();
+    private String[] asyncBuffer;
+    private int asyncHead;
+    private int asyncCount;
+    private boolean asyncWriting;
+    private Thread asyncWriter;
+    private int droppedRecords;
+    
+    /**
+     * The writer thread exits after being idle for this long so it doesn't keep the VM alive, 
+     * the next record starts a new writer
+     */
+    private static final long ASYNC_IDLE_TIMEOUT = 5000;
+    
+    private long maxFileSize;
+    private int maxFiles = 3;
+    private long fileSize = -1;
+    private boolean structuredFormat;
+    
     /**
      * Indicates that log reporting to the cloud should be disabled
      */
@@ -231,7 +272,8 @@ public class Log {
             r.setPost(false);
             MultipartRequest m = new MultipartRequest();
             m.setUrl("https://crashreport.codenameone.com/CrashReporterEmail/sendCrashReport");
-            byte[] read = Util.readInputStream(Storage.getInstance().createInputStream("CN1Log__$"));
+            flush();
+            byte[] read = instance.readLogFiles();
             m.addArgument("i", "" + devId);
             m.addArgument("u",Display.getInstance().getProperty("built_by_user", ""));
             m.addArgument("p", Display.getInstance().getProperty("package_name", ""));
@@ -248,6 +290,49 @@ public class Log {
         }
     }
 
+    /**
+     * Reads the content of the log including the files rotated out of the current log file 
+     */
+    private byte[] readLogFiles() throws IOException {
+        if(getFileURL() == null) {
+            return Util.readInputStream(Storage.getInstance().createInputStream("CN1Log__$"));
+        }
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        String[] files = getLogFiles();
+        for(int iter = 0 ; iter < files.length ; iter++) {
+            InputStream is = fs.openInputStream(files[iter]);
+            Util.copy(is, bo);
+        }
+        return bo.toByteArray();
+    }
+    
+    /**
+     * Returns the log files that currently exist when logging to a file, rotated files are listed 
+     * first from the oldest to the newest followed by the current log file
+     * 
+     * @return the file names, an empty array if logging to storage
+     */
+    public String[] getLogFiles() {
+        String url = getFileURL();
+        if(url == null) {
+            return new String[0];
+        }
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        ArrayList<String> result = new ArrayList<String>();
+        for(int iter = maxFiles - 1 ; iter > 0 ; iter--) {
+            if(fs.exists(url + "." + iter)) {
+                result.add(url + "." + iter);
+            }
+        }
+        if(fs.exists(url)) {
+            result.add(url);
+        }
+        String[] arr = new String[result.size()];
+        result.toArray(arr);
+        return arr;
+    }
+
     /**
      * Installs a log subclass that can replace the logging destination/behavior
      * 
@@ -276,6 +361,25 @@ public class Log {
         instance.print(text, level);
     }
 
+    /**
+     * Println method with a tag identifying the source of the log record, uses given level
+     * 
+     * @param tag a short string identifying the source of the record e.g. a module name
+     * @param text the text to print
+     * @param level one of DEBUG, INFO, WARNING, ERROR
+     */
+    public static void p(String tag, String text, int level) {
+        instance.print(tag, text, level);
+    }
+
+    /**
+     * Blocks until all the records queued by async logging are written, does nothing 
+     * if async logging is off
+     */
+    public static void flush() {
+        instance.flushAsync();
+    }
+
     /**
      * This method is a shorthand form for logThrowable
      *
@@ -303,6 +407,12 @@ public class Log {
         }
         t.printStackTrace();
         try {
+            if(async && Thread.currentThread() != asyncWriter) {
+                StringWriter sw = new StringWriter();
+                Util.getImplementation().printStackTraceToStream(t, sw);
+                enqueue(sw.toString());
+                return;
+            }
             synchronized(this) {
                 Writer w = getWriter();
                 Util.getImplementation().printStackTraceToStream(t, w);
@@ -336,19 +446,349 @@ public class Log {
         if(this.level > level) {
             return;
         }
+        writeRecord(null, text, level);
+    }
+    
+    /**
+     * Prints a record with a tag identifying its source, records without a tag are passed to 
+     * {@link #print(java.lang.String, int)}
+     * 
+     * @param tag a short string identifying the source of the record or null
+     * @param text the text to print
+     * @param level one of DEBUG, INFO, WARNING, ERROR
+     */
+    protected void print(String tag, String text, int level) {
+        if(tag == null) {
+            print(text, level);
+            return;
+        }
+        if(this.level > level) {
+            return;
+        }
+        writeRecord(tag, text, level);
+    }
+    
+    private void writeRecord(String tag, String text, int level) {
         logDirty = true;
-        text = getThreadAndTimeStamp() + " - " + text;
+        text = formatRecord(tag, text, level);
         Util.getImplementation().systemOut(text);
         try {
+            if(async && Thread.currentThread() != asyncWriter) {
+                enqueue(text + "\n");
+                return;
+            }
             synchronized(this) {
-                Writer w = getWriter();
-                w.write(text + "\n");
+                Writer w = write(getWriter(), text + "\n");
                 w.flush();
             }
         } catch(Throwable err) {
             err.printStackTrace();
         }
     }
+
+    /**
+     * Formats a log record, by default the record is prefixed with the thread name and the time since 
+     * the log was created. When the structured format is on records are formatted as a tab separated 
+     * line of the time in milliseconds, level, thread, tag and text
+     * 
+     * @param tag the tag of the record or null
+     * @param text the text of the record
+     * @param level one of DEBUG, INFO, WARNING, ERROR
+     * @return the line written to the log
+     */
+    protected String formatRecord(String tag, String text, int level) {
+        if(!structuredFormat) {
+            if(tag != null) {
+                return getThreadAndTimeStamp() + " - " + tag + ": " + text;
+            }
+            return getThreadAndTimeStamp() + " - " + text;
+        }
+        String levelName;
+        switch(level) {
+            case INFO:
+                levelName = "INFO";
+                break;
+            case WARNING:
+                levelName = "WARNING";
+                break;
+            case ERROR:
+                levelName = "ERROR";
+                break;
+            default:
+                levelName = "DEBUG";
+                break;
+        }
+        // keep one record per line so the log can be parsed
+        if(text.indexOf('\n') > -1) {
+            text = StringUtil.replaceAll(text, "\n", "\\n");
+        }
+        return System.currentTimeMillis() + "\t" + levelName + "\t" + Thread.currentThread().getName() + "\t" + 
+                (tag == null ? "" : tag) + "\t" + text;
+    }
+    
+    /**
+     * Writes to the log writer and rotates the log file once it exceeds the maximum size, 
+     * this must be invoked while synchronized on the log
+     */
+    private Writer write(Writer w, String text) throws IOException {
+        w.write(text);
+        if(maxFileSize > 0 && getFileURL() != null) {
+            if(fileSize < 0) {
+                FileSystemStorage fs = FileSystemStorage.getInstance();
+                fileSize = fs.exists(getFileURL()) ? fs.getLength(getFileURL()) : 0;
+            } else {
+                // this counts characters which is close enough to the size of a mostly ASCII log
+                fileSize += text.length();
+            }
+            if(fileSize >= maxFileSize) {
+                w.flush();
+                rotate();
+                w = getWriter();
+            }
+        }
+        return w;
+    }
+    
+    private void rotate() {
+        Util.cleanup(output);
+        output = null;
+        String url = getFileURL();
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        for(int iter = maxFiles - 1 ; iter > 0 ; iter--) {
+            String from = iter == 1 ? url : url + "." + (iter - 1);
+            String to = url + "." + iter;
+            if(fs.exists(to)) {
+                fs.delete(to);
+            }
+            if(fs.exists(from)) {
+                fs.rename(from, to.substring(to.lastIndexOf('/') + 1));
+            }
+        }
+        if(maxFiles < 2 && fs.exists(url)) {
+            fs.delete(url);
+        }
+        fileSize = 0;
+    }
+    
+    private void enqueue(String record) {
+        synchronized(asyncLock) {
+            if(asyncBuffer == null) {
+                asyncBuffer = new String[asyncBufferSize];
+            }
+            while(asyncCount == asyncBuffer.length) {
+                if(overflowPolicy == OVERFLOW_DROP) {
+                    droppedRecords++;
+                    return;
+                }
+                try {
+                    asyncLock.wait();
+                } catch(InterruptedException err) {
+                    droppedRecords++;
+                    return;
+                }
+            }
+            asyncBuffer[(asyncHead + asyncCount) % asyncBuffer.length] = record;
+            asyncCount++;
+            if(asyncWriter == null) {
+                asyncWriter = Display.getInstance().createThread(new Runnable() {
+                    public void run() {
+                        asyncWriterLoop();
+                    }
+                }, "Log Writer");
+                asyncWriter.start();
+            }
+            asyncLock.notifyAll();
+        }
+    }
+    
+    private void asyncWriterLoop() {
+        String[] batch = null;
+        while(true) {
+            int count;
+            synchronized(asyncLock) {
+                asyncWriting = false;
+                long idleSince = System.currentTimeMillis();
+                while(asyncCount == 0) {
+                    asyncLock.notifyAll();
+                    long idle = System.currentTimeMillis() - idleSince;
+                    if(!async || idle >= ASYNC_IDLE_TIMEOUT) {
+                        asyncWriter = null;
+                        return;
+                    }
+                    try {
+                        asyncLock.wait(ASYNC_IDLE_TIMEOUT - idle);
+                    } catch(InterruptedException err) {
+                    }
+                }
+                count = asyncCount;
+                if(batch == null || batch.length < count) {
+                    batch = new String[asyncBuffer.length];
+                }
+                for(int iter = 0 ; iter < count ; iter++) {
+                    int offset = (asyncHead + iter) % asyncBuffer.length;
+                    batch[iter] = asyncBuffer[offset];
+                    asyncBuffer[offset] = null;
+                }
+                asyncHead = (asyncHead + count) % asyncBuffer.length;
+                asyncCount = 0;
+                asyncWriting = true;
+                // wake up threads blocked on a full buffer
+                asyncLock.notifyAll();
+            }
+            try {
+                synchronized(this) {
+                    Writer w = getWriter();
+                    for(int iter = 0 ; iter < count ; iter++) {
+                        w = write(w, batch[iter]);
+                        batch[iter] = null;
+                    }
+                    w.flush();
+                }
+            } catch(Throwable err) {
+                err.printStackTrace();
+            }
+        }
+    }
+    
+    private void flushAsync() {
+        synchronized(asyncLock) {
+            while(asyncWriter != null && (asyncCount > 0 || asyncWriting) && Thread.currentThread() != asyncWriter) {
+                try {
+                    asyncLock.wait();
+                } catch(InterruptedException err) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * When async logging is on records are queued in a bounded buffer and written in batches by a 
+     * dedicated writer thread instead of being written and flushed on the calling thread
+     * 
+     * @param async true to write the log on a separate thread
+     */
+    public void setAsync(boolean async) {
+        synchronized(asyncLock) {
+            this.async = async;
+            asyncLock.notifyAll();
+        }
+        if(!async) {
+            flushAsync();
+        }
+    }
+
+    /**
+     * Indicates whether records are written on a separate thread
+     * 
+     * @return true if async logging is on
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * The number of records that can be queued for the writer thread in async mode, 
+     * this only takes effect before the first record is queued
+     * 
+     * @param asyncBufferSize the number of records
+     */
+    public void setAsyncBufferSize(int asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+    }
+
+    /**
+     * The number of records that can be queued for the writer thread in async mode
+     * 
+     * @return the number of records
+     */
+    public int getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    /**
+     * Determines what happens to new records when the async buffer is full
+     * 
+     * @param overflowPolicy one of OVERFLOW_DROP or OVERFLOW_BLOCK
+     */
+    public void setOverflowPolicy(int overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Determines what happens to new records when the async buffer is full
+     * 
+     * @return one of OVERFLOW_DROP or OVERFLOW_BLOCK
+     */
+    public int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * The number of records discarded since the async buffer was full
+     * 
+     * @return the number of dropped records
+     */
+    public int getDroppedRecordCount() {
+        return droppedRecords;
+    }
+
+    /**
+     * The size after which the log file is rotated, this only applies when logging into a file 
+     * using {@link #setFileURL(java.lang.String)}. The current file is renamed to fileURL.1, the 
+     * previous fileURL.1 to fileURL.2 etc.
+     * 
+     * @param maxFileSize the size in bytes or 0 to disable rotation
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * The size after which the log file is rotated
+     * 
+     * @return the size in bytes or 0 if rotation is disabled
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * The number of log files kept when rotating including the current log file
+     * 
+     * @param maxFiles the number of files
+     */
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * The number of log files kept when rotating including the current log file
+     * 
+     * @return the number of files
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * When on records are written as tab separated lines of the time in milliseconds, level, thread, 
+     * tag and text so they can be processed by tools
+     * 
+     * @param structuredFormat true to use the structured format
+     */
+    public void setStructuredFormat(boolean structuredFormat) {
+        this.structuredFormat = structuredFormat;
+    }
+
+    /**
+     * Indicates whether records are written as tab separated lines
+     * 
+     * @return true if the structured format is used
+     */
+    public boolean isStructuredFormat() {
+        return structuredFormat;
+    }
     
     /**
      * Default method for creating the output writer into which we write, this method
@@ -379,16 +819,21 @@ public class Log {
      * Deletes the current log file
      */
     public static void deleteLog() {
-        if(instance.output != null) {
-            Util.cleanup(instance.output);
-            instance.output = null;
-        }
-        if(instance.getFileURL() == null) {
-            Storage.getInstance().deleteStorageFile("CN1Log__$");
-        } else {
-            if(FileSystemStorage.getInstance().exists(instance.getFileURL())) {
-                FileSystemStorage.getInstance().delete(instance.getFileURL());
-            } 
+        flush();
+        synchronized(instance) {
+            if(instance.output != null) {
+                Util.cleanup(instance.output);
+                instance.output = null;
+            }
+            if(instance.getFileURL() == null) {
+                Storage.getInstance().deleteStorageFile("CN1Log__$");
+            } else {
+                String[] files = instance.getLogFiles();
+                for(int iter = 0 ; iter < files.length ; iter++) {
+                    FileSystemStorage.getInstance().delete(files[iter]);
+                }
+                instance.fileSize = -1;
+            }
         }
     }
     
@@ -540,6 +985,7 @@ public class Log {
         if(!Objects.equals(this.fileURL, fileURL)) {
             try {
                 this.fileURL = fileURL;
+                fileSize = -1;
                 output = createWriter();
             } catch(IOException ex) {
                 ex.printStackTrace();
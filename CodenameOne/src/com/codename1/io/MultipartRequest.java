@@ -22,14 +22,10 @@
  */
 package com.codename1.io;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
-import java.io.Writer;
-import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -79,6 +75,38 @@ public class MultipartRequest extends ConnectionRequest {
     private boolean manualRedirect = true;
     private static boolean canFlushStream = true;
     private Vector ignoreEncoding = new Vector();
+    private int bufferSize = 8192;
+    private boolean fixedLengthStreaming = true;
+
+    /**
+     * A file argument that's opened only while the body is written
+     */
+    static class FilePart {
+        private final String path;
+        private final long offset;
+
+        FilePart(String path, long offset) {
+            this.path = path;
+            this.offset = offset;
+        }
+
+        InputStream open() throws IOException {
+            InputStream i = FileSystemStorage.getInstance().openInputStream(path);
+            long skip = offset;
+            while(skip > 0) {
+                long s = i.skip(skip);
+                if(s <= 0) {
+                    if(i.read() < 0) {
+                        Util.cleanup(i);
+                        throw new IOException("Offset " + offset + " is beyond the end of " + path);
+                    }
+                    s = 1;
+                }
+                skip -= s;
+            }
+            return i;
+        }
+    }
     
     /**
      * Set to true to encode binary data as base 64
@@ -128,6 +156,9 @@ public class MultipartRequest extends ConnectionRequest {
     	contentLength = calculateContentLength();
        	addRequestHeader("Content-Length", Long.toString(contentLength));
         super.initConnection(connection);
+        if(fixedLengthStreaming && !isChunkedStreaming()) {
+            Util.getImplementation().setFixedLengthStreamingMode(connection, contentLength);
+        }
     }
 
     
@@ -155,8 +186,26 @@ public class MultipartRequest extends ConnectionRequest {
      * @throws IOException if the file cannot be opened
      */
     public void addData(String name, String filePath, String mimeType) throws IOException {
-        addData(name, FileSystemStorage.getInstance().openInputStream(filePath), 
-                FileSystemStorage.getInstance().getLength(filePath), mimeType);
+        addData(name, filePath, 0, FileSystemStorage.getInstance().getLength(filePath), mimeType);
+    }
+
+    /**
+     * Adds a range of a file as a binary argument, the file is opened only when the request body is 
+     * written so a request can be retried. This allows uploading a large file in several requests
+     * 
+     * @param name the name of the file data
+     * @param filePath the path of the file to upload
+     * @param offset the offset of the first byte to upload
+     * @param length the number of bytes to upload
+     * @param mimeType the mime type for the content
+     */
+    public void addData(String name, String filePath, long offset, long length, String mimeType) {
+        args.put(name, new FilePart(filePath, offset));
+        if(!filenames.containsKey(name)) {
+            filenames.put(name, name);
+        }
+        filesizes.put(name, String.valueOf(length));
+        mimeTypes.put(name, mimeType);
     }
     
     /**
@@ -233,203 +282,166 @@ public class MultipartRequest extends ConnectionRequest {
         }
     }
 
+    /**
+     * Returns the text written for a string argument
+     */
+    private String textValue(String key, String value) {
+        if(!ignoreEncoding.contains(key) && base64Binaries) {
+            return Util.encodeBody(value);
+        }
+        return value;
+    }
+
+    private static byte[] utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            return s.getBytes();
+        }
+    }
+
+    /**
+     * Returns the boundary and headers that precede a text part
+     */
+    private byte[] textHeader(String key) {
+        return utf8("--" + boundary + CRLF + 
+                "Content-Disposition: form-data; name=\"" + key + "\"" + CRLF +
+                "Content-Type: text/plain; charset=UTF-8" + CRLF + CRLF);
+    }
+
+    /**
+     * Returns the boundary and headers that precede a binary part
+     */
+    private byte[] binaryHeader(String key) {
+        return utf8("--" + boundary + CRLF +
+                "Content-Disposition: form-data; name=\"" + key + "\"; filename=\"" + filenames.get(key) + "\"" + CRLF +
+                "Content-Type: " + mimeTypes.get(key) + CRLF +
+                "Content-Transfer-Encoding: binary" + CRLF + CRLF);
+    }
+
+    private byte[] trailer() {
+        return utf8("--" + boundary + "--" + CRLF);
+    }
+
+    /**
+     * Returns the exact byte length of the body written by {@link #buildRequestBody(java.io.OutputStream)}, 
+     * this is computed from the headers and the declared size of the binary parts without reading them
+     * 
+     * @return the content length in bytes
+     */
     protected long calculateContentLength() {
         long length = 0L;
         Iterator e = args.keySet().iterator();
-        
-        long dLength = "Content-Disposition: form-data; name=\"\"; filename=\"\"".length() + 2; // 2 = CRLF
-        long ctLength = "Content-Type: ".length() + 2; // 2 = CRLF
-        long cteLength = "Content-Transfer-Encoding: binary".length() + 4; // 4 = 2 * CRLF
-        long bLength = boundary.length() + 4; // -- + boundary + CRLF
-        long baseBinaryLength = dLength + ctLength + cteLength + bLength + 2; // 2 = CRLF at end of part 
-        dLength = "Content-Disposition: form-data; name=\"\"".length() + 2;  // 2 = CRLF
-        ctLength = "Content-Type: text/plain; charset=UTF-8".length() + 4; // 4 = 2 * CRLF
-        long baseTextLength = dLength + ctLength + bLength + 2;  // 2 = CRLF at end of part
-        
         while(e.hasNext()) {
-                String key = (String)e.next();
+            String key = (String)e.next();
             Object value = args.get(key);
             if(value instanceof String) {
-                length += baseTextLength;
-                length += key.length();
-                if(ignoreEncoding.contains(key)) {
-                    try {
-                        length += value.toString().getBytes("UTF-8").length;
-                    } catch (UnsupportedEncodingException ex) {
-                        length += value.toString().getBytes().length;
-                    }
-                } else {
-                    if(base64Binaries) {
-                        length += Util.encodeBody((String)value).length();
-                    } else {
-                        length += ((String)value).length();
-                    }
-                }
-            } else {
-                if(value instanceof String[]) {
-                    for(String s : (String[])value) {
-                        length += baseTextLength;
-                        length += key.length();
-                        if(ignoreEncoding.contains(key)) {
-                            try {
-                                length += s.toString().getBytes("UTF-8").length;
-                            } catch (UnsupportedEncodingException ex) {
-                                length += value.toString().getBytes().length;
-                            }
-                        } else {
-                            if(base64Binaries) {
-                                length += Util.encodeBody(s).length();
-                            } else {
-                                length += s.length();
-                            }
-                        }
-                    }
-                } else {
-                    length += baseBinaryLength;
-                    length += key.length();
-                    try { 
-                        length += ((String)filenames.get(key)).getBytes("UTF-8").length;
-                    } catch (UnsupportedEncodingException ex) {
-                        length += ((String)filenames.get(key)).getBytes().length;
-                    }
-                    length += ((String)mimeTypes.get(key)).length();
-                    length += Long.parseLong((String)filesizes.get(key));
+                length += textHeader(key).length + utf8(textValue(key, (String)value)).length + 2;
+                continue;
+            }
+            if(value instanceof String[]) {
+                for(String v : (String[])value) {
+                    length += textHeader(key).length + utf8(textValue(key, v)).length + 2;
                 }
+                continue;
             }
+            length += binaryHeader(key).length + Long.parseLong((String)filesizes.get(key)) + 2;
         }
-        length += bLength + 2; // same as part boundaries, suffixed with: --
+        length += trailer().length;
         return length;
     }
     
     /**
-     * {@inheritDoc}
+     * Writes the body directly to the connection, binary parts are copied in chunks of {@link #getBufferSize()} bytes
+     * from their streams and file parts are only opened while they are written, so memory use doesn't depend on the 
+     * size of the upload
      */
     protected void buildRequestBody(OutputStream os) throws IOException {
-        Writer writer = null;
-        writer = new OutputStreamWriter(os, "UTF-8"); 
+        byte[] crlf = utf8(CRLF);
+        byte[] buffer = null;
+        
+        // ports that don't return a buffered stream don't report the progress of the request body
+        boolean reportProgress = !(os instanceof BufferedOutputStream) && NetworkManager.getInstance().hasProgressListeners();
+        long written = 0;
         Iterator e = args.keySet().iterator();
         while(e.hasNext()) {
             if (shouldStop()) {
-                    break;
+                return;
             }
             String key = (String)e.next();
             Object value = args.get(key);
-            
-            writer.write("--");
-            writer.write(boundary);
-            writer.write(CRLF);
-            if(value instanceof String) {
-                writer.write("Content-Disposition: form-data; name=\"");
-                writer.write(key);
-                writer.write("\"");
-                writer.write(CRLF);
-                writer.write("Content-Type: text/plain; charset=UTF-8");
-                writer.write(CRLF);
-                writer.write(CRLF);
-                if(canFlushStream){
-                    writer.flush();
-                }                
-                if(ignoreEncoding.contains(key)) {
-                    writer.write((String)value);
+            if(value instanceof String || value instanceof String[]) {
+                String[] values;
+                if(value instanceof String) {
+                    values = new String[] {(String)value};
                 } else {
-                    if(base64Binaries) {
-                        writer.write(Util.encodeBody((String)value));
-                    } else {
-                        writer.write((String)value);
-                    }
+                    values = (String[])value;
                 }
-                //writer.write(CRLF);
-                if(canFlushStream){
-                    writer.flush();
+                for(String v : values) {
+                    byte[] header = textHeader(key);
+                    byte[] text = utf8(textValue(key, v));
+                    os.write(header);
+                    os.write(text);
+                    os.write(crlf);
+                    written += header.length + text.length + crlf.length;
                 }
-            } else { 
-                if(value instanceof String[]) {
-                    boolean first = true;
-                    for(String s : (String[])value) {
-                        if(!first) {
-                            writer.write(CRLF);
-                            writer.write("--");
-                            writer.write(boundary);
-                            writer.write(CRLF);                            
-                        }
-                        first = false;
-                        writer.write("Content-Disposition: form-data; name=\"");
-                        writer.write(key);
-                        writer.write("\"");
-                        writer.write(CRLF);
-                        writer.write("Content-Type: text/plain; charset=UTF-8");
-                        writer.write(CRLF);
-                        writer.write(CRLF);
-                        if(canFlushStream){
-                            writer.flush();
-                        }                
-                        if(ignoreEncoding.contains(key)) {
-                            writer.write(s);
-                        } else {
-                            if(base64Binaries) {
-                                writer.write(Util.encodeBody(s));
-                            } else {
-                                writer.write(s);
-                            }
-                        }
-                        //writer.write(CRLF);
-                        if(canFlushStream){
-                            writer.flush();
-                        }
-                    }
-                } else { 
-                    writer.write("Content-Disposition: form-data; name=\"" + key + "\"; filename=\"" + filenames.get(key) +"\"");
-                    writer.write(CRLF);
-                    writer.write("Content-Type: ");
-                    writer.write((String)mimeTypes.get(key));
-                    writer.write(CRLF);
-                    writer.write("Content-Transfer-Encoding: binary");
-                    writer.write(CRLF);
-                    writer.write(CRLF);
-                    if(canFlushStream){
-                        writer.flush();
+            } else {
+                byte[] header = binaryHeader(key);
+                os.write(header);
+                written += header.length;
+                if(value instanceof byte[]) {
+                    os.write((byte[])value);
+                    written += ((byte[])value).length;
+                } else {
+                    if(buffer == null) {
+                        buffer = new byte[bufferSize];
                     }
+                    long size = Long.parseLong((String)filesizes.get(key));
                     InputStream i;
-                    if (value instanceof InputStream) {
-                            i = (InputStream)value;
+                    if(value instanceof FilePart) {
+                        i = ((FilePart)value).open();
                     } else {
-                            i = new ByteArrayInputStream((byte[])value);
+                        i = (InputStream)value;
                     }
-                    byte[] buffer = new byte[8192];
-                    int s = i.read(buffer);
-                    while(s > -1) {
+                    try {
+                        // the content length was declared in advance so we don't send more than the declared size
+                        long remaining = size;
+                        while(remaining > 0) {
                             if (shouldStop()) {
-                                    break;
+                                return;
+                            }
+                            int s = i.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+                            if(s < 0) {
+                                throw new IOException("Expected " + size + " bytes for " + key + " but the stream ended after " + (size - remaining));
                             }
                             os.write(buffer, 0, s);
+                            remaining -= s;
+                            written += s;
                             if(canFlushStream){
-                                writer.flush();
+                                os.flush();
                             }
-                            s = i.read(buffer);
-                    }
-                    if (value instanceof InputStream) {
-                        if(!leaveInputStreamsOpen) {
+                            if(reportProgress) {
+                                ioStreamUpdate(os, (int)written);
+                            }
+                        }
+                    } finally {
+                        if(value instanceof FilePart || !leaveInputStreamsOpen) {
                             Util.cleanup(i);
                         }
-                    } else {
-                        Util.cleanup(i);
-                    }
-                    //args.remove(key);
-                    value = null;
-                    if(canFlushStream){
-                        writer.flush();
                     }
                 }
+                os.write(crlf);
+                written += crlf.length;
             }
-            writer.write(CRLF);
             if(canFlushStream){
-                writer.flush();
+                os.flush();
+            }
+            if(reportProgress) {
+                ioStreamUpdate(os, (int)written);
             }
         }
-        
-        writer.write("--" + boundary + "--");
-        writer.write(CRLF);
-        writer.close();
+        os.write(trailer());
+        os.close();
     }
 
     /* (non-Javadoc)
@@ -473,6 +485,41 @@ public class MultipartRequest extends ConnectionRequest {
         canFlushStream = flush;
     }
 
+    /**
+     * The size of the chunks in which binary parts are read and written
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * The size of the chunks in which binary parts are read and written
+     * @param bufferSize the buffer size in bytes
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /**
+     * Indicates whether the body is streamed to the server with the precomputed content length, 
+     * otherwise some ports buffer the entire body in memory before sending it
+     * @return true by default
+     */
+    public boolean isFixedLengthStreaming() {
+        return fixedLengthStreaming;
+    }
+
+    /**
+     * Indicates whether the body is streamed to the server with the precomputed content length, 
+     * otherwise some ports buffer the entire body in memory before sending it. This requires the
+     * sizes passed to the addData methods to be exact
+     * @param fixedLengthStreaming false to let the port buffer the body
+     */
+    public void setFixedLengthStreaming(boolean fixedLengthStreaming) {
+        this.fixedLengthStreaming = fixedLengthStreaming;
+    }
+
     /**
      * Set to true to encode binary data as base 64
      * @return the base64Binaries
@@ -53,12 +53,25 @@ public class NetworkEvent extends ActionEvent {
      */
     public static final int PROGRESS_TYPE_COMPLETED = 4;
 
+    /**
+     * Indicates a connection pool statistics update for the host of the request, this is sent after 
+     * a request completes if a per host connection limit was set in the {@link NetworkManager}
+     * 
+     * @see NetworkManager#setMaxConnectionsPerHost(int)
+     */
+    public static final int PROGRESS_TYPE_CONNECTION_POOL = 5;
+
     private Exception error;
     private int progressType;
     private int length = -1;
     private int received;
     private Object metaData;
     private String message;
+    private String host;
+    private int activeConnections = -1;
+    private int queuedRequests = -1;
+    private int openedConnections = -1;
+    private int completedRequests = -1;
 
     /**
      * Constructs an event for an error message
@@ -137,7 +150,7 @@ public class NetworkEvent extends ActionEvent {
      * Indicates the type of progres indication for this event
      *
      * @return One of PROGRESS_TYPE_COMPLETED, PROGRESS_TYPE_INITIALIZING, PROGRESS_TYPE_INPUT,
-     * PROGRESS_TYPE_OUTPUT
+     * PROGRESS_TYPE_OUTPUT, PROGRESS_TYPE_CONNECTION_POOL
      */
     public int getProgressType() {
         return progressType;
@@ -211,6 +224,62 @@ public class NetworkEvent extends ActionEvent {
     public String getMessage() {
         return message;
     }
+
+    /**
+     * The host (in the form host:port) for a connection pool event
+     * 
+     * @return the host or null if this isn't a connection pool event
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * The number of requests currently executing against the host of a connection pool event
+     * 
+     * @return the number of active connections or -1 if this isn't a connection pool event
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * The number of requests waiting for a free connection to the host of a connection pool event
+     * 
+     * @return the number of queued requests or -1 if this isn't a connection pool event
+     */
+    public int getQueuedRequests() {
+        return queuedRequests;
+    }
+
+    /**
+     * The number of physical connections opened to the host of a connection pool event
+     * 
+     * @return the number of opened connections or -1 if this isn't known on this platform
+     */
+    public int getOpenedConnections() {
+        return openedConnections;
+    }
+
+    /**
+     * The number of requests to the host of a connection pool event that reused an existing connection
+     * 
+     * @return the number of reused connections or -1 if this isn't known on this platform
+     */
+    public int getReusedConnections() {
+        if(openedConnections < 0 || completedRequests < 0) {
+            return -1;
+        }
+        return Math.max(0, completedRequests - openedConnections);
+    }
+
+    void setConnectionPoolStatistics(String host, int activeConnections, int queuedRequests, int openedConnections, int completedRequests) {
+        this.host = host;
+        this.activeConnections = activeConnections;
+        this.queuedRequests = queuedRequests;
+        this.openedConnections = openedConnections;
+        this.completedRequests = completedRequests;
+    }
     
     
 }
@@ -87,6 +87,12 @@ public class NetworkManager {
     public static final int ACCESS_POINT_TYPE_CORPORATE = 6;
 
     private static final Object LOCK = new Object();
+
+    /**
+     * Threads waiting for a request to complete (e.g. killAndWait) wait on this lock so
+     * the network threads waiting for new requests on LOCK aren't woken for every completion
+     */
+    private static final Object COMPLETION_LOCK = new Object();
     private static final NetworkManager INSTANCE = new NetworkManager();
 
     /**
@@ -105,7 +111,13 @@ public class NetworkManager {
         autoDetectURL = aAutoDetectURL;
     }
     
-    private Vector pending = new Vector();
+    private final NetworkQueue pending = new NetworkQueue();
+
+    /**
+     * Requests whose class was assigned to a specific thread via assignToThread are
+     * queued here by thread offset so only that thread picks them up
+     */
+    private NetworkQueue[] assignedPending;
     private boolean running;
     private int threadCount = 1;
     private NetworkThread[] networkThreads;
@@ -117,6 +129,13 @@ public class NetworkManager {
     private boolean autoDetected;
     private static String autoDetectURL = "https://www.google.com/";
     private int nextConnectionId=1;
+    private int maxConnectionsPerHost;
+    private int connectionIdleTimeout = -1;
+
+    /**
+     * Maps a host:port string to its HostConnections when a per host connection limit is set
+     */
+    private final Hashtable hostConnections = new Hashtable();
     
     private NetworkManager() {
     }
@@ -217,12 +236,121 @@ public class NetworkManager {
         start();
     }
 
+    /**
+     * Limits the number of requests that can execute concurrently against a single host, requests 
+     * above the limit wait in the queue until a request to that host completes. This keeps the number
+     * of sockets to chatty backends small so the platform can reuse keep-alive connections instead of
+     * performing a new TLS handshake for every request. 
+     * When a limit is set progress listeners also receive {@link NetworkEvent#PROGRESS_TYPE_CONNECTION_POOL}
+     * events with the connection statistics for the host.
+     * 
+     * @param maxConnectionsPerHost the maximum number of concurrent requests per host, 0 (the default) means no limit
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        synchronized(LOCK) {
+            this.maxConnectionsPerHost = Math.max(0, maxConnectionsPerHost);
+            if(this.maxConnectionsPerHost == 0) {
+                // release all the requests waiting for a connection
+                Enumeration e = hostConnections.elements();
+                while(e.hasMoreElements()) {
+                    HostConnections h = (HostConnections)e.nextElement();
+                    ConnectionRequest r = h.waiting.poll();
+                    while(r != null) {
+                        requeue(r);
+                        r = h.waiting.poll();
+                    }
+                }
+                LOCK.notifyAll();
+            }
+        }
+        Util.getImplementation().setConnectionPoolConfiguration(this.maxConnectionsPerHost, connectionIdleTimeout);
+    }
+
+    /**
+     * Returns the maximum number of concurrent requests per host
+     * 
+     * @return the limit or 0 if the number of connections per host isn't limited
+     * @see #setMaxConnectionsPerHost(int) 
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the time after which idle keep-alive connections are closed by the platform, this is a hint
+     * and might be ignored by some platforms. 
+     * 
+     * @param connectionIdleTimeout the timeout in milliseconds or -1 for the platform default
+     */
+    public void setConnectionIdleTimeout(int connectionIdleTimeout) {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+        Util.getImplementation().setConnectionPoolConfiguration(maxConnectionsPerHost, connectionIdleTimeout);
+    }
+
+    /**
+     * Returns the time after which idle keep-alive connections are closed
+     * 
+     * @return the timeout in milliseconds or -1 for the platform default
+     * @see #setConnectionIdleTimeout(int) 
+     */
+    public int getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    /**
+     * Book keeping for the requests executing against a single host when a connection limit is set
+     */
+    static class HostConnections {
+        int active;
+        int completed;
+        final NetworkQueue waiting = new NetworkQueue();
+    }
+
+    /**
+     * Extracts the host:port key used for the per host connection limit
+     */
+    static String getHostKey(String url) {
+        if(url == null) {
+            return null;
+        }
+        int start = url.indexOf("://");
+        if(start < 0) {
+            return null;
+        }
+        String scheme = url.substring(0, start).toLowerCase();
+        start += 3;
+        int end = url.length();
+        for(int iter = start ; iter < end ; iter++) {
+            char c = url.charAt(iter);
+            if(c == '/' || c == '?' || c == '#') {
+                end = iter;
+                break;
+            }
+        }
+        String host = url.substring(start, end).toLowerCase();
+        int at = host.lastIndexOf('@');
+        if(at > -1) {
+            host = host.substring(at + 1);
+        }
+        if(host.indexOf(':', host.lastIndexOf(']') + 1) < 0) {
+            if(scheme.equals("https")) {
+                host += ":443";
+            } else if(scheme.equals("http")) {
+                host += ":80";
+            }
+        }
+        return host;
+    }
+
     class NetworkThread implements Runnable {
         private ConnectionRequest currentRequest;
+        private String currentHost;
         private Thread threadInstance;
+        private final int offset;
         boolean stopped = false;
 
-        public NetworkThread() {
+        public NetworkThread(int offset) {
+            this.offset = offset;
         }
 
         public ConnectionRequest getCurrentRequest() {
@@ -251,31 +379,7 @@ public class NetworkManager {
             return threadInstance;
         }
         
-        private boolean runCurrentRequest(@Async.Execute ConnectionRequest req) {
-            if(threadAssignements.size() > 0) {
-                String n = currentRequest.getClass().getName();
-                Integer threadOffset = (Integer)threadAssignements.get(n);
-                NetworkThread[] networkThreads = NetworkManager.this.networkThreads;
-                if(networkThreads == null) {
-                    return false;
-                }
-                if(threadOffset != null && networkThreads[threadOffset.intValue()] != this) {
-                    synchronized(LOCK) {
-                        if(pending.size() > 0) {
-                            pending.insertElementAt(currentRequest, 1);
-                            return false;
-                        }
-                        pending.addElement(currentRequest);
-                        LOCK.notify();
-                        try {
-                            LOCK.wait(30);
-                        } catch (InterruptedException ex) {
-                            ex.printStackTrace();
-                        }
-                    }
-                }
-            }
-
+        private void runCurrentRequest(@Async.Execute ConnectionRequest req) {
             int frameRate = -1;
             boolean requestWasCompleted=true;
                 // Default this to true because if, for some reason an exception is thrown
@@ -337,6 +441,7 @@ public class NetworkManager {
                 }
                 if (requestWasCompleted) {
                     currentRequest.complete = true;
+                    currentRequest.requestCompleted();
                 }
                 if(progressListeners != null) {
                     progressListeners.fireActionEvent(new NetworkEvent(currentRequest, NetworkEvent.PROGRESS_TYPE_COMPLETED));
@@ -355,60 +460,59 @@ public class NetworkManager {
                     });
                 }
             }
-            return true;
         }
         
         public void run() {
             threadInstance = Thread.currentThread();
             while(running && !stopped) {
-                if(pending.size() > 0) {
-                    // the synchronization here isn't essential, only for good measure
-                    synchronized(LOCK) {
-                        //double lock to prevent a potential exception
-                        if(pending.size() == 0){
-                            continue;
-                        }
-                        currentRequest = (ConnectionRequest)pending.elementAt(0);
-                        pending.removeElementAt(0);
-                        currentRequest.prepare();
-                        if(currentRequest.isKilled()){
-                            continue;
-                        }
-                        currentRequest.setId(nextConnectionId++);
-                        if (nextConnectionId > 2000000000) {
-                            nextConnectionId = 1;
-                        }
-                    }
-                    if(userHeaders != null) {
-                        Enumeration e = userHeaders.keys();
-                        while(e.hasMoreElements()) {
-                            String key = (String)e.nextElement();
-                            String value = (String)userHeaders.get(key);
-                            currentRequest.addRequestHeaderDontRepleace(key, value);
+                synchronized(LOCK) {
+                    currentRequest = nextRequest(this);
+                    if(currentRequest == null) {
+                        try {
+                            // adding a request notifies a single waiting thread so idle
+                            // threads aren't woken up for every request
+                            LOCK.wait();
+                        } catch (InterruptedException ex) {
+                            ex.printStackTrace();
                         }
+                        continue;
                     }
-                    if (!runCurrentRequest(currentRequest)) {
+                    currentRequest.prepare();
+                    if(currentRequest.isKilled()){
+                        releaseHost(currentHost);
+                        currentHost = null;
+                        currentRequest = null;
                         continue;
                     }
-                    currentRequest = null;
-
-                    // wakeup threads waiting for the completion of this network operation
-                    synchronized(LOCK) {
-                        LOCK.notifyAll();
+                    currentRequest.setId(nextConnectionId++);
+                    if (nextConnectionId > 2000000000) {
+                        nextConnectionId = 1;
                     }
-                } else {
+                }
+                if(userHeaders != null) {
+                    Enumeration e = userHeaders.keys();
+                    while(e.hasMoreElements()) {
+                        String key = (String)e.nextElement();
+                        String value = (String)userHeaders.get(key);
+                        currentRequest.addRequestHeaderDontRepleace(key, value);
+                    }
+                }
+                runCurrentRequest(currentRequest);
+                if(currentHost != null) {
+                    HostConnections h;
                     synchronized(LOCK) {
-                        try {
-                            // prevent waiting when there is still a pending request
-                            // this can occur with a race condition since the synchronize
-                            // scope is limited to prevent blocking on add...
-                            if(pending.size() == 0) {
-                                LOCK.wait();
-                            }
-                        } catch (InterruptedException ex) {
-                            ex.printStackTrace();
-                        }
+                        h = releaseHost(currentHost);
                     }
+                    if(h != null) {
+                        fireConnectionPoolEvent(currentRequest, currentHost, h);
+                    }
+                    currentHost = null;
+                }
+                currentRequest = null;
+
+                // wakeup threads waiting for the completion of this network operation
+                synchronized(COMPLETION_LOCK) {
+                    COMPLETION_LOCK.notifyAll();
                 }
             }
         }
@@ -429,8 +533,170 @@ public class NetworkManager {
         }
     }
 
-    private NetworkThread createNetworkThread() {
-        return new NetworkThread();
+    private NetworkThread createNetworkThread(int offset) {
+        return new NetworkThread(offset);
+    }
+
+    /**
+     * Returns the next request for the given network thread, requests assigned to that thread take 
+     * precedence over the shared queue. When a per host connection limit is set requests to saturated 
+     * hosts are set aside and the acquired host is stored in the thread. Must be invoked while holding LOCK.
+     */
+    private ConnectionRequest nextRequest(NetworkThread thread) {
+        int offset = thread.offset;
+        thread.currentHost = null;
+        while(true) {
+            ConnectionRequest r;
+            NetworkQueue[] assigned = assignedPending;
+            if(assigned != null && offset < assigned.length && assigned[offset] != null && assigned[offset].size() > 0) {
+                r = assigned[offset].poll();
+            } else {
+                r = pending.poll();
+            }
+            if(r == null || maxConnectionsPerHost <= 0) {
+                return r;
+            }
+            String host = getHostKey(r.getUrl());
+            if(host == null) {
+                return r;
+            }
+            HostConnections h = (HostConnections)hostConnections.get(host);
+            if(h == null) {
+                h = new HostConnections();
+                hostConnections.put(host, h);
+            }
+            if(h.active < maxConnectionsPerHost) {
+                h.active++;
+                thread.currentHost = host;
+                return r;
+            }
+            
+            // the host is saturated, the request waits until a request to that host completes
+            if(!h.waiting.addLast(r, r.getPriority())) {
+                h.waiting.addLast(r, ConnectionRequest.PRIORITY_HIGH);
+            }
+        }
+    }
+
+    /**
+     * Places a request that was already taken out of the queue back at the front of its queue. 
+     * Must be invoked while holding LOCK.
+     */
+    private NetworkQueue requeue(ConnectionRequest r) {
+        NetworkQueue q = queueFor(r);
+        if(!q.addFirst(r, r.getPriority())) {
+            q.addFirst(r, ConnectionRequest.PRIORITY_HIGH);
+        }
+        return q;
+    }
+
+    /**
+     * Releases a connection slot for the given host and moves the next request waiting for this host
+     * back into the queue. Must be invoked while holding LOCK.
+     */
+    private HostConnections releaseHost(String host) {
+        if(host == null) {
+            return null;
+        }
+        HostConnections h = (HostConnections)hostConnections.get(host);
+        if(h == null) {
+            return null;
+        }
+        h.active--;
+        h.completed++;
+        ConnectionRequest next = h.waiting.poll();
+        if(next != null) {
+            if(requeue(next) == pending) {
+                LOCK.notify();
+            } else {
+                LOCK.notifyAll();
+            }
+        }
+        return h;
+    }
+
+    private void fireConnectionPoolEvent(ConnectionRequest r, String host, HostConnections h) {
+        EventDispatcher d = progressListeners;
+        if(d != null) {
+            NetworkEvent n = new NetworkEvent(r, NetworkEvent.PROGRESS_TYPE_CONNECTION_POOL);
+            n.setConnectionPoolStatistics(host, h.active, h.waiting.size(), 
+                    Util.getImplementation().getOpenedConnectionCount(host), h.completed);
+            d.fireActionEvent(n);
+        }
+    }
+
+    /**
+     * Returns the queue into which the given request should be placed based on the thread
+     * assignments. Must be invoked while holding LOCK.
+     */
+    private NetworkQueue queueFor(ConnectionRequest request) {
+        if(threadAssignements.size() > 0) {
+            Integer threadOffset = (Integer)threadAssignements.get(request.getClass().getName());
+            NetworkThread[] threads = networkThreads;
+            if(threadOffset != null && threads != null && threadOffset.intValue() < threads.length) {
+                int o = threadOffset.intValue();
+                if(assignedPending == null || assignedPending.length <= o) {
+                    NetworkQueue[] n = new NetworkQueue[threads.length];
+                    if(assignedPending != null) {
+                        System.arraycopy(assignedPending, 0, n, 0, assignedPending.length);
+                    }
+                    assignedPending = n;
+                }
+                if(assignedPending[o] == null) {
+                    assignedPending[o] = new NetworkQueue();
+                }
+                return assignedPending[o];
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the number of requests waiting in the queue, this counts the same requests returned by 
+     * enumurateQueue() and checked by isPending()
+     */
+    private int getPendingCount() {
+        int count = pending.size();
+        NetworkQueue[] assigned = assignedPending;
+        if(assigned != null) {
+            for(NetworkQueue q : assigned) {
+                if(q != null) {
+                    count += q.size();
+                }
+            }
+        }
+        if(hostConnections.size() > 0) {
+            synchronized(LOCK) {
+                Enumeration e = hostConnections.elements();
+                while(e.hasMoreElements()) {
+                    count += ((HostConnections)e.nextElement()).waiting.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if an equivalent request is already waiting in the queue. Must be invoked while holding LOCK.
+     */
+    private boolean isPending(ConnectionRequest request) {
+        if(pending.contains(request)) {
+            return true;
+        }
+        if(assignedPending != null) {
+            for(NetworkQueue q : assignedPending) {
+                if(q != null && q.contains(request)) {
+                    return true;
+                }
+            }
+        }
+        Enumeration e = hostConnections.elements();
+        while(e.hasMoreElements()) {
+            if(((HostConnections)e.nextElement()).waiting.contains(request)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     class AutoDetectAPN extends ConnectionRequest {
@@ -517,7 +783,7 @@ public class NetworkManager {
         running = true;
         networkThreads = new NetworkThread[getThreadCount()];
         for(int iter = 0 ; iter < getThreadCount() ; iter++) {
-            networkThreads[iter] = createNetworkThread();
+            networkThreads[iter] = createNetworkThread(iter);
             networkThreads[iter].start();
         }        
         // we need to implement a timeout thread of our own for this case...
@@ -559,7 +825,7 @@ public class NetworkManager {
                                         if(c.getTimeSinceLastActivity() > cTimeout) {
                                             // we need to create a whole new network thread and abandon this one!
                                             if(running) {
-                                                networkThreads[iter] = createNetworkThread();
+                                                networkThreads[iter] = createNetworkThread(iter);
                                                 networkThreads[iter].start();
                                             }
                                         }
@@ -614,17 +880,6 @@ public class NetworkManager {
         return INSTANCE;
     }
 
-    private void addSortedToQueue(ConnectionRequest request, int priority) {
-        for(int iter = 0 ; iter < pending.size() ; iter++) {
-            ConnectionRequest r = (ConnectionRequest)pending.elementAt(iter);
-            if(r.getPriority() < priority) {
-                pending.insertElementAt(request, iter);
-                return;
-            }
-        }
-        pending.addElement(request);
-    }
-
     /**
      * Adds a header to the global default headers, this header will be implicitly added 
      * to all requests going out from this point onwards. The main use case for this is
@@ -771,10 +1026,10 @@ public class NetworkManager {
             public void run() {
                 for(int iter = 0 ; iter < threadCount ; iter++) {
                     if(networkThreads[iter].currentRequest == request) {
-                        synchronized(LOCK) {
+                        synchronized(COMPLETION_LOCK) {
                             while(networkThreads[iter].currentRequest == request) {
                                 try {
-                                    LOCK.wait(20);
+                                    COMPLETION_LOCK.wait(20);
                                 } catch (InterruptedException ex) {
                                     ex.printStackTrace();
                                 }
@@ -795,7 +1050,7 @@ public class NetworkManager {
                         if(networkThreads[iter].currentRequest == request) {
                             networkThreads[iter].interrupt();
                             networkThreads[iter].stopped = true;
-                            networkThreads[iter] = createNetworkThread();
+                            networkThreads[iter] = createNetworkThread(iter);
                             networkThreads[iter].start();
                         }
                     }
@@ -829,7 +1084,7 @@ public class NetworkManager {
             int i = request.getPriority();
             if(!retry) {
                 if(!request.isDuplicateSupported()) {
-                    if(pending.contains(request)) {
+                    if(isPending(request)) {
                         System.out.println("Duplicate entry in the queue: " + request.getClass().getName() + ": " + request);
                         return;
                     }
@@ -842,27 +1097,39 @@ public class NetworkManager {
             } else {
                 i = ConnectionRequest.PRIORITY_HIGH;
             }
+            NetworkQueue queue = queueFor(request);
             switch(i) {
                 case ConnectionRequest.PRIORITY_CRITICAL:
-                    pending.insertElementAt(request, 0);
+                    queue.addFirst(request, i);
                     ConnectionRequest currentRequest = networkThreads[0].getCurrentRequest();
                     if(currentRequest != null && currentRequest.getPriority() < ConnectionRequest.PRIORITY_CRITICAL) {
                         if(currentRequest.isPausable()) {
                             currentRequest.pause();
-                            pending.insertElementAt(currentRequest, 1);
+                            NetworkQueue currentQueue = queueFor(currentRequest);
+                            if(currentQueue == queue) {
+                                queue.addSecond(currentRequest);
+                            } else {
+                                currentQueue.addFirst(currentRequest, ConnectionRequest.PRIORITY_CRITICAL);
+                            }
                         } else {
                             currentRequest.kill();
                         }
                     }
                     break;
-                case ConnectionRequest.PRIORITY_HIGH:
-                case ConnectionRequest.PRIORITY_NORMAL:
-                case ConnectionRequest.PRIORITY_LOW:
-                case ConnectionRequest.PRIORITY_REDUNDANT:
-                    addSortedToQueue(request, i);
+                default:
+                    // requests with a non-standard priority are ignored
+                    if(!queue.addLast(request, i)) {
+                        return;
+                    }
                     break;
             }
-            LOCK.notify();
+            if(queue == pending) {
+                // any thread can process this request so waking one is enough
+                LOCK.notify();
+            } else {
+                // only the assigned thread can process this request
+                LOCK.notifyAll();
+            }
         }
     }
 
@@ -961,15 +1228,24 @@ public class NetworkManager {
     }
 
     /**
-     * This method returns all pending ConnectioRequest connections.
+     * This method returns all pending ConnectioRequest connections, including the requests waiting for a 
+     * connection to their host when {@link #setMaxConnectionsPerHost(int)} is used.
      * @return the queue elements
      */
     public Enumeration enumurateQueue(){
         Vector elements = new Vector();
         synchronized(LOCK) {
-            Enumeration e = pending.elements();
-            while(e.hasMoreElements()){
-                elements.addElement(e.nextElement());
+            pending.copyInto(elements);
+            if(assignedPending != null) {
+                for(NetworkQueue q : assignedPending) {
+                    if(q != null) {
+                        q.copyInto(elements);
+                    }
+                }
+            }
+            Enumeration hosts = hostConnections.elements();
+            while(hosts.hasMoreElements()) {
+                ((HostConnections)hosts.nextElement()).waiting.copyInto(elements);
             }
         }
         return elements.elements();
@@ -981,10 +1257,9 @@ public class NetworkManager {
      * @return true if no network activity is in progress or pending
      */
     public boolean isQueueIdle() {
-        return pending == null || 
-                networkThreads == null || 
+        return networkThreads == null || 
                 networkThreads[0] == null || 
-                (pending.size() == 0 && networkThreads[0].getCurrentRequest() == null);
+                (getPendingCount() == 0 && networkThreads[0].getCurrentRequest() == null);
     }
     
     /**
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import java.util.Vector;
+
+/**
+ * Priority queue of pending connection requests used by the {@link NetworkManager}.
+ * Every one of the standard priorities gets its own FIFO lane so adding a request
+ * and taking the next request are constant time operations regardless of the
+ * queue length. This class isn't thread safe, the network manager guards it with
+ * its own lock.
+ */
+class NetworkQueue {
+    private static final byte[] PRIORITIES = {
+        ConnectionRequest.PRIORITY_CRITICAL,
+        ConnectionRequest.PRIORITY_HIGH,
+        ConnectionRequest.PRIORITY_NORMAL,
+        ConnectionRequest.PRIORITY_LOW,
+        ConnectionRequest.PRIORITY_REDUNDANT
+    };
+
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private int size;
+
+    NetworkQueue() {
+        for(int iter = 0 ; iter < lanes.length ; iter++) {
+            lanes[iter] = new Lane();
+        }
+    }
+
+    /**
+     * Returns the lane offset for the given priority or -1 if this isn't one of
+     * the standard priorities
+     */
+    private static int laneOf(int priority) {
+        for(int iter = 0 ; iter < PRIORITIES.length ; iter++) {
+            if(PRIORITIES[iter] == priority) {
+                return iter;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the request after all the requests of the same or higher priority
+     *
+     * @param request the request
+     * @param priority one of the standard priority constants
+     * @return false if the priority isn't a standard priority in which case the request is ignored
+     */
+    boolean addLast(ConnectionRequest request, int priority) {
+        int l = laneOf(priority);
+        if(l < 0) {
+            return false;
+        }
+        lanes[l].addLast(request);
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds the request before all the requests of the same priority
+     *
+     * @param request the request
+     * @param priority one of the standard priority constants
+     * @return false if the priority isn't a standard priority in which case the request is ignored
+     */
+    boolean addFirst(ConnectionRequest request, int priority) {
+        int l = laneOf(priority);
+        if(l < 0) {
+            return false;
+        }
+        lanes[l].addFirst(request);
+        size++;
+        return true;
+    }
+
+    /**
+     * Places the request so it will be the second request returned by poll, this
+     * is equivalent to inserting at offset 1 of a sorted vector
+     *
+     * @param request the request
+     */
+    void addSecond(ConnectionRequest request) {
+        for(int iter = 0 ; iter < lanes.length ; iter++) {
+            Lane l = lanes[iter];
+            if(l.size > 0) {
+                ConnectionRequest head = l.pollFirst();
+                l.addFirst(request);
+                l.addFirst(head);
+                size++;
+                return;
+            }
+        }
+        lanes[laneOf(ConnectionRequest.PRIORITY_CRITICAL)].addLast(request);
+        size++;
+    }
+
+    /**
+     * Removes and returns the highest priority request
+     *
+     * @return the request or null if the queue is empty
+     */
+    ConnectionRequest poll() {
+        if(size == 0) {
+            return null;
+        }
+        for(int iter = 0 ; iter < lanes.length ; iter++) {
+            Lane l = lanes[iter];
+            if(l.size > 0) {
+                size--;
+                return l.pollFirst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a request equal to the given request is in the queue
+     *
+     * @param request the request
+     * @return true if the request or an equal request is pending
+     */
+    boolean contains(ConnectionRequest request) {
+        for(int iter = 0 ; iter < lanes.length ; iter++) {
+            if(lanes[iter].contains(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The number of pending requests
+     *
+     * @return the number of pending requests
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends the pending requests in execution order to the given vector
+     *
+     * @param dest the destination vector
+     */
+    void copyInto(Vector dest) {
+        for(int iter = 0 ; iter < lanes.length ; iter++) {
+            lanes[iter].copyInto(dest);
+        }
+    }
+
+    /**
+     * A growable ring buffer, allocation only happens when the lane grows
+     */
+    static class Lane {
+        private ConnectionRequest[] elements = new ConnectionRequest[16];
+        private int head;
+        private int size;
+
+        private void ensureCapacity() {
+            if(size == elements.length) {
+                ConnectionRequest[] n = new ConnectionRequest[elements.length * 2];
+                for(int iter = 0 ; iter < size ; iter++) {
+                    n[iter] = elements[(head + iter) % elements.length];
+                }
+                elements = n;
+                head = 0;
+            }
+        }
+
+        void addLast(ConnectionRequest r) {
+            ensureCapacity();
+            elements[(head + size) % elements.length] = r;
+            size++;
+        }
+
+        void addFirst(ConnectionRequest r) {
+            ensureCapacity();
+            head = (head + elements.length - 1) % elements.length;
+            elements[head] = r;
+            size++;
+        }
+
+        ConnectionRequest pollFirst() {
+            ConnectionRequest r = elements[head];
+            elements[head] = null;
+            head = (head + 1) % elements.length;
+            size--;
+            return r;
+        }
+
+        boolean contains(ConnectionRequest r) {
+            for(int iter = 0 ; iter < size ; iter++) {
+                if(r.equals(elements[(head + iter) % elements.length])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void copyInto(Vector dest) {
+            for(int iter = 0 ; iter < size ; iter++) {
+                dest.addElement(elements[(head + iter) % elements.length]);
+            }
+        }
+    }
+}
@@ -22,12 +22,14 @@
  */
 package com.codename1.io;
 
+import com.codename1.ui.Display;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.Vector;
 
 /**
  * <p>Simple map like class to store application and Codename One preference 
@@ -44,14 +46,33 @@ import java.util.Set;
  * {@code Integer}. <br>
  * The workaround is to remain consistent and use code like this {@code Preferences.get("primitiveLongValue", (long)0)}.
  * </p>
+ * 
+ * <p>
+ * By default every change rewrites the whole preferences file. Apps that update values frequently 
+ * can turn on {@link #setWriteBehind(boolean)} in which case changes are batched on a background thread 
+ * and appended to a journal that is periodically compacted into the preferences file. The journal is 
+ * replayed when the preferences are loaded so changes that were written before a crash aren't lost.
+ * </p>
  *
  * @author Shai Almog
  * @author Miguel Mu\u00f1oz
  */
 public class Preferences {
-    private static Hashtable<String, Object> p;
+    private static volatile Hashtable<String, Object> p;
     private static final HashMap<String, ArrayList<PreferenceListener>> listenerMap = new HashMap<String, ArrayList<PreferenceListener>>();
     private static String preferencesLocation = "CN1Preferences";
+    
+    /**
+     * The number of journal segments after which the writer compacts the journal into the preferences file
+     */
+    private static final int MAX_JOURNAL_SEGMENTS = 16;
+    private static boolean writeBehind;
+    private static int writeBehindDelay = 500;
+    private static int journalSegments;
+    private static Vector pendingChanges = new Vector();
+    private static boolean compactRequested;
+    private static boolean flushRequested;
+    private static Thread writer;
             
     /**
      * Block instantiation of preferences 
@@ -65,8 +86,74 @@ public class Preferences {
      * @param storageFileName the name of the preferences file
      */
     public static void setPreferencesLocation(String storageFileName) {
-        preferencesLocation = storageFileName;
-        p = null;
+        flush();
+        synchronized(Preferences.class) {
+            preferencesLocation = storageFileName;
+            p = null;
+        }
+    }
+
+    /**
+     * When write behind is on changes to the preferences are batched and written by a background thread 
+     * into a journal instead of rewriting the full preferences file on every change. This is useful for
+     * apps that update preferences frequently e.g. counters or timestamps. Use {@link #flush()} to make sure 
+     * all the changes are written.
+     * 
+     * @param writeBehind true to batch changes on a background thread
+     */
+    public static void setWriteBehind(boolean writeBehind) {
+        if(!writeBehind) {
+            flush();
+        }
+        Preferences.writeBehind = writeBehind;
+    }
+
+    /**
+     * Indicates whether changes to the preferences are batched and written by a background thread
+     * 
+     * @return true if write behind is on
+     */
+    public static boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * The time in milliseconds the background writer waits to collect changes before writing them in 
+     * write behind mode
+     * 
+     * @param writeBehindDelay the delay in milliseconds
+     */
+    public static void setWriteBehindDelay(int writeBehindDelay) {
+        Preferences.writeBehindDelay = writeBehindDelay;
+    }
+
+    /**
+     * The time in milliseconds the background writer waits to collect changes before writing them in 
+     * write behind mode
+     * 
+     * @return the delay in milliseconds
+     */
+    public static int getWriteBehindDelay() {
+        return writeBehindDelay;
+    }
+
+    /**
+     * Blocks until all the pending changes are written to storage, this does nothing unless 
+     * write behind mode is on
+     */
+    public static void flush() {
+        synchronized(Preferences.class) {
+            while(writer != null) {
+                flushRequested = true;
+                Preferences.class.notifyAll();
+                try {
+                    Preferences.class.wait(1000);
+                } catch(InterruptedException err) {
+                    Log.e(err);
+                    return;
+                }
+            }
+        }
     }
     
     /**
@@ -78,20 +165,177 @@ public class Preferences {
         return preferencesLocation;
     }
     
-    private synchronized static Hashtable<String, Object> get() {
+    private static Hashtable<String, Object> get() {
+        // once loaded the table is returned without acquiring the class lock
+        Hashtable<String, Object> h = p;
+        if(h != null) {
+            return h;
+        }
+        return load();
+    }
+
+    private synchronized static Hashtable<String, Object> load() {
         if(p == null) {
+            Hashtable<String, Object> h = null;
             if(Storage.getInstance().exists(preferencesLocation)) {
-                p = (Hashtable<String, Object>)Storage.getInstance().readObject(preferencesLocation);
+                h = (Hashtable<String, Object>)Storage.getInstance().readObject(preferencesLocation);
+            }
+            if(h == null) {
+                h = new Hashtable<String, Object>();
+            }
+            
+            // replay journal segments left by write behind mode, these are newer than the preferences file
+            journalSegments = 0;
+            while(Storage.getInstance().exists(journalSegmentName(journalSegments))) {
+                Vector v = (Vector)Storage.getInstance().readObject(journalSegmentName(journalSegments));
+                journalSegments++;
+                if(v == null) {
+                    // a segment that was only partially written, there can't be newer segments
+                    break;
+                }
+                applyJournal(h, v);
             }
-            if(p == null) {
-                p = new Hashtable<String, Object>();
+            p = h;
+            if(journalSegments > 0) {
+                save();
             }
         }
         return p;
     }
     
+    private static String journalSegmentName(int segment) {
+        return preferencesLocation + "$J" + segment;
+    }
+    
+    private static void applyJournal(Hashtable<String, Object> h, Vector journal) {
+        int s = journal.size();
+        for(int iter = 0 ; iter < s ; iter += 2) {
+            String key = (String)journal.elementAt(iter);
+            Object value = journal.elementAt(iter + 1);
+            if(value == null) {
+                h.remove(key);
+            } else {
+                h.put(key, value);
+            }
+        }
+    }
+    
+    /**
+     * Writes the full preferences file and deletes the journal which is now redundant
+     */
     private static synchronized void save() {
+        if(writeBehind) {
+            compactRequested = true;
+            startWriter();
+            return;
+        }
         Storage.getInstance().writeObject(preferencesLocation, p);
+        deleteJournal(preferencesLocation, journalSegments);
+        journalSegments = 0;
+    }
+
+    private static void deleteJournal(String location, int segments) {
+        for(int iter = 0 ; iter < segments ; iter++) {
+            Storage.getInstance().deleteStorageFile(location + "$J" + iter);
+        }
+    }
+
+    /**
+     * Applies a change to the preferences and records it for the journal
+     */
+    private static synchronized void put(String pref, Object o) {
+        if(o == null) {
+            get().remove(pref);
+        } else {
+            get().put(pref, o);
+        }
+        if(writeBehind) {
+            pendingChanges.addElement(pref);
+            pendingChanges.addElement(o);
+        }
+    }
+    
+    /**
+     * Persists the changes made by put, in write behind mode this only schedules the background writer
+     */
+    private static synchronized void commit() {
+        if(writeBehind) {
+            startWriter();
+        } else {
+            save();
+        }
+    }
+    
+    /**
+     * Starts the background writer if it isn't running, the writer exits once a write behind delay
+     * passes without changes so it isn't kept around while the journal is idle
+     */
+    private static void startWriter() {
+        if(writer == null) {
+            writer = Display.getInstance().createThread(new Runnable() {
+                public void run() {
+                    writeBehindLoop();
+                }
+            }, "Preferences Writer");
+            writer.start();
+        }
+    }
+    
+    private static void writeBehindLoop() {
+        while(true) {
+            String location;
+            Vector journal = null;
+            Hashtable<String, Object> snapshot = null;
+            int segment;
+            synchronized(Preferences.class) {
+                if(!flushRequested) {
+                    try {
+                        // give the app a chance to make more changes so they are written together
+                        Preferences.class.wait(writeBehindDelay);
+                    } catch(InterruptedException err) {
+                        Log.e(err);
+                    }
+                }
+                if(pendingChanges.size() == 0 && !compactRequested) {
+                    writer = null;
+                    flushRequested = false;
+                    Preferences.class.notifyAll();
+                    return;
+                }
+                location = preferencesLocation;
+                if(compactRequested || journalSegments + 1 >= MAX_JOURNAL_SEGMENTS) {
+                    snapshot = new Hashtable<String, Object>(p);
+                    segment = journalSegments;
+                    journalSegments = 0;
+                    compactRequested = false;
+                } else {
+                    segment = journalSegments;
+                    journalSegments++;
+                }
+                journal = pendingChanges;
+                pendingChanges = new Vector();
+            }
+            try {
+                if(snapshot != null) {
+                    // the journal is only deleted after the full file is written so a crash in between 
+                    // just replays changes that are already in the file
+                    Storage.getInstance().writeObject(location, snapshot);
+                    deleteJournal(location, segment);
+                } else {
+                    Storage.getInstance().writeObject(location + "$J" + segment, journal);
+                }
+            } catch(RuntimeException err) {
+                Log.e(err);
+                synchronized(Preferences.class) {
+                    // write the full file on the next change since this batch might be lost
+                    compactRequested = true;
+                    writer = null;
+                    flushRequested = false;
+                    Preferences.class.notifyAll();
+                }
+                return;
+            }
+        }
     }
     
     /**
@@ -102,12 +346,8 @@ public class Preferences {
      */
     private static void set(String pref, Object o) {
         Object prior = get(pref, null);
-        if(o == null) {
-            get().remove(pref);
-        } else {
-            get().put(pref, o);
-        }
-        save();
+        put(pref, o);
+        commit();
         fireChange(pref, prior, o);
     }
     
@@ -121,14 +361,10 @@ public class Preferences {
             String pref = entry.getKey();
             Object o = entry.getValue();
             Object prior = get(pref, null);
-            if (o == null) {
-                get().remove(pref);
-            } else {
-                get().put(pref, o);
-            }
+            put(pref, o);
             changeParams.add(new Object[]{pref, prior, o});
         }
-        save();
+        commit();
         for (Object[] params : changeParams) {
             fireChange((String)params[0], params[1], params[2]);
         }
@@ -191,8 +427,8 @@ public class Preferences {
      */
     public static void delete(String pref) {
         Object prior = get(pref, null);
-        get().remove(pref);
-        save();        
+        put(pref, null);
+        commit();
         fireChange(pref, prior, null);
     }
 
@@ -215,8 +451,11 @@ public class Preferences {
                 }
             }
         }
-        get().clear();
-        save();        
+        synchronized(Preferences.class) {
+            get().clear();
+            pendingChanges.removeAllElements();
+            save();        
+        }
         if (priorValues != null) {
             for (String key : listenerMap.keySet()) {
                 fireChange(key, priorValues.get(key), null);
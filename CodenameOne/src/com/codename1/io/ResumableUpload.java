@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import java.io.IOException;
+
+/**
+ * <p>Uploads a file from {@link FileSystemStorage} as a sequence of {@link MultipartRequest}s that each carry
+ * one chunk of the file, so a failed upload only needs to send the chunks the server didn't receive. Every 
+ * request has a {@code Content-Range: bytes first-last/total} header and a file part containing that range. 
+ * Once the server accepts a chunk the offset advances past it, if the server responds with a 
+ * {@code Range: bytes=0-last} header the upload continues after the last byte the server reports.</p>
+ * 
+ * <p>A chunk that fails is retried up to {@link #getMaxRetries()} times, after that {@link #upload()} returns 
+ * false and {@link #getOffset()} points at the first byte that wasn't acknowledged. Invoking {@link #upload()}
+ * again resumes from there, an upload that was interrupted by an application restart can be resumed by 
+ * persisting the offset and restoring it with {@link #setOffset(long)}.</p>
+ * 
+ * <p>Progress events are fired to the {@link NetworkManager} progress listeners for every chunk request, 
+ * {@link #getOffset()} and {@link #getLength()} indicate the progress of the whole file.</p>
+ */
+public class ResumableUpload {
+    private final String url;
+    private final String name;
+    private final String filePath;
+    private final String mimeType;
+    private int chunkSize = 1024 * 1024;
+    private int maxRetries = 2;
+    private long offset;
+    private long length = -1;
+    private boolean complete;
+
+    /**
+     * Creates an upload of the given file
+     * 
+     * @param url the URL to which the chunks are posted
+     * @param name the name of the file argument in every chunk request
+     * @param filePath the path of the file in {@link FileSystemStorage}
+     * @param mimeType the mime type of the file
+     */
+    public ResumableUpload(String url, String name, String filePath, String mimeType) {
+        this.url = url;
+        this.name = name;
+        this.filePath = filePath;
+        this.mimeType = mimeType;
+    }
+
+    class ChunkRequest extends MultipartRequest {
+        private boolean failed;
+        private String range;
+
+        @Override
+        protected void readHeaders(Object connection) throws IOException {
+            range = getHeader(connection, "Range");
+        }
+
+        @Override
+        protected void handleErrorResponseCode(int code, String message) {
+            Log.p("Upload of " + filePath + " failed at offset " + offset + " with " + code + ": " + message);
+            failed = true;
+        }
+
+        @Override
+        protected void handleException(Exception err) {
+            Log.e(err);
+            failed = true;
+        }
+    }
+
+    /**
+     * Allows subclasses to add arguments or headers to every chunk request
+     * 
+     * @param request the request for a chunk before it's sent
+     */
+    protected void initRequest(MultipartRequest request) {
+    }
+
+    /**
+     * Returns the last byte the server acknowledged from a header of the form {@code bytes=0-last}
+     */
+    static long parseRangeEnd(String range) {
+        int dash = range.lastIndexOf('-');
+        if(dash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(range.substring(dash + 1).trim());
+        } catch(NumberFormatException err) {
+            return -1;
+        }
+    }
+
+    /**
+     * Uploads the remaining chunks of the file, this method blocks until the upload completes or fails and
+     * can be invoked on the EDT
+     * 
+     * @return true if the whole file was uploaded, false if a chunk failed more than the allowed number of retries
+     * @throws IOException if the file can't be read
+     */
+    public boolean upload() throws IOException {
+        if(length < 0) {
+            length = FileSystemStorage.getInstance().getLength(filePath);
+            if(length < 0) {
+                throw new IOException("Can't determine the length of " + filePath);
+            }
+        }
+        int failures = 0;
+        while(!complete) {
+            long size = Math.min(chunkSize, length - offset);
+            ChunkRequest r = new ChunkRequest();
+            r.setUrl(url);
+            r.addData(name, filePath, offset, size, mimeType);
+            if(length == 0) {
+                r.addRequestHeader("Content-Range", "bytes */0");
+            } else {
+                r.addRequestHeader("Content-Range", "bytes " + offset + "-" + (offset + size - 1) + "/" + length);
+            }
+            initRequest(r);
+            NetworkManager.getInstance().addToQueueAndWait(r);
+            long next = offset + size;
+            if(!r.failed && r.range != null) {
+                long last = parseRangeEnd(r.range);
+                if(last >= 0) {
+                    next = Math.min(length, last + 1);
+                }
+            }
+            if(r.failed || r.isKilled() || (next <= offset && length > 0)) {
+                failures++;
+                if(failures > maxRetries) {
+                    return false;
+                }
+                continue;
+            }
+            failures = 0;
+            offset = next;
+            complete = offset >= length;
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether all the chunks of the file were acknowledged by the server
+     * 
+     * @return true once the upload completed
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * The offset of the first byte that wasn't acknowledged by the server
+     * 
+     * @return the offset in bytes
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets the offset from which the upload continues, this allows resuming an upload that was 
+     * interrupted in a previous run of the application
+     * 
+     * @param offset the offset in bytes
+     */
+    public void setOffset(long offset) {
+        this.offset = offset;
+        complete = false;
+    }
+
+    /**
+     * The length of the file, this is only known once the upload started
+     * 
+     * @return the length in bytes or -1 if the upload didn't start
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * The maximum number of bytes sent in a single request
+     * 
+     * @return the chunk size in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The maximum number of bytes sent in a single request
+     * 
+     * @param chunkSize the chunk size in bytes
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * The number of times a failed chunk is resent before {@link #upload()} gives up
+     * 
+     * @return the number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * The number of times a failed chunk is resent before {@link #upload()} gives up
+     * 
+     * @param maxRetries the number of retries
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+}
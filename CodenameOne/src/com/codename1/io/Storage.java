@@ -50,6 +50,7 @@ public class Storage {
     private final CacheMap cache = new CacheMap();
     private static Storage INSTANCE;
     private boolean normalizeNames = true;
+    private boolean compactObjects = true;
 
     /**
      * Indicates the caching size, storage can be pretty slow
@@ -209,7 +210,9 @@ public class Storage {
     
     /**
      * <p>Writes the given object to storage assuming it is an externalizable type
-     * or one of the supported types.</p>
+     * or one of the supported types. Objects are written in the compact format of
+     * {@link Util#writeCompactObject(java.lang.Object, java.io.DataOutputStream)} unless
+     * {@link #setCompactObjects(boolean)} was turned off.</p>
      * 
      * <p>
      * The sample below demonstrates the usage and registration of the {@link com.codename1.io.Externalizable} interface:
@@ -226,7 +229,11 @@ public class Storage {
         DataOutputStream d = null;
         try {
             d = new DataOutputStream(createOutputStream(name));
-            Util.writeObject(o, d);
+            if(compactObjects) {
+                Util.writeCompactObject(o, d);
+            } else {
+                Util.writeObject(o, d);
+            }
             d.close();
             return true;
         } catch(Exception err) {
@@ -241,7 +248,8 @@ public class Storage {
     }
 
     /**
-     * <p>Reads the object from the storage, returns null if the object isn't there</p>
+     * <p>Reads the object from the storage, returns null if the object isn't there. Objects
+     * written in the compact format and in the previous format are both supported.</p>
      * <p>
      * The sample below demonstrates the usage and registration of the {@link com.codename1.io.Externalizable} interface:
      * </p>
@@ -295,6 +303,24 @@ public class Storage {
     public void setNormalizeNames(boolean normalizeNames) {
         this.normalizeNames = normalizeNames;
     }
+
+    /**
+     * Indicates whether {@link #writeObject(java.lang.String, java.lang.Object)} uses the compact
+     * object format, objects in either format can always be read
+     * @return true by default
+     */
+    public boolean isCompactObjects() {
+        return compactObjects;
+    }
+
+    /**
+     * Indicates whether {@link #writeObject(java.lang.String, java.lang.Object)} uses the compact
+     * object format, turning this off writes objects that older versions of Codename One can read
+     * @param compactObjects false to write the previous format
+     */
+    public void setCompactObjects(boolean compactObjects) {
+        this.compactObjects = compactObjects;
+    }
     
     /**
      * Allows installing a custom storage instance to provide functionality such as seamless encryption
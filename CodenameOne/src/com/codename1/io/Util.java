@@ -347,6 +347,10 @@ public class Util {
      * @throws IOException thrown by the stream
      */
     public static void writeObject(Object o, DataOutputStream out) throws IOException {
+        if(out instanceof CompactDataOutputStream) {
+            ((CompactDataOutputStream)out).writeObject(o);
+            return;
+        }
         if(o == null) {
             out.writeBoolean(false);
             return;
@@ -570,6 +574,26 @@ public class Util {
                 + " value: " + o);
     }
 
+    /**
+     * <p>Writes an object in the compact binary format of {@link CompactDataOutputStream}. Type names,
+     * property names and string map keys are written once and referenced by index afterwards and numbers
+     * are written as variable length integers which makes the output of large lists of objects considerably
+     * smaller and faster to write than {@link #writeObject(java.lang.Object, java.io.DataOutputStream)}.</p>
+     * 
+     * <p>The data starts with a header so {@link #readObject(java.io.DataInputStream)} reads both formats.</p>
+     *
+     * @param o the object to write which can be null
+     * @param out the destination output stream
+     * @throws IOException thrown by the stream
+     */
+    public static void writeCompactObject(Object o, DataOutputStream out) throws IOException {
+        out.write(CompactDataOutputStream.MAGIC);
+        out.write(CompactDataOutputStream.VERSION);
+        CompactDataOutputStream c = new CompactDataOutputStream(out);
+        c.writeObject(o);
+        c.flush();
+    }
+
     /**
      * This method allows working around <a href="http://code.google.com/p/codenameone/issues/detail?id=58">issue 58</a>
      * 
@@ -656,7 +680,8 @@ public class Util {
 
     /**
      * <p>Reads an object from the stream, notice that this is the inverse of the 
-     * {@link #writeObject(java.lang.Object, java.io.DataOutputStream)}.</p>
+     * {@link #writeObject(java.lang.Object, java.io.DataOutputStream)}. Objects written by 
+     * {@link #writeCompactObject(java.lang.Object, java.io.DataOutputStream)} are detected and read as well.</p>
      *
      * <p>
      * The sample below demonstrates the usage and registration of the {@link com.codename1.io.Externalizable} interface:
@@ -667,10 +692,22 @@ public class Util {
      * @throws IOException thrown by the stream
      */
     public static Object readObject(DataInputStream input) throws IOException {
+        if(input instanceof CompactDataInputStream) {
+            return ((CompactDataInputStream)input).readObject();
+        }
         try {
-            if (!input.readBoolean()) {
+            // the first byte is a boolean for the regular format
+            int header = input.readUnsignedByte();
+            if (header == 0) {
                 return null;
             }
+            if (header == CompactDataOutputStream.MAGIC) {
+                int version = input.readUnsignedByte();
+                if (version != CompactDataOutputStream.VERSION) {
+                    throw new IOException("Unsupported compact object version: " + version);
+                }
+                return new CompactDataInputStream(input).readObject();
+            }
             String type = input.readUTF();
             if ("int".equals(type)) {
                 return new Integer(input.readInt());
@@ -824,6 +861,13 @@ public class Util {
         } 
     }
 
+    /**
+     * Returns the class registered for the given object id
+     */
+    static Class getExternalizable(String id) {
+        return (Class)externalizables.get(id);
+    }
+
     /**
      * Encode a string for HTML requests
      *
@@ -1238,6 +1282,52 @@ public class Util {
         return n;
     }
 
+    /**
+     * Wraps a compressed stream with a decompressing stream. Ports that have a native inflater 
+     * (e.g. the desktop port which uses {@code java.util.zip}) use it, otherwise this falls back to 
+     * {@link com.codename1.io.gzip.GZIPInputStream} or {@link com.codename1.io.gzip.InflaterInputStream}
+     * 
+     * @param in the compressed stream
+     * @param gzip true for a gzip stream, false for a zlib stream
+     * @return the decompressed stream, closing it closes the underlying stream
+     * @throws IOException if reading the stream header failed
+     */
+    public static InputStream openInflaterInputStream(InputStream in, boolean gzip) throws IOException {
+        if(implInstance != null) {
+            InputStream i = implInstance.createInflaterInputStream(in, gzip);
+            if(i != null) {
+                return i;
+            }
+        }
+        if(gzip) {
+            return new com.codename1.io.gzip.GZIPInputStream(in);
+        }
+        return new com.codename1.io.gzip.InflaterInputStream(in);
+    }
+
+    /**
+     * Wraps a stream with a compressing stream. Ports that have a native deflater 
+     * (e.g. the desktop port which uses {@code java.util.zip}) use it, otherwise this falls back to 
+     * {@link com.codename1.io.gzip.GZIPOutputStream} or {@link com.codename1.io.gzip.DeflaterOutputStream}
+     * 
+     * @param out the destination of the compressed data
+     * @param gzip true to write a gzip stream, false to write a zlib stream
+     * @return the compressing stream, it must be closed to write the end of the compressed data
+     * @throws IOException if writing the stream header failed
+     */
+    public static OutputStream openDeflaterOutputStream(OutputStream out, boolean gzip) throws IOException {
+        if(implInstance != null) {
+            OutputStream o = implInstance.createDeflaterOutputStream(out, gzip);
+            if(o != null) {
+                return o;
+            }
+        }
+        if(gzip) {
+            return new com.codename1.io.gzip.GZIPOutputStream(out);
+        }
+        return new com.codename1.io.gzip.DeflaterOutputStream(out);
+    }
+
     /**
      * Provides a utility method breaks a given String to array of String according 
      * to the given separator
@@ -23,6 +23,7 @@
 package com.codename1.io.gzip;
 
 import com.codename1.io.ConnectionRequest;
+import com.codename1.io.Util;
 import com.codename1.ui.Display;
 import java.io.IOException;
 import java.io.InputStream;
@@ -62,7 +63,12 @@ public class GZConnectionRequest extends ConnectionRequest {
      */
     protected final void readResponse(InputStream input) throws IOException {
         if(isGzipped) {
-            readUnzipedResponse(new GZIPInputStream(input));
+            InputStream i = Util.openInflaterInputStream(input, true);
+            try {
+                readUnzipedResponse(i);
+            } finally {
+                Util.cleanup(i);
+            }
         } else {
             readUnzipedResponse(input);
         }
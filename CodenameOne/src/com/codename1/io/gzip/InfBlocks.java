@@ -34,9 +34,19 @@ EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.codename1.io.gzip;
 
+import java.util.Arrays;
+
 final class InfBlocks{
   static final private int MANY=1440;
 
+  // Buffers of inflaters that were ended, reused by the next inflaters so 
+  // repeated responses don't allocate a new window each time
+  static final private int POOL_SIZE=4;
+  static final private int POOLED_WINDOW=1<<15;
+  static final private byte[][] windowPool=new byte[POOL_SIZE][];
+  static final private int[][] huftsPool=new int[POOL_SIZE][];
+  static private int pooled;
+
   // And'ing with mask[n] masks the lower n bits
   static final private int[] inflate_mask = {
     0x00000000, 0x00000001, 0x00000003, 0x00000007, 0x0000000f,
@@ -110,8 +120,24 @@ final class InfBlocks{
   InfBlocks(ZStream z, int w){
     this.z=z;
     this.codes=new InfCodes(this.z, this);
-    hufts=new int[MANY*3];
-    window=new byte[w];
+    synchronized(windowPool){
+      if(w==POOLED_WINDOW && pooled>0){
+        pooled--;
+        window=windowPool[pooled];
+        hufts=huftsPool[pooled];
+        windowPool[pooled]=null;
+        huftsPool[pooled]=null;
+      }
+    }
+    if(window==null){
+      hufts=new int[MANY*3];
+      window=new byte[w];
+    }
+    else{
+      // a corrupt stream must not be able to read data of a previous stream
+      Arrays.fill(window, (byte)0);
+      Arrays.fill(hufts, 0);
+    }
     end=w;
     this.check = (z.istate.wrap==0) ? false : true;
     mode = TYPE;
@@ -532,6 +558,15 @@ final class InfBlocks{
 
   void free(){
     reset();
+    if(window!=null && window.length==POOLED_WINDOW && hufts!=null){
+      synchronized(windowPool){
+        if(pooled<POOL_SIZE){
+          windowPool[pooled]=window;
+          huftsPool[pooled]=hufts;
+          pooled++;
+        }
+      }
+    }
     window=null;
     hufts=null;
     //ZFREE(z, s);
@@ -33,7 +33,6 @@ import com.codename1.ui.geom.Dimension;
 import com.codename1.io.ConnectionRequest;
 import com.codename1.io.FileSystemStorage;
 import com.codename1.io.NetworkEvent;
-import com.codename1.io.NetworkManager;
 import com.codename1.io.Storage;
 import com.codename1.components.FileEncodedImage;
 import com.codename1.components.FileEncodedImageAsync;
@@ -383,7 +382,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholderImage;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        i.addToQueueSharingImageDownload();
     }
     
     /**
@@ -557,7 +556,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholderImage;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        i.addToQueueSharingImageDownload();
     }
 
     /**
@@ -658,7 +657,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholder;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        i.addToQueueSharingImageDownload();
     }
 
 
@@ -682,7 +681,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.cacheImages = true;
         i.destinationFile = destFile;
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        i.addToQueueSharingImageDownload();
     }
 
     public static void createImageToStorage(String url, ActionListener callback, String cacheId) {
@@ -709,7 +708,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.cacheImages = true;
         i.cacheId = cacheId;
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        i.addToQueueSharingImageDownload();
     }
 
     private static Image cacheImage(String cacheKey, boolean keep, String destFile, Dimension scale, Image placeholderImage, boolean maintainAspectRatio) {
@@ -848,22 +847,48 @@ public class ImageDownloadService extends ConnectionRequest {
         fireResponseListener(new NetworkEvent(this, result));
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    protected void readResponse(InputStream input) throws IOException  {
-        int imageScaleWidth = -1, imageScaleHeight = -1;
+    private int getImageScaleWidth() {
         if(fastScale) {
             if(toScale != null) {
-                imageScaleWidth = toScale.getWidth();
-                imageScaleHeight = toScale.getHeight();
-            } else {
-                if(placeholder != null) {
-                    imageScaleWidth = placeholder.getWidth();
-                    imageScaleHeight = placeholder.getHeight();
-                }
+                return toScale.getWidth();
+            }
+            if(placeholder != null) {
+                return placeholder.getWidth();
+            }
+        }
+        return -1;
+    }
+
+    private int getImageScaleHeight() {
+        if(fastScale) {
+            if(toScale != null) {
+                return toScale.getHeight();
+            }
+            if(placeholder != null) {
+                return placeholder.getHeight();
             }
         }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void readSharedImageResponse(String file, String storage) throws IOException {
+        if(cacheImages && destinationFile != null && destinationFile.equals(file)) {
+            // the shared download already wrote our file, writing the response to it would truncate it
+            result = FileEncodedImage.create(destinationFile, getImageScaleWidth(), getImageScaleHeight());
+            return;
+        }
+        super.readSharedImageResponse(file, storage);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void readResponse(InputStream input) throws IOException  {
+        int imageScaleWidth = getImageScaleWidth();
+        int imageScaleHeight = getImageScaleHeight();
         if(cacheImages) {
             if(destinationFile != null) {
                 result = FileEncodedImage.create(destinationFile, input, imageScaleWidth, imageScaleHeight);
@@ -29,9 +29,8 @@ import com.codename1.ui.Dialog;
 import com.codename1.io.ConnectionRequest;
 import com.codename1.io.NetworkEvent;
 import com.codename1.ui.Image;
-import com.codename1.xml.Element;
 import com.codename1.xml.ParserCallback;
-import com.codename1.xml.XMLParser;
+import com.codename1.xml.XMLPullParser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -94,71 +93,6 @@ public class RSSService extends ConnectionRequest implements ParserCallback {
      */
     protected void readResponse(InputStream input) throws IOException {
         results = new Vector();
-        class FinishParsing extends RuntimeException {
-        }
-        XMLParser p = new XMLParser() {
-            private String lastTag;
-            private Hashtable current;
-            private String url;
-            protected boolean startTag(String tag) {
-                if("item".equalsIgnoreCase(tag) || "entry".equalsIgnoreCase(tag)) {
-                    if(startOffset > 0) {
-                        return true;
-                    }
-                    current = new Hashtable();
-                    if(iconPlaceholder != null) {
-                        current.put("icon", iconPlaceholder);
-                    }
-                }
-                lastTag = tag;
-                return true;
-            }
-
-            protected void attribute(String tag, String attributeName, String value) {
-                if(current != null) {
-                    if("media:thumbnail".equalsIgnoreCase(tag) && "url".equalsIgnoreCase(attributeName)) {
-                        current.put("thumb", value);
-                    } else {
-                        if("media:player".equalsIgnoreCase(tag) && "url".equalsIgnoreCase(attributeName)) {
-                            current.put("player", value);
-                        }
-                    }
-                }
-            }
-
-            protected void textElement(String text) {
-                if(lastTag != null && current != null) {
-                    // make "ATOM" seem like RSS
-                    if("summary".equals(lastTag)) {
-                        current.put("details", text);
-                    } else {
-                        if("content".equals(lastTag)) {
-                            current.put("description", text);
-                        } else {
-                            current.put(lastTag, text);
-                        }
-                    }
-                }
-            }
-
-            protected void endTag(String tag) {                
-                if("item".equalsIgnoreCase(tag) || "entry".equalsIgnoreCase(tag)) {
-                    if(startOffset > 0) {
-                        startOffset--;
-                        return;
-                    }
-                    results.addElement(current);
-                    current = null;
-                    if(limit > -1 && results.size() >= limit) {
-                        throw new FinishParsing();
-                    }
-                }
-                if(tag.equals(lastTag)) {
-                    lastTag = null;
-                }
-            }
-        };
-        p.setParserCallback(this);
         input.mark(10);
 
         // Skip the bom marking UTF-8 in some streams
@@ -189,15 +123,13 @@ public class RSSService extends ConnectionRequest implements ParserCallback {
         if(resultType != null && resultType.indexOf("charset=") > -1) {
             cType = resultType.substring(resultType.indexOf("charset=") + 8);
         }
-        try {
-            int pos2 = cType.indexOf(';');
-            if(pos2 > 0) {
-                cType = cType.substring(0, pos2);
-            }
-            p.eventParser(new InputStreamReader(input, cType));
-        } catch(FinishParsing ignor) {
-            hasMore = true;
+        int pos2 = cType.indexOf(';');
+        if(pos2 > 0) {
+            cType = cType.substring(0, pos2);
         }
+        XMLPullParser p = new XMLPullParser(new InputStreamReader(input, cType));
+        p.setParserCallback(this);
+        parseEntries(p);
 
         if(isCreatePlainTextDetails()) {
             int elementCount = results.size();
@@ -205,12 +137,13 @@ public class RSSService extends ConnectionRequest implements ParserCallback {
                 Hashtable h = (Hashtable)results.elementAt(iter);
                 String s = (String)h.get("description");
                 if(s != null && !h.containsKey("details")) {
-                    XMLParser x = new XMLParser();
-                    Element e = x.parse(new CharArrayReader(("<xml>" + s + "</xml>").toCharArray()));
-                    Vector results = e.getTextDescendants(null, false);
+                    XMLPullParser x = new XMLPullParser(new CharArrayReader(("<xml>" + s + "</xml>").toCharArray()), 256);
                     StringBuilder endResult = new StringBuilder();
-                    for(int i = 0 ; i < results.size() ; i++) {
-                        endResult.append(((Element)results.elementAt(i)).getText());
+                    int event;
+                    while((event = x.next()) != XMLPullParser.END_DOCUMENT) {
+                        if(event == XMLPullParser.TEXT) {
+                            endResult.append(x.getText());
+                        }
                     }
                     h.put("details", endResult.toString());
                 }
@@ -221,6 +154,77 @@ public class RSSService extends ConnectionRequest implements ParserCallback {
     }
 
 
+    /**
+     * Reads the entries from the feed as it streams in, entries before the start offset are skipped
+     * without being read into memory and parsing stops once the limit is reached
+     */
+    private void parseEntries(XMLPullParser p) throws IOException {
+        String lastTag = null;
+        Hashtable current = null;
+        int event;
+        while((event = p.next()) != XMLPullParser.END_DOCUMENT) {
+            switch(event) {
+                case XMLPullParser.START_TAG: {
+                    String tag = p.getName();
+                    if("item".equalsIgnoreCase(tag) || "entry".equalsIgnoreCase(tag)) {
+                        if(startOffset > 0) {
+                            p.skip();
+                            startOffset--;
+                            break;
+                        }
+                        current = new Hashtable();
+                        if(iconPlaceholder != null) {
+                            current.put("icon", iconPlaceholder);
+                        }
+                    }
+                    lastTag = tag;
+                    if(current != null) {
+                        String url = p.getAttributeValue("url");
+                        if(url != null) {
+                            if("media:thumbnail".equalsIgnoreCase(tag)) {
+                                current.put("thumb", url);
+                            } else {
+                                if("media:player".equalsIgnoreCase(tag)) {
+                                    current.put("player", url);
+                                }
+                            }
+                        }
+                    }
+                    break;
+                }
+                case XMLPullParser.TEXT:
+                    if(lastTag != null && current != null) {
+                        // make "ATOM" seem like RSS
+                        if("summary".equals(lastTag)) {
+                            current.put("details", p.getText());
+                        } else {
+                            if("content".equals(lastTag)) {
+                                current.put("description", p.getText());
+                            } else {
+                                current.put(lastTag, p.getText());
+                            }
+                        }
+                    }
+                    break;
+                case XMLPullParser.END_TAG: {
+                    String tag = p.getName();
+                    if(current != null && ("item".equalsIgnoreCase(tag) || "entry".equalsIgnoreCase(tag))) {
+                        results.addElement(current);
+                        current = null;
+                        if(limit > -1 && results.size() >= limit) {
+                            hasMore = true;
+                            return;
+                        }
+                    }
+                    if(tag.equals(lastTag)) {
+                        lastTag = null;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * The results are presented as a vector of hashtables easily presentable in Codename One
      *
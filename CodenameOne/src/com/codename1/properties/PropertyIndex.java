@@ -23,8 +23,10 @@
 
 package com.codename1.properties;
 
+import com.codename1.io.CompactDataInputStream;
+import com.codename1.io.CompactDataOutputStream;
 import com.codename1.io.Externalizable;
-import com.codename1.io.JSONParser;
+import com.codename1.io.JSONPullParser;
 import com.codename1.io.Log;
 import com.codename1.io.Storage;
 import com.codename1.io.Util;
@@ -446,6 +448,128 @@ public class PropertyIndex implements Iterable<PropertyBase> {
         }            
     }
     
+    /**
+     * Populates the object directly from a streaming JSON parser without building an intermediate
+     * map. The parser should be positioned before or on the START_OBJECT event of the object, when
+     * this method returns the parser is positioned on the matching END_OBJECT event. Keys that don't
+     * match a property are skipped and null values leave the property unchanged.
+     * @param parser the parser
+     * @throws IOException if thrown by the parser
+     */
+    public void populateFromJSON(JSONPullParser parser) throws IOException {
+        if(parser.getEventType() != JSONPullParser.START_OBJECT) {
+            parser.next();
+        }
+        populateFromJSON(parser, parent.getClass());
+    }
+
+    private boolean hasMapAdapter() {
+        for(PropertyBase p : properties) {
+            if(MapAdapter.checkInstance(p) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void populateFromJSON(JSONPullParser parser, Class<? extends PropertyBusinessObject>recursiveType) throws IOException {
+        if(parser.getEventType() != JSONPullParser.START_OBJECT) {
+            throw new IOException("Expected a JSON object at line: " + parser.getLine());
+        }
+        if(hasMapAdapter()) {
+            // adapters work on the whole map of the object
+            populateFromMap((Map<String, Object>)parser.readValue(), recursiveType);
+            return;
+        }
+        try {
+            while(parser.next() == JSONPullParser.KEY) {
+                PropertyBase p = get(parser.getString());
+                int event = parser.next();
+                if(p == null) {
+                    parser.skipValue();
+                    continue;
+                }
+                switch(event) {
+                    case JSONPullParser.NULL:
+                        continue;
+                    case JSONPullParser.START_ARRAY:
+                        if(p instanceof CollectionProperty) {
+                            CollectionProperty cp = (CollectionProperty)p;
+                            cp.clear();
+                            Class eType = cp.getGenericType();
+                            Class type = (eType == null)? recursiveType : eType; 
+                            while(parser.next() != JSONPullParser.END_ARRAY) {
+                                switch(parser.getEventType()) {
+                                    case JSONPullParser.START_OBJECT: {
+                                        PropertyBusinessObject po = (PropertyBusinessObject)type.newInstance();
+                                        po.getPropertyIndex().populateFromJSON(parser, type);
+                                        cp.add(po);
+                                        break;
+                                    }
+                                    case JSONPullParser.START_ARRAY:
+                                        cp.add(listParse((List)parser.readValue(), recursiveType));
+                                        break;
+                                    case JSONPullParser.END_DOCUMENT:
+                                        throw new IOException("Unexpected end of JSON");
+                                    default:
+                                        cp.add(parser.getValue());
+                                        break;
+                                }
+                            }
+                        } else {
+                            parser.skipValue();
+                        }
+                        continue;
+                    case JSONPullParser.START_OBJECT:
+                        if(p instanceof MapProperty) {
+                            Map<String, Object> m = new HashMap<String, Object>();
+                            m.put(p.getName(), parser.readValue());
+                            populateFromMap(m, recursiveType);
+                            continue;
+                        }
+                        if(p.get() instanceof PropertyBusinessObject) {
+                            ((PropertyBusinessObject)p.get()).getPropertyIndex().populateFromJSON(parser, recursiveType);
+                            continue;
+                        }
+                        if(p.getGenericType() != null) {
+                            Object o = p.getGenericType().newInstance();
+                            if(o instanceof PropertyBusinessObject) {
+                                PropertyBusinessObject po = (PropertyBusinessObject)o;
+                                po.getPropertyIndex().populateFromJSON(parser, po.getClass());
+                                p.setImpl(o);
+                            } else {
+                                parser.skipValue();
+                            }
+                            continue;
+                        }
+                        if(recursiveType != null) {
+                            PropertyBusinessObject po = (PropertyBusinessObject)recursiveType.newInstance();
+                            po.getPropertyIndex().populateFromJSON(parser, recursiveType);
+                            p.setImpl(po);
+                        } else {
+                            parser.skipValue();
+                        }
+                        continue;
+                    case JSONPullParser.END_DOCUMENT:
+                        throw new IOException("Unexpected end of JSON");
+                }
+                Object val = parser.getValue();
+                if(!setSimpleObject(p, val)) {
+                    p.setImpl(val);
+                }
+            }
+            if(parser.getEventType() != JSONPullParser.END_OBJECT) {
+                throw new IOException("Expected the end of a JSON object at line: " + parser.getLine());
+            }
+        } catch(InstantiationException err) {
+            Log.e(err);
+            throw new RuntimeException("Can't create instanceof class: " + err);
+        } catch(IllegalAccessException err) {
+            Log.e(err);
+            throw new RuntimeException("Can't create instanceof class: " + err);
+        }            
+    }
+    
     /**
      * This is useful in converting a property object to JSON
      * @return a map representation of the properties
@@ -700,16 +824,36 @@ public class PropertyIndex implements Iterable<PropertyBase> {
      */
     public <X extends PropertyBusinessObject> List<X> loadJSONList(InputStream stream)
         throws IOException {
-        JSONParser jp = new JSONParser();
-        JSONParser.setUseBoolean(true);
-        JSONParser.setUseLongs(true);
+        return loadJSONList(new JSONPullParser(new InputStreamReader(stream, "UTF-8")));
+    }
+
+    /**
+     * Loads a JSON array of property objects of this type directly from a streaming parser, 
+     * elements are bound one by one so the JSON is never held in memory as a whole
+     * @param parser the parser positioned before or on the START_ARRAY event
+     * @return list of property objects matching this type
+     * @throws IOException if thrown by the parser
+     */
+    public <X extends PropertyBusinessObject> List<X> loadJSONList(JSONPullParser parser)
+        throws IOException {
+        if(parser.getEventType() != JSONPullParser.START_ARRAY) {
+            parser.next();
+        }
+        if(parser.getEventType() != JSONPullParser.START_ARRAY) {
+            throw new IOException("Expected a JSON array at line: " + parser.getLine());
+        }
         List<X> response = new ArrayList<X>();
-        Map<String, Object> result = jp.parseJSON(new InputStreamReader(stream, "UTF-8"));
-        List<Map> entries = (List<Map>)result.get("root");
-        for(Map m : entries) {
-            X pb = (X)newInstance();
-            pb.getPropertyIndex().populateFromMap(m, parent.getClass());
-            response.add(pb);
+        while(parser.next() != JSONPullParser.END_ARRAY) {
+            if(parser.getEventType() == JSONPullParser.START_OBJECT) {
+                X pb = (X)newInstance();
+                pb.getPropertyIndex().populateFromJSON(parser, parent.getClass());
+                response.add(pb);
+            } else {
+                if(parser.getEventType() == JSONPullParser.END_DOCUMENT) {
+                    throw new IOException("Unexpected end of JSON");
+                }
+                parser.skipValue();
+            }
         }
         return response;
     }
@@ -733,11 +877,7 @@ public class PropertyIndex implements Iterable<PropertyBase> {
      */
     public void fromJSON(String jsonString) {
         try {
-            StringReader r = new StringReader(jsonString);
-            JSONParser jp = new JSONParser();
-            JSONParser.setUseBoolean(true);
-            JSONParser.setUseLongs(true);
-            populateFromMap(jp.parseJSON(r), parent.getClass());
+            populateFromJSON(new JSONPullParser(new StringReader(jsonString)));
         } catch(IOException err) {
             Log.e(err);
             throw new RuntimeException(err.toString());
@@ -773,10 +913,7 @@ public class PropertyIndex implements Iterable<PropertyBase> {
      * @param stream the input stream containing the JSON file
      */
     public void loadJSON(InputStream stream) throws IOException {
-        JSONParser jp = new JSONParser();
-        JSONParser.setUseBoolean(true);
-        JSONParser.setUseLongs(true);
-        populateFromMap(jp.parseJSON(new InputStreamReader(stream, "UTF-8")), parent.getClass());
+        populateFromJSON(new JSONPullParser(new InputStreamReader(stream, "UTF-8")));
     }
 
     /**
@@ -892,9 +1029,20 @@ public class PropertyIndex implements Iterable<PropertyBase> {
             }
 
             public void externalize(DataOutputStream out) throws IOException {
-                out.writeInt(getSize());
+                // within a compact stream the property names are written once per stream
+                CompactDataOutputStream compact = null;
+                if(out instanceof CompactDataOutputStream) {
+                    compact = (CompactDataOutputStream)out;
+                    compact.writeVarInt(getSize());
+                } else {
+                    out.writeInt(getSize());
+                }
                 for(PropertyBase b : PropertyIndex.this) {
-                    out.writeUTF(b.getName());
+                    if(compact != null) {
+                        compact.writeKey(b.getName());
+                    } else {
+                        out.writeUTF(b.getName());
+                    }
                     if(b instanceof CollectionProperty) {
                         out.writeByte(2);
                         Util.writeObject(((CollectionProperty)b).asList(), out);
@@ -914,9 +1062,21 @@ public class PropertyIndex implements Iterable<PropertyBase> {
             }
 
             public void internalize(int version, DataInputStream in) throws IOException {
-                int size = in.readInt();
+                CompactDataInputStream compact = null;
+                int size;
+                if(in instanceof CompactDataInputStream) {
+                    compact = (CompactDataInputStream)in;
+                    size = compact.readVarInt();
+                } else {
+                    size = in.readInt();
+                }
                 for(int iter = 0 ; iter < size ; iter++) {
-                    String pname = in.readUTF();
+                    String pname;
+                    if(compact != null) {
+                        pname = compact.readKey();
+                    } else {
+                        pname = in.readUTF();
+                    }
                     int type = in.readByte();
                     Object data = Util.readObject(in);
                     PropertyBase pb = get(pname);
@@ -26,6 +26,7 @@ package com.codename1.properties;
 import com.codename1.db.Cursor;
 import com.codename1.db.Database;
 import com.codename1.db.Row;
+import com.codename1.db.StatementCache;
 import com.codename1.io.Log;
 import com.codename1.io.Util;
 import com.codename1.ui.EncodedImage;
@@ -152,7 +153,17 @@ public class SQLMap {
         }
     }
 
+    private static final int BATCH_INSERT = 0;
+    private static final int BATCH_UPSERT = 1;
+    private static final int BATCH_DELETE = 2;
+
+    /**
+     * The number of rows sent to the database in a single batch
+     */
+    private static final int BATCH_SIZE = 500;
+
     private Database db;
+    private StatementCache statements;
     
     private SQLMap() {}
     
@@ -164,8 +175,17 @@ public class SQLMap {
     public static SQLMap create(Database db) {
         SQLMap s = new SQLMap();
         s.db = db;
+        s.statements = new StatementCache(db, 16);
         return s;
     }
+
+    /**
+     * Closes the prepared statements cached by this instance, this should be invoked before the
+     * database is closed
+     */
+    public void clearStatementCache() {
+        statements.clear();
+    }
     
     /**
      * Sets the primary key for the component
@@ -374,7 +394,7 @@ public class SQLMap {
         if(verbose) {
             Log.p(stmt);
         }
-        db.execute(stmt, args);
+        statements.get(stmt).execute(args);
     }
     
     private Cursor executeQuery(String stmt, Object[] args) throws IOException {
@@ -406,13 +426,123 @@ public class SQLMap {
      * @param cmp the business component
      */
     public void insert(PropertyBusinessObject cmp) throws IOException {
+        execute(insertStatement(cmp, false), insertValues(cmp));
+    }
+    
+    /**
+     * The equivalent of an SQL update assumes that the object is already in the database
+     * @param cmp the component
+     * @throws IOException 
+     */
+    public void update(PropertyBusinessObject cmp) throws IOException {
+        execute(updateStatement(cmp), updateValues(cmp));
+    }
+    
+    /**
+     * Deletes a table row matching the component
+     * @param cmp the component
+     */
+    public void delete(PropertyBusinessObject cmp) throws IOException {
+        execute(deleteStatement(cmp), deleteValues(cmp));
+    }
+
+    /**
+     * Adds all the business objects into the database within a single transaction, if one of the inserts fails
+     * the transaction is rolled back and none of the objects are added. This must not be invoked while a
+     * transaction is in progress
+     * @param objects the business objects
+     */
+    public void insertAll(List<? extends PropertyBusinessObject> objects) throws IOException {
+        executeAll(BATCH_INSERT, objects);
+    }
+
+    /**
+     * Inserts all the business objects into the database or replaces the rows with the same primary key within a
+     * single transaction, if one of the operations fails the transaction is rolled back. This must not be invoked
+     * while a transaction is in progress
+     * @param objects the business objects
+     */
+    public void upsertAll(List<? extends PropertyBusinessObject> objects) throws IOException {
+        executeAll(BATCH_UPSERT, objects);
+    }
+
+    /**
+     * Deletes the table rows matching all the components within a single transaction, if one of the deletes
+     * fails the transaction is rolled back. This must not be invoked while a transaction is in progress
+     * @param objects the business objects
+     */
+    public void deleteAll(List<? extends PropertyBusinessObject> objects) throws IOException {
+        executeAll(BATCH_DELETE, objects);
+    }
+
+    private String batchStatement(int type, PropertyBusinessObject cmp) throws IOException {
+        if(type == BATCH_DELETE) {
+            return deleteStatement(cmp);
+        }
+        return insertStatement(cmp, type == BATCH_UPSERT);
+    }
+
+    private Object[] batchValues(int type, PropertyBusinessObject cmp) throws IOException {
+        if(type == BATCH_DELETE) {
+            return deleteValues(cmp);
+        }
+        return insertValues(cmp);
+    }
+
+    private void executeAll(int type, List<? extends PropertyBusinessObject> objects) throws IOException {
+        if(objects.isEmpty()) {
+            return;
+        }
+        db.beginTransaction();
+        boolean committed = false;
+        try {
+            // the statement only depends on the class so it's built once for every run of objects of the same class
+            Class currentClass = null;
+            String stmt = null;
+            ArrayList<Object[]> params = new ArrayList<Object[]>();
+            for(PropertyBusinessObject cmp : objects) {
+                if(cmp.getClass() != currentClass) {
+                    executeBatch(stmt, params);
+                    currentClass = cmp.getClass();
+                    stmt = batchStatement(type, cmp);
+                }
+                params.add(batchValues(type, cmp));
+                if(params.size() == BATCH_SIZE) {
+                    executeBatch(stmt, params);
+                }
+            }
+            executeBatch(stmt, params);
+            db.commitTransaction();
+            committed = true;
+        } finally {
+            if(!committed) {
+                try {
+                    db.rollbackTransaction();
+                } catch(IOException err) {
+                    Log.e(err);
+                }
+            }
+        }
+    }
+
+    private void executeBatch(String stmt, ArrayList<Object[]> params) throws IOException {
+        if(params.isEmpty()) {
+            return;
+        }
+        if(verbose) {
+            Log.p(stmt + " x " + params.size());
+        }
+        statements.get(stmt).executeBatch(params);
+        params.clear();
+    }
+
+    private String insertStatement(PropertyBusinessObject cmp, boolean replace) {
         String tableName = getTableName(cmp);
-        StringBuilder createStatement = new StringBuilder("INSERT INTO ");
+        StringBuilder createStatement = new StringBuilder(replace ? "INSERT OR REPLACE INTO " : "INSERT INTO ");
         createStatement.append(tableName);
         createStatement.append(" (");
 
         int count = 0;
-        ArrayList<Object> values = new ArrayList<Object>();
         for(PropertyBase p : cmp.getPropertyIndex()) {
             SqlType tp = getSqlType(p);
             if(tp == SqlType.SQL_EXCLUDE) {
@@ -421,12 +551,6 @@ public class SQLMap {
             if(count > 0) {
                 createStatement.append(",");
             }
-            if(p instanceof Property) {
-                values.add(tp.asUpdateInsertValue(((Property)p).get(), (Property)p));
-            } else {
-                // TODO
-                values.add(null);
-            }
             count++;
             String columnName = getColumnName(p);
             createStatement.append(columnName);
@@ -434,22 +558,37 @@ public class SQLMap {
         
         createStatement.append(") VALUES (?");
 
-        for(int iter = 1 ; iter < values.size(); iter++) {
+        for(int iter = 1 ; iter < count; iter++) {
             createStatement.append(",?");
         }
         
         createStatement.append(")");
-        
-        execute(createStatement.toString(), values.toArray());
+        return createStatement.toString();
     }
-    
-    /**
-     * The equivalent of an SQL update assumes that the object is already in the database
-     * @param cmp the component
-     * @throws IOException 
-     */
-    public void update(PropertyBusinessObject cmp) throws IOException {
-        String pkName = (String)cmp.getPropertyIndex().getMetaDataOfClass("cn1$pk");
+
+    private Object[] insertValues(PropertyBusinessObject cmp) {
+        ArrayList<Object> values = new ArrayList<Object>();
+        for(PropertyBase p : cmp.getPropertyIndex()) {
+            SqlType tp = getSqlType(p);
+            if(tp == SqlType.SQL_EXCLUDE) {
+                continue;
+            }
+            if(p instanceof Property) {
+                values.add(tp.asUpdateInsertValue(((Property)p).get(), (Property)p));
+            } else {
+                // TODO
+                values.add(null);
+            }
+        }
+        return values.toArray();
+    }
+
+    private String getPrimaryKeyName(PropertyBusinessObject cmp) {
+        return (String)cmp.getPropertyIndex().getMetaDataOfClass("cn1$pk");
+    }
+
+    private String updateStatement(PropertyBusinessObject cmp) throws IOException {
+        String pkName = getPrimaryKeyName(cmp);
         if(pkName == null) {
             throw new IOException("Primary key required for update");
         }
@@ -459,7 +598,6 @@ public class SQLMap {
         createStatement.append(" SET ");
 
         int count = 0;
-        ArrayList<Object> values = new ArrayList<Object>();
         for(PropertyBase p : cmp.getPropertyIndex()) {
             SqlType tp = getSqlType(p);
             if(tp == SqlType.SQL_EXCLUDE) {
@@ -468,12 +606,6 @@ public class SQLMap {
             if(count > 0) {
                 createStatement.append(",");
             }
-            if(p instanceof Property) {
-                values.add(tp.asUpdateInsertValue(((Property)p).get(), (Property)p));
-            } else {
-                // TODO
-                values.add(null);
-            }
             count++;
             String columnName = getColumnName(p);
             createStatement.append(columnName);
@@ -484,50 +616,65 @@ public class SQLMap {
 
         createStatement.append(pkName);
         createStatement.append(" = ?");
-        
-        Property p = (Property)cmp.getPropertyIndex().getIgnoreCase(pkName);
-        values.add(p.get());
+        return createStatement.toString();
+    }
 
-        execute(createStatement.toString(), values.toArray());
+    private Object[] updateValues(PropertyBusinessObject cmp) {
+        Object[] values = insertValues(cmp);
+        Object[] result = new Object[values.length + 1];
+        System.arraycopy(values, 0, result, 0, values.length);
+        Property p = (Property)cmp.getPropertyIndex().getIgnoreCase(getPrimaryKeyName(cmp));
+        result[values.length] = p.get();
+        return result;
     }
-    
-    /**
-     * Deletes a table row matching the component
-     * @param cmp the component
-     */
-    public void delete(PropertyBusinessObject cmp) throws IOException {
-        String pkName = (String)cmp.getPropertyIndex().getMetaDataOfClass("cn1$pk");
+
+    private String deleteStatement(PropertyBusinessObject cmp) {
+        String pkName = getPrimaryKeyName(cmp);
         String tableName = getTableName(cmp);
         StringBuilder createStatement = new StringBuilder("DELETE FROM ");
         createStatement.append(tableName);
         createStatement.append(" WHERE ");
 
-
         if(pkName != null) {
             createStatement.append(pkName);
             createStatement.append(" = ?");
-            Property p = (Property)cmp.getPropertyIndex().getIgnoreCase(pkName);
-            execute(createStatement.toString(), new Object[]{ p.get() });
         } else {
             int count = 0;
-            Object[] values = new Object[cmp.getPropertyIndex().getSize()];
             for(PropertyBase p : cmp.getPropertyIndex()) {
-                if(count != 0) {
-                    createStatement.append(",");
+                if(getSqlType(p) == SqlType.SQL_EXCLUDE) {
+                    continue;
                 }
-                if(p instanceof Property) {
-                    values[count] = ((Property)p).get();
-                } else {
-                    // TODO
-                    values[count] = null;
+                if(count != 0) {
+                    createStatement.append(" AND ");
                 }
                 count++;
                 String columnName = getColumnName(p);
                 createStatement.append(columnName);
                 createStatement.append(" = ?");
             }
-            execute(createStatement.toString(), values);
-        }        
+        }
+        return createStatement.toString();
+    }
+
+    private Object[] deleteValues(PropertyBusinessObject cmp) {
+        String pkName = getPrimaryKeyName(cmp);
+        if(pkName != null) {
+            Property p = (Property)cmp.getPropertyIndex().getIgnoreCase(pkName);
+            return new Object[]{ p.get() };
+        }
+        ArrayList<Object> values = new ArrayList<Object>();
+        for(PropertyBase p : cmp.getPropertyIndex()) {
+            if(getSqlType(p) == SqlType.SQL_EXCLUDE) {
+                continue;
+            }
+            if(p instanceof Property) {
+                values.add(((Property)p).get());
+            } else {
+                // TODO
+                values.add(null);
+            }
+        }
+        return values.toArray();
     }
 
     /**
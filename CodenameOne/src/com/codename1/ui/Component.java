@@ -324,6 +324,7 @@ public class Component implements Animation, StyleListener, Editable {
     private Style selectedStyle;
     private Style disabledStyle;
     private Style allStyles;
+    private BGPainter defaultBgPainter;
     private Container parent;
     private Component owner;
     private boolean focused = false;
@@ -916,7 +917,7 @@ public class Component implements Animation, StyleListener, Editable {
             }
             unSelectedStyle.addStyleListener(this);
             if (unSelectedStyle.getBgPainter() == null) {
-                unSelectedStyle.setBgPainter(new BGPainter());
+                unSelectedStyle.setBgPainter(getDefaultBgPainter());
             }
             if(cellRenderer) {
                 unSelectedStyle.markAsRendererStyle();
@@ -931,7 +932,7 @@ public class Component implements Animation, StyleListener, Editable {
             }
             disabledStyle.addStyleListener(this);
             if (disabledStyle.getBgPainter() == null) {
-                disabledStyle.setBgPainter(new BGPainter());
+                disabledStyle.setBgPainter(getDefaultBgPainter());
             }
             if(cellRenderer) {
                 disabledStyle.markAsRendererStyle();
@@ -1154,6 +1155,17 @@ public class Component implements Animation, StyleListener, Editable {
 
     }
 
+    /**
+     * Clears the pending repaint of a component whose repaint was covered by the repaint of another 
+     * component, this method is for internal use only and SHOULD NOT be invoked by user code.
+     */
+    public final void clearPendingRepaint() {
+        repaintPending = false;
+        if (dirtyRegion != null) {
+            setDirtyRegion(null);
+        }
+    }
+
     /**
      * Toggles visibility of the component
      * 
@@ -1239,6 +1251,9 @@ public class Component implements Animation, StyleListener, Editable {
      */
     public void setX(int x) {
         bounds.setX(x);
+        if(parent != null) {
+            parent.invalidateSpatialIndex();
+        }
         if(Form.activePeerCount > 0) {
             onParentPositionChange();
         }
@@ -1253,6 +1268,9 @@ public class Component implements Animation, StyleListener, Editable {
      */
     public void setY(int y) {
         bounds.setY(y);
+        if(parent != null) {
+            parent.invalidateSpatialIndex();
+        }
         if(Form.activePeerCount > 0) {
             onParentPositionChange();
         }
@@ -1582,6 +1600,9 @@ public class Component implements Animation, StyleListener, Editable {
      */
     public void setWidth(int width) {
         bounds.getSize().setWidth(width);
+        if(parent != null) {
+            parent.invalidateSpatialIndex();
+        }
     }
 
     /**
@@ -1595,6 +1616,9 @@ public class Component implements Animation, StyleListener, Editable {
      */
     public void setHeight(int height) {
         bounds.getSize().setHeight(height);
+        if(parent != null) {
+            parent.invalidateSpatialIndex();
+        }
     }
 
     /**
@@ -1610,6 +1634,9 @@ public class Component implements Animation, StyleListener, Editable {
         Dimension d2 = bounds.getSize();
         d2.setWidth(d.getWidth());
         d2.setHeight(d.getHeight());
+        if(parent != null) {
+            parent.invalidateSpatialIndex();
+        }
     }
 
     /**
@@ -5868,7 +5895,7 @@ public class Component implements Animation, StyleListener, Editable {
             }
             pressedStyle.addStyleListener(this);
             if(pressedStyle.getBgPainter() == null){
-                pressedStyle.setBgPainter(new BGPainter());
+                pressedStyle.setBgPainter(getDefaultBgPainter());
             }
         }
         return pressedStyle;
@@ -5932,7 +5959,7 @@ public class Component implements Animation, StyleListener, Editable {
         }
         pressedStyle.addStyleListener(this);
         if (pressedStyle.getBgPainter() == null) {
-            pressedStyle.setBgPainter(new BGPainter());
+            pressedStyle.setBgPainter(getDefaultBgPainter());
         }
         setShouldCalcPreferredSize(true);
         checkAnimation();
@@ -5973,7 +6000,7 @@ public class Component implements Animation, StyleListener, Editable {
             }
             selectedStyle.addStyleListener(this);
             if (selectedStyle.getBgPainter() == null) {
-                selectedStyle.setBgPainter(new BGPainter());
+                selectedStyle.setBgPainter(getDefaultBgPainter());
             }
             if(cellRenderer) {
                 selectedStyle.markAsRendererStyle();
@@ -6004,7 +6031,7 @@ public class Component implements Animation, StyleListener, Editable {
             }
             disabledStyle.addStyleListener(this);
             if (disabledStyle.getBgPainter() == null) {
-                disabledStyle.setBgPainter(new BGPainter());
+                disabledStyle.setBgPainter(getDefaultBgPainter());
             }
         }
         return disabledStyle;
@@ -6030,7 +6057,7 @@ public class Component implements Animation, StyleListener, Editable {
         }
         this.unSelectedStyle.addStyleListener(this);
         if (this.unSelectedStyle.getBgPainter() == null) {
-            this.unSelectedStyle.setBgPainter(new BGPainter());
+            this.unSelectedStyle.setBgPainter(getDefaultBgPainter());
         }
         setShouldCalcPreferredSize(true);
         checkAnimation();
@@ -6055,7 +6082,7 @@ public class Component implements Animation, StyleListener, Editable {
         }
         this.selectedStyle.addStyleListener(this);
         if (this.selectedStyle.getBgPainter() == null) {
-            this.selectedStyle.setBgPainter(new BGPainter());
+            this.selectedStyle.setBgPainter(getDefaultBgPainter());
         }
         setShouldCalcPreferredSize(true);
         checkAnimation();
@@ -6080,7 +6107,7 @@ public class Component implements Animation, StyleListener, Editable {
         }
         this.disabledStyle.addStyleListener(this);
         if (this.disabledStyle.getBgPainter() == null) {
-            this.disabledStyle.setBgPainter(new BGPainter());
+            this.disabledStyle.setBgPainter(getDefaultBgPainter());
         }
         setShouldCalcPreferredSize(true);
         checkAnimation();
@@ -7170,7 +7197,7 @@ public class Component implements Animation, StyleListener, Editable {
         }
         s.addStyleListener(this);
         if (s.getBgPainter() == null) {
-            s.setBgPainter(new BGPainter());
+            s.setBgPainter(getDefaultBgPainter());
         }
     }
 
@@ -7868,6 +7895,17 @@ public class Component implements Animation, StyleListener, Editable {
     public void setComponentState(Object state) {
     }
     
+    /**
+     * Returns the background painter installed into the styles of this component. The default painter
+     * keeps no per style state so all the styles of the component share a single instance
+     */
+    private BGPainter getDefaultBgPainter() {
+        if (defaultBgPainter == null) {
+            defaultBgPainter = new BGPainter();
+        }
+        return defaultBgPainter;
+    }
+
     class BGPainter implements Painter, Animation {
         private Motion wMotion, hMotion;
         private Form previousTint;
@@ -84,6 +84,14 @@ public class Container extends Component implements Iterable<Component>{
     private Component leadComponent;
     private Layout layout;
     private java.util.ArrayList<Component> components = new java.util.ArrayList<Component>();
+
+    /**
+     * Optional grid index of the bounds of the children used for hit testing and paint culling
+     * @see #setSpatialIndexEnabled(boolean) 
+     */
+    private boolean spatialIndexEnabled;
+    private SpatialIndex spatialIndex;
+    private int[] spatialQueryBuffer;
     
     /**
      * A queue that keeps track of changes to the children while an animation is in progress.
@@ -297,6 +305,7 @@ public class Container extends Component implements Iterable<Component>{
         final Object constraint = parentLayout != null ? parentLayout.getComponentConstraint(this) : null;
         newParent.setParent(oldParent);
         newParent.components.add(this);
+        newParent.spatialIndex = null;
         
         final Runnable r = new Runnable() {
             public void run() {
@@ -320,6 +329,7 @@ public class Container extends Component implements Iterable<Component>{
                         throw new RuntimeException("WTF we have parent but no index!!!!");
                     }
                     oldParent.components.set(cmpIndex, newParent);
+                    oldParent.spatialIndex = null;
                 }
 
                 Container.this.setParent(newParent);
@@ -998,6 +1008,7 @@ public class Container extends Component implements Iterable<Component>{
             });
         }
         components.add(index, cmp);
+        spatialIndex = null;
         if (layout instanceof BorderLayout && !BorderLayout.OVERLAY.equals(layout.getComponentConstraint(cmp))) {
             // Make sure overlay component is always on top
             Component overlay = ((BorderLayout)layout).getOverlay();
@@ -1329,6 +1340,7 @@ public class Container extends Component implements Iterable<Component>{
         if (location < components.size()) {
             components.remove(cmp);
             components.add(location, cmp);
+            spatialIndex = null;
         }
     }
 
@@ -1384,6 +1396,7 @@ public class Container extends Component implements Iterable<Component>{
         cmp.setParent(this);
         cmp.deinitializeImpl();
         components.remove(cmp);
+        spatialIndex = null;
         cmp.setParent(null);
         if (parentForm != null) {
             if (parentForm.getFocused() == cmp || cmp instanceof Container && ((Container) cmp).contains(parentForm.getFocused())) {
@@ -1711,6 +1724,74 @@ public class Container extends Component implements Iterable<Component>{
     }
     
     
+    /**
+     * Enables a grid index of the bounds of the children of this container. The index is used to find the
+     * children under a pointer in {@link #getComponentAt(int, int)} and {@link #getResponderAt(int, int)} and
+     * to skip the children outside of the clip when painting. It helps containers with many children whose
+     * layout doesn't order them along an axis e.g. {@link com.codename1.ui.layouts.LayeredLayout},
+     * {@link com.codename1.ui.layouts.CoordinateLayout} or {@link com.codename1.ui.layouts.GridLayout}. The index is 
+     * built lazily for containers with 30 children or more and is discarded whenever a child is moved, 
+     * resized, added or removed.
+     * 
+     * @param enabled true to enable the spatial index for this container
+     */
+    public void setSpatialIndexEnabled(boolean enabled) {
+        spatialIndexEnabled = enabled;
+        spatialIndex = null;
+        spatialQueryBuffer = null;
+    }
+
+    /**
+     * Indicates whether a spatial index is used for hit testing and paint culling of the children
+     * 
+     * @return true if the spatial index is enabled
+     * @see #setSpatialIndexEnabled(boolean) 
+     */
+    public boolean isSpatialIndexEnabled() {
+        return spatialIndexEnabled;
+    }
+
+    /**
+     * Invoked when the bounds of a child change
+     */
+    void invalidateSpatialIndex() {
+        spatialIndex = null;
+    }
+
+    /**
+     * Returns the spatial index of the children building it if necessary or null if the index is disabled
+     */
+    private SpatialIndex getSpatialIndex() {
+        if (!spatialIndexEnabled) {
+            return null;
+        }
+        int len = components.size();
+        if (spatialIndex == null || !spatialIndex.isValid(len)) {
+            spatialIndex = new SpatialIndex(components);
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * Returns a buffer for the results of a spatial index query, the buffer must be returned with
+     * {@link #releaseSpatialQueryBuffer(int[])} once the results are no longer used
+     */
+    private int[] acquireSpatialQueryBuffer() {
+        int[] buffer = spatialQueryBuffer;
+        spatialQueryBuffer = null;
+        int len = components.size();
+        if (buffer == null || buffer.length < len) {
+            buffer = new int[len];
+        }
+        return buffer;
+    }
+
+    private void releaseSpatialQueryBuffer(int[] buffer) {
+        if (buffer != null) {
+            spatialQueryBuffer = buffer;
+        }
+    }
+    
     /**
      * Efficiently finds the first child component that is visible in the specified 
      * bounds.  
@@ -1997,6 +2078,12 @@ public class Container extends Component implements Iterable<Component>{
                         int currCmpIndex = cnt.getComponentIndex(currCmp);
                         if (currCmpIndex >= 0) {
                             int count = cnt.getComponentCount();
+                            if (useIntersection && count - currCmpIndex > 30 && cnt.isSpatialIndexEnabled()) {
+                                if (paintOnTopWithSpatialIndex(g, cnt, currCmpIndex, intersectionX, intersectionY, intersectionWidth, intersectionHeight, elevationThreshold, elevationComponentIndexThreshold, above)) {
+                                    break paintOnTopLoop;
+                                }
+                                count = 0;
+                            }
                             for (int i=currCmpIndex+1; i < count; i++) {
                                 Component cntChild = cnt.getComponentAt(i);
                                 if (elevatedComponents.contains(cntChild)) {
@@ -2038,6 +2125,54 @@ public class Container extends Component implements Iterable<Component>{
 
     }
 
+    /**
+     * Paints the children of the given container that follow the given index and intersect the given area
+     * on top of an elevated component, the candidates are found using the spatial index of the container.
+     * This is equivalent to the sequential loop in {@link #paintElevatedPane(Graphics, boolean, int, int, int, int, int, int, boolean)}
+     * when intersection checking is enabled.
+     * 
+     * @return true if an elevated component follows the given index in the container
+     */
+    private boolean paintOnTopWithSpatialIndex(Graphics g, Container cnt, int currCmpIndex, int intersectionX, int intersectionY, int intersectionWidth, int intersectionHeight, int elevationThreshold, int elevationComponentIndexThreshold, boolean above) {
+        CodenameOneImplementation impl = Display.impl;
+        int count = cnt.components.size();
+
+        // painting stops at the first elevated sibling
+        int limit = count;
+        for (Component e : elevatedComponents) {
+            if (e.getParent() == cnt) {
+                int i = cnt.components.indexOf(e);
+                if (i > currCmpIndex && i < limit) {
+                    limit = i;
+                }
+            }
+        }
+        SpatialIndex index = cnt.getSpatialIndex();
+        int[] candidates = cnt.acquireSpatialQueryBuffer();
+        int n = index.query(intersectionX - cnt.getAbsoluteX(), intersectionY - cnt.getAbsoluteY(), intersectionWidth, intersectionHeight, candidates);
+        for (int iter = 0; iter < n; iter++) {
+            int i = candidates[iter];
+            if (i <= currCmpIndex || i >= limit) {
+                continue;
+            }
+            Component cntChild = cnt.components.get(i);
+            if (Rectangle.intersects(cntChild.getAbsoluteX() + cntChild.getScrollX(), cntChild.getAbsoluteY() + cntChild.getScrollY(), cntChild.getWidth(), cntChild.getHeight(),
+                    intersectionX, intersectionY, intersectionWidth, intersectionHeight)) {
+                if (elevationThreshold < 0 ||
+                        (above && (elevationThreshold < cntChild.renderedElevation || elevationThreshold == cntChild.renderedElevation && elevationComponentIndexThreshold < cntChild.renderedElevationComponentIndex)) ||
+                        (!above && (elevationThreshold > cntChild.renderedElevation || elevationThreshold == cntChild.renderedElevation && elevationComponentIndexThreshold > cntChild.renderedElevationComponentIndex))) {
+                    int tx = cnt.getRelativeX(this) + cnt.getScrollX();
+                    int ty = cnt.getRelativeY(this) + cnt.getScrollY();
+                    g.translate(tx, ty);
+                    cntChild.paintInternal(impl.getComponentScreenGraphics(this, g), false);
+                    g.translate(-tx, -ty);
+                }
+            }
+        }
+        cnt.releaseSpatialQueryBuffer(candidates);
+        return limit < count;
+    }
+
     /**
      * This is used to "tag" components in this surface that should be rendered in the elevated pane.
      * This just sets or unsets the {@link Component#doNotPaint} flag so that rendering of the non-elevated
@@ -2104,6 +2239,7 @@ public class Container extends Component implements Iterable<Component>{
 
         int size = components.size();
         int startIter = 0;
+        int[] candidates = null;
         if (size >= 30) {
             int clipX1 = g.getClipX();
             int clipX2 = g.getClipX() + g.getClipWidth();
@@ -2113,6 +2249,12 @@ public class Container extends Component implements Iterable<Component>{
             if (startIter < 0) {
                 // There was no efficient way to calculate the offset
                 startIter = 0;
+                SpatialIndex index = getSpatialIndex();
+                if (index != null) {
+                    // only paint the children that intersect the clip in their original order
+                    candidates = acquireSpatialQueryBuffer();
+                    size = index.query(clipX1, clipY1, clipX2 - clipX1, clipY2 - clipY1, candidates);
+                }
             } else if (startIter < size) {
                 // There was an efficient way to calculate the offset so we
                 // will continue this approach
@@ -2129,7 +2271,7 @@ public class Container extends Component implements Iterable<Component>{
         CodenameOneImplementation impl = Display.impl;
         if (dontRecurseContainer) {
             for (int iter = startIter; iter < size; iter++) {
-                Component cmp = components.get(iter);
+                Component cmp = components.get(candidates == null ? iter : candidates[iter]);
                 if (cmp.getClass() == Container.class) {
                     paintContainerChildrenForAnimation((Container) cmp, g);
                 } else {
@@ -2138,10 +2280,11 @@ public class Container extends Component implements Iterable<Component>{
             }
         } else {
             for (int iter = startIter; iter < size; iter++) {
-                Component cmp = components.get(iter);
+                Component cmp = components.get(candidates == null ? iter : candidates[iter]);
                 cmp.paintInternal(impl.getComponentScreenGraphics(this, g), false);
             }
         }
+        releaseSpatialQueryBuffer(candidates);
 
         if (isSurface() && elevatedComponents != null && !elevatedComponents.isEmpty()) {
             markComponentsToBePaintedInElevatedPane(false);
@@ -2581,6 +2724,7 @@ public class Container extends Component implements Iterable<Component>{
             }
         }
         layout.layoutContainer(this);
+        spatialIndex = null;
         int count = getComponentCount();
         for (int i = 0; i < count; i++) {
             Component c = getComponentAt(i);
@@ -2920,6 +3064,7 @@ public class Container extends Component implements Iterable<Component>{
         }
         int startIter = 0;
         int count = getComponentCount();
+        int[] candidates = null;
         if (count > 30) {
             int relx = x - getAbsoluteX();
             int rely = y - getAbsoluteY();
@@ -2929,22 +3074,31 @@ public class Container extends Component implements Iterable<Component>{
                 // There was no efficient way to calculate the first paintable offset
                 // start counting from 0
                 startIter = 0;
+                SpatialIndex index = getSpatialIndex();
+                if (index != null) {
+                    candidates = acquireSpatialQueryBuffer();
+                    count = index.query(relx, rely, 0, 0, candidates);
+                }
             } else if (startIter < count) {
                 // We found a start offset using an efficient method
                 // Find an appropriate end offset.
                 count = calculateLastPaintableOffset(startIter, relx, rely, relx, rely) + 1;
             }
         }
-        for (int i=count-1; i>=startIter; i--) {
-            Component cmp = getComponentAt(i);
-            if (cmp.contains(x, y)) {
-                if (!cmp.isBlockLead() && cmp instanceof Container) {
-                    cmp = ((Container)cmp).getResponderAt(x, y);
-                }
-                if (cmp != null && cmp.respondsToPointerEvents()) {
-                    return cmp;
+        try {
+            for (int i=count-1; i>=startIter; i--) {
+                Component cmp = getComponentAt(candidates == null ? i : candidates[i]);
+                if (cmp.contains(x, y)) {
+                    if (!cmp.isBlockLead() && cmp instanceof Container) {
+                        cmp = ((Container)cmp).getResponderAt(x, y);
+                    }
+                    if (cmp != null && cmp.respondsToPointerEvents()) {
+                        return cmp;
+                    }
                 }
             }
+        } finally {
+            releaseSpatialQueryBuffer(candidates);
         }
         if (respondsToPointerEvents()) {
             return this;
@@ -2975,6 +3129,7 @@ public class Container extends Component implements Iterable<Component>{
         }
         int startIter = 0;
         int count = getComponentCount();
+        int[] candidates = null;
         if (count > 30) {
             int relx = x - getAbsoluteX();
             int rely = y - getAbsoluteY();
@@ -2984,6 +3139,11 @@ public class Container extends Component implements Iterable<Component>{
                 // There was no efficient way to calculate the first paintable offset
                 // start counting from 0
                 startIter = 0;
+                SpatialIndex index = getSpatialIndex();
+                if (index != null) {
+                    candidates = acquireSpatialQueryBuffer();
+                    count = index.query(relx, rely, 0, 0, candidates);
+                }
             } else if (startIter < count) {
                 // We found a start offset using an efficient method
                 // Find an appropriate end offset.
@@ -2995,7 +3155,7 @@ public class Container extends Component implements Iterable<Component>{
         Component top = null;
         
         for (int i = count - 1; i >= startIter; i--) {
-            Component cmp = getComponentAt(i);
+            Component cmp = getComponentAt(candidates == null ? i : candidates[i]);
             if (cmp.contains(x, y) && cmp.isVisible()) {
                 component = cmp;
                 boolean isPotentialCandidate = cmp.respondsToPointerEvents();
@@ -3077,11 +3237,12 @@ public class Container extends Component implements Iterable<Component>{
                     }
                 }
                 if (!overlaps) {
-                    
+                    releaseSpatialQueryBuffer(candidates);
                     return component;
                     
                 } else {
                     if (isPotentialCandidate) {
+                        releaseSpatialQueryBuffer(candidates);
                         return component;
                     }
                     
@@ -3089,6 +3250,7 @@ public class Container extends Component implements Iterable<Component>{
                 
             }
         }
+        releaseSpatialQueryBuffer(candidates);
         if (component == null || (!component.respondsToPointerEvents() && top != null)) {
             if (top != null) {
                 return top;
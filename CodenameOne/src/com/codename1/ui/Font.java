@@ -80,6 +80,11 @@ public class Font extends CN {
     
     private String fontUniqueId;
 
+    /**
+     * The glyph advance table of the characters below 256, -1 for characters that weren't measured yet
+     */
+    private int[] advances;
+
     private static HashMap<String, Font> derivedFontCache = new HashMap<String, Font>();
     private static float fontReturnedHeight;
     
@@ -449,6 +454,17 @@ public class Font extends CN {
      * @return the width of the specific character when rendered alone
      */
     public int charWidth(char ch) {
+        if(ch < 256 && TextMeasureCache.isEnabled()) {
+            int[] a = advances;
+            if(a == null) {
+                a = new int[256];
+                for(int iter = 0 ; iter < a.length ; iter++) {
+                    a[iter] = -1;
+                }
+                advances = a;
+            }
+            return TextMeasureCache.charWidth(this, ch, a);
+        }
         return Display.impl.charWidth(font, ch);
     }
     
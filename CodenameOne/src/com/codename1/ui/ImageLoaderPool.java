@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import com.codename1.io.Log;
+import java.util.ArrayList;
+
+/**
+ * A bounded pool of worker threads that loads, downloads and adapts the images of {@link URLImage}.
+ * Tasks belonging to the image that was most recently painted run first, so images that are currently
+ * visible are processed before the ones that scrolled out of view. Tasks that were triggered by painting
+ * are dropped if their image wasn't painted for a while. Network downloads are only issued while the
+ * number of outstanding downloads is below a limit so they keep their priority until they're sent.
+ * Some network failures never invoke the download callbacks so a download slot is reclaimed once it
+ * was held for {@link #DOWNLOAD_SLOT_TIMEOUT} milliseconds.
+ */
+final class ImageLoaderPool {
+    static final int DOWNLOAD_SLOT_TIMEOUT = 30000;
+
+    private final String name;
+    private final Object lock = new Object();
+    private final ArrayList<Task> tasks = new ArrayList<Task>();
+    private int threadCount;
+    private int maxDownloads;
+    private int cancelTimeout;
+    private int threads;
+    private int idleThreads;
+
+    /**
+     * The time in which each of the outstanding downloads was issued, oldest first
+     */
+    private final ArrayList<Long> pendingDownloads = new ArrayList<Long>();
+    private long sequence;
+
+    static final class Task {
+        final Runnable runnable;
+        final URLImage owner;
+        final boolean cancellable;
+        final boolean download;
+        final long order;
+        final long created;
+
+        Task(Runnable runnable, URLImage owner, boolean cancellable, boolean download, long order) {
+            this.runnable = runnable;
+            this.owner = owner;
+            this.cancellable = cancellable;
+            this.download = download;
+            this.order = order;
+            created = System.currentTimeMillis();
+        }
+
+        long getPriority() {
+            if(owner == null) {
+                return created;
+            }
+            return Math.max(created, owner.getLastRequested());
+        }
+    }
+
+    ImageLoaderPool(String name, int threadCount, int maxDownloads, int cancelTimeout) {
+        this.name = name;
+        this.threadCount = threadCount;
+        this.maxDownloads = maxDownloads;
+        this.cancelTimeout = cancelTimeout;
+    }
+
+    void setThreadCount(int threadCount) {
+        synchronized(lock) {
+            this.threadCount = Math.max(1, threadCount);
+        }
+    }
+
+    int getThreadCount() {
+        return threadCount;
+    }
+
+    void setMaxDownloads(int maxDownloads) {
+        synchronized(lock) {
+            this.maxDownloads = Math.max(1, maxDownloads);
+            lock.notifyAll();
+        }
+    }
+
+    int getMaxDownloads() {
+        return maxDownloads;
+    }
+
+    void setCancelTimeout(int cancelTimeout) {
+        this.cancelTimeout = cancelTimeout;
+    }
+
+    int getCancelTimeout() {
+        return cancelTimeout;
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param owner the image for which the task is performed, used for the priority and cancellation
+     * @param cancellable true if the task can be dropped when the image is no longer painted
+     * @param download true if the task issues a network download that will invoke {@link #downloadFinished()}
+     * @param r the task
+     */
+    void run(URLImage owner, boolean cancellable, boolean download, Runnable r) {
+        synchronized(lock) {
+            sequence++;
+            tasks.add(new Task(r, owner, cancellable, download, sequence));
+            if(idleThreads > 0) {
+                lock.notify();
+            } else {
+                if(threads < threadCount) {
+                    threads++;
+                    Display.getInstance().startThread(new Worker(), name + threads).start();
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be invoked once for every download task when the download it issued completed or failed
+     */
+    void downloadFinished() {
+        synchronized(lock) {
+            if(pendingDownloads.size() > 0) {
+                pendingDownloads.remove(0);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting for a worker
+     */
+    int getPendingTasks() {
+        synchronized(lock) {
+            return tasks.size();
+        }
+    }
+
+    private Task next() {
+        synchronized(lock) {
+            while(true) {
+                if(threads > threadCount) {
+                    // the pool was shrunk
+                    threads--;
+                    return null;
+                }
+                long now = System.currentTimeMillis();
+                while(pendingDownloads.size() > 0 && now - pendingDownloads.get(0).longValue() > DOWNLOAD_SLOT_TIMEOUT) {
+                    pendingDownloads.remove(0);
+                }
+                long lastRequested = URLImage.getLastRequestedAny();
+                Task best = null;
+                int bestIndex = -1;
+                long bestPriority = 0;
+                for(int iter = 0 ; iter < tasks.size() ; iter++) {
+                    Task t = tasks.get(iter);
+                    // an image is stale if other images were painted long after it was last painted, this
+                    // doesn't cancel anything while the UI is idle and nothing is painted
+                    if(t.cancellable && lastRequested - t.owner.getLastRequested() > cancelTimeout) {
+                        tasks.remove(iter);
+                        iter--;
+                        t.owner.loadCancelled();
+                        continue;
+                    }
+                    if(t.download && pendingDownloads.size() >= maxDownloads) {
+                        continue;
+                    }
+                    long p = t.getPriority();
+                    if(best == null || p > bestPriority || (p == bestPriority && t.order < best.order)) {
+                        best = t;
+                        bestIndex = iter;
+                        bestPriority = p;
+                    }
+                }
+                if(best != null) {
+                    tasks.remove(bestIndex);
+                    if(best.download) {
+                        pendingDownloads.add(new Long(now));
+                    }
+                    return best;
+                }
+                idleThreads++;
+                try {
+                    if(tasks.size() > 0) {
+                        // waiting for a download slot which might time out
+                        lock.wait(DOWNLOAD_SLOT_TIMEOUT);
+                    } else {
+                        lock.wait();
+                    }
+                } catch(InterruptedException err) {
+                } finally {
+                    idleThreads--;
+                }
+            }
+        }
+    }
+
+    class Worker implements Runnable {
+        public void run() {
+            while(true) {
+                Task t = next();
+                if(t == null) {
+                    return;
+                }
+                try {
+                    t.runnable.run();
+                } catch(Throwable err) {
+                    Log.e(err);
+                    if(t.download) {
+                        downloadFinished();
+                    }
+                }
+            }
+        }
+    }
+}
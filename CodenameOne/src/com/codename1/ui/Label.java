@@ -957,7 +957,7 @@ public class Label extends Component implements IconHolder, TextHolder {
             return false;
         }
         Style style = getStyle();
-        int txtW = style.getFont().stringWidth(getText());
+        int txtW = TextMeasureCache.stringWidth(style.getFont(), getText());
         int textSpaceW = getAvaliableSpaceForText();
         return txtW > textSpaceW && textSpaceW > 0;
     }
@@ -1373,11 +1373,11 @@ public class Label extends Component implements IconHolder, TextHolder {
         if(isUnselectedStyle) {
             // very optimized way to get the string width of a label for the common unselected case in larger lists
             if(stringWidthUnselected < 0) {
-                stringWidthUnselected = fnt.stringWidth(text);
+                stringWidthUnselected = TextMeasureCache.stringWidth(fnt, text);
             }
             return stringWidthUnselected;
         }
-        return fnt.stringWidth(text);
+        return TextMeasureCache.stringWidth(fnt, text);
     }
 
     /**
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the bounds of the children of a container. Every cell holds the indices
+ * of the children whose bounds overlap it in ascending (z) order so queries return the candidates
+ * in painting order. Children that are empty or that span a large portion of the grid are kept in a
+ * separate list that is part of every result. The index is a snapshot of the child bounds and is
+ * discarded by the container whenever a child is moved, resized, added or removed.
+ */
+final class SpatialIndex {
+    /**
+     * Components that overlap more than this number of cells are kept in the overflow list
+     */
+    private static final int MAX_CELLS_PER_COMPONENT = 16;
+
+    private final int originX;
+    private final int originY;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[][] cells;
+    private final int[] cellSizes;
+    private final int[] overflow;
+    private final int overflowSize;
+    private final int componentCount;
+
+    /**
+     * Used to eliminate duplicates when a query spans several cells
+     */
+    private final int[] stamps;
+    private int stamp;
+
+    SpatialIndex(List<Component> components) {
+        int count = components.size();
+        componentCount = count;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for(int iter = 0 ; iter < count ; iter++) {
+            Component c = components.get(iter);
+            int w = c.getWidth();
+            int h = c.getHeight();
+            if(w <= 0 || h <= 0) {
+                continue;
+            }
+            int x = c.getX();
+            int y = c.getY();
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x + w);
+            maxY = Math.max(maxY, y + h);
+        }
+        if(minX > maxX) {
+            minX = 0;
+            minY = 0;
+            maxX = 1;
+            maxY = 1;
+        }
+        originX = minX;
+        originY = minY;
+        int width = Math.max(1, maxX - minX);
+        int height = Math.max(1, maxY - minY);
+
+        // aim for roughly two components per cell and keep the cells close to the aspect ratio of the area
+        int cellCount = Math.max(1, count / 2);
+        int cols = Math.max(1, (int)Math.sqrt(cellCount * (double)width / height));
+        int rws = Math.max(1, cellCount / cols);
+        cols = Math.min(cols, width);
+        rws = Math.min(rws, height);
+        columns = cols;
+        rows = rws;
+        cellWidth = (width + cols - 1) / cols;
+        cellHeight = (height + rws - 1) / rws;
+        cells = new int[cols * rws][];
+        cellSizes = new int[cols * rws];
+        int[] over = new int[4];
+        int overSize = 0;
+        for(int iter = 0 ; iter < count ; iter++) {
+            Component c = components.get(iter);
+            int w = c.getWidth();
+            int h = c.getHeight();
+            if(w <= 0 || h <= 0) {
+                over = add(over, overSize, iter);
+                overSize++;
+                continue;
+            }
+            int x = c.getX();
+            int y = c.getY();
+            int c1 = column(x);
+            int c2 = column(x + w - 1);
+            int r1 = row(y);
+            int r2 = row(y + h - 1);
+            if((c2 - c1 + 1) * (r2 - r1 + 1) > MAX_CELLS_PER_COMPONENT) {
+                over = add(over, overSize, iter);
+                overSize++;
+                continue;
+            }
+            for(int r = r1 ; r <= r2 ; r++) {
+                for(int col = c1 ; col <= c2 ; col++) {
+                    int cell = r * columns + col;
+                    int[] arr = cells[cell];
+                    if(arr == null) {
+                        arr = new int[4];
+                    }
+                    cells[cell] = add(arr, cellSizes[cell], iter);
+                    cellSizes[cell]++;
+                }
+            }
+        }
+        overflow = over;
+        overflowSize = overSize;
+        stamps = new int[count];
+    }
+
+    private static int[] add(int[] arr, int size, int value) {
+        if(size == arr.length) {
+            int[] n = new int[size * 2];
+            System.arraycopy(arr, 0, n, 0, size);
+            arr = n;
+        }
+        arr[size] = value;
+        return arr;
+    }
+
+    private int column(int x) {
+        int c = (x - originX) / cellWidth;
+        if(c < 0) {
+            return 0;
+        }
+        if(c >= columns) {
+            return columns - 1;
+        }
+        return c;
+    }
+
+    private int row(int y) {
+        int r = (y - originY) / cellHeight;
+        if(r < 0) {
+            return 0;
+        }
+        if(r >= rows) {
+            return rows - 1;
+        }
+        return r;
+    }
+
+    /**
+     * Indicates whether the index still matches the number of children in the container
+     */
+    boolean isValid(int count) {
+        return componentCount == count;
+    }
+
+    /**
+     * Finds the children whose bounds may intersect the given rectangle, the result is a superset of the
+     * intersecting children and is sorted by ascending component index
+     *
+     * @param x the x coordinate of the area relative to the container
+     * @param y the y coordinate of the area relative to the container
+     * @param w the width of the area
+     * @param h the height of the area
+     * @param result array into which the indices are placed, must be at least as large as the number of children
+     * @return the number of entries placed in the result array
+     */
+    int query(int x, int y, int w, int h, int[] result) {
+        if(w < 0 || h < 0) {
+            return 0;
+        }
+        stamp++;
+        if(stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        // cells are clamped to the grid so areas outside of it still look at the cells on its border
+        // which keeps the result a superset
+        int c1 = column(x);
+        int c2 = column(x + w);
+        int r1 = row(y);
+        int r2 = row(y + h);
+        boolean single = c1 == c2 && r1 == r2;
+        int n = 0;
+        for(int r = r1 ; r <= r2 ; r++) {
+            for(int col = c1 ; col <= c2 ; col++) {
+                int cell = r * columns + col;
+                int[] arr = cells[cell];
+                if(arr == null) {
+                    continue;
+                }
+                int s = cellSizes[cell];
+                if(single) {
+                    System.arraycopy(arr, 0, result, 0, s);
+                    n = s;
+                    break;
+                }
+                for(int iter = 0 ; iter < s ; iter++) {
+                    int idx = arr[iter];
+                    if(stamps[idx] != stamp) {
+                        stamps[idx] = stamp;
+                        result[n] = idx;
+                        n++;
+                    }
+                }
+            }
+        }
+        boolean sorted = single || n == 0;
+        if(overflowSize > 0) {
+            sorted = sorted && n == 0;
+            System.arraycopy(overflow, 0, result, n, overflowSize);
+            n += overflowSize;
+        }
+        if(!sorted) {
+            Arrays.sort(result, 0, n);
+        }
+        return n;
+    }
+}
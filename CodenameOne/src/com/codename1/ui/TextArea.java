@@ -986,7 +986,7 @@ public class TextArea extends Component implements ActionSource, TextHolder {
         }
         Font font = style.getFont();
         if(actAsLabel && text.length() <= columns && text.indexOf('\n') < 0) {
-            int w = font.stringWidth(text);
+            int w = TextMeasureCache.stringWidth(font, text);
             if(w <= getWidth()) {
                 if(rowStrings == null) {
                     rowStrings = new ArrayList();
@@ -1047,11 +1047,31 @@ public class TextArea extends Component implements ActionSource, TextHolder {
         
         // if there is any possibility of a scrollbar we need to reduce the textArea
         // width to accommodate it
+        int scrollWidth = 0;
         if(textLength / minCharactersInRow > Math.max(2, rows)) {
-            textAreaWidth -= getUIManager().getLookAndFeel().getVerticalScrollWidth();
-            textAreaWidth -= charWidth/2;
+            scrollWidth = getUIManager().getLookAndFeel().getVerticalScrollWidth();
         }
         String unsupported = getUnsupportedChars();
+
+        // the rows only depend on the values in the key so identical text areas such as the rows of a
+        // chat share the line breaking
+        String cacheText = getText();
+        if(!matches(text, cacheText)) {
+            cacheText = new String(text);
+        }
+        int cacheFlags = (useStringWidth ? 1 : 0) | (actAsLabel ? 2 : 0) | (widestChar << 2);
+        String[] cachedRows = TextMeasureCache.getRows(font, cacheText, unsupported, textAreaWidth, rows, scrollWidth, cacheFlags);
+        if(cachedRows != null) {
+            for(int iter = 0 ; iter < cachedRows.length ; iter++) {
+                rowStrings.add(cachedRows[iter]);
+            }
+            return;
+        }
+        int cacheWidth = textAreaWidth;
+        if(scrollWidth > 0) {
+            textAreaWidth -= scrollWidth;
+            textAreaWidth -= charWidth/2;
+        }
         
         /*
         iteration over the string using indexes, from - the beginning of the row , to - end of a row
@@ -1223,6 +1243,24 @@ public class TextArea extends Component implements ActionSource, TextHolder {
         if(text[text.length -1 ] == '\n'){
             rowStrings.add("");
         }
+        String[] result = new String[rowStrings.size()];
+        for(int iter = 0 ; iter < result.length ; iter++) {
+            result[iter] = (String)rowStrings.get(iter);
+        }
+        TextMeasureCache.putRows(font, cacheText, unsupported, cacheWidth, rows, scrollWidth, cacheFlags, result);
+    }
+
+    private static boolean matches(char[] chars, String str) {
+        int len = chars.length;
+        if(len != str.length()) {
+            return false;
+        }
+        for(int iter = 0 ; iter < len ; iter++) {
+            if(chars[iter] != str.charAt(iter)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Caches text measurements so components that are laid out repeatedly don't measure the same text
+ * with the native font over and over. It holds three caches:</p>
+ * <ul>
+ * <li>A glyph advance table per font for the characters below 256, used by {@link Font#charWidth(char)}</li>
+ * <li>A least recently used cache of string widths keyed on the font and the text, used by
+ * {@link Label} and by the preferred size calculations of the look and feel</li>
+ * <li>A least recently used cache of the rows a {@link TextArea} breaks its text into, keyed on the fonts,
+ * the text, the available width and the other settings that affect line breaking. This covers
+ * {@link com.codename1.components.SpanLabel} and {@link com.codename1.components.SpanButton} which use a
+ * text area internally</li>
+ * </ul>
+ * <p>Fonts are matched by identity. The hit and miss counters allow measuring the effectiveness of the
+ * cache for a specific UI.</p>
+ */
+public final class TextMeasureCache {
+    private static boolean enabled = true;
+    private static int maxWidthEntries = 1024;
+    private static int maxRowEntries = 256;
+
+    private static int glyphHits;
+    private static int glyphMisses;
+    private static int widthHits;
+    private static int widthMisses;
+    private static int rowHits;
+    private static int rowMisses;
+
+    private static final Key widthProbe = new Key();
+    private static final Key rowProbe = new Key();
+
+    private static final LinkedHashMap<Key, Integer> widths = new LinkedHashMap<Key, Integer>(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            return size() > maxWidthEntries;
+        }
+    };
+
+    private static final LinkedHashMap<Key, String[]> rows = new LinkedHashMap<Key, String[]>(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Key, String[]> eldest) {
+            return size() > maxRowEntries;
+        }
+    };
+
+    static final class Key {
+        Font font;
+        String text;
+        String extra;
+        int width;
+        int rows;
+        int param;
+        int flags;
+        int hash;
+
+        Key() {
+        }
+
+        void set(Font font, String text, String extra, int width, int rows, int param, int flags) {
+            this.font = font;
+            this.text = text;
+            this.extra = extra;
+            this.width = width;
+            this.rows = rows;
+            this.param = param;
+            this.flags = flags;
+            int h = text.hashCode();
+            h = 31 * h + System.identityHashCode(font);
+            h = 31 * h + width;
+            h = 31 * h + rows;
+            h = 31 * h + param;
+            h = 31 * h + flags;
+            if(extra != null) {
+                h = 31 * h + extra.hashCode();
+            }
+            hash = h;
+        }
+
+        void clear() {
+            font = null;
+            text = null;
+            extra = null;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            Key k = (Key)o;
+            return k.hash == hash && k.font == font && k.width == width && k.rows == rows && k.param == param &&
+                    k.flags == flags && k.text.equals(text) && (extra == null ? k.extra == null : extra.equals(k.extra));
+        }
+    }
+
+    private TextMeasureCache() {
+    }
+
+    /**
+     * Enables or disables the caches, disabling the caches also clears them
+     *
+     * @param enabled true to cache text measurements, this is the default
+     */
+    public static void setEnabled(boolean enabled) {
+        TextMeasureCache.enabled = enabled;
+        if(!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Indicates whether text measurements are cached
+     *
+     * @return true if text measurements are cached
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the maximum number of string widths and text area row breakdowns that are cached
+     *
+     * @param widthEntries the number of string widths
+     * @param rowEntries the number of row breakdowns
+     */
+    public static void setMaxEntries(int widthEntries, int rowEntries) {
+        synchronized(widths) {
+            maxWidthEntries = widthEntries;
+            widths.clear();
+        }
+        synchronized(rows) {
+            maxRowEntries = rowEntries;
+            rows.clear();
+        }
+    }
+
+    /**
+     * Clears the string width and row caches, glyph advance tables are held by the fonts and released with them
+     */
+    public static void clear() {
+        synchronized(widths) {
+            widths.clear();
+        }
+        synchronized(rows) {
+            rows.clear();
+        }
+    }
+
+    /**
+     * Resets the hit and miss counters
+     */
+    public static void resetStatistics() {
+        glyphHits = 0;
+        glyphMisses = 0;
+        widthHits = 0;
+        widthMisses = 0;
+        rowHits = 0;
+        rowMisses = 0;
+    }
+
+    /**
+     * Returns the number of character widths served from a glyph advance table
+     *
+     * @return the number of hits
+     */
+    public static int getGlyphHits() {
+        return glyphHits;
+    }
+
+    /**
+     * Returns the number of character widths that were measured with the native font
+     *
+     * @return the number of misses
+     */
+    public static int getGlyphMisses() {
+        return glyphMisses;
+    }
+
+    /**
+     * Returns the number of string widths served from the cache
+     *
+     * @return the number of hits
+     */
+    public static int getWidthHits() {
+        return widthHits;
+    }
+
+    /**
+     * Returns the number of string widths that were measured with the native font
+     *
+     * @return the number of misses
+     */
+    public static int getWidthMisses() {
+        return widthMisses;
+    }
+
+    /**
+     * Returns the number of text area row breakdowns served from the cache
+     *
+     * @return the number of hits
+     */
+    public static int getRowHits() {
+        return rowHits;
+    }
+
+    /**
+     * Returns the number of text area row breakdowns that were calculated
+     *
+     * @return the number of misses
+     */
+    public static int getRowMisses() {
+        return rowMisses;
+    }
+
+    /**
+     * Returns the width of the given string in the given font, measuring it only if it isn't cached
+     *
+     * @param font the font
+     * @param text the text
+     * @return the width of the text
+     */
+    public static int stringWidth(Font font, String text) {
+        if(!enabled || text == null || text.length() == 0) {
+            return font.stringWidth(text);
+        }
+        synchronized(widths) {
+            widthProbe.set(font, text, null, -1, 0, 0, 0);
+            Integer w = widths.get(widthProbe);
+            widthProbe.clear();
+            if(w != null) {
+                widthHits++;
+                return w.intValue();
+            }
+        }
+        int w = font.stringWidth(text);
+        synchronized(widths) {
+            Key k = new Key();
+            k.set(font, text, null, -1, 0, 0, 0);
+            widths.put(k, new Integer(w));
+            widthMisses++;
+        }
+        return w;
+    }
+
+    /**
+     * Returns the width of a character from the glyph advance table of the font
+     */
+    static int charWidth(Font font, char ch, int[] advances) {
+        int w = advances[ch];
+        if(w > -1) {
+            glyphHits++;
+            return w;
+        }
+        w = Display.impl.charWidth(font.getNativeFont(), ch);
+        advances[ch] = w;
+        glyphMisses++;
+        return w;
+    }
+
+    /**
+     * Returns the cached rows of a text area or null if they aren't cached
+     *
+     * @param font the font used for measuring the text
+     * @param text the text after preprocessing
+     * @param unsupported the characters replaced with spaces
+     * @param width the width available for the text
+     * @param rowCount the number of rows of the text area
+     * @param scrollWidth the width of the scrollbar deducted from the width when the text might scroll
+     * @param flags the other settings that affect the line breaking
+     * @return the rows or null
+     */
+    static String[] getRows(Font font, String text, String unsupported, int width, int rowCount, int scrollWidth, int flags) {
+        if(!enabled) {
+            return null;
+        }
+        synchronized(rows) {
+            rowProbe.set(font, text, unsupported, width, rowCount, scrollWidth, flags);
+            String[] r = rows.get(rowProbe);
+            rowProbe.clear();
+            if(r != null) {
+                rowHits++;
+            } else {
+                rowMisses++;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Caches the rows of a text area, the arguments match {@link #getRows(com.codename1.ui.Font, java.lang.String, java.lang.String, int, int, int, int)}
+     */
+    static void putRows(Font font, String text, String unsupported, int width, int rowCount, int scrollWidth, int flags, String[] value) {
+        if(!enabled) {
+            return;
+        }
+        synchronized(rows) {
+            Key k = new Key();
+            k.set(font, text, unsupported, width, rowCount, scrollWidth, flags);
+            rows.put(k, value);
+        }
+    }
+}
@@ -32,7 +32,6 @@ import com.codename1.io.Util;
 import com.codename1.ui.events.ActionEvent;
 import com.codename1.ui.events.ActionListener;
 import com.codename1.ui.util.Resources;
-import com.codename1.util.EasyThread;
 import com.codename1.util.FailureCallback;
 import com.codename1.util.OnComplete;
 import com.codename1.util.StringUtil;
@@ -75,7 +74,12 @@ public class URLImage extends EncodedImage {
 
     private static final Map<String,URLImage> pendingToStorage = new HashMap<String,URLImage>();
     private static final Map<String,URLImage> pendingToFile = new HashMap<String,URLImage>();
-    private static EasyThread imageLoader = EasyThread.start("ImageLoader");
+    private static final ImageLoaderPool imageLoader = new ImageLoaderPool("ImageLoader", 2, 6, 2000);
+
+    /**
+     * The last time any URLImage was requested for painting while it was still loading
+     */
+    private static volatile long lastRequestedAny;
 
     /**
      * Flag used by {@link #createCachedImage(java.lang.String, java.lang.String, com.codename1.ui.Image, int) }.
@@ -139,6 +143,58 @@ public class URLImage extends EncodedImage {
         exceptionHandler = aExceptionHandler;
     }
 
+    /**
+     * Sets the number of background threads used to load, download and adapt images, defaults to 2.
+     * Images that were painted most recently are processed first
+     * @param count the number of threads
+     */
+    public static void setLoaderThreadCount(int count) {
+        imageLoader.setThreadCount(count);
+    }
+
+    /**
+     * Returns the number of background threads used to load, download and adapt images
+     * @return the number of threads
+     */
+    public static int getLoaderThreadCount() {
+        return imageLoader.getThreadCount();
+    }
+
+    /**
+     * Sets the maximum number of image downloads that can be outstanding at once, defaults to 6.
+     * Additional downloads wait in priority order until a download completes
+     * @param count the maximum number of concurrent downloads
+     */
+    public static void setMaxConcurrentDownloads(int count) {
+        imageLoader.setMaxDownloads(count);
+    }
+
+    /**
+     * Returns the maximum number of image downloads that can be outstanding at once
+     * @return the maximum number of concurrent downloads
+     */
+    public static int getMaxConcurrentDownloads() {
+        return imageLoader.getMaxDownloads();
+    }
+
+    /**
+     * Loading that was triggered by painting an image is dropped if other images were painted more than this
+     * number of milliseconds after the image was last painted e.g. when it scrolled out of view. The image will
+     * be loaded again once it's painted. Defaults to 2000
+     * @param timeout the timeout in milliseconds
+     */
+    public static void setStaleRequestTimeout(int timeout) {
+        imageLoader.setCancelTimeout(timeout);
+    }
+
+    /**
+     * Returns the number of milliseconds after which loading an image that is no longer painted is dropped
+     * @return the timeout in milliseconds
+     */
+    public static int getStaleRequestTimeout() {
+        return imageLoader.getCancelTimeout();
+    }
+
     static class ScaleToFill implements ImageAdapter {
         public EncodedImage adaptImage(EncodedImage downloadedImage, EncodedImage placeholderImage) {
             if(downloadedImage.getWidth() != placeholderImage.getWidth() || downloadedImage.getHeight() != placeholderImage.getHeight()) {
@@ -195,6 +251,7 @@ public class URLImage extends EncodedImage {
     private boolean repaintImage;
     private static final String IMAGE_SUFFIX = "ImageURLTMP";
     private boolean locked;
+    private volatile long lastRequested;
 
     /**
      * Invoked in a case of an error
@@ -349,8 +406,8 @@ public class URLImage extends EncodedImage {
     }
 
 
-    private void loadImageFromStorageURLToStorage(final String targetKey) {
-        imageLoader.run(new Runnable() {
+    private void loadImageFromStorageURLToStorage(final String targetKey, boolean lazy) {
+        imageLoader.run(this, lazy, false, new Runnable() {
             public void run() {
                 try {
                     if (!Objects.equals(url, targetKey)) {
@@ -385,8 +442,41 @@ public class URLImage extends EncodedImage {
         });
     }
 
-    private void loadImageFromLocalUrl(final String targetKey, final boolean useFileSystemStorage) {
-        imageLoader.run(new Runnable() {
+    private void downloadImage(final String targetFile, final boolean toFileSystem, boolean lazy) {
+        imageLoader.run(this, lazy, true, new Runnable() {
+            public void run() {
+                SuccessCallback<Image> onSuccess = new SuccessCallback<Image>() {
+                    public void onSucess(final Image value) {
+                        imageLoader.downloadFinished();
+                        imageLoader.run(URLImage.this, false, false, new Runnable() {
+                            public void run() {
+                                runAndWait(new Runnable() {
+                                    public void run() {
+                                        DownloadCompleted onComplete = new DownloadCompleted();
+                                        onComplete.setSourceImage(value);
+                                        onComplete.actionPerformed(new ActionEvent(value));
+                                    }
+                                });
+                            }
+                        });
+                    }
+                };
+                FailureCallback<Image> onFail = new FailureCallback<Image>() {
+                    public void onError(Object sender, Throwable err, int errorCode, String errorMessage) {
+                        imageLoader.downloadFinished();
+                    }
+                };
+                if(toFileSystem) {
+                    Util.downloadImageToFileSystem(url, targetFile, onSuccess, onFail);
+                } else {
+                    Util.downloadImageToStorage(url, targetFile, onSuccess, onFail);
+                }
+            }
+        });
+    }
+
+    private void loadImageFromLocalUrl(final String targetKey, final boolean useFileSystemStorage, boolean lazy) {
+        imageLoader.run(this, lazy, false, new Runnable() {
             public void run() {
                 try {
                     InputStream input;
@@ -443,6 +533,16 @@ public class URLImage extends EncodedImage {
      * available by the time the method completes.
      */
     public void fetch() {
+        fetch(false);
+    }
+
+    /**
+     * Starts loading the image
+     *
+     * @param lazy true if the image is loaded because it was painted in which case the loading can be
+     * abandoned if the image is no longer painted
+     */
+    private void fetch(boolean lazy) {
         if(fetching || imageData != null) {
             return;
         }
@@ -463,53 +563,18 @@ public class URLImage extends EncodedImage {
                 }
                 if (adapter != null) {
                     if (url.startsWith("http://") || url.startsWith("https://")) {
-                        Util.downloadImageToStorage(url, storageFile + IMAGE_SUFFIX,
-                                new SuccessCallback<Image>() {
-                                    public void onSucess(final Image value) {
-                                        imageLoader.run(new Runnable() {
-                                            public void run()  {
-                                                runAndWait(new Runnable() {
-                                                    public void run() {
-                                                        DownloadCompleted onComplete = new DownloadCompleted();
-                                                        onComplete.setSourceImage(value);
-                                                        onComplete.actionPerformed(new ActionEvent(value));
-                                                    }
-                                                });
-                                            }
-                                        });
-
-
-                                    }
-
-                                });
+                        downloadImage(storageFile + IMAGE_SUFFIX, false, lazy);
                     } else {
                         // from file
-                        loadImageFromLocalUrl(storageFile + IMAGE_SUFFIX, false);
+                        loadImageFromLocalUrl(storageFile + IMAGE_SUFFIX, false, lazy);
                     }
                 } else {
                     if (url.startsWith("http://") || url.startsWith("https://")) {
                         // Load image from http
-                        Util.downloadImageToStorage(url, storageFile,
-                                new SuccessCallback<Image>() {
-                                    public void onSucess(final Image value) {
-                                        imageLoader.run(new Runnable() {
-                                            public void run() {
-                                                runAndWait(new Runnable() {
-                                                    public void run() {
-                                                        DownloadCompleted onComplete = new DownloadCompleted();
-                                                        onComplete.setSourceImage(value);
-                                                        onComplete.actionPerformed(new ActionEvent(value));
-                                                    }
-                                                });
-                                            }
-                                        });
-
-
-                                    }
-                                });
+                        downloadImage(storageFile, false, lazy);
                     } else {
                         //load image from file system
-                        loadImageFromLocalUrl(storageFile, false);
+                        loadImageFromLocalUrl(storageFile, false, lazy);
                     }
                 }
             } else {
@@ -527,54 +592,16 @@ public class URLImage extends EncodedImage {
                 if(adapter != null) {
                     if (url.startsWith("http://") || url.startsWith("https://")) {
                         // Load image over http
-                        Util.downloadImageToFileSystem(url, fileSystemFile + IMAGE_SUFFIX,
-                                new SuccessCallback<Image>() {
-
-                                    public void onSucess(final Image value) {
-                                        imageLoader.run(new Runnable() {
-                                            public void run() {
-                                                runAndWait(new Runnable() {
-                                                    public void run() {
-                                                        DownloadCompleted onComplete = new DownloadCompleted();
-                                                        onComplete.setSourceImage(value);
-                                                        onComplete.actionPerformed(new ActionEvent(value));
-                                                    }
-                                                });
-                                            }
-                                        });
-
-
-                                    }
-
-                                });
+                        downloadImage(fileSystemFile + IMAGE_SUFFIX, true, lazy);
                     } else  {
                         // load image from file system
-                        loadImageFromLocalUrl(fileSystemFile + IMAGE_SUFFIX, true);
+                        loadImageFromLocalUrl(fileSystemFile + IMAGE_SUFFIX, true, lazy);
                     }
                 } else {
                     if (url.startsWith("http://") || url.startsWith("https://")) {
-                        Util.downloadImageToFileSystem(url, fileSystemFile,
-                                new SuccessCallback<Image>() {
-
-                                    public void onSucess(final Image value) {
-                                        imageLoader.run(new Runnable() {
-                                            public void run() {
-                                                runAndWait(new Runnable() {
-                                                    public void run() {
-                                                        DownloadCompleted onComplete = new DownloadCompleted();
-                                                        onComplete.setSourceImage(value);
-                                                        onComplete.actionPerformed(new ActionEvent(value));
-                                                    }
-                                                });
-                                            }
-                                        });
-
-
-                                    }
-
-                                });
+                        downloadImage(fileSystemFile, true, lazy);
                     } else {
-                        loadImageFromLocalUrl(fileSystemFile, true);
+                        loadImageFromLocalUrl(fileSystemFile, true, lazy);
                     }
                 }
             }
@@ -592,12 +619,30 @@ public class URLImage extends EncodedImage {
      */
     protected Image getInternal() {
         if(imageData == null) {
-            fetch();
+            long now = System.currentTimeMillis();
+            lastRequested = now;
+            lastRequestedAny = now;
+            fetch(true);
             return placeholder;
         }
         return super.getInternal();
     }
 
+    long getLastRequested() {
+        return lastRequested;
+    }
+
+    static long getLastRequestedAny() {
+        return lastRequestedAny;
+    }
+
+    /**
+     * Invoked by the loader when a pending load is dropped so the next paint fetches the image again
+     */
+    void loadCancelled() {
+        fetching = false;
+    }
+
     @Override
     public boolean requiresDrawImage() {
         // IT is important to override this for URLImage because the default implementation will
@@ -0,0 +1,726 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.list;
+
+import com.codename1.ui.Component;
+import com.codename1.ui.Container;
+import com.codename1.ui.Display;
+import com.codename1.ui.events.DataChangedListener;
+import com.codename1.ui.geom.Dimension;
+import com.codename1.ui.layouts.Layout;
+import com.codename1.ui.plaf.Style;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>A vertically scrolling container that shows the items of a {@link ListModel} using real components
+ * while only creating the rows that are visible plus a small buffer above and below the viewport. Rows
+ * that scroll out of view are recycled for the items that scroll into view so the number of components
+ * doesn't depend on the size of the model. Unlike {@link com.codename1.ui.List} the rows can be arbitrary
+ * components of different types and heights.</p>
+ *
+ * <p>Rows are created and filled by a {@link RowFactory}. Each item has a view type and a row is only
+ * reused for items of the same type. The height of an item that was never shown is estimated, once the
+ * item is bound to a row its preferred height is measured and remembered. Changes to the estimates and
+ * items that are added or removed above the visible area don't move the visible rows.</p>
+ *
+ * <p>The container tracks the changes of the model through its {@link DataChangedListener} events so
+ * items can be appended to the model as the user scrolls to implement an infinite feed.</p>
+ *
+ * @param <T> the type of the items in the model
+ */
+public class RecyclingContainer<T> extends Container {
+    /**
+     * Creates and binds the rows of a {@link RecyclingContainer}
+     *
+     * @param <T> the type of the items in the model
+     */
+    public static interface RowFactory<T> {
+        /**
+         * Returns the type of the row that represents the given item, rows are only recycled for items
+         * of the same type
+         *
+         * @param item the item
+         * @param index the offset of the item in the model
+         * @return a type identifier
+         */
+        public int getViewType(T item, int index);
+
+        /**
+         * Creates a new row component for the given type
+         *
+         * @param viewType the type returned by {@link #getViewType(java.lang.Object, int)}
+         * @return a new component
+         */
+        public Component createRow(int viewType);
+
+        /**
+         * Fills a row with the content of an item, the row might have been used for a different item before
+         *
+         * @param row a component created by {@link #createRow(int)} for the type of the item
+         * @param item the item
+         * @param index the offset of the item in the model
+         */
+        public void bindRow(Component row, T item, int index);
+    }
+
+    static class Row {
+        final Component cmp;
+        final int type;
+        boolean needsLayout;
+
+        Row(Component cmp, int type) {
+            this.cmp = cmp;
+            this.type = type;
+        }
+    }
+
+    private ListModel<T> model;
+    private RowFactory<T> factory;
+    private Listener listener;
+    private int estimatedRowHeight = -1;
+    private int autoEstimate = -1;
+    private int bufferRows = 2;
+    private int lastWidth = -1;
+    private int preferredWidth;
+    private boolean updating;
+
+    /**
+     * The number of items and the height of each item including the row margins, items that were never
+     * bound hold the estimate
+     */
+    private int count;
+    private int[] heights = new int[16];
+    private boolean[] measured = new boolean[16];
+    private int total;
+
+    /**
+     * Binary indexed tree over the heights so offsets and hit testing are logarithmic
+     */
+    private int[] tree = new int[17];
+
+    /**
+     * The rows that are bound to the items starting at activeFirst
+     */
+    private final ArrayList<Row> active = new ArrayList<Row>();
+    private int activeFirst;
+    private final HashMap<Integer, ArrayList<Row>> pool = new HashMap<Integer, ArrayList<Row>>();
+
+    /**
+     * Creates a recycling container
+     *
+     * @param model the model containing the items
+     * @param factory creates and binds the rows
+     */
+    public RecyclingContainer(ListModel<T> model, RowFactory<T> factory) {
+        setLayout(new RowLayout());
+        setScrollableY(true);
+        this.factory = factory;
+        setModel(model);
+    }
+
+    /**
+     * Returns the model
+     *
+     * @return the model
+     */
+    public ListModel<T> getModel() {
+        return model;
+    }
+
+    /**
+     * Sets the model, the scroll position is reset
+     *
+     * @param model the model
+     */
+    public void setModel(ListModel<T> model) {
+        if(this.model != null && listener != null) {
+            this.model.removeDataChangedListener(listener);
+            listener = null;
+        }
+        this.model = model;
+        if(isInitialized()) {
+            bindListener();
+        }
+        setScrollY(0);
+        reset();
+    }
+
+    /**
+     * Returns the row factory
+     *
+     * @return the row factory
+     */
+    public RowFactory<T> getRowFactory() {
+        return factory;
+    }
+
+    /**
+     * Sets the row factory, all existing rows are discarded
+     *
+     * @param factory the row factory
+     */
+    public void setRowFactory(RowFactory<T> factory) {
+        this.factory = factory;
+        active.clear();
+        pool.clear();
+        removeAll();
+        reset();
+    }
+
+    /**
+     * Returns the height assumed for items that were never shown or -1 if the first measured row is used
+     *
+     * @return the estimated row height in pixels
+     */
+    public int getEstimatedRowHeight() {
+        return estimatedRowHeight;
+    }
+
+    /**
+     * Sets the height assumed for items that were never shown. By default the height of the first
+     * measured row is used. A good estimate keeps the scrollbar stable as items are measured
+     *
+     * @param estimatedRowHeight the height in pixels including the row margins or -1 for the default
+     */
+    public void setEstimatedRowHeight(int estimatedRowHeight) {
+        this.estimatedRowHeight = estimatedRowHeight;
+        if(count > 0) {
+            int estimate = getEstimate();
+            for(int iter = 0 ; iter < count ; iter++) {
+                if(!measured[iter]) {
+                    heights[iter] = estimate;
+                }
+            }
+            rebuildTree();
+            setScrollSize(null);
+            updateRows();
+        }
+    }
+
+    /**
+     * Returns the number of rows that are kept bound above and below the viewport
+     *
+     * @return the number of buffer rows
+     */
+    public int getBufferRows() {
+        return bufferRows;
+    }
+
+    /**
+     * Sets the number of rows that are kept bound above and below the viewport so they don't need
+     * to be bound while they scroll into view
+     *
+     * @param bufferRows the number of rows, defaults to 2
+     */
+    public void setBufferRows(int bufferRows) {
+        this.bufferRows = Math.max(0, bufferRows);
+        updateRows();
+    }
+
+    /**
+     * Returns the number of row components that are currently bound to items
+     *
+     * @return the number of bound rows
+     */
+    public int getBoundRowCount() {
+        return active.size();
+    }
+
+    /**
+     * Returns the row component bound to the given item or null if the item isn't near the viewport
+     *
+     * @param index the offset of the item in the model
+     * @return the row component or null
+     */
+    public Component getRowComponent(int index) {
+        if(index < activeFirst || index >= activeFirst + active.size()) {
+            return null;
+        }
+        return active.get(index - activeFirst).cmp;
+    }
+
+    /**
+     * Returns the offset of the first item that is visible in the viewport
+     *
+     * @return the index of the first visible item or -1 if the model is empty
+     */
+    public int getFirstVisibleIndex() {
+        if(count == 0) {
+            return -1;
+        }
+        return indexAt(getScrollY());
+    }
+
+    /**
+     * Returns the distance of the given item from the top of the content, this is based on the
+     * estimated height for items above it that were never shown
+     *
+     * @param index the offset of the item in the model
+     * @return the y position of the item in the scrollable content
+     */
+    public int getItemOffset(int index) {
+        return offsetOf(Math.max(0, Math.min(index, count)));
+    }
+
+    /**
+     * Scrolls so the given item is at the top of the viewport
+     *
+     * @param index the offset of the item in the model
+     */
+    public void scrollToIndex(int index) {
+        if(count == 0) {
+            return;
+        }
+        index = Math.max(0, Math.min(index, count - 1));
+        updating = true;
+        try {
+            setScrollY(offsetOf(index));
+        } finally {
+            updating = false;
+        }
+        // measuring the rows around the item can move it, the anchor keeps it in place
+        updateRows();
+        repaint();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void initComponent() {
+        super.initComponent();
+        bindListener();
+        if(model != null && model.getSize() != count) {
+            reset();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void deinitialize() {
+        if(model != null && listener != null) {
+            model.removeDataChangedListener(listener);
+            listener = null;
+        }
+        super.deinitialize();
+    }
+
+    private void bindListener() {
+        if(listener == null && model != null) {
+            listener = new Listener();
+            model.addDataChangedListener(listener);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void onScrollY(int scrollY) {
+        if(!updating) {
+            updateRows();
+        }
+    }
+
+    private int getEstimate() {
+        if(estimatedRowHeight > 0) {
+            return estimatedRowHeight;
+        }
+        if(autoEstimate > 0) {
+            return autoEstimate;
+        }
+        return Display.getInstance().convertToPixels(10);
+    }
+
+    /**
+     * Discards all the measurements and bound rows and starts over from the model
+     */
+    private void reset() {
+        releaseAll();
+        int size = model == null ? 0 : model.getSize();
+        ensureCapacity(size);
+        count = size;
+        int estimate = getEstimate();
+        for(int iter = 0 ; iter < count ; iter++) {
+            heights[iter] = estimate;
+            measured[iter] = false;
+        }
+        rebuildTree();
+        setScrollSize(null);
+        updateRows();
+        repaint();
+    }
+
+    private void ensureCapacity(int size) {
+        if(heights.length < size) {
+            int len = Math.max(size, heights.length * 2);
+            int[] h = new int[len];
+            boolean[] m = new boolean[len];
+            System.arraycopy(heights, 0, h, 0, count);
+            System.arraycopy(measured, 0, m, 0, count);
+            heights = h;
+            measured = m;
+            tree = new int[len + 1];
+            rebuildTree();
+        }
+    }
+
+    private void rebuildTree() {
+        total = 0;
+        for(int iter = 1 ; iter <= count ; iter++) {
+            int h = heights[iter - 1];
+            tree[iter] = h;
+            total += h;
+        }
+        for(int iter = 1 ; iter <= count ; iter++) {
+            int parent = iter + (iter & -iter);
+            if(parent <= count) {
+                tree[parent] += tree[iter];
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the heights of the items before the given index
+     */
+    private int offsetOf(int index) {
+        int sum = 0;
+        for(int iter = index ; iter > 0 ; iter -= iter & -iter) {
+            sum += tree[iter];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the index of the item that contains the given offset
+     */
+    private int indexAt(int offset) {
+        if(offset <= 0 || count == 0) {
+            return 0;
+        }
+        if(offset >= total) {
+            return count - 1;
+        }
+        int bit = 1;
+        while(bit * 2 <= count) {
+            bit *= 2;
+        }
+        int pos = 0;
+        for(; bit > 0 ; bit /= 2) {
+            int next = pos + bit;
+            if(next <= count && tree[next] <= offset) {
+                pos = next;
+                offset -= tree[next];
+            }
+        }
+        return Math.min(pos, count - 1);
+    }
+
+    private void setHeight(int index, int h) {
+        int delta = h - heights[index];
+        if(delta != 0) {
+            heights[index] = h;
+            total += delta;
+            for(int iter = index + 1 ; iter <= count ; iter += iter & -iter) {
+                tree[iter] += delta;
+            }
+        }
+    }
+
+    private void insertItem(int index) {
+        ensureCapacity(count + 1);
+        int estimate = getEstimate();
+        if(index == count) {
+            // appending is the common case for feeds and only needs the new tree node
+            heights[count] = estimate;
+            measured[count] = false;
+            count++;
+            tree[count] = estimate + offsetOf(count - 1) - offsetOf(count - (count & -count));
+            total += estimate;
+            return;
+        }
+        System.arraycopy(heights, index, heights, index + 1, count - index);
+        System.arraycopy(measured, index, measured, index + 1, count - index);
+        heights[index] = estimate;
+        measured[index] = false;
+        count++;
+        rebuildTree();
+    }
+
+    private void removeItem(int index) {
+        System.arraycopy(heights, index + 1, heights, index, count - index - 1);
+        System.arraycopy(measured, index + 1, measured, index, count - index - 1);
+        count--;
+        rebuildTree();
+    }
+
+    private Row obtainRow(int index) {
+        T item = model.getItemAt(index);
+        int type = factory.getViewType(item, index);
+        ArrayList<Row> free = pool.get(new Integer(type));
+        Row row;
+        if(free != null && free.size() > 0) {
+            row = free.remove(free.size() - 1);
+            row.cmp.setVisible(true);
+        } else {
+            row = new Row(factory.createRow(type), type);
+            addComponent(row.cmp);
+        }
+        factory.bindRow(row.cmp, item, index);
+        return row;
+    }
+
+    private void releaseRow(Row row) {
+        row.cmp.setVisible(false);
+        Integer key = new Integer(row.type);
+        ArrayList<Row> free = pool.get(key);
+        if(free == null) {
+            free = new ArrayList<Row>();
+            pool.put(key, free);
+        }
+        free.add(row);
+    }
+
+    private void releaseAll() {
+        int size = active.size();
+        for(int iter = 0 ; iter < size ; iter++) {
+            releaseRow(active.get(iter));
+        }
+        active.clear();
+        activeFirst = 0;
+    }
+
+    /**
+     * Releases the bound rows outside of the given range
+     */
+    private void trimRows(int first, int last) {
+        while(active.size() > 0 && activeFirst < first) {
+            releaseRow(active.remove(0));
+            activeFirst++;
+        }
+        while(active.size() > 0 && activeFirst + active.size() - 1 > last) {
+            releaseRow(active.remove(active.size() - 1));
+        }
+    }
+
+    /**
+     * Binds a row to the given item and measures it
+     */
+    private Row bindRow(int index, int width) {
+        Row row = obtainRow(index);
+        Component cmp = row.cmp;
+        Style s = cmp.getStyle();
+        cmp.setWidth(width - s.getHorizontalMargins());
+        cmp.setShouldCalcPreferredSize(true);
+        int h = cmp.getPreferredH() + s.getVerticalMargins();
+        preferredWidth = Math.max(preferredWidth, cmp.getPreferredW() + s.getHorizontalMargins());
+        if(!measured[index] && estimatedRowHeight <= 0 && autoEstimate <= 0) {
+            // the first row we see becomes the estimate for all the rows we haven't seen
+            autoEstimate = h;
+            for(int iter = 0 ; iter < count ; iter++) {
+                if(!measured[iter]) {
+                    heights[iter] = h;
+                }
+            }
+            rebuildTree();
+        }
+        measured[index] = true;
+        setHeight(index, h);
+        row.needsLayout = true;
+        return row;
+    }
+
+    /**
+     * Binds the rows around the viewport, releases the rest and positions them
+     */
+    private void updateRows() {
+        if(updating) {
+            return;
+        }
+        updating = true;
+        try {
+            updateRowsImpl();
+        } finally {
+            updating = false;
+        }
+    }
+
+    private void updateRowsImpl() {
+        Style s = getStyle();
+        int width = getWidth() - getSideGap() - s.getHorizontalPadding();
+        int viewHeight = getHeight() - s.getVerticalPadding();
+        if(model == null || factory == null || count == 0 || width <= 0 || viewHeight <= 0) {
+            releaseAll();
+            return;
+        }
+        if(width != lastWidth) {
+            // the heights depend on the width so everything needs to be measured again
+            if(lastWidth > -1) {
+                int estimate = getEstimate();
+                for(int iter = 0 ; iter < count ; iter++) {
+                    heights[iter] = estimate;
+                    measured[iter] = false;
+                }
+                rebuildTree();
+                setScrollSize(null);
+            }
+            releaseAll();
+            lastWidth = width;
+            preferredWidth = 0;
+        }
+        int oldTotal = total;
+        int scroll = getScrollY();
+        int anchor = indexAt(scroll);
+        int anchorDelta = offsetOf(anchor) - scroll;
+
+        int first = Math.max(0, anchor - bufferRows);
+        int estimatedLast = Math.min(count - 1, indexAt(scroll + viewHeight) + bufferRows);
+        trimRows(first, estimatedLast);
+        if(active.size() == 0) {
+            activeFirst = anchor;
+        }
+        while(activeFirst > first) {
+            activeFirst--;
+            active.add(0, bindRow(activeFirst, width));
+        }
+
+        // rows measured above the anchor must not move the anchor on the screen
+        int newScroll = offsetOf(anchor) - anchorDelta;
+        int bottom = newScroll + viewHeight;
+        int next = activeFirst + active.size();
+        while(next < count && offsetOf(next) < bottom) {
+            active.add(bindRow(next, width));
+            next++;
+        }
+        int last = Math.min(count - 1, indexAt(bottom - 1) + bufferRows);
+        while(next <= last) {
+            active.add(bindRow(next, width));
+            next++;
+        }
+        trimRows(first, last);
+
+        if(total != oldTotal) {
+            setScrollSize(null);
+        }
+        newScroll = Math.max(0, Math.min(newScroll, total - viewHeight));
+        if(newScroll != scroll) {
+            setScrollY(newScroll);
+        }
+
+        boolean rtl = isRTL();
+        int x = s.getPaddingLeft(rtl);
+        if(rtl) {
+            x += getSideGap();
+        }
+        int y = s.getPaddingTop();
+        int size = active.size();
+        for(int iter = 0 ; iter < size ; iter++) {
+            Row row = active.get(iter);
+            Component cmp = row.cmp;
+            Style rs = cmp.getStyle();
+            int index = activeFirst + iter;
+            cmp.setX(x + rs.getMarginLeft(rtl));
+            cmp.setY(y + offsetOf(index) + rs.getMarginTop());
+            cmp.setWidth(width - rs.getHorizontalMargins());
+            cmp.setHeight(heights[index] - rs.getVerticalMargins());
+            if(row.needsLayout) {
+                row.needsLayout = false;
+                if(cmp instanceof Container) {
+                    ((Container)cmp).layoutContainer();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a structural change to the model while keeping the first visible item in place
+     */
+    private void itemsChanged(int type, int index) {
+        int scroll = getScrollY();
+        int anchor = indexAt(scroll);
+        int anchorDelta = offsetOf(anchor) - scroll;
+        if(index < activeFirst + active.size()) {
+            // the bound rows after the change point no longer match their index, changes after
+            // the bound rows such as appending to a feed keep them as they are
+            releaseAll();
+        }
+        if(type == DataChangedListener.ADDED) {
+            insertItem(index);
+            if(count > 1 && (index < anchor || (index == anchor && scroll > 0))) {
+                anchor++;
+            }
+        } else {
+            removeItem(index);
+            if(index < anchor) {
+                anchor--;
+            }
+        }
+        setScrollSize(null);
+        if(count > 0) {
+            anchor = Math.min(anchor, count - 1);
+            updating = true;
+            try {
+                setScrollY(Math.max(0, offsetOf(anchor) - anchorDelta));
+            } finally {
+                updating = false;
+            }
+        }
+        updateRows();
+    }
+
+    class Listener implements DataChangedListener {
+        public void dataChanged(int type, int index) {
+            if(index < 0 || index > count || (type != DataChangedListener.ADDED && index == count)) {
+                reset();
+                return;
+            }
+            if(type == DataChangedListener.CHANGED) {
+                // the item needs to be measured again the next time it's bound
+                measured[index] = false;
+                if(index >= activeFirst && index < activeFirst + active.size()) {
+                    releaseAll();
+                    updateRows();
+                }
+            } else {
+                itemsChanged(type, index);
+            }
+            if(model.getSize() != count) {
+                // the model changed more than it reported
+                reset();
+                return;
+            }
+            repaint();
+        }
+    }
+
+    class RowLayout extends Layout {
+        public void layoutContainer(Container parent) {
+            updateRows();
+        }
+
+        public Dimension getPreferredSize(Container parent) {
+            Style s = getStyle();
+            return new Dimension(preferredWidth + s.getHorizontalPadding(), total + s.getVerticalPadding());
+        }
+    }
+}
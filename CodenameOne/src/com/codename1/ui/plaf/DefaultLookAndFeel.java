@@ -39,6 +39,7 @@ import com.codename1.ui.Display;
 import com.codename1.ui.Label;
 import com.codename1.ui.List;
 import com.codename1.ui.TextArea;
+import com.codename1.ui.TextMeasureCache;
 import com.codename1.ui.list.ListCellRenderer;
 import com.codename1.ui.list.ListModel;
 import com.codename1.ui.Font;
@@ -1065,12 +1066,12 @@ public class DefaultLookAndFeel extends LookAndFeel implements FocusListener {
             switch (l.getTextPosition()) {
                 case Label.LEFT:
                 case Label.RIGHT:
-                    prefW += font.stringWidth(text);
+                    prefW += TextMeasureCache.stringWidth(font, text);
                     prefH = Math.max(prefH, font.getHeight());
                     break;
                 case Label.BOTTOM:
                 case Label.TOP:
-                    prefW = Math.max(prefW, font.stringWidth(text));
+                    prefW = Math.max(prefW, TextMeasureCache.stringWidth(font, text));
                     prefH += font.getHeight();
                     break;
             }
@@ -1280,7 +1281,7 @@ public class DefaultLookAndFeel extends LookAndFeel implements FocusListener {
                 str += TextArea.getWidestChar();
             }
             if(columns > 0) {
-                prefW = Math.max(prefW, f.stringWidth(str));
+                prefW = Math.max(prefW, TextMeasureCache.stringWidth(f, str));
             }
         }
         prefH = Math.max(prefH, rows * f.getHeight());
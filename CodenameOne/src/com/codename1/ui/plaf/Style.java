@@ -435,8 +435,8 @@ public class Style {
     private int bgColor = 0xFFFFFF;
     private Font font = Font.getDefaultFont();
     private Image bgImage;
-    float[] padding = new float[4];
-    float[] margin = new float[4];
+    float[] padding;
+    float[] margin;
     private float[] cached_margin = null; //used to cache margin values when hidding a component
     
     /**
@@ -464,6 +464,19 @@ public class Style {
     private byte backgroundAlignment = BACKGROUND_IMAGE_ALIGN_TOP;
     private Object[] backgroundGradient;
 
+    /**
+     * Bitmask of the arrays (padding, margin, units and gradient) that are shared with another style
+     * instance. A style copy shares these arrays with its source and both copy an array before the
+     * first write to it, which keeps the per component copies of the theme styles small
+     */
+    private int sharedArrays;
+    private static final int SHARED_PADDING = 1;
+    private static final int SHARED_MARGIN = 2;
+    private static final int SHARED_PADDING_UNIT = 4;
+    private static final int SHARED_MARGIN_UNIT = 8;
+    private static final int SHARED_GRADIENT = 16;
+    private static final int SHARED_ALL = 31;
+
     private Border border = null;
 
     private int align = Component.LEFT;
@@ -538,6 +551,8 @@ public class Style {
      * The Default values for each Component can be changed by using the UIManager class
      */
     public Style() {
+        padding = new float[4];
+        margin = new float[4];
         setPadding(3, 3, 3, 3);
         setMargin(2, 2, 2, 2);
         modifiedFlag = 0;
@@ -568,22 +583,24 @@ public class Style {
      * Creates a full copy of the given style. Notice that if the original style was modified 
      * manually (by invoking setters on it) it would not chnage when changing a theme/look and feel,
      * however this newly created style would change in such a case.
+     * The copy shares the padding, margin, unit and gradient arrays with the original style until
+     * either of them is modified so copying a theme style is cheap.
      * 
      * @param style the style to copy
      */
     public Style(Style style) {
-        this(style.getFgColor(), style.getBgColor(), style.getFont(), style.getBgTransparency(),
-                style.getBgImage());
-        setPadding(style.padding[Component.TOP],
-                style.padding[Component.BOTTOM],
-                style.padding[Component.LEFT],
-                style.padding[Component.RIGHT]);
-        setMargin(style.margin[Component.TOP],
-                style.margin[Component.BOTTOM],
-                style.margin[Component.LEFT],
-                style.margin[Component.RIGHT]);
-        setPaddingUnit(style.paddingUnit);
-        setMarginUnit(style.marginUnit);
+        fgColor = style.getFgColor();
+        bgColor = style.getBgColor();
+        font = style.getFont();
+        transparency = style.getBgTransparency();
+        bgImage = style.getBgImage();
+        padding = style.padding;
+        margin = style.margin;
+        paddingUnit = style.paddingUnit;
+        marginUnit = style.marginUnit;
+        backgroundGradient = style.backgroundGradient;
+        style.sharedArrays = SHARED_ALL;
+        sharedArrays = SHARED_ALL;
         setBorder(style.getBorder());
         fgAlpha = style.fgAlpha;
         elevation = style.elevation;
@@ -596,9 +613,45 @@ public class Style {
         backgroundType = style.backgroundType;
         backgroundAlignment = style.backgroundAlignment;
         textDecoration = style.textDecoration;
-        if(style.backgroundGradient != null) {
-            backgroundGradient = new Object[style.backgroundGradient.length];
-            System.arraycopy(style.backgroundGradient, 0, backgroundGradient, 0, backgroundGradient.length);
+    }
+
+    private void ownPadding() {
+        if ((sharedArrays & SHARED_PADDING) != 0) {
+            float[] f = new float[4];
+            System.arraycopy(padding, 0, f, 0, 4);
+            padding = f;
+            sharedArrays &= ~SHARED_PADDING;
+        }
+    }
+
+    private void ownMargin() {
+        if ((sharedArrays & SHARED_MARGIN) != 0) {
+            float[] f = new float[4];
+            System.arraycopy(margin, 0, f, 0, 4);
+            margin = f;
+            sharedArrays &= ~SHARED_MARGIN;
+        }
+    }
+
+    private void ownPaddingUnit() {
+        if ((sharedArrays & SHARED_PADDING_UNIT) != 0) {
+            if (paddingUnit != null) {
+                byte[] b = new byte[4];
+                System.arraycopy(paddingUnit, 0, b, 0, 4);
+                paddingUnit = b;
+            }
+            sharedArrays &= ~SHARED_PADDING_UNIT;
+        }
+    }
+
+    private void ownMarginUnit() {
+        if ((sharedArrays & SHARED_MARGIN_UNIT) != 0) {
+            if (marginUnit != null) {
+                byte[] b = new byte[4];
+                System.arraycopy(marginUnit, 0, b, 0, 4);
+                marginUnit = b;
+            }
+            sharedArrays &= ~SHARED_MARGIN_UNIT;
         }
     }
 
@@ -1592,6 +1645,7 @@ public class Style {
                 padding[Component.BOTTOM] != bottom ||
                 padding[Component.LEFT] != left ||
                 padding[Component.RIGHT] != right) {
+            ownPadding();
             padding[Component.TOP] = top;
             padding[Component.BOTTOM] = bottom;
             padding[Component.LEFT] = left;
@@ -1656,6 +1710,7 @@ public class Style {
                 margin[Component.BOTTOM] != bottom ||
                 margin[Component.LEFT] != left ||
                 margin[Component.RIGHT] != right) {
+            ownMargin();
             margin[Component.TOP] = top;
             margin[Component.BOTTOM] = bottom;
             margin[Component.LEFT] = left;
@@ -1797,6 +1852,7 @@ public class Style {
     }
     
     private void initPaddingUnits() {
+        ownPaddingUnit();
         if (paddingUnit == null) {
             paddingUnit = new byte[]{UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS};
         }
@@ -1895,6 +1951,7 @@ public class Style {
             throw new IllegalArgumentException("padding cannot be negative");
         }
         if (padding[Component.TOP] != gap) {
+            ownPadding();
             padding[Component.TOP] = gap;
             modifiedFlag |= PADDING_MODIFIED;
             firePropertyChanged(PADDING);
@@ -1930,6 +1987,7 @@ public class Style {
             throw new IllegalArgumentException("padding cannot be negative");
         }
         if (padding[Component.BOTTOM] != gap) {
+            ownPadding();
             padding[Component.BOTTOM] = gap;
             modifiedFlag |= PADDING_MODIFIED;
             firePropertyChanged(PADDING);
@@ -1965,6 +2023,7 @@ public class Style {
             throw new IllegalArgumentException("padding cannot be negative");
         }
         if (padding[Component.LEFT] != gap) {
+            ownPadding();
             padding[Component.LEFT] = gap;
             modifiedFlag |= PADDING_MODIFIED;
             firePropertyChanged(PADDING);
@@ -2000,6 +2059,7 @@ public class Style {
             throw new IllegalArgumentException("padding cannot be negative");
         }
         if (padding[Component.RIGHT] != gap) {
+            ownPadding();
             padding[Component.RIGHT] = gap;
             modifiedFlag |= PADDING_MODIFIED;
             firePropertyChanged(PADDING);
@@ -2032,6 +2092,7 @@ public class Style {
             throw new IllegalArgumentException("Margin cannot be negative");
         }
         if (margin[Component.TOP] != gap) {
+            ownMargin();
             margin[Component.TOP] = gap;
             modifiedFlag |= MARGIN_MODIFIED;
             firePropertyChanged(MARGIN);
@@ -2063,6 +2124,7 @@ public class Style {
             throw new IllegalArgumentException("Margin cannot be negative");
         }
         if (margin[Component.BOTTOM] != gap) {
+            ownMargin();
             margin[Component.BOTTOM] = gap;
             modifiedFlag |= MARGIN_MODIFIED;
             firePropertyChanged(MARGIN);
@@ -2094,6 +2156,7 @@ public class Style {
             throw new IllegalArgumentException("Margin cannot be negative");
         }
         if (margin[Component.LEFT] != gap) {
+            ownMargin();
             margin[Component.LEFT] = gap;
             modifiedFlag |= MARGIN_MODIFIED;
             firePropertyChanged(MARGIN);
@@ -2125,6 +2188,7 @@ public class Style {
             throw new IllegalArgumentException("Margin cannot be negative");
         }
         if (margin[Component.RIGHT] != gap) {
+            ownMargin();
             margin[Component.RIGHT] = gap;
             modifiedFlag |= MARGIN_MODIFIED;
             firePropertyChanged(MARGIN);
@@ -2466,6 +2530,14 @@ public class Style {
      * and optionally the x/y relative anchor for the radial gradient
      */
     Object[] getBackgroundGradient() {
+        if ((sharedArrays & SHARED_GRADIENT) != 0) {
+            if (backgroundGradient != null) {
+                Object[] o = new Object[backgroundGradient.length];
+                System.arraycopy(backgroundGradient, 0, o, 0, o.length);
+                backgroundGradient = o;
+            }
+            sharedArrays &= ~SHARED_GRADIENT;
+        }
         if(backgroundGradient == null) {
             Float c = new Float(0.5f);
             backgroundGradient = new Object[] {new Integer(0xffffff), new Integer(0), c, c, new Float(1)};
@@ -2478,6 +2550,7 @@ public class Style {
      */
     void setBackgroundGradient(Object[] backgroundGradient) {
         this.backgroundGradient = backgroundGradient;
+        sharedArrays &= ~SHARED_GRADIENT;
     }
 
     /**
@@ -2731,6 +2804,7 @@ public class Style {
             throw new IllegalArgumentException("padding cannot be negative");
         }
         if (padding[orientation] != gap) {
+            ownPadding();
             padding[orientation] = gap;
 
             if (!override) {
@@ -2774,6 +2848,7 @@ public class Style {
             throw new IllegalArgumentException("margin cannot be negative");
         }
         if (margin[orientation] != gap) {
+            ownMargin();
             margin[orientation] = gap;
             if (!override) {
                 modifiedFlag |= MARGIN_MODIFIED;
@@ -2941,6 +3016,8 @@ public class Style {
      * @return the paddingUnit
      */
     public byte[] getPaddingUnit() {
+        // the caller might modify the returned array
+        ownPaddingUnit();
         return paddingUnit;
     }
 
@@ -2960,6 +3037,7 @@ public class Style {
             }
             return;
         }
+        ownPaddingUnit();
         if(paddingUnit != null && paddingUnit.length < 4) {
             this.paddingUnit = new byte[]{paddingUnit[0], paddingUnit[0], paddingUnit[0], paddingUnit[0]};
         } else {
@@ -2981,6 +3059,8 @@ public class Style {
      * @return the marginUnit
      */
     public byte[] getMarginUnit() {
+        // the caller might modify the returned array
+        ownMarginUnit();
         return marginUnit;
     }
 
@@ -3000,6 +3080,7 @@ public class Style {
             }
             return;
         }
+        ownMarginUnit();
         if(marginUnit != null && marginUnit.length < 4) {
             this.marginUnit = new byte[]{marginUnit[0], marginUnit[0], marginUnit[0], marginUnit[0]};
         } else {
@@ -3015,6 +3096,7 @@ public class Style {
     }
     
     private void initMarginUnits() {
+        ownMarginUnit();
         if (marginUnit == null) {
             marginUnit = new byte[]{UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS, UNIT_TYPE_PIXELS};
         }
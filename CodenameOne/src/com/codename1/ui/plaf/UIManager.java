@@ -368,10 +368,19 @@ public class UIManager {
                         styles.put(id, style);
                     }
                 } else {
-                    return createStyle(id, prefix, false);
+                    // custom styles such as pressed and disabled are cached with the same key
+                    // used by setComponentStyle(String, Style, String)
+                    String key = id + prefix;
+                    style = styles.get(key);
+
+                    if (style == null) {
+                        style = createStyle(id, prefix, false);
+                        styles.put(key, style);
+                    }
                 }
             }
 
+            // the copy shares its arrays with the cached style until either is modified
             return new Style(style);
         } catch(Throwable err) {
             // fail gracefully for an illegal style, this is useful for the resource editor
@@ -27,8 +27,10 @@ import com.codename1.cloud.BindTarget;
 import com.codename1.ui.*;
 import com.codename1.ui.events.*;
 import com.codename1.ui.plaf.Style;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Vector;
 
 /**
@@ -39,13 +41,17 @@ import java.util.Vector;
  * To integrate this into your code you can use something like:
  * </p>
  * <script src="https://gist.github.com/codenameone/8abb07271bae62d0f81a.js"></script>
+ * <p>
+ * Listeners are kept in an immutable array that is replaced when a listener is added or removed, 
+ * so firing an event takes no lock and doesn't copy the listeners.
+ * </p>
  * 
  * @author Shai Almog
  */
 public class EventDispatcher {
 
     private boolean blocking = false;
-    private ArrayList<Object> listeners;
+    private ListenerList listeners;
     boolean actionListenerArray;
     boolean styleListenerArray;
     boolean bindTargetArray;
@@ -68,6 +74,134 @@ public class EventDispatcher {
         fireStyleEventsOnNonEDT = fire;
     }
     
+    private static final Object[] EMPTY = new Object[0];
+    
+    /**
+     * Copy on write list of listeners, mutations replace the array so readers can use the array 
+     * without locking. Iterators work on the array at the time of their creation
+     */
+    static class ListenerList extends AbstractList<Object> {
+        volatile Object[] array = EMPTY;
+        
+        @Override
+        public Object get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            Object[] a = array;
+            int alen = a.length;
+            for(int iter = 0 ; iter < alen ; iter++) {
+                if(a[iter] == o || (o != null && o.equals(a[iter]))) {
+                    return iter;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) > -1;
+        }
+
+        @Override
+        public synchronized void add(int index, Object element) {
+            Object[] a = array;
+            if(index < 0 || index > a.length) {
+                throw new IndexOutOfBoundsException("" + index);
+            }
+            Object[] n = new Object[a.length + 1];
+            System.arraycopy(a, 0, n, 0, index);
+            n[index] = element;
+            System.arraycopy(a, index, n, index + 1, a.length - index);
+            array = n;
+            modCount++;
+        }
+
+        synchronized boolean addIfAbsent(Object element) {
+            if(contains(element)) {
+                return false;
+            }
+            add(array.length, element);
+            return true;
+        }
+        
+        @Override
+        public synchronized Object set(int index, Object element) {
+            Object[] a = array;
+            Object old = a[index];
+            Object[] n = new Object[a.length];
+            System.arraycopy(a, 0, n, 0, a.length);
+            n[index] = element;
+            array = n;
+            return old;
+        }
+
+        @Override
+        public synchronized Object remove(int index) {
+            Object[] a = array;
+            Object old = a[index];
+            if(a.length == 1) {
+                array = EMPTY;
+            } else {
+                Object[] n = new Object[a.length - 1];
+                System.arraycopy(a, 0, n, 0, index);
+                System.arraycopy(a, index + 1, n, index, a.length - index - 1);
+                array = n;
+            }
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public synchronized boolean remove(Object o) {
+            int i = indexOf(o);
+            if(i < 0) {
+                return false;
+            }
+            remove(i);
+            return true;
+        }
+
+        @Override
+        public synchronized void clear() {
+            array = EMPTY;
+            modCount++;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            final Object[] a = array;
+            return new Iterator<Object>() {
+                int offset;
+                
+                public boolean hasNext() {
+                    return offset < a.length;
+                }
+
+                public Object next() {
+                    if(offset >= a.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return a[offset++];
+                }
+
+                public void remove() {
+                    if(offset == 0) {
+                        throw new IllegalStateException();
+                    }
+                    ListenerList.this.remove(a[offset - 1]);
+                }
+            };
+        }
+    }
+    
     class CallbackClass implements Runnable {
         private Object[] iPending;
         private Object iPendingEvent;
@@ -87,38 +221,38 @@ public class EventDispatcher {
 
             if(styleListenerArray) {
                 Object[] p = (Object[])iPendingEvent;
-                fireStyleChangeSync((StyleListener[])iPending, (String)p[0], (Style)p[1]);
+                fireStyleChangeSync(iPending, (String)p[0], (Style)p[1]);
                 return;
             }
 
             if(actionListenerArray) {
-                fireActionSync((ActionListener[])iPending, (ActionEvent)iPendingEvent);
+                fireActionSync(iPending, (ActionEvent)iPendingEvent);
                 return;
             }
 
             if(focusListenerArray) {
-                fireFocusSync((FocusListener[])iPending, (Component)iPendingEvent);
+                fireFocusSync(iPending, (Component)iPendingEvent);
                 return;
             }
 
             if(dataChangeListenerArray) {
-                fireDataChangeSync((DataChangedListener[])iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1]);
+                fireDataChangeSync(iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1]);
                 return;
             }
 
             if(selectionListenerArray) {
-                fireSelectionSync((SelectionListener[])iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1]);
+                fireSelectionSync(iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1]);
                 return;
             }
             
             if(scrollListenerArray) {
-                fireScrollSync((ScrollListener[])iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1], ((int[])iPendingEvent)[2], ((int[])iPendingEvent)[3]);
+                fireScrollSync(iPending, ((int[])iPendingEvent)[0], ((int[])iPendingEvent)[1], ((int[])iPendingEvent)[2], ((int[])iPendingEvent)[3]);
                 return;
             }
 
             if(bindTargetArray) {
                 Object[] a = (Object[])iPendingEvent;
-                fireBindTargetChangeSync((BindTarget[])iPending, (Component)a[0], (String)a[1], a[2], a[3]);
+                fireBindTargetChangeSync(iPending, (Component)a[0], (String)a[1], a[2], a[3]);
                 return;
             }
         }
@@ -129,14 +263,16 @@ public class EventDispatcher {
      * 
      * @param listener a dispatcher listener to add
      */
-    public synchronized void addListener(Object listener) {
+    public void addListener(Object listener) {
         if(listener != null) {
-            if(listeners == null) {
-                listeners = new ArrayList<Object>();
+            ListenerList l;
+            synchronized(this) {
+                if(listeners == null) {
+                    listeners = new ListenerList();
+                }
+                l = listeners;
             }
-            if(!listeners.contains(listener)){
-                listeners.add(listener);
-            }        
+            l.addIfAbsent(listener);
         }
     }
     
@@ -164,11 +300,23 @@ public class EventDispatcher {
      *
      * @param listener a dispatcher listener to remove
      */
-    public synchronized void removeListener(Object listener) {
-        if(listeners != null) {
-            listeners.remove(listener);
+    public void removeListener(Object listener) {
+        ListenerList l = listeners;
+        if(l != null) {
+            l.remove(listener);
         }
     }
+    
+    /**
+     * Returns the current immutable array of listeners without copying
+     */
+    private Object[] listenerArray() {
+        ListenerList l = listeners;
+        if(l == null) {
+            return EMPTY;
+        }
+        return l.array;
+    }
 
     /**
      * Fires the event safely on the EDT without risk of concurrency errors
@@ -177,24 +325,17 @@ public class EventDispatcher {
      * @param type the type of the event
      */
     public void fireDataChangeEvent(int index, int type) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         boolean isEdt = Display.getInstance().isEdt();
         // minor optimization for a common use case to avoid allocation costs
-        if(isEdt && listeners.size() == 1) {
-            DataChangedListener a = (DataChangedListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            DataChangedListener a = (DataChangedListener)array[0];
             a.dataChanged(type, index);
             return;
         }
-        DataChangedListener[] array;
-        synchronized(this) {
-            array = new DataChangedListener[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (DataChangedListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireDataChangeSync(array, type, index);
@@ -218,17 +359,10 @@ public class EventDispatcher {
      * @param newValue the new value for the property
      */
     public void fireBindTargetChange(Component source, String propertyName, Object oldValue, Object newValue) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
-        BindTarget[] array;
-        synchronized(this) {
-            array = new BindTarget[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (BindTarget)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(Display.getInstance().isEdt()) {
             fireBindTargetChangeSync(array, source, propertyName, oldValue, newValue);
@@ -251,10 +385,10 @@ public class EventDispatcher {
      * @param oldValue the old value of the property
      * @param newValue the new value for the property
      */
-    private void fireBindTargetChangeSync(BindTarget[] arr, Component source, String propertyName, Object oldValue, Object newValue) {
+    private void fireBindTargetChangeSync(Object[] arr, Component source, String propertyName, Object oldValue, Object newValue) {
         int alen = arr.length;
         for(int iter = 0 ; iter < alen ; iter++) {
-            arr[iter].propertyChanged(source, propertyName, oldValue, newValue);
+            ((BindTarget)arr[iter]).propertyChanged(source, propertyName, oldValue, newValue);
         }
     }
 
@@ -265,23 +399,17 @@ public class EventDispatcher {
      * @param source the style firing the event
      */
     public void fireStyleChangeEvent(String property, Style source) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         // minor optimization for a common use case to avoid allocation costs
         boolean isEdt = Display.getInstance().isEdt();
-        if(isEdt && listeners.size() == 1) {
-            StyleListener a = (StyleListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            StyleListener a = (StyleListener)array[0];
             a.styleChanged(property, source);
             return;
         }
-        StyleListener[] array;
-        synchronized(this) {
-            array = new StyleListener[listeners.size()];
-            for(int iter = 0 ; iter < array.length ; iter++) {
-                array[iter] = (StyleListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireStyleChangeSync(array, property, source);
@@ -295,40 +423,40 @@ public class EventDispatcher {
     /**
      * Synchronious internal call for common code
      */
-    private void fireDataChangeSync(DataChangedListener[] array, int type, int index) {
+    private void fireDataChangeSync(Object[] array, int type, int index) {
         int alen = array.length;
         for(int iter = 0 ; iter < alen ; iter++) {
-            array[iter].dataChanged(type, index);
+            ((DataChangedListener)array[iter]).dataChanged(type, index);
         }
     }
     
     /**
      * Synchronious internal call for common code
      */
-    private void fireStyleChangeSync(StyleListener[] array, String property, Style source) {
+    private void fireStyleChangeSync(Object[] array, String property, Style source) {
         int alen = array.length;
         for(int iter = 0 ; iter < alen ; iter++) {
-            array[iter].styleChanged(property, source);
+            ((StyleListener)array[iter]).styleChanged(property, source);
         }
     }
 
     /**
      * Synchronious internal call for common code
      */
-    private void fireSelectionSync(SelectionListener[] array, int oldSelection, int newSelection) {
+    private void fireSelectionSync(Object[] array, int oldSelection, int newSelection) {
         int alen = array.length;
         for(int iter = 0 ; iter < alen ; iter++) {
-            array[iter].selectionChanged(oldSelection, newSelection);
+            ((SelectionListener)array[iter]).selectionChanged(oldSelection, newSelection);
         }
     }
     
     /**
      * Synchronious internal call for common code
      */
-    private void fireScrollSync(ScrollListener[] array, int l, int t, int oldl, int oldt) {
+    private void fireScrollSync(Object[] array, int l, int t, int oldl, int oldt) {
         int alen = array.length;
         for(int iter = 0 ; iter < alen ; iter++) {
-            array[iter].scrollChanged(l, t, oldl, oldt);
+            ((ScrollListener)array[iter]).scrollChanged(l, t, oldl, oldt);
         }
     }
     
@@ -338,25 +466,18 @@ public class EventDispatcher {
      * @param ev the ActionEvent to fire to the listeners
      */
     public void fireActionEvent(ActionEvent ev) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         
         // minor optimization for a common use case to avoid allocation costs
         boolean isEdt = Display.getInstance().isEdt();
-        if(isEdt && listeners.size() == 1) {
-            ActionListener a = (ActionListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            ActionListener a = (ActionListener)array[0];
             a.actionPerformed(ev);
             return;
         }
-        ActionListener[] array;
-        synchronized(this) {
-            array = new ActionListener[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (ActionListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireActionSync(array, ev);
@@ -379,24 +500,17 @@ public class EventDispatcher {
      * @param newSelection new selection
      */
     public void fireSelectionEvent(int oldSelection, int newSelection) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         // minor optimization for a common use case to avoid allocation costs
         boolean isEdt = Display.getInstance().isEdt();
-        if(isEdt && listeners.size() == 1) {
-            SelectionListener a = (SelectionListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            SelectionListener a = (SelectionListener)array[0];
             a.selectionChanged(oldSelection, newSelection);
             return;
         }
-        SelectionListener[] array;
-        synchronized(this) {
-            array = new SelectionListener[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (SelectionListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireSelectionSync(array, oldSelection, newSelection);
@@ -417,24 +531,17 @@ public class EventDispatcher {
      * 
      */
     public void fireScrollEvent(int scrollX, int scrollY, int oldscrollX, int oldscrollY) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         // minor optimization for a common use case to avoid allocation costs
         boolean isEdt = Display.getInstance().isEdt();
-        if(isEdt && listeners.size() == 1) {
-            ScrollListener a = (ScrollListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            ScrollListener a = (ScrollListener)array[0];
             a.scrollChanged(scrollX, scrollY, oldscrollX, oldscrollY);
             return;
         }
-        ScrollListener[] array;
-        synchronized(this) {
-            array = new ScrollListener[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (ScrollListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireScrollSync(array, scrollX, scrollY, oldscrollX, oldscrollY);
@@ -452,11 +559,11 @@ public class EventDispatcher {
     /**
      * Synchronous internal call for common code
      */
-    private void fireActionSync(ActionListener[] array, ActionEvent ev) {
+    private void fireActionSync(Object[] array, ActionEvent ev) {
         int alen = array.length;
         for(int iter = 0 ; iter < alen ; iter++) {
             if(ev == null || !ev.isConsumed()) {
-                array[iter].actionPerformed(ev);
+                ((ActionListener)array[iter]).actionPerformed(ev);
             }
         }
     }
@@ -467,13 +574,14 @@ public class EventDispatcher {
      * @param c the Component that gets the focus event
      */
     public void fireFocus(Component c) {
-        if(listeners == null || listeners.size() == 0) {
+        Object[] array = listenerArray();
+        if(array.length == 0) {
             return;
         }
         // minor optimization for a common use case to avoid allocation costs
         boolean isEdt = Display.getInstance().isEdt();
-        if(isEdt && listeners.size() == 1) {
-            FocusListener a = (FocusListener)listeners.get(0);
+        if(isEdt && array.length == 1) {
+            FocusListener a = (FocusListener)array[0];
             if(c.hasFocus()) {
                 a.focusGained(c);
             } else {
@@ -481,14 +589,6 @@ public class EventDispatcher {
             }
             return;
         }
-        FocusListener[] array;
-        synchronized(this) {
-            array = new FocusListener[listeners.size()];
-            int alen = array.length;
-            for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter] = (FocusListener)listeners.get(iter);
-            }
-        }
         // if we already are on the EDT just fire the event
         if(isEdt) {
             fireFocusSync(array, c);
@@ -506,16 +606,16 @@ public class EventDispatcher {
     /**
      * Synchronous internal call for common code
      */
-    private void fireFocusSync(FocusListener[] array, Component c) {
+    private void fireFocusSync(Object[] array, Component c) {
         if(c.hasFocus()) {
             int alen = array.length;
             for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter].focusGained(c);
+                ((FocusListener)array[iter]).focusGained(c);
             }
         } else {
             int alen = array.length;
             for(int iter = 0 ; iter < alen ; iter++) {
-                array[iter].focusLost(c);
+                ((FocusListener)array[iter]).focusLost(c);
             }
         }
     }
@@ -526,7 +626,7 @@ public class EventDispatcher {
      * @return true if the event dispatcher has registered listeners 
      */
     public boolean hasListeners() {
-        return listeners != null && listeners.size() > 0;
+        return listenerArray().length > 0;
     }
 
     /**
@@ -53,6 +53,8 @@ import java.util.Map;
  * A resource is loaded entirely into memory since random file access is not supported
  * in all platforms. Any other approach would be inefficient. This means that memory must
  * be made available to accommodate the resource file. 
+ * The exception is a resource file that contains an offset table and is opened by name, 
+ * such a file is reopened and its entries are decoded on first access see {@link #setLazyLoading(boolean)}.
  * 
  * @author Shai Almog
  */
@@ -81,6 +83,12 @@ public class Resources {
     static final byte MAGIC_HEADER = (byte)0xFF;
     static final byte MAGIC_PASSWORD = (byte)0xFE;
 
+    /**
+     * The name of the data entry holding the offset table of the resource file, the table is written
+     * as a data entry so older versions of the resource loader can still read the file
+     */
+    static final String INDEX_ENTRY = "cn1$resourceIndex";
+
     /**
      * This variable is used by new GUI builder apps to keep track of the applications resources
      */
@@ -107,6 +115,28 @@ public class Resources {
         return enableMediaQueries;
     }
 
+    /**
+     * When enabled (the default) resource files that contain an offset table and are opened by name
+     * (e.g. via {@link #open(java.lang.String)}) only read the table when opened. An entry is decoded when it
+     * is first requested and decoded entries are soft referenced so they can be reclaimed when memory is low.
+     * Resource files without an offset table and files opened from a stream are always loaded entirely.
+     *
+     * @param lazy true to decode indexed resource files on demand
+     */
+    public static void setLazyLoading(boolean lazy) {
+        lazyLoading = lazy;
+    }
+
+    /**
+     * Indicates whether indexed resource files are decoded on demand
+     *
+     * @return true if indexed resource files are decoded on demand
+     * @see #setLazyLoading(boolean)
+     */
+    public static boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
     /**
      * @param aFailOnMissingTruetype the failOnMissingTruetype to set
      */
@@ -163,6 +193,8 @@ public class Resources {
     private static final String systemResourceLocation = "/CN1Resource.res";
 
     private static boolean failOnMissingTruetype = true;
+
+    private static boolean lazyLoading = true;
     
     /**
      * This flag should be off and it is off by default, some special case implementations for development
@@ -193,6 +225,22 @@ public class Resources {
     private HashMap<String, Object> resources = new HashMap<String, Object>();
     
     private DataInputStream input; 
+
+    /**
+     * The name from which the resource file can be reopened to decode entries on demand, null if
+     * the file can't be reopened
+     */
+    private String lazySource;
+
+    /**
+     * Offsets of the entries that weren't decoded yet keyed by the entry name
+     */
+    private HashMap<String, Integer> lazyOffsets;
+
+    /**
+     * Soft references to the entries that were decoded on demand
+     */
+    private HashMap<String, Object> lazyCache;
     
     // for internal use by the resource editor, creates an empty resource
     Resources() {
@@ -202,12 +250,20 @@ public class Resources {
         this.dpi = dpi;
         openFile(input);
     }
+
+    private Resources(InputStream input, int dpi, String lazySource) throws IOException {
+        this.dpi = dpi;
+        this.lazySource = lazySource;
+        openFile(input);
+    }
     
     void clear() {
         majorVersion = 0;
         minorVersion = 0;
         resourceTypes.clear();
         resources.clear();
+        lazyOffsets = null;
+        lazyCache = null;
         input = null;
     }
 
@@ -275,7 +331,14 @@ public class Resources {
      * @throws IOException exception thrown from the stream
      */
     public void override(InputStream input) throws IOException { 
-        openFileImpl(input);
+        // an override stream can't be reopened so its entries are always loaded eagerly
+        String source = lazySource;
+        lazySource = null;
+        try {
+            openFileImpl(input);
+        } finally {
+            lazySource = source;
+        }
     }
 
     void openFile(InputStream input) throws IOException {
@@ -304,6 +367,17 @@ public class Resources {
                 id = new String(chars);
             }
 
+            if(magic == MAGIC_DATA && INDEX_ENTRY.equals(id)) {
+                byte[] index = createData();
+                if(!password && lazySource != null && lazyLoading) {
+                    readIndex(index);
+                    
+                    // the remaining entries are decoded on demand
+                    return;
+                }
+                continue;
+            }
+
             startingEntry(id, magic);
             switch(magic) {
                 case MAGIC_PASSWORD:
@@ -356,6 +430,103 @@ public class Resources {
         }
     }
 
+    /**
+     * Reads the offset table of the resource file, the table contains the type, name and offset from the 
+     * start of the file of every entry that follows it
+     */
+    private void readIndex(byte[] index) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+        int count = in.readShort() & 0xffff;
+        if(lazyOffsets == null) {
+            lazyOffsets = new HashMap<String, Integer>();
+            lazyCache = new HashMap<String, Object>();
+        }
+        for(int iter = 0 ; iter < count ; iter++) {
+            byte magic = in.readByte();
+            String id = in.readUTF();
+            int offset = in.readInt();
+            resourceTypes.put(id, new Byte(magic));
+            lazyOffsets.put(id, new Integer(offset));
+        }
+    }
+
+    /**
+     * Returns the entry with the given name decoding it from the resource file if it wasn't loaded yet
+     */
+    private synchronized Object loadLazy(String id) {
+        if(lazyOffsets == null) {
+            return null;
+        }
+        Integer offset = lazyOffsets.get(id);
+        if(offset == null) {
+            return null;
+        }
+        Object o = Display.getInstance().extractHardRef(lazyCache.get(id));
+        if(o != null) {
+            return o;
+        }
+        DataInputStream previous = input;
+        InputStream is = null;
+        try {
+            is = Display.getInstance().getResourceAsStream(classLoader, lazySource);
+            if(is == null) {
+                throw new IOException(lazySource + " not found");
+            }
+            long remaining = offset.intValue();
+            while(remaining > 0) {
+                long skipped = is.skip(remaining);
+                if(skipped <= 0) {
+                    if(is.read() < 0) {
+                        throw new IOException("Unexpected end of resource file " + lazySource);
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+            input = new DataInputStream(is);
+            byte magic = input.readByte();
+            String entryId = input.readUTF();
+            if(!id.equals(entryId)) {
+                throw new IOException("Resource index mismatch expected " + id + " but found " + entryId);
+            }
+            switch(magic) {
+                case MAGIC_THEME:
+                    o = loadTheme(id, true);
+                    break;
+                case MAGIC_IMAGE:
+                    Image img = createImage();
+                    img.setImageName(id);
+                    o = img;
+                    break;
+                case MAGIC_FONT:
+                    o = loadFont(input, id, false);
+                    break;
+                case MAGIC_DATA:
+                case MAGIC_UI:
+                    o = createData();
+                    break;
+                case MAGIC_L10N:
+                    o = loadL10N();
+                    break;
+                default:
+                    throw new IOException("Corrupt theme file unrecognized magic number: " + Integer.toHexString(magic & 0xff));
+            }
+            lazyCache.put(id, Display.getInstance().createSoftWeakRef(o));
+            return o;
+        } catch(IOException err) {
+            Log.e(err);
+            return null;
+        } finally {
+            input = previous;
+            if(is != null) {
+                try {
+                    is.close();
+                } catch(IOException ignored) {
+                }
+            }
+        }
+    }
+
     /**
      * Sets the password to use for password protected resource files
      * 
@@ -485,6 +656,10 @@ public class Resources {
             resources.put(id, value);
             resourceTypes.put(id, new Byte(type));
         }
+        if(lazyOffsets != null) {
+            lazyOffsets.remove(id);
+            lazyCache.remove(id);
+        }
     }
     
 
@@ -755,7 +930,7 @@ public class Resources {
             if(is == null) {
                 throw new IOException(resource + " not found");
             }
-            Resources r = new Resources(is, dpi);
+            Resources r = new Resources(is, dpi, resource);
             is.close();
             
             if(resource.equals(Resources.systemResourceLocation)){
@@ -793,7 +968,7 @@ public class Resources {
      * @return cached image instance
      */
     public Image getImage(String id) {
-        return (Image)resources.get(id);
+        return (Image)getResourceObject(id);
     }
     
     /**
@@ -803,7 +978,7 @@ public class Resources {
      * @return newly created input stream that allows reading the data of the resource
      */
     public InputStream getData(String id) {
-        byte[] data = (byte[])resources.get(id);
+        byte[] data = (byte[])getResourceObject(id);
         if(data == null) {
             return null;
         }
@@ -817,7 +992,7 @@ public class Resources {
      * @return newly created input stream that allows reading the ui of the resource
      */
     InputStream getUi(String id) {
-        byte[] d = (byte[])resources.get(id);
+        byte[] d = (byte[])getResourceObject(id);
         if(d == null) {
             return null;
         }
@@ -832,7 +1007,7 @@ public class Resources {
      * @return Hashtable containing key value pairs for localized data
      */
     public Hashtable<String, String> getL10N(String id, String locale) {
-        return (Hashtable<String, String>)((Hashtable)resources.get(id)).get(locale);
+        return (Hashtable<String, String>)((Hashtable)getResourceObject(id)).get(locale);
     }
 
     /**
@@ -842,7 +1017,7 @@ public class Resources {
      * @return enumeration of strings containing bundle names
      */
     public Enumeration listL10NLocales(String id) {
-        return ((Hashtable)resources.get(id)).keys();
+        return ((Hashtable)getResourceObject(id)).keys();
     }
 
     /**
@@ -852,7 +1027,7 @@ public class Resources {
      * @return collection of strings containing bundle names
      */
     public Collection<String> l10NLocaleSet(String id) {
-        return ((Hashtable<String, String>)resources.get(id)).keySet();
+        return ((Hashtable<String, String>)getResourceObject(id)).keySet();
     }
     
     /**
@@ -862,7 +1037,7 @@ public class Resources {
      * @return cached font instance
      */
     public Font getFont(String id) {
-        return (Font)resources.get(id);
+        return (Font)getResourceObject(id);
     }
 
     /**
@@ -872,7 +1047,7 @@ public class Resources {
      * @return cached theme instance
      */
     public Hashtable getTheme(String id) {
-        Hashtable h = (Hashtable)resources.get(id);
+        Hashtable h = (Hashtable)getResourceObject(id);
         
         // theme can be null in valid use cases such as the resource editor
         if(h != null && h.containsKey("uninitialized")) {
@@ -894,7 +1069,7 @@ public class Resources {
                         if(key.endsWith("Image")) {
                             o = getImage((String)value);
                         } else {
-                            o = resources.get(value);
+                            o = getResourceObject((String)value);
                         }
                         if(o == null) {
                             throw new IllegalArgumentException("Theme entry for " + key + " could not be found: " + value);
@@ -972,7 +1147,11 @@ public class Resources {
     }
     
     Object getResourceObject(String res) {
-        return resources.get(res);
+        Object o = resources.get(res);
+        if(o == null && lazyOffsets != null) {
+            return loadLazy(res);
+        }
+        return o;
     }
     
     Image createImage() throws IOException {
@@ -1517,7 +1696,7 @@ public class Resources {
                 // is this a new font?
                 if(input.readBoolean()) {
                     String fontId = input.readUTF();
-                    f = (Font)resources.get(fontId);
+                    f = (Font)getResourceObject(fontId);
                     
                     // if the font is not yet loaded
                     if(f == null) {
@@ -17,6 +17,8 @@
 package com.codename1.util.regex;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * RE is an efficient, lightweight regular expression evaluator/matcher
@@ -380,6 +382,14 @@ public class RE {
     transient int[] startBackref;                 // Lazy-alloced array of backref starts
     transient int[] endBackref;                   // Lazy-alloced array of backref ends
 
+    // Programs compiled from pattern strings, shared by all matchers since a program isn't modified by matching
+    private static int cacheSize = 64;
+    private static final LinkedHashMap<String, REProgram> programCache = new LinkedHashMap<String, REProgram>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, REProgram> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
     /**
      * Constructs a regular expression matcher from a String by compiling it
      * using a new instance of RECompiler.  If you will be compiling many
@@ -404,7 +414,57 @@ public class RE {
      * @see RECompiler
      */
     public RE(String pattern, int matchFlags) throws RESyntaxException {
-        this(new RECompiler().compile(pattern), matchFlags);
+        this(compile(pattern), matchFlags);
+    }
+
+    /**
+     * Returns the compiled program for the given pattern from a least recently used cache,
+     * compiling it if it isn't in the cache. The match flags don't affect compilation so 
+     * matchers with different flags share the program. The returned program may be shared
+     * with other matchers and must not be modified.
+     *
+     * @param pattern The regular expression pattern to compile.
+     * @return the compiled program, shared and read only
+     * @exception RESyntaxException Thrown if the regular expression has invalid syntax.
+     */
+    public static REProgram compile(String pattern) throws RESyntaxException {
+        synchronized (programCache) {
+            REProgram program = programCache.get(pattern);
+            if (program != null) {
+                return program;
+            }
+        }
+        REProgram program = new RECompiler().compile(pattern);
+        synchronized (programCache) {
+            if (cacheSize > 0) {
+                program.shared = true;
+                programCache.put(pattern, program);
+            }
+        }
+        return program;
+    }
+
+    /**
+     * Sets the number of compiled patterns kept by {@link #compile(java.lang.String)}, 0 disables the cache
+     *
+     * @param size the maximum number of cached programs
+     */
+    public static void setCacheSize(int size) {
+        synchronized (programCache) {
+            cacheSize = Math.max(0, size);
+            if (cacheSize == 0) {
+                programCache.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of compiled patterns kept by {@link #compile(java.lang.String)}
+     *
+     * @return the maximum number of cached programs
+     */
+    public static int getCacheSize() {
+        return cacheSize;
     }
 
     /**
@@ -533,11 +593,16 @@ public class RE {
 
     /**
      * Returns the current regular expression program in use by this matcher object.
+     * If the program is shared through the program cache this matcher switches to a
+     * private copy first so changes to the returned program only affect this matcher.
      *
      * @return Regular expression program
      * @see #setProgram
      */
     public REProgram getProgram() {
+        if (program != null && program.shared) {
+            program = new REProgram(program.maxParens, program.getInstructions());
+        }
         return program;
     }
 
@@ -1242,10 +1307,18 @@ public class RE {
         parenCount = 1;
         setParenStart(0, i);
 
-        // Allocate backref arrays (unless optimizations indicate otherwise)
+        // Allocate backref arrays (unless optimizations indicate otherwise), they're reused
+        // between match attempts
         if ((program.flags & REProgram.OPT_HASBACKREFS) != 0) {
-            startBackref = new int[maxParen];
-            endBackref = new int[maxParen];
+            if (startBackref == null || startBackref.length != maxParen) {
+                startBackref = new int[maxParen];
+                endBackref = new int[maxParen];
+            } else {
+                for (int iter = 0; iter < maxParen; iter++) {
+                    startBackref[iter] = 0;
+                    endBackref[iter] = 0;
+                }
+            }
         }
 
         // Match against string
@@ -1269,6 +1342,10 @@ public class RE {
      * @return True if string matched
      */
     public boolean match(String search, int i) {
+        // split and subst match the same string repeatedly
+        if (this.search instanceof StringCharacterIterator && ((StringCharacterIterator) this.search).getString() == search) {
+            return match(this.search, i);
+        }
         return match(new StringCharacterIterator(search), i);
     }
 
@@ -1321,20 +1398,55 @@ public class RE {
             return false;
         }
 
+        boolean caseIndependent = (matchFlags & MATCH_CASEINDEPENDENT) != 0;
+        String str = null;
+        if (search instanceof StringCharacterIterator && !caseIndependent) {
+            str = ((StringCharacterIterator) search).getString();
+        }
+
         // Can we optimize the search by looking for a prefix string?
         if (program.prefix == null) {
-            // Unprefixed matching must try for a match at each character
-            for (; !search.isEnd(i - 1); i++) {
-                // Try a match at index i
-                if (matchAt(i)) {
+            int first = program.firstNode;
+            if (first < 0) {
+                // Unprefixed matching must try for a match at each character
+                for (; !search.isEnd(i - 1); i++) {
+                    // Try a match at index i
+                    if (matchAt(i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            // Every match starts with a single character node or an atom so we only try the
+            // positions where that node matches
+            if (str != null && program.firstAtom != null) {
+                String atom = program.firstAtom;
+                for (i = str.indexOf(atom, i); i > -1; i = str.indexOf(atom, i + 1)) {
+                    if (matchAt(i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            for (; !search.isEnd(i); i++) {
+                if (matchesFirstNode(first, search.charAt(i)) && matchAt(i)) {
                     return true;
                 }
             }
             return false;
         } else {
             // Prefix-anchored matching is possible
-            boolean caseIndependent = (matchFlags & MATCH_CASEINDEPENDENT) != 0;
             char[] prefix = program.prefix;
+            if (str != null) {
+                String prefixString = program.prefixString;
+                for (i = str.indexOf(prefixString, i); i > -1; i = str.indexOf(prefixString, i + 1)) {
+                    if (matchAt(i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
             for (; !search.isEnd(i + prefix.length - 1); i++) {
                 int j = i;
                 int k = 0;
@@ -1587,12 +1699,63 @@ public class RE {
      * @return true if character at i-th position in the <code>search</code> string is a newline
      */
     private boolean isNewline(int i) {
-        char nextChar = search.charAt(i);
+        return isNewlineChar(search.charAt(i));
+    }
 
+    private static boolean isNewlineChar(char nextChar) {
         return nextChar == '\n' || nextChar == '\r' || nextChar == '\u0085' ||
                 nextChar == '\u2028' || nextChar == '\u2029';
     }
 
+    /**
+     * Checks whether the given character matches the node found by {@link REProgram}
+     * as the first node of every match, this mirrors the checks in matchNodes
+     *
+     * @param node a single character node
+     * @param c the character
+     * @return false if a match can't start with this character
+     */
+    private boolean matchesFirstNode(int node, char c) {
+        char[] instruction = program.instruction;
+        int opdata = instruction[node + offsetOpdata];
+        boolean caseFold = (matchFlags & MATCH_CASEINDEPENDENT) != 0;
+        switch (instruction[node]) {
+            case OP_ATOM:
+                return compareChars(c, instruction[node + nodeSize], caseFold) == 0;
+
+            case OP_ANYOF: {
+                int idxRange = node + nodeSize;
+                int idxEnd = idxRange + (opdata * 2);
+                for (int i = idxRange; i < idxEnd; i += 2) {
+                    if (compareChars(c, instruction[i], caseFold) >= 0 && compareChars(c, instruction[i + 1], caseFold) <= 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            case OP_ANY:
+                return (matchFlags & MATCH_SINGLELINE) == MATCH_SINGLELINE || !isNewlineChar(c);
+
+            case OP_ESCAPE:
+                switch (opdata) {
+                    case E_ALNUM:
+                    case E_NALNUM:
+                        return (RECharacter.isLetterOrDigit(c) || c == '_') == (opdata == E_ALNUM);
+
+                    case E_DIGIT:
+                    case E_NDIGIT:
+                        return RECharacter.isDigit(c) == (opdata == E_DIGIT);
+
+                    case E_SPACE:
+                    case E_NSPACE:
+                        return RECharacter.isWhitespace(c) == (opdata == E_SPACE);
+                }
+                return true;
+        }
+        return true;
+    }
+
     /**
      * Compares two characters.
      *
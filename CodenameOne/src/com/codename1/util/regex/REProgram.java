@@ -35,8 +35,12 @@ public class REProgram
     char[] instruction;         // The compiled regular expression 'program'
     int lenInstruction;         // The amount of the instruction buffer in use
     char[] prefix;              // Prefix string optimization
+    String prefixString;        // The prefix as a string for String.indexOf
+    int firstNode = -1;         // Single character node every match starts with or -1
+    String firstAtom;           // The atom at firstNode as a string for String.indexOf
     int flags;                  // Optimization flags (REProgram.OPT_*)
     int maxParens = -1;
+    boolean shared;             // True if the program is in the RE program cache and must not change
 
     /**
      * Constructs a program object from a character array
@@ -106,6 +110,9 @@ public class REProgram
         // Initialize other program-related variables
         this.flags = 0;
         this.prefix = null;
+        this.prefixString = null;
+        this.firstNode = -1;
+        this.firstAtom = null;
 
         // Try various compile-time optimizations if there's a program
         if (instruction != null && lenInstruction != 0)
@@ -125,6 +132,7 @@ public class REProgram
                         int lenAtom = instruction[RE.nodeSize + RE.offsetOpdata];
                         this.prefix = new char[lenAtom];
                         System.arraycopy(instruction, RE.nodeSize * 2, prefix, 0, lenAtom);
+                        this.prefixString = new String(prefix);
                     }
                     // the branch starts with a BOL
                     else if (nextOp == RE.OP_BOL)
@@ -135,6 +143,15 @@ public class REProgram
                 }
             }
 
+            if (prefix == null && (flags & OPT_HASBOL) == 0)
+            {
+                firstNode = findFirstNode();
+                if (firstNode > -1 && instruction[firstNode + RE.offsetOpcode] == RE.OP_ATOM)
+                {
+                    firstAtom = new String(instruction, firstNode + RE.nodeSize, instruction[firstNode + RE.offsetOpdata]);
+                }
+            }
+
             BackrefScanLoop:
 
             // Check for backreferences
@@ -158,6 +175,70 @@ public class REProgram
         }
     }
 
+    /**
+     * Follows the nodes that don't consume input from the start of the program to find a node
+     * that must match a single character at the start of every match. This allows skipping
+     * positions in the input that can't start a match without running the program.
+     * @return the index of the node or -1 if there's no such node
+     */
+    private int findFirstNode()
+    {
+        int node = 0;
+        for (int steps = 0; steps < lenInstruction && node >= 0 && node + RE.nodeSize <= lenInstruction; steps++)
+        {
+            int next = node + (short) instruction[node + RE.offsetNext];
+            switch (instruction[node + RE.offsetOpcode])
+            {
+                case RE.OP_BRANCH:
+                    // alternatives might start with different characters
+                    if (next >= lenInstruction || instruction[next + RE.offsetOpcode] == RE.OP_BRANCH)
+                    {
+                        return -1;
+                    }
+                    node += RE.nodeSize;
+                    break;
+
+                case RE.OP_CONTINUE:
+                    // the body of a '+' closure which must match at least once
+                    node += RE.nodeSize;
+                    break;
+
+                case RE.OP_OPEN:
+                case RE.OP_OPEN_CLUSTER:
+                    if (next == node)
+                    {
+                        return -1;
+                    }
+                    node = next;
+                    break;
+
+                case RE.OP_ATOM:
+                    return instruction[node + RE.offsetOpdata] > 0 ? node : -1;
+
+                case RE.OP_ANYOF:
+                case RE.OP_ANY:
+                    return node;
+
+                case RE.OP_ESCAPE:
+                    switch (instruction[node + RE.offsetOpdata])
+                    {
+                        case RE.E_ALNUM:
+                        case RE.E_NALNUM:
+                        case RE.E_DIGIT:
+                        case RE.E_NDIGIT:
+                        case RE.E_SPACE:
+                        case RE.E_NSPACE:
+                            return node;
+                    }
+                    return -1;
+
+                default:
+                    return -1;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Returns a copy of the prefix of current regular expression program
      * in a character array.  If there is no prefix, or there is no program
@@ -34,6 +34,12 @@ public final class StringCharacterIterator implements CharacterIterator
         this.src = src;
     }
 
+    /** @return the encapsulated String */
+    String getString()
+    {
+        return src;
+    }
+
     /** @return a substring */
     public String substring(int beginIndex, int endIndex)
     {
@@ -0,0 +1,924 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.xml;
+
+import com.codename1.ui.html.HTMLUtils;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Hashtable;
+
+/**
+ * <p>A pull parser that reads an XML document one event at a time. Unlike {@link XMLParser#parse(java.io.Reader)}
+ * it doesn't build a tree so the memory it uses is bounded by the largest tag or text in the document rather than
+ * the size of the document, which makes it suitable for large feeds and web service responses. The caller
+ * drives the parsing by invoking {@link #next()} and can stop at any point.</p>
+ *
+ * <p>The input is read into a fixed buffer, tag and attribute names are interned within the parser so
+ * repeating names don't allocate new strings and the attributes of the current tag are held in arrays.
+ * The parser is lenient in the same way as {@link XMLParser}, comments, processing instructions and
+ * doctype declarations are skipped, CDATA sections are returned as text and text that only contains
+ * whitespace between tags is dropped. Names retain their case.</p>
+ *
+ * <pre>
+ * XMLPullParser p = new XMLPullParser(reader);
+ * int event;
+ * while((event = p.next()) != XMLPullParser.END_DOCUMENT) {
+ *     if(event == XMLPullParser.START_TAG &amp;&amp; "title".equals(p.getName())) {
+ *         String title = p.nextText();
+ *     }
+ * }
+ * </pre>
+ */
+public class XMLPullParser {
+    /**
+     * Event type returned before the first call to {@link #next()}
+     */
+    public static final int START_DOCUMENT = 0;
+
+    /**
+     * Event type indicating a tag was opened, {@link #getName()} and the attribute methods are valid
+     */
+    public static final int START_TAG = 1;
+
+    /**
+     * Event type indicating a tag was closed, {@link #getName()} is valid. Empty tags such as
+     * <code>&lt;a/&gt;</code> produce a start tag event followed by an end tag event.
+     */
+    public static final int END_TAG = 2;
+
+    /**
+     * Event type indicating text or a CDATA section, {@link #getText()} is valid
+     */
+    public static final int TEXT = 3;
+
+    /**
+     * Event type indicating the end of the input
+     */
+    public static final int END_DOCUMENT = 4;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferOffset;
+    private int bufferSize;
+
+    private int eventType = START_DOCUMENT;
+    private String name;
+    private String[] attributeNames = new String[8];
+    private String[] attributeValues = new String[8];
+    private int attributeCount;
+
+    /**
+     * The names of the open tags, the current depth and a flag indicating the top tag was closed
+     * by the last event and should be popped on the next one
+     */
+    private String[] tagStack = new String[16];
+    private int depth;
+    private boolean popPending;
+    private boolean emptyTagPending;
+
+    /**
+     * The tag stack index of a tag that was closed while the tags above it remained open
+     */
+    private int closeTarget = -1;
+
+    private char[] text = new char[256];
+    private int textLength;
+    private String textString;
+
+    private char[] scratch = new char[64];
+    private int scratchLength;
+
+    private String[] names = new String[64];
+    private int nameCount;
+
+    private boolean includeWhitespacesBetweenTags;
+    private Hashtable userDefinedCharEntities;
+    private ParserCallback parserCallback;
+
+    /**
+     * Creates a parser that reads from the given reader
+     *
+     * @param reader the XML source
+     */
+    public XMLPullParser(Reader reader) {
+        this(reader, 8192);
+    }
+
+    /**
+     * Creates a parser that reads from the given reader
+     *
+     * @param reader the XML source
+     * @param bufferSize the number of characters read from the reader at once
+     */
+    public XMLPullParser(Reader reader, int bufferSize) {
+        this.reader = reader;
+        buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * Sets the specified callback to serve as the callback for parsing errors
+     *
+     * @param parserCallback the callback to use for parsing errors
+     */
+    public void setParserCallback(ParserCallback parserCallback) {
+        this.parserCallback = parserCallback;
+    }
+
+    /**
+     * Indicates whether text that only contains whitespace is returned as a text event, false by default
+     *
+     * @param include true to return whitespace between tags
+     */
+    public void setIncludeWhitespacesBetweenTags(boolean include) {
+        includeWhitespacesBetweenTags = include;
+    }
+
+    /**
+     * Adds the given symbol and code to the user defined char entities table
+     *
+     * @param symbol the symbol to add without the &amp; and ;
+     * @param code the symbol's code
+     */
+    public void addCharEntity(String symbol, int code) {
+        if(userDefinedCharEntities == null) {
+            userDefinedCharEntities = new Hashtable();
+        }
+        userDefinedCharEntities.put(symbol, new Integer(code));
+    }
+
+    /**
+     * Returns the type of the current event
+     *
+     * @return one of the event type constants
+     */
+    public int getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the name of the current start or end tag
+     *
+     * @return the tag name or null for other events
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the text of the current text event
+     *
+     * @return the text or null for other events
+     */
+    public String getText() {
+        if(eventType != TEXT) {
+            return null;
+        }
+        if(textString == null) {
+            textString = new String(text, 0, textLength);
+        }
+        return textString;
+    }
+
+    /**
+     * Returns the number of open tags, a start tag and its matching end tag have the same depth
+     * and the root element is at depth 1
+     *
+     * @return the depth of the current event
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of attributes of the current start tag
+     *
+     * @return the number of attributes
+     */
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    /**
+     * Returns the name of the attribute at the given offset
+     *
+     * @param index the offset of the attribute
+     * @return the attribute name
+     */
+    public String getAttributeName(int index) {
+        return attributeNames[index];
+    }
+
+    /**
+     * Returns the value of the attribute at the given offset
+     *
+     * @param index the offset of the attribute
+     * @return the attribute value
+     */
+    public String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    /**
+     * Returns the value of the given attribute of the current start tag
+     *
+     * @param attributeName the name of the attribute
+     * @return the value or null if the tag has no such attribute
+     */
+    public String getAttributeValue(String attributeName) {
+        for(int iter = 0 ; iter < attributeCount ; iter++) {
+            if(attributeNames[iter].equals(attributeName)) {
+                return attributeValues[iter];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next event from the input
+     *
+     * @return the type of the event
+     * @throws IOException if the reader threw an exception
+     */
+    public int next() throws IOException {
+        attributeCount = 0;
+        textString = null;
+        if(popPending) {
+            popPending = false;
+            depth--;
+            tagStack[depth] = null;
+        }
+        if(emptyTagPending) {
+            emptyTagPending = false;
+            return endTagEvent();
+        }
+        if(closeTarget > -1) {
+            if(depth > closeTarget + 1) {
+                return endTagEvent();
+            }
+            closeTarget = -1;
+            return endTagEvent();
+        }
+        if(eventType == END_DOCUMENT) {
+            return END_DOCUMENT;
+        }
+        while(true) {
+            int c = read();
+            if(c < 0) {
+                if(depth > 0) {
+                    notifyError(ParserCallback.ERROR_NO_CLOSE_TAG, tagStack[depth - 1], null, null, "Malformed XML - no appropriate closing tag for " + tagStack[depth - 1]);
+                }
+                name = null;
+                eventType = END_DOCUMENT;
+                return END_DOCUMENT;
+            }
+            if(c == '<') {
+                int type = parseMarkup();
+                if(type > -1) {
+                    return type;
+                }
+            } else {
+                if(parseText(c)) {
+                    name = null;
+                    eventType = TEXT;
+                    return TEXT;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the text content of the current start tag and moves to its end tag. Nested tags are skipped.
+     *
+     * @return the text content or an empty string
+     * @throws IOException if the reader threw an exception
+     */
+    public String nextText() throws IOException {
+        if(eventType != START_TAG) {
+            throw new IllegalStateException("nextText() must be invoked on a start tag");
+        }
+        int d = depth;
+        String result = null;
+        StringBuilder sb = null;
+        while(true) {
+            int e = next();
+            if(e == END_DOCUMENT || (e == END_TAG && depth == d)) {
+                break;
+            }
+            if(e == START_TAG) {
+                skip();
+                continue;
+            }
+            if(e == TEXT) {
+                if(result == null) {
+                    result = getText();
+                } else {
+                    if(sb == null) {
+                        sb = new StringBuilder(result);
+                    }
+                    sb.append(text, 0, textLength);
+                }
+            }
+        }
+        if(sb != null) {
+            return sb.toString();
+        }
+        if(result == null) {
+            return "";
+        }
+        return result;
+    }
+
+    /**
+     * Skips the current start tag and everything within it, the current event becomes its end tag
+     *
+     * @throws IOException if the reader threw an exception
+     */
+    public void skip() throws IOException {
+        if(eventType != START_TAG) {
+            throw new IllegalStateException("skip() must be invoked on a start tag");
+        }
+        int d = depth;
+        while(true) {
+            int e = next();
+            if(e == END_DOCUMENT || (e == END_TAG && depth == d)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the current start tag and everything within it into an element. This allows processing a
+     * large document one fragment at a time with the element API. The current event becomes the end tag.
+     *
+     * @return the element
+     * @throws IOException if the reader threw an exception
+     */
+    public Element readElement() throws IOException {
+        if(eventType != START_TAG) {
+            throw new IllegalStateException("readElement() must be invoked on a start tag");
+        }
+        Element root = createElement();
+        Element current = root;
+        int d = depth;
+        while(true) {
+            int e = next();
+            if(e == END_DOCUMENT || (e == END_TAG && depth == d)) {
+                return root;
+            }
+            switch(e) {
+                case START_TAG: {
+                    Element child = createElement();
+                    current.addChild(child);
+                    current = child;
+                    break;
+                }
+                case END_TAG:
+                    current = current.getParent();
+                    break;
+                case TEXT: {
+                    Element t = new Element(getText(), true);
+                    t.caseSensitive = true;
+                    current.addChild(t);
+                    break;
+                }
+            }
+        }
+    }
+
+    private Element createElement() {
+        Element e = new Element(name);
+        e.caseSensitive = true;
+        for(int iter = 0 ; iter < attributeCount ; iter++) {
+            e.setAttribute(attributeNames[iter], attributeValues[iter]);
+        }
+        return e;
+    }
+
+    private int endTagEvent() {
+        name = tagStack[depth - 1];
+        popPending = true;
+        eventType = END_TAG;
+        return END_TAG;
+    }
+
+    private int read() throws IOException {
+        if(bufferOffset >= bufferSize) {
+            if(bufferSize < 0) {
+                return -1;
+            }
+            bufferSize = reader.read(buffer, 0, buffer.length);
+            bufferOffset = 0;
+            if(bufferSize <= 0) {
+                if(bufferSize == 0) {
+                    // a reader that returns 0 isn't at the end of the stream
+                    return read();
+                }
+                return -1;
+            }
+        }
+        return buffer[bufferOffset++];
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        if(c > -1) {
+            bufferOffset--;
+        }
+        return c;
+    }
+
+    private static boolean isWhiteSpace(int ch) {
+        return ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r';
+    }
+
+    private static boolean isLegalCharEntityCharacter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '#';
+    }
+
+    private void appendScratch(int c) {
+        if(scratchLength == scratch.length) {
+            char[] n = new char[scratch.length * 2];
+            System.arraycopy(scratch, 0, n, 0, scratchLength);
+            scratch = n;
+        }
+        scratch[scratchLength++] = (char)c;
+    }
+
+    private void appendText(int c) {
+        if(textLength == text.length) {
+            char[] n = new char[text.length * 2];
+            System.arraycopy(text, 0, n, 0, textLength);
+            text = n;
+        }
+        text[textLength++] = (char)c;
+    }
+
+    /**
+     * Returns a shared string instance for the characters in the scratch buffer
+     */
+    private String internScratch() {
+        int hash = 0;
+        for(int iter = 0 ; iter < scratchLength ; iter++) {
+            hash = 31 * hash + scratch[iter];
+        }
+        int mask = names.length - 1;
+        int index = hash & mask;
+        while(true) {
+            String s = names[index];
+            if(s == null) {
+                break;
+            }
+            if(s.length() == scratchLength) {
+                boolean match = true;
+                for(int iter = 0 ; iter < scratchLength ; iter++) {
+                    if(s.charAt(iter) != scratch[iter]) {
+                        match = false;
+                        break;
+                    }
+                }
+                if(match) {
+                    return s;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        String s = new String(scratch, 0, scratchLength);
+        if(nameCount * 2 >= names.length) {
+            // the names of a document are few, the table is only cleared if the input is pathological
+            if(names.length >= 4096) {
+                names = new String[names.length];
+                nameCount = 0;
+            } else {
+                String[] old = names;
+                names = new String[old.length * 2];
+                nameCount = 0;
+                for(int iter = 0 ; iter < old.length ; iter++) {
+                    if(old[iter] != null) {
+                        insertName(old[iter]);
+                    }
+                }
+            }
+        }
+        insertName(s);
+        return s;
+    }
+
+    private void insertName(String s) {
+        int mask = names.length - 1;
+        int index = s.hashCode() & mask;
+        while(names[index] != null) {
+            index = (index + 1) & mask;
+        }
+        names[index] = s;
+        nameCount++;
+    }
+
+    /**
+     * Reads a char entity after the ampersand and appends the resulting characters to the text or scratch buffer
+     */
+    private void readCharEntity(boolean toText) throws IOException {
+        int start = scratchLength;
+        while(true) {
+            int c = peek();
+            if(c == ';') {
+                read();
+                break;
+            }
+            if(!isLegalCharEntityCharacter(c) || scratchLength - start > 32) {
+                // not a char entity, e.g. an ampersand within a URL
+                if(toText) {
+                    appendText('&');
+                    for(int iter = start ; iter < scratchLength ; iter++) {
+                        appendText(scratch[iter]);
+                    }
+                    scratchLength = start;
+                } else {
+                    appendScratch('&');
+                    System.arraycopy(scratch, start, scratch, start + 1, scratchLength - start - 1);
+                    scratch[start] = '&';
+                }
+                return;
+            }
+            appendScratch(read());
+        }
+        int code = decodeCharEntity(start);
+        if(code > -1) {
+            scratchLength = start;
+            appendDecoded(toText, code);
+            return;
+        }
+        String entity = new String(scratch, start, scratchLength - start);
+        scratchLength = start;
+        String resolved;
+        try {
+            resolved = HTMLUtils.convertCharEntity(entity, false, userDefinedCharEntities);
+        } catch(IllegalArgumentException iae) {
+            notifyError(ParserCallback.ERROR_UNRECOGNIZED_CHAR_ENTITY, null, null, null, "Unrecognized char entity: " + entity);
+            resolved = "&" + entity + ";";
+        }
+        int len = resolved.length();
+        for(int iter = 0 ; iter < len ; iter++) {
+            appendDecoded(toText, resolved.charAt(iter));
+        }
+    }
+
+    /**
+     * Decodes the common XML entities without allocating, returns -1 for anything else
+     */
+    private int decodeCharEntity(int start) {
+        int len = scratchLength - start;
+        char c0 = scratch[start];
+        if(c0 == '#') {
+            int code = 0;
+            int radix = 10;
+            int offset = start + 1;
+            if(len > 1 && (scratch[offset] == 'x' || scratch[offset] == 'X')) {
+                radix = 16;
+                offset++;
+            }
+            if(offset >= scratchLength || scratchLength - offset > 6) {
+                return -1;
+            }
+            for(int iter = offset ; iter < scratchLength ; iter++) {
+                int d = Character.digit(scratch[iter], radix);
+                if(d < 0) {
+                    return -1;
+                }
+                code = code * radix + d;
+            }
+            if(code > 0xffff) {
+                return -1;
+            }
+            return code;
+        }
+        if(len == 2 && scratch[start + 1] == 't') {
+            if(c0 == 'l') {
+                return '<';
+            }
+            if(c0 == 'g') {
+                return '>';
+            }
+        }
+        if(len == 3 && c0 == 'a' && scratch[start + 1] == 'm' && scratch[start + 2] == 'p') {
+            return '&';
+        }
+        if(len == 4) {
+            if(c0 == 'q' && scratch[start + 1] == 'u' && scratch[start + 2] == 'o' && scratch[start + 3] == 't') {
+                return '"';
+            }
+            if(c0 == 'a' && scratch[start + 1] == 'p' && scratch[start + 2] == 'o' && scratch[start + 3] == 's') {
+                return '\'';
+            }
+        }
+        return -1;
+    }
+
+    private void appendDecoded(boolean toText, int c) {
+        if(toText) {
+            appendText(c);
+        } else {
+            appendScratch(c);
+        }
+    }
+
+    /**
+     * Collects text up to the next tag, returns false if the text should be dropped
+     */
+    private boolean parseText(int c) throws IOException {
+        textLength = 0;
+        boolean leadingSpace = false;
+        boolean hasContent = false;
+        while(true) {
+            if(!hasContent && isWhiteSpace(c)) {
+                leadingSpace = true;
+            } else {
+                if(!hasContent) {
+                    hasContent = true;
+                    if(leadingSpace) {
+                        // leading whitespace is collapsed to a single space like XMLParser does
+                        appendText(' ');
+                    }
+                }
+                if(c == '&') {
+                    scratchLength = 0;
+                    readCharEntity(true);
+                } else {
+                    appendText(c);
+                }
+            }
+            c = peek();
+            if(c < 0 || c == '<') {
+                break;
+            }
+            read();
+        }
+        if(!hasContent) {
+            if(includeWhitespacesBetweenTags && leadingSpace) {
+                appendText(' ');
+                return true;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the markup after a less than sign and returns the event type or -1 if the markup produced
+     * no event
+     */
+    private int parseMarkup() throws IOException {
+        int c = read();
+        if(c == '/') {
+            return parseEndTag();
+        }
+        if(c == '!') {
+            c = read();
+            if(c == '-') {
+                if(read() == '-') {
+                    skipUntil("-->");
+                    return -1;
+                }
+                skipDeclaration();
+                return -1;
+            }
+            if(c == '[') {
+                if(read() == 'C' && read() == 'D' && read() == 'A' && read() == 'T' && read() == 'A' && read() == '[') {
+                    return parseCData();
+                }
+            }
+            skipDeclaration();
+            return -1;
+        }
+        if(c == '?') {
+            skipUntil("?>");
+            return -1;
+        }
+        return parseStartTag(c);
+    }
+
+    private int parseCData() throws IOException {
+        textLength = 0;
+        int brackets = 0;
+        while(true) {
+            int c = read();
+            if(c < 0) {
+                break;
+            }
+            if(c == ']') {
+                brackets++;
+                continue;
+            }
+            if(c == '>' && brackets >= 2) {
+                for(int iter = 2 ; iter < brackets ; iter++) {
+                    appendText(']');
+                }
+                break;
+            }
+            for(int iter = 0 ; iter < brackets ; iter++) {
+                appendText(']');
+            }
+            brackets = 0;
+            appendText(c);
+        }
+        if(textLength == 0) {
+            return -1;
+        }
+        name = null;
+        eventType = TEXT;
+        return TEXT;
+    }
+
+    private void skipUntil(String end) throws IOException {
+        int len = end.length();
+        int matched = 0;
+        while(matched < len) {
+            int c = read();
+            if(c < 0) {
+                return;
+            }
+            if(c == end.charAt(matched)) {
+                matched++;
+            } else {
+                matched = c == end.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Skips a doctype or similar declaration which might contain an internal subset in brackets
+     */
+    private void skipDeclaration() throws IOException {
+        int brackets = 0;
+        while(true) {
+            int c = read();
+            if(c < 0) {
+                return;
+            }
+            if(c == '[') {
+                brackets++;
+            } else if(c == ']') {
+                brackets--;
+            } else if(c == '>' && brackets <= 0) {
+                return;
+            }
+        }
+    }
+
+    private int parseEndTag() throws IOException {
+        scratchLength = 0;
+        int c = read();
+        while(isWhiteSpace(c)) {
+            c = read();
+        }
+        while(c > -1 && c != '>' && !isWhiteSpace(c)) {
+            appendScratch(c);
+            c = read();
+        }
+        while(c > -1 && c != '>') {
+            c = read();
+        }
+        String tag = internScratch();
+        for(int iter = depth - 1 ; iter >= 0 ; iter--) {
+            if(tagStack[iter].equals(tag)) {
+                if(iter < depth - 1) {
+                    notifyError(ParserCallback.ERROR_NO_CLOSE_TAG, tagStack[depth - 1], null, null, "Malformed XML - no appropriate closing tag for " + tagStack[depth - 1]);
+                    closeTarget = iter;
+                }
+                return endTagEvent();
+            }
+        }
+        notifyError(ParserCallback.ERROR_UNEXPECTED_TAG_CLOSING, tag, null, null, "Malformed XML - closing tag " + tag + " without a matching start tag");
+        return -1;
+    }
+
+    private int parseStartTag(int c) throws IOException {
+        while(isWhiteSpace(c)) {
+            c = read();
+        }
+        scratchLength = 0;
+        while(c > -1 && c != '>' && c != '/' && !isWhiteSpace(c)) {
+            appendScratch(c);
+            c = read();
+        }
+        if(c < 0) {
+            return -1;
+        }
+        String tag = internScratch();
+        boolean empty = false;
+        while(true) {
+            while(isWhiteSpace(c)) {
+                c = read();
+            }
+            if(c < 0) {
+                return -1;
+            }
+            if(c == '>') {
+                break;
+            }
+            if(c == '/') {
+                c = read();
+                if(c == '>') {
+                    empty = true;
+                    break;
+                }
+                notifyError(ParserCallback.ERROR_UNEXPECTED_CHARACTER, tag, null, null, "XML malformed - no > after /");
+                continue;
+            }
+            scratchLength = 0;
+            while(c > -1 && c != '=' && c != '>' && c != '/' && !isWhiteSpace(c)) {
+                appendScratch(c);
+                c = read();
+            }
+            String attr = internScratch();
+            while(isWhiteSpace(c)) {
+                c = read();
+            }
+            if(c != '=') {
+                notifyError(ParserCallback.ERROR_UNEXPECTED_CHARACTER, tag, attr, null, "Unexpected character " + (char)c + ", expected '=' after attribute " + attr + " in tag " + tag);
+                addAttribute(attr, "");
+                continue;
+            }
+            c = read();
+            while(isWhiteSpace(c)) {
+                c = read();
+            }
+            scratchLength = 0;
+            if(c == '"' || c == '\'') {
+                int quote = c;
+                c = read();
+                while(c > -1 && c != quote) {
+                    if(c == '&') {
+                        readCharEntity(false);
+                    } else {
+                        appendScratch(c);
+                    }
+                    c = read();
+                }
+                c = read();
+            } else {
+                while(c > -1 && c != '>' && c != '/' && !isWhiteSpace(c)) {
+                    if(c == '&') {
+                        readCharEntity(false);
+                    } else {
+                        appendScratch(c);
+                    }
+                    c = read();
+                }
+            }
+            addAttribute(attr, new String(scratch, 0, scratchLength));
+        }
+        if(depth == tagStack.length) {
+            String[] n = new String[depth * 2];
+            System.arraycopy(tagStack, 0, n, 0, depth);
+            tagStack = n;
+        }
+        tagStack[depth] = tag;
+        depth++;
+        emptyTagPending = empty;
+        name = tag;
+        eventType = START_TAG;
+        return START_TAG;
+    }
+
+    private void addAttribute(String attr, String value) {
+        if(attributeCount == attributeNames.length) {
+            String[] n = new String[attributeCount * 2];
+            System.arraycopy(attributeNames, 0, n, 0, attributeCount);
+            attributeNames = n;
+            n = new String[attributeCount * 2];
+            System.arraycopy(attributeValues, 0, n, 0, attributeCount);
+            attributeValues = n;
+        }
+        attributeNames[attributeCount] = attr;
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+    }
+
+    private void notifyError(int errorId, String tag, String attribute, String value, String description) {
+        if(parserCallback != null) {
+            if(!parserCallback.parsingError(errorId, tag, attribute, value, description)) {
+                throw new IllegalArgumentException(description);
+            }
+        }
+    }
+}
@@ -1687,9 +1687,12 @@ public class EditableResources extends Resources implements TreeModel {
         overrideResource = null;
         overrideFile = null;
         try {
-            DataOutputStream output = new DataOutputStream(out);
+            DataOutputStream fileOutput = new DataOutputStream(out);
+            DataOutputStream output = fileOutput;
             String[] resourceNames = getResourceNames();
 
+            // password protected files are read sequentially so they don't include the offset table
+            boolean writeIndex = currentPassword == null;
             keyOffset = 0;
             if(currentPassword != null) {
                 output.writeShort(resourceNames.length + 2);
@@ -1697,7 +1700,7 @@ public class EditableResources extends Resources implements TreeModel {
                 output.writeUTF("" + ((char)encode('l')) + ((char)encode('w')));
                 output.writeByte(encode(MAGIC_HEADER & 0xff));
             } else {
-                output.writeShort(resourceNames.length + 1);
+                output.writeShort(resourceNames.length + 2);
                 // write the header of the resource file
                 output.writeByte(MAGIC_HEADER);
             }
@@ -1711,6 +1714,17 @@ public class EditableResources extends Resources implements TreeModel {
             // currently resource file meta-data isn't supported
             output.writeShort(0);
 
+            // the entries are buffered so the offset table can be written before them
+            ByteArrayOutputStream entries = null;
+            byte[] magics = null;
+            int[] offsets = null;
+            if(writeIndex) {
+                entries = new ByteArrayOutputStream();
+                output = new DataOutputStream(entries);
+                magics = new byte[resourceNames.length];
+                offsets = new int[resourceNames.length];
+            }
+
             for(int iter = 0 ; iter < resourceNames.length ; iter++) {
                 // write the magic number
                 byte magic = getResourceType(resourceNames[iter]);
@@ -1728,6 +1742,10 @@ public class EditableResources extends Resources implements TreeModel {
                         magic = MAGIC_FONT;
                         break;
                 }
+                if(writeIndex) {
+                    magics[iter] = magic;
+                    offsets[iter] = output.size();
+                }
                 if(currentPassword != null) {
                     output.writeByte(encode(magic & 0xff));
                     char[] chars = resourceNames[iter].toCharArray();
@@ -1787,6 +1805,10 @@ public class EditableResources extends Resources implements TreeModel {
                         throw new IOException("Corrupt theme file unrecognized magic number: " + Integer.toHexString(magic & 0xff));
                 }
             }
+            if(writeIndex) {
+                saveIndex(fileOutput, resourceNames, magics, offsets);
+                entries.writeTo(fileOutput);
+            }
             modified = false;
             updateModified();
             undoQueue.clear();
@@ -1797,6 +1819,37 @@ public class EditableResources extends Resources implements TreeModel {
         }
     }
 
+    /**
+     * Writes the offset table of the resource file as a data entry, the offsets are relative to the 
+     * start of the file allowing the runtime to decode entries on demand
+     */
+    private void saveIndex(DataOutputStream output, String[] resourceNames, byte[] magics, int[] offsets) throws IOException {
+        byte[] index = createIndex(resourceNames, magics, offsets, 0);
+        ByteArrayOutputStream entryHeader = new ByteArrayOutputStream();
+        DataOutputStream entryHeaderOut = new DataOutputStream(entryHeader);
+        entryHeaderOut.writeByte(MAGIC_DATA);
+        entryHeaderOut.writeUTF(INDEX_ENTRY);
+        entryHeaderOut.writeInt(index.length);
+
+        // the size of the table doesn't depend on the offsets so we can compute the final offsets now
+        int base = output.size() + entryHeader.size() + index.length;
+        index = createIndex(resourceNames, magics, offsets, base);
+        entryHeader.writeTo(output);
+        output.write(index);
+    }
+
+    private byte[] createIndex(String[] resourceNames, byte[] magics, int[] offsets, int base) throws IOException {
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        indexOut.writeShort(resourceNames.length);
+        for(int iter = 0 ; iter < resourceNames.length ; iter++) {
+            indexOut.writeByte(magics[iter]);
+            indexOut.writeUTF(resourceNames[iter]);
+            indexOut.writeInt(base + offsets[iter]);
+        }
+        return index.toByteArray();
+    }
+
     private void removeMultiConstants(Hashtable h) {
         for(Object k : h.keySet()) {
             String key = (String)k;
@@ -6033,6 +6033,14 @@ public class AndroidImplementation extends CodenameOneImplementation implements
         con.setChunkedStreamingMode(bufferLen);
     }
 
+    @Override
+    public void setFixedLengthStreamingMode(Object connection, long contentLength){
+        // the long overload requires API level 19, larger bodies are left to the default buffering
+        if(connection instanceof HttpURLConnection && contentLength <= Integer.MAX_VALUE) {
+            ((HttpURLConnection) connection).setFixedLengthStreamingMode((int)contentLength);
+        }
+    }
+
 
 
     /**
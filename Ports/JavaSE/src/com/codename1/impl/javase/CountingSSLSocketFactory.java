@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.impl.javase;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Wraps the default SSL socket factory and counts the sockets created per host. The same
+ * instance is used for all HTTPS connections so the JDK keep-alive cache (which is keyed by
+ * the socket factory) can still reuse connections, this allows the connection pool events to
+ * report how many TLS handshakes were actually performed.
+ */
+class CountingSSLSocketFactory extends SSLSocketFactory {
+    private final SSLSocketFactory delegate;
+    private final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+    CountingSSLSocketFactory(SSLSocketFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    private Socket count(Socket s, String host, int port) {
+        if(host != null) {
+            String key = host.toLowerCase() + ":" + port;
+            synchronized(counts) {
+                Integer i = counts.get(key);
+                counts.put(key, i == null ? 1 : i + 1);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns the host name the address was created with or its IP address, unlike getHostName()
+     * this never performs a blocking reverse DNS lookup
+     */
+    private static String hostOf(InetAddress address) {
+        // toString() is "name/address" where the name is empty if it was never resolved
+        String s = address.toString();
+        int slash = s.indexOf('/');
+        if(slash > 0) {
+            return s.substring(0, slash);
+        }
+        return address.getHostAddress();
+    }
+
+    /**
+     * Returns true if this factory wraps the given factory
+     *
+     * @param factory the socket factory of a connection
+     * @return true if the connection can use this factory instead without changing its behavior
+     */
+    boolean wraps(SSLSocketFactory factory) {
+        return factory == delegate;
+    }
+
+    /**
+     * Returns the number of sockets created for the given host
+     *
+     * @param host host:port string
+     * @return the number of sockets or -1 if no socket was created for this host
+     */
+    int getCount(String host) {
+        synchronized(counts) {
+            Integer i = counts.get(host);
+            if(i == null) {
+                return -1;
+            }
+            return i;
+        }
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+        return count(delegate.createSocket(s, host, port, autoClose), host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return count(delegate.createSocket(host, port), host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return count(delegate.createSocket(host, port, localHost, localPort), host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return count(delegate.createSocket(host, port), hostOf(host), port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return count(delegate.createSocket(address, port, localAddress, localPort), hostOf(address), port);
+    }
+}
@@ -9783,6 +9783,13 @@ public class JavaSEPort extends CodenameOneImplementation {
                 c.setConnectTimeout(timeout);
             }
         }
+        if (connectionCounter != null && con instanceof HttpsURLConnection) {
+            // only connections using the default factory are counted, a custom factory is left in place
+            HttpsURLConnection https = (HttpsURLConnection)con;
+            if (connectionCounter.wraps(https.getSSLSocketFactory())) {
+                https.setSSLSocketFactory(connectionCounter);
+            }
+        }
 
         con.setDoInput(read);
         con.setDoOutput(write);
@@ -9797,6 +9804,40 @@ public class JavaSEPort extends CodenameOneImplementation {
         return con;
     }
 
+    private CountingSSLSocketFactory connectionCounter;
+
+    /**
+     * The JDK keeps HTTP connections alive in its own cache, this maps the pool settings to the
+     * JDK keep-alive properties. Notice the JDK reads some of these properties once so they are
+     * only guaranteed to take effect if they are set before the first connection is made.
+     */
+    @Override
+    public void setConnectionPoolConfiguration(int maxConnectionsPerHost, int idleTimeout) {
+        System.setProperty("http.keepAlive", "true");
+        if(maxConnectionsPerHost > 0) {
+            System.setProperty("http.maxConnections", String.valueOf(maxConnectionsPerHost));
+        }
+        if(idleTimeout > 0) {
+            String seconds = String.valueOf(Math.max(1, idleTimeout / 1000));
+            System.setProperty("http.keepAlive.time.server", seconds);
+            System.setProperty("http.keepAlive.time.proxy", seconds);
+        }
+        synchronized(this) {
+            if(connectionCounter == null) {
+                connectionCounter = new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+            }
+        }
+    }
+
+    @Override
+    public int getOpenedConnectionCount(String host) {
+        CountingSSLSocketFactory c = connectionCounter;
+        if(c == null) {
+            return -1;
+        }
+        return c.getCount(host);
+    }
+
     @Override
     public void setReadTimeout(Object connection, int readTimeout) {
         if (connection instanceof URLConnection) {
@@ -9947,6 +9988,45 @@ public class JavaSEPort extends CodenameOneImplementation {
         HttpURLConnection con = ((HttpURLConnection) connection);
         con.setChunkedStreamingMode(bufferLen);
     }
+
+    /**
+     * @inheritDoc
+     */
+    public void setFixedLengthStreamingMode(Object connection, long contentLength){    
+        if(connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).setFixedLengthStreamingMode(contentLength);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public InputStream createInflaterInputStream(InputStream in, boolean gzip) throws IOException {
+        if(gzip) {
+            return new java.util.zip.GZIPInputStream(in, 8192);
+        }
+        return new java.util.zip.InflaterInputStream(in, new java.util.zip.Inflater(), 8192) {
+            public void close() throws IOException {
+                super.close();
+                inf.end();
+            }
+        };
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public OutputStream createDeflaterOutputStream(OutputStream out, boolean gzip) throws IOException {
+        if(gzip) {
+            return new java.util.zip.GZIPOutputStream(out, 8192);
+        }
+        return new java.util.zip.DeflaterOutputStream(out, new java.util.zip.Deflater(), 8192) {
+            public void close() throws IOException {
+                super.close();
+                def.end();
+            }
+        };
+    }
     
 
     private void updateRequestHeaders(HttpURLConnection con) {
@@ -11231,6 +11311,7 @@ public class JavaSEPort extends CodenameOneImplementation {
 
     @Override
     public void beforeComponentPaint(Component c, Graphics g) {
+        super.beforeComponentPaint(c, g);
         if (perfMonitor != null) {
             perfMonitor.beforeComponentPaint(c);
         }
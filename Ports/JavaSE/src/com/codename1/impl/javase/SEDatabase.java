@@ -29,6 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 /**
  *
@@ -135,29 +136,7 @@ public class SEDatabase extends Database{
         PreparedStatement s = null;
         try {
             s =  conn.prepareStatement(sql);  
-            
-            if(params != null){
-                for (int i = 0; i < params.length; i++) {
-                    Object p = params[i];
-                    if (p == null) {
-                        s.setNull(i+1, java.sql.Types.NULL);
-                    } else {
-                        if (p instanceof String) {
-                            s.setString(i + 1, (String) p);
-                        } else if (p instanceof byte[]) {
-                            s.setBytes(i + 1, (byte[]) p);
-                        } else if (p instanceof Double) {
-                            s.setDouble(i + 1, ((Double) p).doubleValue());
-                        } else if (p instanceof Long) {
-                            s.setLong(i + 1, ((Long) p).longValue());
-                        } else if (p instanceof Integer) {
-                            s.setInt(i + 1, ((Integer) p).intValue());
-                        } else {
-                            s.setString(i + 1, (String) p.toString());
-                        }
-                    }                    
-                }
-            }
+            bind(s, params);
             s.execute();
         } catch (SQLException ex) {
             cleanup(s);
@@ -167,6 +146,103 @@ public class SEDatabase extends Database{
     }
     
 
+    private static void bind(PreparedStatement s, Object[] params) throws SQLException {
+        if(params != null){
+            for (int i = 0; i < params.length; i++) {
+                Object p = params[i];
+                if (p == null) {
+                    s.setNull(i+1, java.sql.Types.NULL);
+                } else {
+                    if (p instanceof String) {
+                        s.setString(i + 1, (String) p);
+                    } else if (p instanceof byte[]) {
+                        s.setBytes(i + 1, (byte[]) p);
+                    } else if (p instanceof Double) {
+                        s.setDouble(i + 1, ((Double) p).doubleValue());
+                    } else if (p instanceof Long) {
+                        s.setLong(i + 1, ((Long) p).longValue());
+                    } else if (p instanceof Integer) {
+                        s.setInt(i + 1, ((Integer) p).intValue());
+                    } else {
+                        s.setString(i + 1, (String) p.toString());
+                    }
+                }                    
+            }
+        }
+    }
+
+    @Override
+    public com.codename1.db.PreparedStatement prepareStatement(String sql) throws IOException {
+        try {
+            return new SEPreparedStatement(sql, conn.prepareStatement(sql));
+        } catch (SQLException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Keeps the JDBC statement open so executions skip compiling the sql and batches are sent at once
+     */
+    class SEPreparedStatement extends com.codename1.db.PreparedStatement {
+        private final PreparedStatement stmt;
+
+        SEPreparedStatement(String sql, PreparedStatement stmt) {
+            super(SEDatabase.this, sql);
+            this.stmt = stmt;
+        }
+
+        @Override
+        public void execute(Object... params) throws IOException {
+            checkClosed();
+            try {
+                stmt.clearParameters();
+                bind(stmt, params);
+                stmt.execute();
+            } catch (SQLException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void executeBatch(List<Object[]> params) throws IOException {
+            checkClosed();
+            try {
+                for (Object[] p : params) {
+                    stmt.clearParameters();
+                    bind(stmt, p);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            } catch (SQLException ex) {
+                try {
+                    stmt.clearBatch();
+                } catch (SQLException err) {
+                }
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public Cursor executeQuery(Object... params) throws IOException {
+            checkClosed();
+            try {
+                stmt.clearParameters();
+                bind(stmt, params);
+                return new SECursor(stmt.executeQuery());
+            } catch (SQLException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!isClosed()) {
+                super.close();
+                cleanup(stmt);
+            }
+        }
+    }
+
     @Override
     public Cursor executeQuery(String sql, String[] params) throws IOException {
         PreparedStatement s = null;
@@ -207,6 +283,7 @@ public class SEDatabase extends Database{
         System.out.println("**** Database.rollbackTransaction() is not supported in the Javascript port.  If you plan to deploy to Javascript, you should avoid this method. *****");
         try {
             conn.rollback();
+            conn.setAutoCommit(true);
         } catch (SQLException ex) {
             //ex.printStackTrace();
             throw new IOException(ex.getMessage(), ex);
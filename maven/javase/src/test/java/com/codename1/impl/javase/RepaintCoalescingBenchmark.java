@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.impl.javase;
+
+import com.codename1.ui.Component;
+import com.codename1.ui.Container;
+import com.codename1.ui.Display;
+import com.codename1.ui.Form;
+import com.codename1.ui.Label;
+import com.codename1.ui.layouts.BoxLayout;
+import com.codename1.ui.layouts.GridLayout;
+
+/**
+ * Compares painting a frame in which a container and all of its children were repainted, together with
+ * a few overlapping siblings, with and without the damage region coalescing of paintDirty. It prints the
+ * number of painted regions, pixels and components per frame and the time it takes to paint the frame. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.impl.javase.RepaintCoalescingBenchmark [frames]</pre>
+ */
+public class RepaintCoalescingBenchmark {
+    private static void queueFrame(Container grid, Component[] overlapping) {
+        int count = grid.getComponentCount();
+        for(int iter = 0 ; iter < count ; iter++) {
+            grid.getComponentAt(iter).repaint();
+        }
+        grid.repaint();
+        for(int iter = 0 ; iter < overlapping.length ; iter++) {
+            overlapping[iter].repaint();
+        }
+    }
+
+    private static void measure(JavaSEPort port, Container grid, Component[] overlapping, int frames, boolean coalesce) {
+        port.setCoalesceRepaints(coalesce);
+        long time = System.nanoTime();
+        for(int iter = 0 ; iter < frames ; iter++) {
+            queueFrame(grid, overlapping);
+            port.paintDirty();
+        }
+        time = System.nanoTime() - time;
+        System.out.println((coalesce ? "  coalesced: " : "  separate:  ") + port.getDamageRegionCount() + " regions, " +
+                port.getPaintedPixels() + " pixels, " + port.getPaintedComponents() + " components per frame, " + 
+                (time / 1000000.0 / frames) + "ms per frame");
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int frames = argv.length > 0 ? Integer.parseInt(argv[0]) : 200;
+        Display.init(new java.awt.Container());
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                Form f = new Form("Repaints", BoxLayout.y());
+                Container grid = new Container(new GridLayout(6, 4));
+                for(int iter = 0 ; iter < 24 ; iter++) {
+                    grid.add(new Label("Cell " + iter));
+                }
+                f.add(grid);
+                Container row = new Container(BoxLayout.x());
+                Component[] overlapping = new Component[4];
+                for(int iter = 0 ; iter < overlapping.length ; iter++) {
+                    overlapping[iter] = new Label("Item " + iter);
+                    row.add(overlapping[iter]);
+                }
+                f.add(row);
+                f.show();
+                f.revalidate();
+                JavaSEPort port = JavaSEPort.instance;
+                System.out.println(frames + " frames");
+                measure(port, grid, overlapping, frames, false);
+                measure(port, grid, overlapping, frames, true);
+                measure(port, grid, overlapping, frames, false);
+                measure(port, grid, overlapping, frames, true);
+            }
+        });
+        System.exit(0);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import com.codename1.impl.javase.JavaSEPort;
+import java.util.Vector;
+
+/**
+ * Measures the throughput of the network request queue under contention. 10k requests with
+ * mixed priorities are queued while 8 worker threads drain the queue, once through a copy of
+ * the legacy sorted vector/notifyAll queue and once through the {@link NetworkQueue} lanes
+ * used by the {@link NetworkManager}. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.io.NetworkQueueBenchmark [requests] [threads]</pre>
+ */
+public class NetworkQueueBenchmark {
+    private static final byte[] PRIORITIES = {
+        ConnectionRequest.PRIORITY_NORMAL,
+        ConnectionRequest.PRIORITY_HIGH,
+        ConnectionRequest.PRIORITY_LOW,
+        ConnectionRequest.PRIORITY_NORMAL,
+        ConnectionRequest.PRIORITY_REDUNDANT,
+        ConnectionRequest.PRIORITY_CRITICAL
+    };
+
+    private final Object lock = new Object();
+    private final Object completionLock = new Object();
+    private final boolean legacy;
+    private final Vector legacyPending = new Vector();
+    private final NetworkQueue pending = new NetworkQueue();
+    private volatile boolean running = true;
+    private int processed;
+
+    private NetworkQueueBenchmark(boolean legacy) {
+        this.legacy = legacy;
+    }
+
+    private void add(ConnectionRequest r) {
+        synchronized(lock) {
+            if(legacy) {
+                int priority = r.getPriority();
+                if(priority == ConnectionRequest.PRIORITY_CRITICAL) {
+                    legacyPending.insertElementAt(r, 0);
+                } else {
+                    int size = legacyPending.size();
+                    int iter = 0;
+                    for(; iter < size ; iter++) {
+                        if(((ConnectionRequest)legacyPending.elementAt(iter)).getPriority() < priority) {
+                            break;
+                        }
+                    }
+                    legacyPending.insertElementAt(r, iter);
+                }
+            } else {
+                if(r.getPriority() == ConnectionRequest.PRIORITY_CRITICAL) {
+                    pending.addFirst(r, r.getPriority());
+                } else {
+                    pending.addLast(r, r.getPriority());
+                }
+            }
+            lock.notify();
+        }
+    }
+
+    private ConnectionRequest take() throws InterruptedException {
+        synchronized(lock) {
+            while(running) {
+                ConnectionRequest r;
+                if(legacy) {
+                    r = legacyPending.size() > 0 ? (ConnectionRequest)legacyPending.remove(0) : null;
+                } else {
+                    r = pending.poll();
+                }
+                if(r != null) {
+                    return r;
+                }
+                lock.wait();
+            }
+            return null;
+        }
+    }
+
+    private void complete() {
+        // the legacy queue woke every network thread on completion, now only
+        // completion waiters are notified
+        if(legacy) {
+            synchronized(lock) {
+                processed++;
+                lock.notifyAll();
+            }
+        } else {
+            synchronized(completionLock) {
+                processed++;
+                completionLock.notifyAll();
+            }
+        }
+    }
+
+    private int getProcessed() {
+        synchronized(legacy ? lock : completionLock) {
+            return processed;
+        }
+    }
+
+    private long run(ConnectionRequest[] requests, int threadCount) throws InterruptedException {
+        Thread[] threads = new Thread[threadCount];
+        for(int iter = 0 ; iter < threadCount ; iter++) {
+            threads[iter] = new Thread() {
+                public void run() {
+                    try {
+                        while(take() != null) {
+                            complete();
+                        }
+                    } catch(InterruptedException err) {
+                    }
+                }
+            };
+            threads[iter].start();
+        }
+        long time = System.nanoTime();
+        for(ConnectionRequest r : requests) {
+            add(r);
+        }
+        while(getProcessed() < requests.length) {
+            Thread.yield();
+        }
+        time = System.nanoTime() - time;
+        running = false;
+        synchronized(lock) {
+            lock.notifyAll();
+        }
+        for(Thread t : threads) {
+            t.join();
+        }
+        return time;
+    }
+
+    private static long measure(boolean legacy, ConnectionRequest[] requests, int threads) throws InterruptedException {
+        long best = Long.MAX_VALUE;
+        for(int iter = 0 ; iter < 10 ; iter++) {
+            long t = new NetworkQueueBenchmark(legacy).run(requests, threads);
+            // the first iterations are warmup
+            if(iter > 2) {
+                best = Math.min(best, t);
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] argv) throws Exception {
+        int count = argv.length > 0 ? Integer.parseInt(argv[0]) : 10000;
+        int threads = argv.length > 1 ? Integer.parseInt(argv[1]) : 8;
+        Util.setImplementation(new JavaSEPort());
+        ConnectionRequest[] requests = new ConnectionRequest[count];
+        for(int iter = 0 ; iter < count ; iter++) {
+            requests[iter] = new ConnectionRequest("http://localhost/" + iter);
+            requests[iter].setPriority(PRIORITIES[iter % PRIORITIES.length]);
+        }
+        long legacyTime = measure(true, requests, threads);
+        long lanesTime = measure(false, requests, threads);
+        System.out.println("Queued " + count + " requests on " + threads + " threads");
+        System.out.println("Legacy vector queue: " + (legacyTime / 1000000.0) + "ms " + (long)(count * 1000000000.0 / legacyTime) + " requests/sec");
+        System.out.println("Priority lanes queue: " + (lanesTime / 1000000.0) + "ms " + (long)(count * 1000000000.0 / lanesTime) + " requests/sec");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io.gzip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compares the portable JZlib streams in this package with the {@code java.util.zip} streams the desktop port
+ * returns from {@link com.codename1.io.Util#openInflaterInputStream(java.io.InputStream, boolean)} by 
+ * compressing and decompressing generated JSON responses of several sizes. Each case is warmed up before 
+ * it's measured and the average time per operation is printed. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.io.gzip.GZIPBenchmark [iterations]</pre>
+ */
+public class GZIPBenchmark {
+    private static final int[] ENTRIES = {10, 200, 4000};
+
+    static byte[] createJSON(int entries) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"total\":").append(entries).append(",\"items\":[");
+        for(int iter = 0 ; iter < entries ; iter++) {
+            if(iter > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(iter * 7919 % 100000)
+                    .append(",\"name\":\"Item ").append(iter).append("\"")
+                    .append(",\"price\":").append(iter % 500).append('.').append(iter % 100)
+                    .append(",\"inStock\":").append(iter % 3 != 0)
+                    .append(",\"tags\":[\"tag").append(iter % 17).append("\",\"tag").append(iter % 5).append("\"]")
+                    .append(",\"description\":\"Description of item ").append(iter)
+                    .append(" in category ").append(iter % 23).append("\"}");
+        }
+        sb.append("]}");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    static byte[] compress(byte[] data, boolean jzlib) throws IOException {
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        OutputStream o;
+        if(jzlib) {
+            o = new GZIPOutputStream(bo);
+        } else {
+            o = new java.util.zip.GZIPOutputStream(bo, 8192);
+        }
+        o.write(data);
+        o.close();
+        return bo.toByteArray();
+    }
+
+    static int decompress(byte[] data, boolean jzlib, byte[] buffer) throws IOException {
+        InputStream i;
+        if(jzlib) {
+            i = new GZIPInputStream(new ByteArrayInputStream(data));
+        } else {
+            i = new java.util.zip.GZIPInputStream(new ByteArrayInputStream(data), 8192);
+        }
+        int total = 0;
+        int size = i.read(buffer);
+        while(size > -1) {
+            total += size;
+            size = i.read(buffer);
+        }
+        i.close();
+        return total;
+    }
+
+    private static String perOp(long start, int iterations) {
+        return ((System.nanoTime() - start) / 1000 / iterations) + "us/op";
+    }
+
+    private static void run(byte[] json, byte[] gz, boolean jzlib, int iterations, byte[] buffer) throws IOException {
+        // warm up
+        for(int iter = 0 ; iter < iterations ; iter++) {
+            compress(json, jzlib);
+            decompress(gz, jzlib, buffer);
+        }
+
+        long time = System.nanoTime();
+        for(int iter = 0 ; iter < iterations ; iter++) {
+            if(decompress(gz, jzlib, buffer) != json.length) {
+                throw new IOException("Decompressed size mismatch");
+            }
+        }
+        String inflate = perOp(time, iterations);
+        time = System.nanoTime();
+        for(int iter = 0 ; iter < iterations ; iter++) {
+            compress(json, jzlib);
+        }
+        System.out.println((jzlib ? "    JZlib:         " : "    java.util.zip: ") + "inflate " + inflate + 
+                ", deflate " + perOp(time, iterations));
+    }
+
+    public static void main(String[] argv) throws Exception {
+        int iterations = argv.length > 0 ? Integer.parseInt(argv[0]) : 200;
+        byte[] buffer = new byte[8192];
+        for(int entries : ENTRIES) {
+            byte[] json = createJSON(entries);
+            byte[] gz = compress(json, false);
+            if(decompress(compress(json, true), false, buffer) != json.length) {
+                throw new IOException("Streams aren't compatible");
+            }
+            System.out.println(json.length + " bytes of JSON, " + gz.length + " bytes gzipped");
+            run(json, gz, true, iterations, buffer);
+            run(json, gz, false, iterations, buffer);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.properties;
+
+import com.codename1.db.Database;
+import com.codename1.ui.Display;
+import java.util.ArrayList;
+
+/**
+ * Compares inserting rows one by one through {@link SQLMap#insert(com.codename1.properties.PropertyBusinessObject)}
+ * with {@link SQLMap#insertAll(java.util.List)} and {@link SQLMap#upsertAll(java.util.List)} which reuse a
+ * prepared statement within a single transaction. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.properties.SQLMapBenchmark [rows]</pre>
+ */
+public class SQLMapBenchmark {
+    public static class Item implements PropertyBusinessObject {
+        public final LongProperty<Item> id = new LongProperty<Item>("id");
+        public final Property<String, Item> name = new Property<String, Item>("name");
+        public final DoubleProperty<Item> price = new DoubleProperty<Item>("price");
+        private final PropertyIndex idx = new PropertyIndex(this, "Item", id, name, price);
+
+        public PropertyIndex getPropertyIndex() {
+            return idx;
+        }
+    }
+
+    static ArrayList<Item> createItems(int rows) {
+        ArrayList<Item> items = new ArrayList<Item>();
+        for(int iter = 0 ; iter < rows ; iter++) {
+            Item i = new Item();
+            i.id.set((long)iter);
+            i.name.set("Item " + iter);
+            i.price.set(iter * 1.5);
+            items.add(i);
+        }
+        return items;
+    }
+
+    private static String elapsed(long start) {
+        return ((System.nanoTime() - start) / 1000000.0) + "ms";
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int rows = argv.length > 0 ? Integer.parseInt(argv[0]) : 20000;
+        Display.init(new java.awt.Container());
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                try {
+                    if(Database.exists("SQLMapBenchmark.db")) {
+                        Database.delete("SQLMapBenchmark.db");
+                    }
+                    Database db = Database.openOrCreate("SQLMapBenchmark.db");
+                    SQLMap sm = SQLMap.create(db);
+                    sm.setVerbose(false);
+                    Item proto = new Item();
+                    sm.setPrimaryKey(proto, proto.id);
+                    sm.createTable(proto);
+                    ArrayList<Item> items = createItems(rows);
+                    System.out.println(rows + " rows");
+
+                    long time = System.nanoTime();
+                    for(Item i : items) {
+                        sm.insert(i);
+                    }
+                    System.out.println("  insert one by one: " + elapsed(time));
+
+                    time = System.nanoTime();
+                    sm.deleteAll(items);
+                    System.out.println("  deleteAll:         " + elapsed(time));
+
+                    time = System.nanoTime();
+                    sm.insertAll(items);
+                    System.out.println("  insertAll:         " + elapsed(time));
+
+                    time = System.nanoTime();
+                    sm.upsertAll(items);
+                    System.out.println("  upsertAll:         " + elapsed(time));
+
+                    sm.clearStatementCache();
+                    db.close();
+                    Database.delete("SQLMapBenchmark.db");
+                } catch(Exception err) {
+                    err.printStackTrace();
+                }
+            }
+        });
+        System.exit(0);
+    }
+}
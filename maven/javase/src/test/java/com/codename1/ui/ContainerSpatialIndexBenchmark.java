@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import com.codename1.ui.layouts.LayeredLayout;
+import java.util.Random;
+
+/**
+ * Measures hit testing and paint culling of a container with thousands of absolutely positioned
+ * children with and without the spatial index. The children are placed directly so the measurement
+ * doesn't include the layout. The benchmark also verifies that both modes find the same components.
+ * Run with:
+ * <pre>java -Djava.awt.headless=true -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.ui.ContainerSpatialIndexBenchmark [children] [queries]</pre>
+ */
+public class ContainerSpatialIndexBenchmark {
+    private static final int WIDTH = 2000;
+    private static final int HEIGHT = 2000;
+
+    /**
+     * Creates a container with the given number of children in a jittered grid, some of which overlap
+     */
+    static Container createContainer(int children) {
+        Container cnt = new Container(new LayeredLayout());
+        Random r = new Random(42);
+        int side = (int)Math.ceil(Math.sqrt(children));
+        int cell = WIDTH / side;
+        for(int iter = 0 ; iter < children ; iter++) {
+            Component c = new Component() {
+            };
+            c.setFocusable(true);
+            cnt.addComponent(c);
+        }
+        cnt.setX(0);
+        cnt.setY(0);
+        cnt.setWidth(WIDTH);
+        cnt.setHeight(HEIGHT);
+        for(int iter = 0 ; iter < children ; iter++) {
+            Component c = cnt.getComponentAt(iter);
+            c.setX((iter % side) * cell + r.nextInt(cell / 2 + 1));
+            c.setY((iter / side) * cell + r.nextInt(cell / 2 + 1));
+            c.setWidth(cell / 2 + r.nextInt(cell));
+            c.setHeight(cell / 2 + r.nextInt(cell));
+        }
+        return cnt;
+    }
+
+    static long measureHitTesting(Container cnt, int[] xs, int[] ys, Component[] results) {
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 5 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < xs.length ; iter++) {
+                results[iter] = cnt.getComponentAt(xs[iter], ys[iter]);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    static long measurePaint(Container cnt, Graphics g, int frames) {
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 5 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < frames ; iter++) {
+                int x = (iter * 97) % (WIDTH - 200);
+                int y = (iter * 53) % (HEIGHT - 200);
+                g.setClip(x, y, 200, 200);
+                cnt.paint(g);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    private static String format(long nanos, int count, String unit) {
+        return (nanos / 1000000.0) + "ms (" + (long)(count * 1000000000.0 / nanos) + " " + unit + "/sec)";
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int children = argv.length > 0 ? Integer.parseInt(argv[0]) : 5000;
+        final int queries = argv.length > 1 ? Integer.parseInt(argv[1]) : 20000;
+        Display.init(new java.awt.Container());
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                Container cnt = createContainer(children);
+                Random r = new Random(7);
+                int[] xs = new int[queries];
+                int[] ys = new int[queries];
+                for(int iter = 0 ; iter < queries ; iter++) {
+                    xs[iter] = r.nextInt(WIDTH);
+                    ys[iter] = r.nextInt(HEIGHT);
+                }
+                Component[] linear = new Component[queries];
+                Component[] indexed = new Component[queries];
+
+                System.out.println(children + " children, " + queries + " getComponentAt calls");
+                cnt.setSpatialIndexEnabled(false);
+                System.out.println("  linear:        " + format(measureHitTesting(cnt, xs, ys, linear), queries, "calls"));
+                cnt.setSpatialIndexEnabled(true);
+                System.out.println("  spatial index: " + format(measureHitTesting(cnt, xs, ys, indexed), queries, "calls"));
+                int mismatches = 0;
+                for(int iter = 0 ; iter < queries ; iter++) {
+                    if(linear[iter] != indexed[iter]) {
+                        mismatches++;
+                    }
+                }
+                System.out.println("  mismatches: " + mismatches);
+
+                Image img = Image.createImage(WIDTH, HEIGHT);
+                Graphics g = img.getGraphics();
+                int frames = 200;
+                System.out.println(children + " children, " + frames + " paints of a 200x200 clip");
+                cnt.setSpatialIndexEnabled(false);
+                System.out.println("  linear:        " + format(measurePaint(cnt, g, frames), frames, "frames"));
+                cnt.setSpatialIndexEnabled(true);
+                System.out.println("  spatial index: " + format(measurePaint(cnt, g, frames), frames, "frames"));
+            }
+        });
+        System.exit(0);
+    }
+}
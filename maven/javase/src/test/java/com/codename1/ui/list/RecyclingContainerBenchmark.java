@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.list;
+
+import com.codename1.ui.Component;
+import com.codename1.ui.Container;
+import com.codename1.ui.Display;
+import com.codename1.ui.Label;
+import com.codename1.ui.layouts.BoxLayout;
+
+/**
+ * Compares a feed of variable height rows built as a box layout container with one component per item
+ * against a {@link RecyclingContainer} over the same model. It prints the heap, the time it takes to build
+ * and lay out the feed and the time it takes to scroll through the recycling container. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.ui.list.RecyclingContainerBenchmark [items]</pre>
+ */
+public class RecyclingContainerBenchmark {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    static class Feed extends RecyclingContainer<String> {
+        Feed(ListModel<String> model) {
+            super(model, new RowFactory<String>() {
+                public int getViewType(String item, int index) {
+                    return item.length() % 2;
+                }
+
+                public Component createRow(int viewType) {
+                    if(viewType == 0) {
+                        return new Label();
+                    }
+                    return BoxLayout.encloseY(new Label(), new Label());
+                }
+
+                public void bindRow(Component row, String item, int index) {
+                    bind(row, item);
+                }
+            });
+        }
+
+        void scroll(int y) {
+            setScrollY(y);
+        }
+    }
+
+    static void bind(Component row, String item) {
+        if(row instanceof Container) {
+            ((Label)((Container)row).getComponentAt(0)).setText(item);
+            ((Label)((Container)row).getComponentAt(1)).setText(item.toUpperCase());
+        } else {
+            ((Label)row).setText(item);
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime r = Runtime.getRuntime();
+        for(int iter = 0 ; iter < 4 ; iter++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch(InterruptedException err) {
+            }
+        }
+        return r.totalMemory() - r.freeMemory();
+    }
+
+    static Container createBoxFeed(DefaultListModel<String> model) {
+        Container cnt = new Container(BoxLayout.y());
+        cnt.setScrollableY(true);
+        int size = model.getSize();
+        for(int iter = 0 ; iter < size ; iter++) {
+            String item = model.getItemAt(iter);
+            Component row = item.length() % 2 == 0 ? new Label() : BoxLayout.encloseY(new Label(), new Label());
+            bind(row, item);
+            cnt.add(row);
+        }
+        cnt.setWidth(WIDTH);
+        cnt.setHeight(HEIGHT);
+        cnt.layoutContainer();
+        return cnt;
+    }
+
+    static Feed createRecyclingFeed(DefaultListModel<String> model) {
+        Feed feed = new Feed(model);
+        feed.setWidth(WIDTH);
+        feed.setHeight(HEIGHT);
+        feed.layoutContainer();
+        return feed;
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int items = argv.length > 0 ? Integer.parseInt(argv[0]) : 50000;
+        Display.init(new java.awt.Container());
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                DefaultListModel<String> model = new DefaultListModel<String>();
+                for(int iter = 0 ; iter < items ; iter++) {
+                    model.addItem("Item number " + iter);
+                }
+                System.out.println(items + " items");
+
+                long before = usedMemory();
+                long time = System.nanoTime();
+                Container box = createBoxFeed(model);
+                time = System.nanoTime() - time;
+                long after = usedMemory();
+                System.out.println("  box layout:          build and layout " + (time / 1000000.0) + "ms, heap " +
+                        ((after - before) / 1024) + "kb, " + box.getComponentCount() + " components");
+                box = null;
+
+                before = usedMemory();
+                time = System.nanoTime();
+                Feed feed = createRecyclingFeed(model);
+                time = System.nanoTime() - time;
+                after = usedMemory();
+                System.out.println("  recycling container: build and layout " + (time / 1000000.0) + "ms, heap " +
+                        ((after - before) / 1024) + "kb, " + feed.getComponentCount() + " components");
+
+                int distance = feed.getScrollDimension().getHeight() - HEIGHT;
+                int steps = 0;
+                time = System.nanoTime();
+                for(int y = 0 ; y < distance ; y += 40) {
+                    feed.scroll(y);
+                    steps++;
+                }
+                time = System.nanoTime() - time;
+                System.out.println("  recycling container: scrolled " + steps + " steps to the end in " + (time / 1000000.0) +
+                        "ms, " + feed.getComponentCount() + " components");
+            }
+        });
+        System.exit(0);
+    }
+}
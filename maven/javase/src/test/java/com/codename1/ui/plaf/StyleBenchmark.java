@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License
+ * version 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.plaf;
+
+import com.codename1.ui.Display;
+import com.codename1.ui.Form;
+import com.codename1.ui.Label;
+import com.codename1.ui.layouts.BoxLayout;
+
+/**
+ * Measures the heap used by the styles of a form with thousands of labels and the time it takes to
+ * refresh the theme of that form. Every label resolves all four of its styles (unselected, selected,
+ * pressed and disabled) which is the worst case for the per component style copies. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.ui.plaf.StyleBenchmark [labels]</pre>
+ */
+public class StyleBenchmark {
+    private static long usedMemory() {
+        Runtime r = Runtime.getRuntime();
+        for(int iter = 0 ; iter < 4 ; iter++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch(InterruptedException err) {
+            }
+        }
+        return r.totalMemory() - r.freeMemory();
+    }
+
+    static Form createForm(int labels) {
+        Form f = new Form("Styles", BoxLayout.y());
+        for(int iter = 0 ; iter < labels ; iter++) {
+            Label l = new Label("Label " + iter);
+            l.getUnselectedStyle();
+            l.getSelectedStyle();
+            l.getPressedStyle();
+            l.getDisabledStyle();
+            f.add(l);
+        }
+        return f;
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int labels = argv.length > 0 ? Integer.parseInt(argv[0]) : 5000;
+        Display.init(new java.awt.Container());
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                // warm up the theme caches so they aren't attributed to the labels
+                createForm(100);
+                long before = usedMemory();
+                Form f = createForm(labels);
+                long after = usedMemory();
+                System.out.println(labels + " labels with all four styles resolved");
+                System.out.println("  heap per label: " + ((after - before) / labels) + " bytes");
+
+                long best = Long.MAX_VALUE;
+                for(int iter = 0 ; iter < 10 ; iter++) {
+                    long time = System.nanoTime();
+                    f.refreshTheme(false);
+                    best = Math.min(best, System.nanoTime() - time);
+                }
+                System.out.println("  Form.refreshTheme: " + (best / 1000000.0) + "ms");
+                System.out.println("  components: " + f.getContentPane().getComponentCount());
+            }
+        });
+        System.exit(0);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.util;
+
+import com.codename1.ui.Display;
+import com.codename1.ui.events.ActionEvent;
+import com.codename1.ui.events.ActionListener;
+import com.codename1.ui.events.DataChangedListener;
+import java.util.ArrayList;
+
+/**
+ * Measures the throughput of firing events through the {@link EventDispatcher} on the EDT with 1, 10
+ * and 100 listeners. The legacy numbers come from a copy of the previous fire path which copied the
+ * listener list into a new array under a lock for every event. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.ui.util.EventDispatcherBenchmark [events]</pre>
+ */
+public class EventDispatcherBenchmark {
+    private static int counter;
+
+    private static final ActionListener ACTION = new ActionListener() {
+        public void actionPerformed(ActionEvent evt) {
+            counter++;
+        }
+    };
+
+    private static final DataChangedListener DATA = new DataChangedListener() {
+        public void dataChanged(int type, int index) {
+            counter += index;
+        }
+    };
+
+    /**
+     * The fire path of the dispatcher before the listeners were kept in a copy on write array
+     */
+    private static class LegacyDispatcher {
+        private final ArrayList<Object> listeners = new ArrayList<Object>();
+
+        synchronized void addListener(Object l) {
+            listeners.add(l);
+        }
+
+        void fireActionEvent(ActionEvent ev) {
+            boolean isEdt = Display.getInstance().isEdt();
+            if(isEdt && listeners.size() == 1) {
+                ((ActionListener)listeners.get(0)).actionPerformed(ev);
+                return;
+            }
+            ActionListener[] array;
+            synchronized(this) {
+                array = new ActionListener[listeners.size()];
+                int alen = array.length;
+                for(int iter = 0 ; iter < alen ; iter++) {
+                    array[iter] = (ActionListener)listeners.get(iter);
+                }
+            }
+            int alen = array.length;
+            for(int iter = 0 ; iter < alen ; iter++) {
+                if(ev == null || !ev.isConsumed()) {
+                    array[iter].actionPerformed(ev);
+                }
+            }
+        }
+
+        void fireDataChangeEvent(int index, int type) {
+            boolean isEdt = Display.getInstance().isEdt();
+            if(isEdt && listeners.size() == 1) {
+                ((DataChangedListener)listeners.get(0)).dataChanged(type, index);
+                return;
+            }
+            DataChangedListener[] array;
+            synchronized(this) {
+                array = new DataChangedListener[listeners.size()];
+                int alen = array.length;
+                for(int iter = 0 ; iter < alen ; iter++) {
+                    array[iter] = (DataChangedListener)listeners.get(iter);
+                }
+            }
+            int alen = array.length;
+            for(int iter = 0 ; iter < alen ; iter++) {
+                array[iter].dataChanged(type, index);
+            }
+        }
+    }
+
+    private static long measureLegacy(int listenerCount, int events) {
+        LegacyDispatcher d = new LegacyDispatcher();
+        for(int iter = 0 ; iter < listenerCount ; iter++) {
+            d.addListener(new ActionProxy());
+        }
+        ActionEvent ev = new ActionEvent(d);
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 8 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < events ; iter++) {
+                d.fireActionEvent(ev);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    private static long measureCopyOnWrite(int listenerCount, int events) {
+        EventDispatcher d = new EventDispatcher();
+        for(int iter = 0 ; iter < listenerCount ; iter++) {
+            d.addListener(new ActionProxy());
+        }
+        ActionEvent ev = new ActionEvent(d);
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 8 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < events ; iter++) {
+                d.fireActionEvent(ev);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    private static long measureLegacyData(int listenerCount, int events) {
+        LegacyDispatcher d = new LegacyDispatcher();
+        for(int iter = 0 ; iter < listenerCount ; iter++) {
+            d.addListener(new DataProxy());
+        }
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 8 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < events ; iter++) {
+                d.fireDataChangeEvent(iter, DataChangedListener.CHANGED);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    private static long measureCopyOnWriteData(int listenerCount, int events) {
+        EventDispatcher d = new EventDispatcher();
+        for(int iter = 0 ; iter < listenerCount ; iter++) {
+            d.addListener(new DataProxy());
+        }
+        long best = Long.MAX_VALUE;
+        for(int round = 0 ; round < 8 ; round++) {
+            long time = System.nanoTime();
+            for(int iter = 0 ; iter < events ; iter++) {
+                d.fireDataChangeEvent(iter, DataChangedListener.CHANGED);
+            }
+            best = Math.min(best, System.nanoTime() - time);
+        }
+        return best;
+    }
+
+    /**
+     * Distinct listener instances since the dispatcher ignores duplicates
+     */
+    private static class ActionProxy implements ActionListener {
+        public void actionPerformed(ActionEvent evt) {
+            ACTION.actionPerformed(evt);
+        }
+    }
+
+    private static class DataProxy implements DataChangedListener {
+        public void dataChanged(int type, int index) {
+            DATA.dataChanged(type, index);
+        }
+    }
+
+    private static String format(long nanos, int events) {
+        return (nanos / 1000000.0) + "ms (" + (long)(events * 1000000000.0 / nanos) + " events/sec)";
+    }
+
+    public static void main(String[] argv) throws Exception {
+        final int events = argv.length > 0 ? Integer.parseInt(argv[0]) : 200000;
+        Display.init(new java.awt.Container());
+
+        // the dispatcher only fires synchronously on the EDT
+        Display.getInstance().callSeriallyAndWait(new Runnable() {
+            public void run() {
+                int[] counts = {1, 10, 100};
+                for(int count : counts) {
+                    System.out.println(count + " listeners, " + events + " action events");
+                    System.out.println("  legacy:        " + format(measureLegacy(count, events), events));
+                    System.out.println("  copy on write: " + format(measureCopyOnWrite(count, events), events));
+                    System.out.println(count + " listeners, " + events + " data change events");
+                    System.out.println("  legacy:        " + format(measureLegacyData(count, events), events));
+                    System.out.println("  copy on write: " + format(measureCopyOnWriteData(count, events), events));
+                }
+                System.out.println("checksum " + counter);
+            }
+        });
+        System.exit(0);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.util.regex;
+
+/**
+ * Measures the throughput of {@link RE#match(java.lang.String, int)}, {@link RE#split(java.lang.String)} and
+ * {@link RE#subst(java.lang.String, java.lang.String)} over a large generated log and the cost of constructing
+ * matchers from a pattern string with and without the program cache. Run with:
+ * <pre>java -cp CodenameOne.jar:JavaSE.jar:target/test-classes com.codename1.util.regex.RegexBenchmark [lines]</pre>
+ */
+public class RegexBenchmark {
+    private static final String[] PATTERNS = {
+        "ERROR", 
+        "\\d+ms", 
+        "[a-z]+@[a-z]+\\.com", 
+        "(\\w+)=(\\d+)", 
+        "timeout|refused"
+    };
+
+    static String createLog(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for(int iter = 0 ; iter < lines ; iter++) {
+            sb.append("2017-03-14 12:00:").append(iter % 60).append(iter % 97 == 0 ? " ERROR " : " INFO ")
+                    .append("request id=").append(iter).append(" took ").append(iter % 1000).append("ms user ")
+                    .append("abcdefghijklm".charAt(iter % 13)).append("@example.com");
+            if(iter % 211 == 0) {
+                sb.append(" connection refused");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String elapsed(long start) {
+        return ((System.nanoTime() - start) / 1000000.0) + "ms";
+    }
+
+    private static int countMatches(RE re, String s) {
+        int count = 0;
+        int pos = 0;
+        while(pos < s.length() && re.match(s, pos)) {
+            count++;
+            pos = Math.max(pos + 1, re.getParenEnd(0));
+        }
+        return count;
+    }
+
+    public static void main(String[] argv) throws Exception {
+        int lines = argv.length > 0 ? Integer.parseInt(argv[0]) : 20000;
+        String log = createLog(lines);
+        System.out.println(lines + " lines, " + log.length() + " chars");
+
+        // warm up
+        for(int iter = 0 ; iter < 3 ; iter++) {
+            for(String p : PATTERNS) {
+                RE re = new RE(p);
+                countMatches(re, log);
+                re.split(log);
+                re.subst(log, "-");
+            }
+        }
+
+        for(String p : PATTERNS) {
+            RE re = new RE(p);
+            long time = System.nanoTime();
+            int count = countMatches(re, log);
+            System.out.println("  " + p);
+            System.out.println("    match: " + count + " matches in " + elapsed(time));
+            time = System.nanoTime();
+            int parts = re.split(log).length;
+            System.out.println("    split: " + parts + " parts in " + elapsed(time));
+            time = System.nanoTime();
+            re.subst(log, "-");
+            System.out.println("    subst: " + elapsed(time));
+        }
+
+        int count = 100000;
+        RE.setCacheSize(0);
+        long time = System.nanoTime();
+        for(int iter = 0 ; iter < count ; iter++) {
+            new RE(PATTERNS[iter % PATTERNS.length]).match("user=42");
+        }
+        System.out.println("  " + count + " matchers, compiling every pattern: " + elapsed(time));
+        RE.setCacheSize(64);
+        time = System.nanoTime();
+        for(int iter = 0 ; iter < count ; iter++) {
+            new RE(PATTERNS[iter % PATTERNS.length]).match("user=42");
+        }
+        System.out.println("  " + count + " matchers, cached programs:        " + elapsed(time));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+package com.codename1.tools.translator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Translates an app twice into the same directory and compares the output of the second incremental run with
+ * a clean translation of the same classes. The translator keeps static state so every run is a separate VM.
+ */
+public class TranslationCacheTest {
+    private static final String BASE = "package app;\npublic class Base {\n    public int m() { return 1; }\n}\n";
+    private static final String APP = "package app;\npublic class App {\n" +
+            "    static Base create(boolean sub) { return sub ? (Base)Sub.create() : new Base(); }\n" +
+            "    public static void main(String[] argv) { create(argv.length > 0).m(); }\n}\n";
+    private static final String SUB = "package app;\npublic class Sub%s {\n" +
+            "    static Object create() { return new Sub(); }\n" +
+            "    public int m() { return 2; }\n}\n";
+
+    private final File apiClasses = new File("target/api-classes");
+
+    private static void write(File f, String s) throws IOException {
+        f.getParentFile().mkdirs();
+        OutputStream o = new FileOutputStream(f);
+        try {
+            o.write(s.getBytes("UTF-8"));
+        } finally {
+            o.close();
+        }
+    }
+
+    private File compile(File dir, String sub) throws IOException {
+        File src = new File(dir, "src");
+        write(new File(src, "app/Base.java"), BASE);
+        write(new File(src, "app/App.java"), APP);
+        write(new File(src, "app/Sub.java"), String.format(SUB, sub));
+        File classes = new File(dir, "classes");
+        classes.mkdirs();
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        int result = javac.run(null, null, null, "-nowarn", "-source", "1.8", "-target", "1.8",
+                "-bootclasspath", apiClasses.getAbsolutePath(), "-d", classes.getAbsolutePath(),
+                new File(src, "app/Base.java").getAbsolutePath(), new File(src, "app/App.java").getAbsolutePath(),
+                new File(src, "app/Sub.java").getAbsolutePath());
+        assertEquals("Compiling the test app failed", 0, result);
+        return classes;
+    }
+
+    private static void translate(File classes, File output) throws Exception {
+        output.mkdirs();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ByteCodeTranslator.class.getName(), "ios", new File("target/api-classes").getAbsolutePath() + ";" +
+                classes.getAbsolutePath(), output.getAbsolutePath(), "App", "app.main", "App", "1.0", "ios", "none");
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(new File(output.getParentFile(), output.getName() + ".log"));
+        Process p = pb.start();
+        assertEquals("Translation failed, see " + output + ".log", 0, p.waitFor());
+    }
+
+    private static void listFiles(File dir, String prefix, List<String> result) {
+        File[] files = dir.listFiles();
+        if(files == null) {
+            return;
+        }
+        for(File f : files) {
+            if(f.isDirectory()) {
+                listFiles(f, prefix + f.getName() + "/", result);
+            } else if(!f.getName().equals(TranslationCache.CACHE_FILE_NAME)) {
+                result.add(prefix + f.getName());
+            }
+        }
+    }
+
+    private static void assertSameOutput(File expected, File actual) throws IOException {
+        List<String> expectedFiles = new ArrayList<String>();
+        listFiles(expected, "", expectedFiles);
+        List<String> actualFiles = new ArrayList<String>();
+        listFiles(actual, "", actualFiles);
+        Collections.sort(expectedFiles);
+        Collections.sort(actualFiles);
+        assertEquals(expectedFiles, actualFiles);
+        for(String f : expectedFiles) {
+            assertArrayEquals(f + " differs from a clean translation", Files.readAllBytes(new File(expected, f).toPath()),
+                    Files.readAllBytes(new File(actual, f).toPath()));
+        }
+    }
+
+    /**
+     * A class without subclasses is generated as final with direct calls. Making an existing class extend it
+     * leaves its class file untouched but must still regenerate it so the override is invoked.
+     */
+    @Test
+    public void testNewSubclassRegeneratesBaseClass() throws Exception {
+        assertTrue("The java api must be compiled first", apiClasses.isDirectory());
+        File dir = Files.createTempDirectory("translation-cache").toFile();
+        File before = compile(new File(dir, "before"), "");
+        File after = compile(new File(dir, "after"), " extends Base");
+
+        File incremental = new File(dir, "incremental");
+        translate(before, incremental);
+        translate(after, incremental);
+        File clean = new File(dir, "clean");
+        translate(after, clean);
+        assertSameOutput(new File(clean, "dist/App-src"), new File(incremental, "dist/App-src"));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+package com.codename1.tools.translator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Headless timing harness for the translator. It translates the JavaAPI classes and the core Codename One
+ * classes with a generated main class that references the Display, once on a single thread and once on the
+ * translator thread pool, prints the time of every run and verifies that both runs generated identical
+ * sources. Each translation runs in a separate JVM since the translator keeps its state in static fields.
+ * Run with:
+ * <pre>java -cp ByteCodeTranslator.jar:asm-5.0.3.jar:asm-commons-5.0.3.jar:asm-tree-5.0.3.jar:target/test-classes com.codename1.tools.translator.TranslatorBenchmark
+ * vm/JavaAPI/build/classes CodenameOne/build/classes [Ports/iOSPort/nativeSources] [iterations]</pre>
+ * The number of threads of the parallel run can be set with the translatorThreads system property.
+ */
+public class TranslatorBenchmark {
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2) {
+            System.out.println("We accept the JavaAPI classes directory, the Codename One classes directory and optionally the native sources directory and the number of iterations");
+            System.exit(1);
+            return;
+        }
+        File javaApi = new File(args[0]);
+        File core = new File(args[1]);
+        File nativeSources = args.length > 2 ? new File(args[2]) : null;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int threads = Math.max(2, Parser.getThreadCount());
+
+        File tmp = File.createTempFile("cn1translator", "");
+        tmp.delete();
+        File appClasses = new File(tmp, "app");
+        new File(appClasses, "app").mkdirs();
+        writeFile(new File(appClasses, "app/Main.class"), createMainClass());
+        String sources = javaApi.getAbsolutePath() + ";" + core.getAbsolutePath() + ";" + appClasses.getAbsolutePath();
+        if(nativeSources != null) {
+            sources += ";" + nativeSources.getAbsolutePath();
+        }
+
+        File serial = null;
+        File parallel = null;
+        long serialTotal = 0;
+        long parallelTotal = 0;
+        for(int iter = 0 ; iter < iterations ; iter++) {
+            File out = new File(tmp, "serial" + iter);
+            long time = translate(sources, out, 1);
+            System.out.println("1 thread:   " + time + "ms");
+            serialTotal += time;
+            if(serial == null) {
+                serial = out;
+            }
+
+            out = new File(tmp, "parallel" + iter);
+            time = translate(sources, out, threads);
+            System.out.println(threads + " threads: " + time + "ms");
+            parallelTotal += time;
+            if(parallel == null) {
+                parallel = out;
+            }
+        }
+        System.out.println("Average 1 thread: " + (serialTotal / iterations) + "ms, " + threads + " threads: " + (parallelTotal / iterations) + "ms");
+
+        List<String> differences = new ArrayList<String>();
+        compare(new File(serial, "dist"), new File(parallel, "dist"), "", differences);
+        if(differences.size() > 0) {
+            System.out.println("The outputs differ, see " + tmp.getAbsolutePath());
+            for(String s : differences) {
+                System.out.println("  " + s);
+            }
+            System.exit(4);
+            return;
+        }
+        System.out.println("The outputs are identical");
+        delete(tmp);
+    }
+
+    /**
+     * Generates a main class that invokes Display.getInstance() so the core classes are reachable
+     * and aren't culled by the optimizer
+     */
+    private static byte[] createMainClass() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "app/Main", null, "java/lang/Object", null);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null);
+        mv.visitCode();
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, "com/codename1/ui/Display", "getInstance", "()Lcom/codename1/ui/Display;", false);
+        mv.visitInsn(Opcodes.POP);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Translates the sources in a new JVM and returns the time it took in milliseconds
+     */
+    private static long translate(String sources, File out, int threads) throws Exception {
+        out.mkdirs();
+        File java = new File(new File(System.getProperty("java.home"), "bin"), "java");
+        ProcessBuilder pb = new ProcessBuilder(java.getAbsolutePath(),
+                "-DtranslatorThreads=" + threads,
+                "-DincrementalTranslation=false",
+                "-cp", System.getProperty("java.class.path"),
+                ByteCodeTranslator.class.getName(),
+                "ios", sources, out.getAbsolutePath(), "App", "app", "App", "1.0", "ios", "none");
+        pb.redirectErrorStream(true);
+        long time = System.currentTimeMillis();
+        Process p = pb.start();
+
+        // the output is kept in a log file next to the output directory
+        File log = new File(out.getParentFile(), out.getName() + ".log");
+        ByteCodeTranslator.copy(p.getInputStream(), new FileOutputStream(log));
+        int result = p.waitFor();
+        time = System.currentTimeMillis() - time;
+        if(result != 0) {
+            throw new IOException("Translation failed with exit code " + result + ", see " + log.getAbsolutePath());
+        }
+        return time;
+    }
+
+    private static void compare(File a, File b, String path, List<String> differences) throws IOException {
+        String[] aList = list(a);
+        String[] bList = list(b);
+        if(!Arrays.equals(aList, bList)) {
+            differences.add(path + " contains different files");
+        }
+        for(String s : aList) {
+            File fa = new File(a, s);
+            File fb = new File(b, s);
+            if(!fb.exists()) {
+                continue;
+            }
+            if(fa.isDirectory()) {
+                compare(fa, fb, path + "/" + s, differences);
+            } else {
+                if(!Arrays.equals(readFile(fa), readFile(fb))) {
+                    differences.add(path + "/" + s);
+                }
+            }
+        }
+    }
+
+    private static String[] list(File dir) {
+        List<String> response = new ArrayList<String>();
+        String[] files = dir.list();
+        if(files != null) {
+            for(String s : files) {
+                if(!s.equals(TranslationCache.CACHE_FILE_NAME)) {
+                    response.add(s);
+                }
+            }
+        }
+        String[] arr = new String[response.size()];
+        response.toArray(arr);
+        Arrays.sort(arr);
+        return arr;
+    }
+
+    private static byte[] readFile(File f) throws IOException {
+        byte[] data = new byte[(int)f.length()];
+        FileInputStream fi = new FileInputStream(f);
+        try {
+            int offset = 0;
+            while(offset < data.length) {
+                int size = fi.read(data, offset, data.length - offset);
+                if(size < 0) {
+                    break;
+                }
+                offset += size;
+            }
+        } finally {
+            fi.close();
+        }
+        return data;
+    }
+
+    private static void writeFile(File f, byte[] data) throws IOException {
+        FileOutputStream fo = new FileOutputStream(f);
+        try {
+            fo.write(data);
+        } finally {
+            fo.close();
+        }
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if(files != null) {
+            for(File c : files) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+}
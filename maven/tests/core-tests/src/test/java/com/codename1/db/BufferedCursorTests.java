@@ -0,0 +1,173 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.db;
+
+import com.codename1.testing.AbstractTest;
+import java.io.IOException;
+
+/**
+ * Verifies that a buffered cursor doesn't lose the last page when the number of rows is
+ * an exact multiple of the page size.
+ */
+public class BufferedCursorTests extends AbstractTest {
+    private static final int PAGE_SIZE = 4;
+
+    @Override
+    public boolean runTest() throws Exception {
+        for(int rows = 0 ; rows <= 2 * PAGE_SIZE + 1 ; rows++) {
+            testIterate(rows);
+            testLast(rows);
+            testPosition(rows);
+        }
+        testFetchAll(PAGE_SIZE);
+        return true;
+    }
+
+    private BufferedCursor create(int rows) throws IOException {
+        BufferedCursor c = new BufferedCursor(null, new RangeCursor(rows), new int[] {BufferedCursor.TYPE_LONG}, PAGE_SIZE);
+        c.fetchNextPage();
+        return c;
+    }
+
+    private void testIterate(int rows) throws IOException {
+        BufferedCursor c = create(rows);
+        int count = 0;
+        while(c.next()) {
+            assertEqual(count, c.getRow().getInteger(0));
+            count++;
+        }
+        assertEqual(rows, count);
+        assertTrue(!c.next(), "next() should keep returning false after the last row with " + rows + " rows");
+        c.close();
+    }
+
+    private void testLast(int rows) throws IOException {
+        BufferedCursor c = create(rows);
+        if(rows == 0) {
+            assertTrue(!c.last(), "last() should fail on an empty result");
+        } else {
+            assertTrue(c.last(), "last() failed with " + rows + " rows");
+            assertEqual(rows - 1, c.getPosition());
+            assertEqual(rows - 1, c.getRow().getInteger(0));
+            assertTrue(!c.next(), "next() after last() should fail with " + rows + " rows");
+        }
+        c.close();
+    }
+
+    private void testPosition(int rows) throws IOException {
+        BufferedCursor c = create(rows);
+        for(int iter = 0 ; iter < rows ; iter++) {
+            assertTrue(c.position(iter), "position(" + iter + ") failed with " + rows + " rows");
+            assertEqual(iter, c.getRow().getInteger(0));
+        }
+        assertTrue(!c.position(rows), "position past the end should fail with " + rows + " rows");
+        if(rows > 0) {
+            assertTrue(c.position(rows - 1), "the last row was lost after moving past the end with " + rows + " rows");
+            assertEqual(rows - 1, c.getRow().getInteger(0));
+        }
+        c.close();
+    }
+
+    private void testFetchAll(int rows) throws IOException {
+        BufferedCursor c = new BufferedCursor(null, new RangeCursor(rows), new int[] {BufferedCursor.TYPE_LONG}, 0);
+        c.fetchAll();
+        assertEqual(rows, c.getBufferedRowCount());
+        assertTrue(c.last(), "last() failed after fetchAll()");
+        assertEqual(rows - 1, c.getRow().getInteger(0));
+        c.close();
+    }
+
+    /**
+     * A forward only cursor with a single column holding the row number
+     */
+    static class RangeCursor implements Cursor {
+        private final int rows;
+        private int position = -1;
+
+        RangeCursor(int rows) {
+            this.rows = rows;
+        }
+
+        public boolean first() throws IOException {
+            return position(0);
+        }
+
+        public boolean last() throws IOException {
+            return position(rows - 1);
+        }
+
+        public boolean next() throws IOException {
+            if(position < rows) {
+                position++;
+            }
+            return position < rows;
+        }
+
+        public boolean prev() throws IOException {
+            return position(position - 1);
+        }
+
+        public int getColumnIndex(String columnName) throws IOException {
+            return "id".equalsIgnoreCase(columnName) ? 0 : -1;
+        }
+
+        public String getColumnName(int columnIndex) throws IOException {
+            return "id";
+        }
+
+        public int getColumnCount() throws IOException {
+            return 1;
+        }
+
+        public int getPosition() throws IOException {
+            return position;
+        }
+
+        public boolean position(int row) throws IOException {
+            if(row < 0 || row >= rows) {
+                return false;
+            }
+            position = row;
+            return true;
+        }
+
+        public void close() throws IOException {
+        }
+
+        public Row getRow() throws IOException {
+            final int value = position;
+            return new Row() {
+                public byte[] getBlob(int index) throws IOException {
+                    return null;
+                }
+
+                public double getDouble(int index) throws IOException {
+                    return value;
+                }
+
+                public float getFloat(int index) throws IOException {
+                    return value;
+                }
+
+                public int getInteger(int index) throws IOException {
+                    return value;
+                }
+
+                public long getLong(int index) throws IOException {
+                    return value;
+                }
+
+                public short getShort(int index) throws IOException {
+                    return (short)value;
+                }
+
+                public String getString(int index) throws IOException {
+                    return String.valueOf(value);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.io;
+
+import com.codename1.properties.ListProperty;
+import com.codename1.properties.LongProperty;
+import com.codename1.properties.Property;
+import com.codename1.properties.PropertyBusinessObject;
+import com.codename1.properties.PropertyIndex;
+import com.codename1.testing.AbstractTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the compact object format round trips the supported types and that objects
+ * written in the previous format can still be read.
+ */
+public class CompactObjectTests extends AbstractTest {
+    public static class Item implements PropertyBusinessObject {
+        public final LongProperty<Item> id = new LongProperty<Item>("id");
+        public final Property<String, Item> name = new Property<String, Item>("name");
+        public final ListProperty<String, Item> tags = new ListProperty<String, Item>("tags");
+        private final PropertyIndex idx = new PropertyIndex(this, "CompactItem", id, name, tags);
+
+        @Override
+        public PropertyIndex getPropertyIndex() {
+            return idx;
+        }
+    }
+
+    @Override
+    public boolean runTest() throws Exception {
+        new Item().getPropertyIndex().registerExternalizable();
+        testRoundTrip();
+        testPreviousFormat();
+        testStreaming();
+        return true;
+    }
+
+    private List<Item> createItems(int count) {
+        List<Item> items = new ArrayList<Item>();
+        for(int iter = 0 ; iter < count ; iter++) {
+            Item i = new Item();
+            i.id.set((long)iter * -1000003L);
+            i.name.set("Item é中 " + iter);
+            i.tags.add("t" + iter);
+            items.add(i);
+        }
+        return items;
+    }
+
+    private Object read(byte[] data) throws Exception {
+        return Util.readObject(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private void testRoundTrip() throws Exception {
+        Map<String, Object> m = new HashMap<String, Object>();
+        m.put("items", createItems(100));
+        m.put("ints", new int[] {Integer.MIN_VALUE, -1, 0, 300, Integer.MAX_VALUE});
+        m.put("doubles", new double[] {-1.5, 0, Double.MAX_VALUE});
+        m.put("long", new Long(Long.MIN_VALUE));
+        m.put("bool", Boolean.TRUE);
+        m.put("null", null);
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        Util.writeCompactObject(m, new DataOutputStream(compact));
+        ByteArrayOutputStream regular = new ByteArrayOutputStream();
+        Util.writeObject(m, new DataOutputStream(regular));
+        assertTrue(compact.size() < regular.size() / 2, "Compact output should be much smaller: " + compact.size() + " vs " + regular.size());
+
+        Map r = (Map)read(compact.toByteArray());
+        List items = (List)r.get("items");
+        assertEqual(100, items.size());
+        Item last = (Item)items.get(99);
+        assertEqual(99L * -1000003L, last.id.getLong());
+        assertEqual("Item é中 99", last.name.get());
+        assertEqual("t99", last.tags.get(0));
+        assertArrayEqual(new int[] {Integer.MIN_VALUE, -1, 0, 300, Integer.MAX_VALUE}, (int[])r.get("ints"));
+        assertArrayEqual(new double[] {-1.5, 0, Double.MAX_VALUE}, (double[])r.get("doubles"), 0);
+        assertEqual(new Long(Long.MIN_VALUE), r.get("long"));
+        assertEqual(Boolean.TRUE, r.get("bool"));
+        assertTrue(r.containsKey("null") && r.get("null") == null, "Null values should be preserved");
+    }
+
+    private void testPreviousFormat() throws Exception {
+        ByteArrayOutputStream regular = new ByteArrayOutputStream();
+        Util.writeObject(createItems(3), new DataOutputStream(regular));
+        List items = (List)read(regular.toByteArray());
+        assertEqual(3, items.size());
+        assertEqual("Item é中 2", ((Item)items.get(2)).name.get());
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        Util.writeObject(null, new DataOutputStream(empty));
+        assertNull(read(empty.toByteArray()));
+    }
+
+    private void testStreaming() throws Exception {
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        CompactDataOutputStream out = new CompactDataOutputStream(bo);
+        for(Item i : createItems(5)) {
+            out.writeObject(i);
+        }
+        out.flush();
+        CompactDataInputStream in = new CompactDataInputStream(new ByteArrayInputStream(bo.toByteArray()));
+        for(int iter = 0 ; iter < 5 ; iter++) {
+            assertEqual(new Long((long)iter * -1000003L), ((Item)in.readObject()).id.get());
+        }
+    }
+
+}
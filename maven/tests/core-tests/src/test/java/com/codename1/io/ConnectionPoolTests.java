@@ -0,0 +1,93 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.io;
+
+import com.codename1.testing.AbstractTest;
+import com.codename1.ui.events.ActionListener;
+import com.codename1.util.AsyncResource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Verifies the per host connection limit against a local HTTP server.
+ */
+public class ConnectionPoolTests extends AbstractTest {
+    private int active;
+    private int maxActive;
+    private int poolEvents;
+
+    @Override
+    public boolean runTest() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                synchronized(ConnectionPoolTests.this) {
+                    active++;
+                    maxActive = Math.max(maxActive, active);
+                }
+                try {
+                    Thread.sleep(100);
+                } catch(InterruptedException err) {
+                }
+                byte[] response = "ok".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(response);
+                os.close();
+                synchronized(ConnectionPoolTests.this) {
+                    active--;
+                }
+            }
+        });
+        server.start();
+        NetworkManager nm = NetworkManager.getInstance();
+        int threads = nm.getThreadCount();
+        ActionListener<NetworkEvent> poolListener = new ActionListener<NetworkEvent>() {
+            @Override
+            public void actionPerformed(NetworkEvent evt) {
+                if(evt.getProgressType() == NetworkEvent.PROGRESS_TYPE_CONNECTION_POOL) {
+                    synchronized(ConnectionPoolTests.this) {
+                        poolEvents++;
+                    }
+                }
+            }
+        };
+        try {
+            nm.updateThreadCount(4);
+            nm.setMaxConnectionsPerHost(2);
+            nm.addProgressListener(poolListener);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            List<AsyncResource<ConnectionRequest>> results = new ArrayList<AsyncResource<ConnectionRequest>>();
+            for(int iter = 0 ; iter < 8 ; iter++) {
+                ConnectionRequest req = new ConnectionRequest(url + iter, false);
+                results.add(nm.addToQueueAsync(req));
+            }
+            for(AsyncResource<ConnectionRequest> r : results) {
+                assertEqual(200, r.get(10000).getResponseCode());
+            }
+            synchronized(this) {
+                assertTrue(maxActive <= 2, "Expected at most 2 concurrent connections to the host but got " + maxActive);
+                assertTrue(poolEvents > 0, "Expected connection pool events");
+            }
+        } finally {
+            nm.removeProgressListener(poolListener);
+            nm.setMaxConnectionsPerHost(0);
+            nm.updateThreadCount(threads);
+            server.stop(0);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.io;
+
+import com.codename1.io.gzip.GZIPInputStream;
+import com.codename1.io.gzip.GZIPOutputStream;
+import com.codename1.testing.AbstractTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Verifies the streams returned by the implementation are compatible with the portable gzip 
+ * streams and that inflaters reusing pooled windows decompress correctly.
+ */
+public class GZIPStreamTests extends AbstractTest {
+    @Override
+    public boolean runTest() throws Exception {
+        testCompatibility(true);
+        testCompatibility(false);
+        testPooledWindows();
+        return true;
+    }
+
+    private byte[] createData(int seed) throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        for(int iter = 0 ; iter < 2000 ; iter++) {
+            sb.append("{\"id\":").append(iter * seed).append(",\"name\":\"Item ").append(iter % (seed + 3)).append("\"},");
+        }
+        sb.append("{}]");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    private byte[] deflate(byte[] data, boolean gzip, boolean portable) throws Exception {
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        OutputStream o;
+        if(portable) {
+            o = gzip ? new GZIPOutputStream(bo) : new com.codename1.io.gzip.DeflaterOutputStream(bo);
+        } else {
+            o = Util.openDeflaterOutputStream(bo, gzip);
+        }
+        o.write(data);
+        o.close();
+        return bo.toByteArray();
+    }
+
+    private byte[] inflate(byte[] data, boolean gzip, boolean portable) throws Exception {
+        InputStream i;
+        if(portable) {
+            i = gzip ? new GZIPInputStream(new ByteArrayInputStream(data)) : new com.codename1.io.gzip.InflaterInputStream(new ByteArrayInputStream(data));
+        } else {
+            i = Util.openInflaterInputStream(new ByteArrayInputStream(data), gzip);
+        }
+        byte[] result = Util.readInputStream(i);
+        i.close();
+        return result;
+    }
+
+    private void testCompatibility(boolean gzip) throws Exception {
+        byte[] data = createData(7);
+        assertArrayEqual(data, inflate(deflate(data, gzip, false), gzip, true), "Portable stream should read the implementation stream");
+        assertArrayEqual(data, inflate(deflate(data, gzip, true), gzip, false), "Implementation stream should read the portable stream");
+    }
+
+    private void testPooledWindows() throws Exception {
+        for(int iter = 0 ; iter < 10 ; iter++) {
+            byte[] data = createData(iter + 1);
+            assertArrayEqual(data, inflate(deflate(data, true, true), true, true), "Inflater " + iter + " returned wrong data");
+        }
+    }
+}
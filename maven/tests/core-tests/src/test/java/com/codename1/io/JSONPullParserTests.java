@@ -0,0 +1,113 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.io;
+
+import com.codename1.properties.IntProperty;
+import com.codename1.properties.ListProperty;
+import com.codename1.properties.Property;
+import com.codename1.properties.PropertyBusinessObject;
+import com.codename1.properties.PropertyIndex;
+import com.codename1.testing.AbstractTest;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the streaming JSON parser produces the same data as the JSONParser and binds
+ * property business objects directly.
+ */
+public class JSONPullParserTests extends AbstractTest {
+    private static final String JSON = "{\"name\":\"a\\u00e9\\\"b\",\"count\":12,\"price\":-3.25e1,"
+            + "\"unknown\":{\"x\":[1,2,{\"y\":null}]},\"tags\":[\"x\",\"y\"],"
+            + "\"child\":{\"name\":\"kid\",\"count\":1}}";
+
+    public static class Item implements PropertyBusinessObject {
+        public final Property<String, Item> name = new Property<String, Item>("name");
+        public final IntProperty<Item> count = new IntProperty<Item>("count");
+        public final ListProperty<String, Item> tags = new ListProperty<String, Item>("tags");
+        public final Property<Item, Item> child = new Property<Item, Item>("child", Item.class);
+        private final PropertyIndex idx = new PropertyIndex(this, "Item", name, count, tags, child);
+
+        @Override
+        public PropertyIndex getPropertyIndex() {
+            return idx;
+        }
+    }
+
+    @Override
+    public boolean runTest() throws Exception {
+        testEvents();
+        testLongs();
+        testReadValue();
+        testBinding();
+        return true;
+    }
+
+    private void testEvents() throws Exception {
+        JSONPullParser p = new JSONPullParser(new StringReader("[1, -2.5, \"s\", true, null, {\"k\":[]}]"), 16);
+        assertEqual(JSONPullParser.START_ARRAY, p.next());
+        assertEqual(JSONPullParser.NUMBER, p.next());
+        assertTrue(p.isIntegral(), "1 should be integral");
+        assertEqual(1L, p.getLong());
+        assertEqual(JSONPullParser.NUMBER, p.next());
+        assertEqual(-2.5, p.getDouble());
+        assertEqual(JSONPullParser.STRING, p.next());
+        assertEqual("s", p.getString());
+        assertEqual(JSONPullParser.BOOLEAN, p.next());
+        assertTrue(p.getBoolean(), "Expected true");
+        assertEqual(JSONPullParser.NULL, p.next());
+        assertEqual(JSONPullParser.START_OBJECT, p.next());
+        assertEqual(JSONPullParser.KEY, p.next());
+        assertEqual("k", p.getString());
+        p.skipValue();
+        assertEqual(JSONPullParser.END_ARRAY, p.getEventType());
+        assertEqual(JSONPullParser.END_OBJECT, p.next());
+        assertEqual(JSONPullParser.END_ARRAY, p.next());
+        assertEqual(JSONPullParser.END_DOCUMENT, p.next());
+    }
+
+    private void testLongs() throws Exception {
+        JSONPullParser p = new JSONPullParser(new StringReader("[1000000000000000000, 9223372036854775807, "
+                + "-9223372036854775808, 9223372036854775808]"));
+        assertEqual(JSONPullParser.START_ARRAY, p.next());
+        long[] expected = {1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for(long l : expected) {
+            assertEqual(JSONPullParser.NUMBER, p.next());
+            assertTrue(p.isIntegral(), l + " should be integral");
+            assertEqual(l, p.getLong());
+        }
+        assertEqual(JSONPullParser.NUMBER, p.next());
+        assertTrue(!p.isIntegral(), "Values larger than a long shouldn't be integral");
+        assertEqual(9223372036854775808.0, p.getDouble());
+    }
+
+    private void testReadValue() throws Exception {
+        boolean useLongs = JSONParser.isUseLongs();
+        JSONParser.setUseLongs(true);
+        try {
+            Map<String, Object> expected = new JSONParser().parseJSON(new StringReader(JSON));
+            JSONPullParser p = new JSONPullParser(new StringReader(JSON), 16);
+            p.next();
+            assertEqual(expected.toString(), p.readValue().toString());
+        } finally {
+            JSONParser.setUseLongs(useLongs);
+        }
+    }
+
+    private void testBinding() throws Exception {
+        Item i = new Item();
+        i.getPropertyIndex().populateFromJSON(new JSONPullParser(new StringReader(JSON)));
+        assertEqual("a\u00e9\"b", i.name.get());
+        assertEqual(12, i.count.getInt());
+        assertEqual(2, i.tags.size());
+        assertEqual("kid", i.child.get().name.get());
+
+        List<Item> l = new Item().getPropertyIndex().loadJSONList(new JSONPullParser(new StringReader("[" + JSON + "," + JSON + "]")));
+        assertEqual(2, l.size());
+        assertEqual(1, l.get(1).child.get().count.getInt());
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.codename1.io;
+
+import com.codename1.testing.AbstractTest;
+import com.codename1.ui.events.ActionListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+/**
+ * Uploads a file in chunks to a local HTTP server that fails one of the chunks and verifies the
+ * server receives the whole file with the declared content length of every request.
+ */
+public class ResumableUploadTests extends AbstractTest {
+    private static final int FILE_SIZE = 300000;
+    private final byte[] received = new byte[FILE_SIZE];
+    private int receivedLength;
+    private int requests;
+    private String error;
+    private int progressEvents;
+
+    @Override
+    public boolean runTest() throws Exception {
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        String path = fs.getAppHomePath() + "ResumableUploadTests.bin";
+        byte[] file = new byte[FILE_SIZE];
+        for(int iter = 0 ; iter < file.length ; iter++) {
+            file[iter] = (byte)(iter * 31);
+        }
+        OutputStream fo = fs.openOutputStream(path);
+        fo.write(file);
+        fo.close();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleChunk(exchange);
+            }
+        });
+        server.start();
+        ActionListener<NetworkEvent> progress = new ActionListener<NetworkEvent>() {
+            @Override
+            public void actionPerformed(NetworkEvent evt) {
+                if(evt.getProgressType() == NetworkEvent.PROGRESS_TYPE_OUTPUT) {
+                    progressEvents++;
+                }
+            }
+        };
+        NetworkManager.getInstance().addProgressListener(progress);
+        try {
+            ResumableUpload upload = new ResumableUpload("http://127.0.0.1:" + server.getAddress().getPort() + "/", 
+                    "file", path, "application/octet-stream") {
+                @Override
+                protected void initRequest(MultipartRequest request) {
+                    request.addArgumentNoEncoding("note", "café & 中");
+                }
+            };
+            upload.setChunkSize(64 * 1024);
+            upload.setMaxRetries(0);
+            
+            // the server rejects the second chunk so the first attempt stops after one chunk
+            assertFalse(upload.upload(), "Expected the upload to stop at the failing chunk");
+            assertEqual(64 * 1024L, upload.getOffset());
+            assertTrue(upload.upload(), "Expected the resumed upload to complete");
+            assertTrue(upload.isComplete());
+            synchronized(this) {
+                assertNull(error, error);
+                assertEqual(FILE_SIZE, receivedLength);
+                assertArrayEqual(file, received);
+                assertEqual(6, requests);
+            }
+            assertTrue(progressEvents > 0, "Expected upload progress events");
+        } finally {
+            NetworkManager.getInstance().removeProgressListener(progress);
+            server.stop(0);
+            fs.delete(path);
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        for(int iter = from ; iter <= data.length - pattern.length ; iter++) {
+            int match = 0;
+            while(match < pattern.length && data[iter + match] == pattern[match]) {
+                match++;
+            }
+            if(match == pattern.length) {
+                return iter;
+            }
+        }
+        return -1;
+    }
+
+    private void handleChunk(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        InputStream in = exchange.getRequestBody();
+        Util.copy(in, bo);
+        byte[] body = bo.toByteArray();
+        synchronized(this) {
+            requests++;
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if(length == null || Integer.parseInt(length) != body.length) {
+                error = "Content-Length " + length + " doesn't match the body length " + body.length;
+            }
+            if(requests == 2) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Content-Range");
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String boundary = contentType.substring(contentType.indexOf("boundary=") + 9);
+            int start = indexOf(body, "Content-Transfer-Encoding: binary\r\n\r\n".getBytes("UTF-8"), 0) + 37;
+            int end = indexOf(body, ("\r\n--" + boundary + "--\r\n").getBytes("UTF-8"), start);
+            if(indexOf(body, "café".getBytes("UTF-8"), 0) < 0) {
+                error = "Missing text argument";
+            }
+            int offset = Integer.parseInt(range.substring(6, range.indexOf('-')));
+            System.arraycopy(body, start, received, offset, end - start);
+            receivedLength = Math.max(receivedLength, offset + end - start);
+            exchange.getResponseHeaders().add("Range", "bytes=0-" + (receivedLength - 1));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        }
+    }
+
+}
@@ -87,6 +87,7 @@ public class ByteCodeClass {
     private String sourceFile;
 
     private int classOffset;
+    private String contentDigest;
     
     private boolean marked;
     private static ByteCodeClass mainClass;
@@ -141,6 +142,24 @@ public class ByteCodeClass {
     public String getOriginalClassName() {
         return originalClassName;
     }
+    /**
+     * Hash of the class file this class was parsed from, used by the translation cache
+     */
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    public void setContentDigest(String contentDigest) {
+        this.contentDigest = contentDigest;
+    }
+
+    /**
+     * Names of the classes and interfaces this class references
+     */
+    public Set<String> getDependsClassesInterfaces() {
+        return dependsClassesInterfaces;
+    }
+
     static ByteCodeClass getMainClass() {
 		return mainClass;
     }
@@ -148,13 +167,19 @@ public class ByteCodeClass {
     static void setSaveUnitTests(boolean save) {
         saveUnitTests = save;
     }
+
+    static boolean isSaveUnitTests() {
+        return saveUnitTests;
+    }
     
     public void addMethod(BytecodeMethod m) {
         if(m.isMain()) {
-            if (mainClass == null) {
-                mainClass = this;
-            } else {
-                throw new RuntimeException("Multiple main classes: "+mainClass.clsName+" and "+this.clsName);
+            synchronized(ByteCodeClass.class) {
+                if (mainClass == null) {
+                    mainClass = this;
+                } else {
+                    throw new RuntimeException("Multiple main classes: "+mainClass.clsName+" and "+this.clsName);
+                }
             }
         }
         m.setSourceFile(sourceFile);
@@ -172,7 +197,17 @@ public class ByteCodeClass {
     }
     
     public void addWritableField(String field) {
-        writableFields.add(field);
+        synchronized(writableFields) {
+            writableFields.add(field);
+        }
+    }
+
+    static Set<String> getWritableFields() {
+        return writableFields;
+    }
+
+    static Set<String> getArrayTypes() {
+        return arrayTypes;
     }
 
     /**
@@ -427,7 +462,7 @@ public class ByteCodeClass {
         return false;
     }
     
-    public static void addArrayType(String type, int dimenstions) {
+    public static synchronized void addArrayType(String type, int dimenstions) {
         String arr = dimenstions + "_" + type;
         if(!arrayTypes.contains(arr)) {
             arrayTypes.add(arr);
@@ -1099,7 +1134,7 @@ public class ByteCodeClass {
         return b.toString();
     }
 
-    private boolean doesImplement(ByteCodeClass interfaceObj) {
+    boolean doesImplement(ByteCodeClass interfaceObj) {
         if(baseInterfacesObject != null) {
             if(baseInterfacesObject.contains(interfaceObj)) {
                 return true;
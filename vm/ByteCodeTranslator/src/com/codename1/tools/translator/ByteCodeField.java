@@ -50,9 +50,7 @@ public class ByteCodeField {
         this.clsName = clsName;
         this.value = value;
         privateField = (access & Opcodes.ACC_PRIVATE) == Opcodes.ACC_PRIVATE;
-        if(value != null && value instanceof String) {
-            Parser.addToConstantPool((String)value);
-        }
+        // string values are added to the constant pool by the parser in class order since classes are parsed concurrently
         staticField = (access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
         finalField = (access & Opcodes.ACC_FINAL) == Opcodes.ACC_FINAL;
         fieldName = name.replace('$', '_');
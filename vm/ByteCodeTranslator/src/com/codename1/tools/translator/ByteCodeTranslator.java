@@ -27,7 +27,6 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
@@ -72,12 +71,14 @@ public class ByteCodeTranslator {
      * Recursively parses the files in the hierarchy to the output directory
      */
     void execute(File[] sourceDirs, File outputDir) throws Exception {
+        List<File> classFiles = new ArrayList<File>();
         for(File f : sourceDirs) {
-            execute(f, outputDir);
+            execute(f, outputDir, classFiles);
         }
+        Parser.parse(classFiles);
     }
     
-    void execute(File sourceDir, File outputDir) throws Exception {
+    private void execute(File sourceDir, File outputDir, List<File> classFiles) throws Exception {
         File[] directoryList = sourceDir.listFiles(new FileFilter() {
             @Override
             public boolean accept(File pathname) {
@@ -99,11 +100,11 @@ public class ByteCodeTranslator {
                     continue;
                 }
                 if(f.getName().endsWith(".class")) {
-                    Parser.parse(f);
+                    classFiles.add(f);
                 } else {
                     if(!f.isDirectory()) {
                         // copy the file to the dest dir
-                        copy(new FileInputStream(f), new FileOutputStream(new File(outputDir, f.getName())));
+                        TranslationCache.copyIfChanged(new FileInputStream(f), new File(outputDir, f.getName()));
                     }
                 }
             }
@@ -114,7 +115,7 @@ public class ByteCodeTranslator {
                     copyDir(f, outputDir);
                     continue;
                 }
-                execute(f, outputDir);
+                execute(f, outputDir, classFiles);
             }
         }
     }
@@ -127,7 +128,7 @@ public class ByteCodeTranslator {
             if(f.isDirectory()) {
                 copyDir(f, destFile);
             } else {
-                copy(new FileInputStream(f), new FileOutputStream(new File(destFile, f.getName())));
+                TranslationCache.copyIfChanged(new FileInputStream(f), new File(destFile, f.getName()));
             }
         }
     }
@@ -218,13 +219,13 @@ public class ByteCodeTranslator {
             launchImageLaunchimage.mkdirs();
             //cleanDir(launchImageLaunchimage);
             
-            copy(ByteCodeTranslator.class.getResourceAsStream("/LaunchImages.json"), new FileOutputStream(new File(launchImageLaunchimage, "Contents.json")));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/LaunchImages.json"), new File(launchImageLaunchimage, "Contents.json"));
 
             File appIconAppiconset = new File(imagesXcassets, "AppIcon.appiconset");
             appIconAppiconset.mkdirs();
             //cleanDir(appIconAppiconset);
 
-            copy(ByteCodeTranslator.class.getResourceAsStream("/Icons.json"), new FileOutputStream(new File(appIconAppiconset, "Contents.json")));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/Icons.json"), new File(appIconAppiconset, "Contents.json"));
             
             
             File xcproj = new File(root, appName + ".xcodeproj");
@@ -241,42 +242,42 @@ public class ByteCodeTranslator {
             b.execute(sources, srcRoot);
 
             File cn1Globals = new File(srcRoot, "cn1_globals.h");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/cn1_globals.h"), new FileOutputStream(cn1Globals));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/cn1_globals.h"), cn1Globals);
             if (System.getProperty("INCLUDE_NPE_CHECKS", "false").equals("true")) {
                 replaceInFile(cn1Globals, "//#define CN1_INCLUDE_NPE_CHECKS",  "#define CN1_INCLUDE_NPE_CHECKS");
             }
             File cn1GlobalsM = new File(srcRoot, "cn1_globals.m");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/cn1_globals.m"), new FileOutputStream(cn1GlobalsM));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/cn1_globals.m"), cn1GlobalsM);
             File nativeMethods = new File(srcRoot, "nativeMethods.m");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/nativeMethods.m"), new FileOutputStream(nativeMethods));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/nativeMethods.m"), nativeMethods);
 
             if (System.getProperty("USE_RPMALLOC", "false").equals("true")) {
                 File malloc = new File(srcRoot, "malloc.c");
-                copy(ByteCodeTranslator.class.getResourceAsStream("/malloc.c"), new FileOutputStream(malloc));
+                TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/malloc.c"), malloc);
                 File rpmalloc = new File(srcRoot, "rpmalloc.c");
-                copy(ByteCodeTranslator.class.getResourceAsStream("/rpmalloc.c"), new FileOutputStream(rpmalloc));
+                TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/rpmalloc.c"), rpmalloc);
                 File rpmalloch = new File(srcRoot, "rpmalloc.h");
-                copy(ByteCodeTranslator.class.getResourceAsStream("/rpmalloc.h"), new FileOutputStream(rpmalloch));
+                TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/rpmalloc.h"), rpmalloch);
             }
             
             Parser.writeOutput(srcRoot);
             
             File templateInfoPlist = new File(srcRoot, appName + "-Info.plist");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/template/template/template-Info.plist"), new FileOutputStream(templateInfoPlist));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/template/template/template-Info.plist"), templateInfoPlist);
             
             File templatePch = new File(srcRoot, appName + "-Prefix.pch");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/template/template/template-Prefix.pch"), new FileOutputStream(templatePch));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/template/template/template-Prefix.pch"), templatePch);
 
             File xmlvm = new File(srcRoot, "xmlvm.h");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/xmlvm.h"), new FileOutputStream(xmlvm));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/xmlvm.h"), xmlvm);
             
             File projectWorkspaceData = new File(projectXCworkspace, "contents.xcworkspacedata");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/template/template.xcodeproj/project.xcworkspace/contents.xcworkspacedata"), new FileOutputStream(projectWorkspaceData));
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/template/template.xcodeproj/project.xcworkspace/contents.xcworkspacedata"), projectWorkspaceData);
             replaceInFile(projectWorkspaceData, "KitchenSink", appName);
             
             
             File projectPbx = new File(xcproj, "project.pbxproj");
-            copy(ByteCodeTranslator.class.getResourceAsStream("/template/template.xcodeproj/project.pbxproj"), new FileOutputStream(projectPbx));            
+            TranslationCache.copyIfChanged(ByteCodeTranslator.class.getResourceAsStream("/template/template.xcodeproj/project.pbxproj"), projectPbx);            
             
             String[] sourceFiles = srcRoot.list(new FilenameFilter() {
                 @Override
@@ -67,14 +67,14 @@ public class BytecodeMethod implements SignatureSet {
      * @return the acceptStaticOnEquals
      */
     public static boolean isAcceptStaticOnEquals() {
-        return acceptStaticOnEquals;
+        return Boolean.TRUE.equals(acceptStaticOnEquals.get());
     }
 
     /**
      * @param aAcceptStaticOnEquals the acceptStaticOnEquals to set
      */
     public static void setAcceptStaticOnEquals(boolean aAcceptStaticOnEquals) {
-        acceptStaticOnEquals = aAcceptStaticOnEquals;
+        acceptStaticOnEquals.set(aAcceptStaticOnEquals);
     }
     private List<ByteCodeMethodArg> arguments = new ArrayList<ByteCodeMethodArg>();
     private Set<LocalVariable> localVariables = new HashSet<LocalVariable>();
@@ -92,8 +92,10 @@ public class BytecodeMethod implements SignatureSet {
     private String sourceFile;
     private int maxStack;
     private int maxLocals;
-    private static boolean acceptStaticOnEquals;
+    // set while generating the stubs of a class, classes are generated concurrently
+    private static final ThreadLocal<Boolean> acceptStaticOnEquals = new ThreadLocal<Boolean>();
     private int methodOffset;
+    private int labelCount;
     private boolean forceVirtual;
     private boolean virtualOverriden;
     private boolean finalMethod;
@@ -285,6 +287,29 @@ public class BytecodeMethod implements SignatureSet {
         return ((ss==null) ? false : ss.containsSignature(bm));
     }
 
+    /**
+     * Returns the key under which invocations of this method are indexed by the optimizer, this matches
+     * the name and signature comparison performed by {@link #isMethodUsed(com.codename1.tools.translator.BytecodeMethod)}
+     * @return the method name and descriptor
+     */
+    public String getInvocationKey() {
+        String name = getMethodName();
+        return ("__INIT__".equals(name) ? "<init>" : name) + desc;
+    }
+
+    /**
+     * Adds the invocation keys of all the methods invoked by this method to the given set
+     * @param keys the set to which the keys are added
+     */
+    public void collectInvocationKeys(Set<String> keys) {
+        for(Instruction ins : instructions) {
+            String sname = ins.getMethodName();
+            if(sname != null) {
+                keys.add(sname + ins.getSignature());
+            }
+        }
+    }
+
     /**
      * Flag to indicate whether this method is used by native sources.
      */
@@ -825,7 +850,7 @@ public class BytecodeMethod implements SignatureSet {
         appendVirtualMethodC(cls, b, offset, false);
     }
     
-    public static void addVirtualMethodsInvoked(String m) {
+    public static synchronized void addVirtualMethodsInvoked(String m) {
         if(!virtualMethodsInvoked.contains(m)) {
             virtualMethodsInvoked.add(m);
         }
@@ -955,7 +980,7 @@ public class BytecodeMethod implements SignatureSet {
         if(val != 0) {
             return false;
         }
-        if(acceptStaticOnEquals) {
+        if(isAcceptStaticOnEquals()) {
             if(bm.arguments.size() != arguments.size()) {
                 return false;
             }            
@@ -1034,6 +1059,8 @@ public class BytecodeMethod implements SignatureSet {
     }
     
     public void addLabel(Label l) {
+        com.codename1.tools.translator.bytecodes.LabelInstruction.setLabelId(l, labelCount);
+        labelCount++;
         addInstruction(new com.codename1.tools.translator.bytecodes.LabelInstruction(l));
     }
     
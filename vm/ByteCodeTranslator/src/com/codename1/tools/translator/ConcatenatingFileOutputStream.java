@@ -69,9 +69,7 @@ public class ConcatenatingFileOutputStream extends java.io.OutputStream {
             if (dest == null || dest[i].size() ==0) {
                 destFile.delete();
             } else {
-                FileOutputStream pfos = new FileOutputStream(destFile);
-                pfos.write(byteArrayOutputStream.toByteArray());
-                pfos.close();
+                TranslationCache.writeIfChanged(destFile, byteArrayOutputStream.toByteArray());
             }
         }
     }
@@ -25,6 +25,11 @@ package com.codename1.tools.translator;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
@@ -49,16 +54,113 @@ public class Parser extends ClassVisitor {
     private String clsName;
     private static String[] nativeSources;
     private static List<ByteCodeClass> classes = new ArrayList<ByteCodeClass>();
+    private static Map<String, ByteCodeClass> classIndex;
     public static void cleanup() {
     	nativeSources = null;
+    	callerIndex = null;
+    	classIndex = null;
     	classes.clear();
     	LabelInstruction.cleanup();
     }
+    
+    /**
+     * The number of threads used to parse, resolve dependencies and generate the classes, this defaults
+     * to the number of processors and can be set with the translatorThreads system property
+     */
+    static int getThreadCount() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String s = System.getProperty("translatorThreads");
+        if(s != null) {
+            try {
+                threads = Integer.parseInt(s.trim());
+            } catch(NumberFormatException err) {
+                System.out.println("Invalid translatorThreads value: " + s);
+            }
+        }
+        return Math.max(1, threads);
+    }
+    
+    /**
+     * Invokes the given tasks on a pool of translator threads and returns their results in the order
+     * of the tasks so the output doesn't depend on the order in which the tasks complete
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks) throws Exception {
+        List<T> response = new ArrayList<T>(tasks.size());
+        int threads = Math.min(getThreadCount(), tasks.size());
+        if(threads < 2) {
+            for(Callable<T> c : tasks) {
+                response.add(c.call());
+            }
+            return response;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> results = new ArrayList<Future<T>>(tasks.size());
+            for(Callable<T> c : tasks) {
+                results.add(pool.submit(c));
+            }
+            for(Future<T> f : results) {
+                response.add(f.get());
+            }
+            return response;
+        } catch(ExecutionException err) {
+            Throwable t = err.getCause();
+            if(t instanceof Exception) {
+                throw (Exception)t;
+            }
+            if(t instanceof Error) {
+                throw (Error)t;
+            }
+            throw err;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Parses the given class files concurrently, the classes are added in the order of the files
+     * and the constant pool is filled in that order so the result is identical to parsing the files
+     * one by one
+     */
+    public static void parse(List<File> sourceFiles) throws Exception {
+        List<Callable<ByteCodeClass>> tasks = new ArrayList<Callable<ByteCodeClass>>(sourceFiles.size());
+        for(final File f : sourceFiles) {
+            tasks.add(new Callable<ByteCodeClass>() {
+                public ByteCodeClass call() throws Exception {
+                    return parseClass(f);
+                }
+            });
+        }
+        for(ByteCodeClass bc : invokeAll(tasks)) {
+            addClass(bc);
+        }
+    }
+    
     public static void parse(File sourceFile) throws Exception {
+        addClass(parseClass(sourceFile));
+    }
+    
+    private static void addClass(ByteCodeClass bc) {
+        for(ByteCodeField bf : bc.getFields()) {
+            if(bf.getValue() instanceof String) {
+                addToConstantPool((String)bf.getValue());
+            }
+        }
+        classes.add(bc);
+    }
+    
+    private static ByteCodeClass parseClass(File sourceFile) throws Exception {
         if(ByteCodeTranslator.verbose) {
             System.out.println("Parsing: " + sourceFile.getAbsolutePath());
         }
-        ClassReader r = new ClassReader(new FileInputStream(sourceFile));
+        byte[] data = new byte[(int)sourceFile.length()];
+        DataInputStream di = new DataInputStream(new FileInputStream(sourceFile));
+        try {
+            di.readFully(data);
+        } finally {
+            di.close();
+        }
+        ClassReader r = new ClassReader(data);
         /*if(ByteCodeTranslator.verbose) {
             System.out.println("Class: " + r.getClassName() + " derives from: " + r.getSuperName() + " interfaces: " + Arrays.asList(r.getInterfaces()));
         }*/
@@ -66,19 +168,22 @@ public class Parser extends ClassVisitor {
         
         p.clsName = r.getClassName().replace('/', '_').replace('$', '_');
         p.cls = new ByteCodeClass(p.clsName, r.getClassName());
+        p.cls.setContentDigest(TranslationCache.digest(data));
         r.accept(p, ClassReader.EXPAND_FRAMES);
-        
-        classes.add(p.cls);
+        return p.cls;
     }
     
-    private static ByteCodeClass getClassByName(String name) {
-        name = name.replace('/', '_').replace('$', '_');
+    private static void indexClasses() {
+        classIndex = new HashMap<String, ByteCodeClass>();
         for(ByteCodeClass bc : classes) {
-            if(bc.getClsName().equals(name)) {
-                return bc;
+            if(!classIndex.containsKey(bc.getClsName())) {
+                classIndex.put(bc.getClsName(), bc);
             }
-        }        
-        return null;
+        }
+    }
+    
+    private static ByteCodeClass getClassByName(String name) {
+        return getClassObject(name.replace('/', '_').replace('$', '_'));
     }
     
     private static void appendClassOffset(ByteCodeClass bc, List<Integer> clsIds) {
@@ -101,8 +206,12 @@ public class Parser extends ClassVisitor {
     }
 
     private static ArrayList<String> constantPool = new ArrayList<String>();
+    private static Map<String, Integer> constantPoolIndex = new HashMap<String, Integer>();
     
     public static ByteCodeClass getClassObject(String name) {
+        if(classIndex != null) {
+            return classIndex.get(name);
+        }
         for(ByteCodeClass cls : classes) {
             if(cls.getClsName().equals(name)) {
                 return cls;
@@ -114,18 +223,19 @@ public class Parser extends ClassVisitor {
     /**
      * Adds the given string to the hardcoded constant pool strings returns the offset in the pool
      */
-    public static int addToConstantPool(String s) {
-        int i = constantPool.indexOf(s);
-        if(i < 0) {
+    public static synchronized int addToConstantPool(String s) {
+        Integer i = constantPoolIndex.get(s);
+        if(i == null) {
             constantPool.add(s);
-            return constantPool.size() - 1;
+            i = Integer.valueOf(constantPool.size() - 1);
+            constantPoolIndex.put(s, i);
         }
-        return i;
+        return i.intValue();
     }
     
     
     
-    private static void generateClassAndMethodIndexHeader(File outputDirectory) throws Exception {
+    private static void generateClassAndMethodIndexHeader(File outputDirectory, TranslationCache cache) throws Exception {
         int classOffset = 0;
         int methodOffset = 0;
         ArrayList<BytecodeMethod> methods = new ArrayList<BytecodeMethod>();
@@ -323,12 +433,8 @@ public class Parser extends ClassVisitor {
         
         bld.append("\n\n#endif // __CN1_CLASS_METHOD_INDEX_H__\n");        
         
-        FileOutputStream fos = new FileOutputStream(new File(outputDirectory, "cn1_class_method_index.h"));
-        fos.write(bld.toString().getBytes("UTF-8"));
-        fos.close();
-        fos = new FileOutputStream(new File(outputDirectory, "cn1_class_method_index.m"));
-        fos.write(bldM.toString().getBytes("UTF-8"));
-        fos.close();
+        cache.write(new File(outputDirectory, "cn1_class_method_index.h"), bld.toString().getBytes("UTF-8"));
+        cache.write(new File(outputDirectory, "cn1_class_method_index.m"), bldM.toString().getBytes("UTF-8"));
     }
     
     private static String encodeString(String con) {
@@ -379,6 +485,7 @@ public class Parser extends ClassVisitor {
 		}
         String file = "Unknown File";
         try {
+            indexClasses();
             for(ByteCodeClass bc : classes) {
                 // special case for object
                 if(bc.getClsName().equals("java_lang_Object")) {
@@ -408,16 +515,26 @@ public class Parser extends ClassVisitor {
                 }
             }
             
+            boolean concatenate = "true".equals(System.getProperty("concatenateFiles", "false"));
+            TranslationCache cache = new TranslationCache(outputDirectory, 
+                    !concatenate && !"false".equals(System.getProperty("incrementalTranslation", "true")));
+
             // load the native sources (including user native code) 
             // We need to load native sources before we clear any unmarked classes
             // because native source may be the only thing referencing a class,
             // and the class may be purged before it even has a shot.
-            readNativeFiles(outputDirectory);
-
-            for(ByteCodeClass bc : classes) {
-                file = bc.getClsName();
-                bc.updateAllDependencies();
+            readNativeFiles(outputDirectory, cache);
+
+            List<Callable<Object>> dependencyTasks = new ArrayList<Callable<Object>>(classes.size());
+            for(final ByteCodeClass bc : classes) {
+                dependencyTasks.add(new Callable<Object>() {
+                    public Object call() {
+                        bc.updateAllDependencies();
+                        return null;
+                    }
+                });
             }
+            invokeAll(dependencyTasks);
             ByteCodeClass.markDependencies(classes, nativeSources);
             Set<ByteCodeClass> unmarked = new HashSet<ByteCodeClass>(classes);
             classes = ByteCodeClass.clearUnmarked(classes);
@@ -438,16 +555,15 @@ public class Parser extends ClassVisitor {
                 System.out.println("unusued Method cull removed "+neliminated+" methods in "+(dif/1000)+" seconds");
             }
 
-            generateClassAndMethodIndexHeader(outputDirectory);
+            generateClassAndMethodIndexHeader(outputDirectory, cache);
+            indexClasses();
 
-            boolean concatenate = "true".equals(System.getProperty("concatenateFiles", "false"));
             ConcatenatingFileOutputStream cos = concatenate ? new ConcatenatingFileOutputStream(outputDirectory) : null;
+            if (cos == null) cache.computeKeys(classes, constantPool);
 
-            for(ByteCodeClass bc : classes) {
-                file = bc.getClsName();
-                writeFile(bc, outputDirectory, cos);
-            }
+            writeFiles(outputDirectory, cos, cache);
             if (cos != null) cos.realClose();
+            cache.save();
 
         } catch(Throwable t) {
             System.out.println("Error while working with the class: " + file);
@@ -462,11 +578,14 @@ public class Parser extends ClassVisitor {
         finally { cleanup(); }
     }
     
-    private static void readNativeFiles(File outputDirectory) throws IOException {
+    private static void readNativeFiles(File outputDirectory, final TranslationCache cache) throws IOException {
         File[] mFiles = outputDirectory.listFiles(new FileFilter() {
             @Override
             public boolean accept(File file) {
-                return file.getName().endsWith(".m");
+                // skip the sources generated by a previous run into the same directory
+                String name = file.getName();
+                return name.endsWith(".m") && !name.equals("cn1_class_method_index.m") && 
+                        !name.startsWith("concatenated_") && !cache.isGeneratedFile(file);
             }
         });
         nativeSources = new String[mFiles.length];
@@ -498,6 +617,7 @@ public class Parser extends ClassVisitor {
 
     private static int cullMethods() {
     	int nfound = 0;
+        buildCallerIndex();
     	for(ByteCodeClass bc : classes) {
             bc.unmark();
             if(bc.isIsInterface() || bc.getBaseClass() == null) {
@@ -611,41 +731,151 @@ public class Parser extends ClassVisitor {
         if (!m.isEliminated() && m.isMethodUsedByNative(nativeSources, cls)) {
             return true;
         }
-        for(ByteCodeClass bc : classes) {
-            for(BytecodeMethod mtd : bc.getMethods()) {
-                if(mtd.isEliminated() || mtd == m) {
+        List<BytecodeMethod> callers = callerIndex.get(m.getInvocationKey());
+        if(callers == null) {
+            return false;
+        }
+        // elimination is permanent so eliminated callers are dropped from the index as we go, 
+        // this keeps the lookup close to constant time as the cull progresses
+        int size = callers.size();
+        for(int iter = size - 1 ; iter >= 0 ; iter--) {
+            BytecodeMethod mtd = callers.get(iter);
+            if(mtd.isEliminated()) {
+                callers.set(iter, callers.get(size - 1));
+                callers.remove(size - 1);
+                size--;
+                continue;
+            }
+            if(mtd != m) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maps the invocation key of a method (see {@link BytecodeMethod#getInvocationKey()}) to the methods that
+     * invoke it. This replaces the scan of every method in every class for every method checked by the cull
+     */
+    private static Map<String, List<BytecodeMethod>> callerIndex;
+
+    /**
+     * Builds the caller index from the current set of classes and resolves the native usage of all the
+     * methods, both are computed in parallel across classes
+     */
+    private static void buildCallerIndex() {
+        final List<ByteCodeClass> current = classes;
+        final int threads = Math.max(1, Math.min(getThreadCount(), current.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Map<String, List<BytecodeMethod>>>> results = new ArrayList<Future<Map<String, List<BytecodeMethod>>>>();
+            for(int t = 0 ; t < threads ; t++) {
+                final int offset = t;
+                results.add(pool.submit(new Callable<Map<String, List<BytecodeMethod>>>() {
+                    public Map<String, List<BytecodeMethod>> call() {
+                        Map<String, List<BytecodeMethod>> index = new HashMap<String, List<BytecodeMethod>>();
+                        Set<String> keys = new HashSet<String>();
+                        int size = current.size();
+                        for(int iter = offset ; iter < size ; iter += threads) {
+                            ByteCodeClass bc = current.get(iter);
+                            for(BytecodeMethod mtd : bc.getMethods()) {
+                                if(mtd.isEliminated()) {
+                                    continue;
+                                }
+                                // caches the result within the method, a class is only ever processed by
+                                // a single thread so the usedByNative flag of the class is safe to update
+                                mtd.isMethodUsedByNative(nativeSources, bc);
+                                keys.clear();
+                                mtd.collectInvocationKeys(keys);
+                                for(String k : keys) {
+                                    List<BytecodeMethod> l = index.get(k);
+                                    if(l == null) {
+                                        l = new ArrayList<BytecodeMethod>();
+                                        index.put(k, l);
+                                    }
+                                    l.add(mtd);
+                                }
+                            }
+                        }
+                        return index;
+                    }
+                }));
+            }
+            Map<String, List<BytecodeMethod>> merged = null;
+            for(Future<Map<String, List<BytecodeMethod>>> f : results) {
+                Map<String, List<BytecodeMethod>> index = f.get();
+                if(merged == null) {
+                    merged = index;
                     continue;
                 }
-                if(mtd.isMethodUsed(m)) {
-                    return true;
+                for(Map.Entry<String, List<BytecodeMethod>> e : index.entrySet()) {
+                    List<BytecodeMethod> l = merged.get(e.getKey());
+                    if(l == null) {
+                        merged.put(e.getKey(), e.getValue());
+                    } else {
+                        l.addAll(e.getValue());
+                    }
                 }
             }
+            callerIndex = merged;
+        } catch(InterruptedException err) {
+            throw new RuntimeException(err);
+        } catch(ExecutionException err) {
+            throw new RuntimeException(err.getCause());
+        } finally {
+            pool.shutdown();
         }
-        return false;
     }
 
-    private static void writeFile(ByteCodeClass cls, File outputDir, ConcatenatingFileOutputStream writeBufferInstead) throws Exception {
-        OutputStream outMain =
-                writeBufferInstead != null && ByteCodeTranslator.output == ByteCodeTranslator.OutputType.OUTPUT_TYPE_IOS ?
-                        writeBufferInstead :
-                        new FileOutputStream(new File(outputDir, cls.getClsName() + "." + ByteCodeTranslator.output.extension()));
-
-        if (outMain instanceof ConcatenatingFileOutputStream) {
-            ((ConcatenatingFileOutputStream)outMain).beginNextFile(cls.getClsName());
+    /**
+     * Generates the classes concurrently, the concatenated output is appended by this thread in the
+     * order of the classes so it's identical regardless of the number of threads
+     */
+    private static void writeFiles(final File outputDir, ConcatenatingFileOutputStream writeBufferInstead, final TranslationCache cache) throws Exception {
+        final boolean concatenate = writeBufferInstead != null && ByteCodeTranslator.output == ByteCodeTranslator.OutputType.OUTPUT_TYPE_IOS;
+        List<ByteCodeClass> pending = new ArrayList<ByteCodeClass>();
+        List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+        for(final ByteCodeClass bc : classes) {
+            if(writeBufferInstead == null && cache.isUpToDate(bc)) {
+                continue;
+            }
+            pending.add(bc);
+            tasks.add(new Callable<byte[]>() {
+                public byte[] call() throws Exception {
+                    try {
+                        return writeFile(bc, outputDir, concatenate, cache);
+                    } catch(Exception err) {
+                        System.out.println("Error while working with the class: " + bc.getClsName());
+                        throw err;
+                    }
+                }
+            });
+        }
+        List<byte[]> results = invokeAll(tasks);
+        if(concatenate) {
+            for(int iter = 0 ; iter < pending.size() ; iter++) {
+                writeBufferInstead.beginNextFile(pending.get(iter).getClsName());
+                writeBufferInstead.write(results.get(iter));
+                writeBufferInstead.close();
+            }
         }
-        if(ByteCodeTranslator.output == ByteCodeTranslator.OutputType.OUTPUT_TYPE_IOS) {
-            outMain.write(cls.generateCCode(classes).getBytes());
-            outMain.close();
+    }
+
+    private static byte[] writeFile(ByteCodeClass cls, File outputDir, boolean concatenate, TranslationCache cache) throws Exception {
+        if(concatenate) {
+            byte[] code = cls.generateCCode(classes).getBytes();
 
             // we also need to write the header file for iOS
-            String headerName = cls.getClsName() + ".h";
-            FileOutputStream outHeader = new FileOutputStream(new File(outputDir, headerName));
-            outHeader.write(cls.generateCHeader().getBytes());
-            outHeader.close();
+            cache.write(new File(outputDir, cls.getClsName() + ".h"), cls.generateCHeader().getBytes());
+            return code;
+        }
+        if(ByteCodeTranslator.output == ByteCodeTranslator.OutputType.OUTPUT_TYPE_IOS) {
+            // iOS needs the header file next to the source
+            cache.write(cls, cls.generateCCode(classes).getBytes(), cls.generateCHeader().getBytes());
         } else {
-            outMain.write(cls.generateCSharpCode().getBytes());
-            outMain.close();        
+            cache.write(cls, cls.generateCSharpCode().getBytes(), null);
         }
+        return null;
     }
     
     public Parser() {
@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+package com.codename1.tools.translator;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Remembers the key each class was generated with in the previous run so an incremental build can skip
+ * generating the classes that didn't change. The key of a class hashes its class file together with the
+ * class files of every class it can reach through its dependencies (and for interfaces, every class that
+ * implements them), the methods the optimizer eliminated in those classes, the final and virtual state the
+ * optimizer derives from the subclasses of a class and the global state that leaks into every generated file
+ * such as the constant pool offsets. A class is skipped when its key matches and
+ * its generated files are still on disk as they were written. Generated files are only written when their
+ * bytes differ from the existing file so the native incremental build only recompiles what actually changed.
+ * Set the system property {@code incrementalTranslation} to false to always regenerate every class.
+ */
+public class TranslationCache {
+    static final String CACHE_FILE_NAME = ".cn1_translation_cache";
+    private static final String VERSION = "2";
+
+    private final File outputDirectory;
+    private final File cacheFile;
+    private final boolean enabled;
+    private final Map<String, Entry> previous = new HashMap<String, Entry>();
+    private final Map<String, Entry> current = new TreeMap<String, Entry>();
+    private final Map<String, String> keys = new HashMap<String, String>();
+    private int skippedClasses;
+    private int writtenFiles;
+    private int unchangedFiles;
+
+    static class Entry {
+        String key;
+        long mainLength;
+        long mainModified;
+        long headerLength;
+        long headerModified;
+    }
+
+    /**
+     * Loads the cache of the previous run from the output directory
+     *
+     * @param outputDirectory the directory into which the sources are generated
+     * @param enabled false to regenerate every class, files are still only written when they changed
+     */
+    public TranslationCache(File outputDirectory, boolean enabled) {
+        this.outputDirectory = outputDirectory;
+        cacheFile = new File(outputDirectory, CACHE_FILE_NAME);
+        this.enabled = enabled;
+        if(cacheFile.exists()) {
+            try {
+                load();
+            } catch(Exception err) {
+                System.out.println("Ignoring unreadable translation cache: " + err);
+                previous.clear();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        BufferedReader r = new BufferedReader(new FileReader(cacheFile));
+        try {
+            if(!VERSION.equals(r.readLine())) {
+                return;
+            }
+            String line = r.readLine();
+            while(line != null) {
+                String[] tokens = line.split(" ");
+                Entry e = new Entry();
+                e.key = tokens[1];
+                e.mainLength = Long.parseLong(tokens[2]);
+                e.mainModified = Long.parseLong(tokens[3]);
+                e.headerLength = Long.parseLong(tokens[4]);
+                e.headerModified = Long.parseLong(tokens[5]);
+                previous.put(tokens[0], e);
+                line = r.readLine();
+            }
+        } finally {
+            r.close();
+        }
+    }
+
+    private File mainFile(String clsName) {
+        return new File(outputDirectory, clsName + "." + ByteCodeTranslator.output.extension());
+    }
+
+    private File headerFile(String clsName) {
+        if(ByteCodeTranslator.output == ByteCodeTranslator.OutputType.OUTPUT_TYPE_IOS) {
+            return new File(outputDirectory, clsName + ".h");
+        }
+        return null;
+    }
+
+    private static boolean matches(File f, long length, long modified) {
+        return f.length() == length && f.lastModified() == modified;
+    }
+
+    /**
+     * Returns true if the file was generated by the previous run and wasn't modified since. The output
+     * directory is scanned for native sources so the generated sources of the previous run must be excluded
+     * or they would keep every method they invoke from being eliminated.
+     */
+    public boolean isGeneratedFile(File f) {
+        String name = f.getName();
+        String suffix = "." + ByteCodeTranslator.output.extension();
+        if(!name.endsWith(suffix)) {
+            return false;
+        }
+        Entry e = previous.get(name.substring(0, name.length() - suffix.length()));
+        return e != null && matches(f, e.mainLength, e.mainModified);
+    }
+
+    /**
+     * Deletes the files generated by the previous run for classes that no longer exist or were eliminated.
+     * When the sources are concatenated no keys are computed and only the headers are still generated per
+     * class so just the individual sources of the previous run are deleted.
+     */
+    private void deleteStaleFiles() {
+        for(Map.Entry<String, Entry> e : previous.entrySet()) {
+            if(current.containsKey(e.getKey())) {
+                continue;
+            }
+            Entry en = e.getValue();
+            File main = mainFile(e.getKey());
+            if(matches(main, en.mainLength, en.mainModified)) {
+                main.delete();
+                File header = headerFile(e.getKey());
+                if(!keys.isEmpty() && header != null && matches(header, en.headerLength, en.headerModified)) {
+                    header.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the keys of this run so the next run can skip the classes that remain unchanged and deletes the
+     * generated files of classes that are gone
+     */
+    public void save() throws IOException {
+        deleteStaleFiles();
+        FileWriter w = new FileWriter(cacheFile);
+        try {
+            w.write(VERSION);
+            w.write("\n");
+            for(Map.Entry<String, Entry> e : current.entrySet()) {
+                Entry en = e.getValue();
+                w.write(e.getKey() + " " + en.key + " " + en.mainLength + " " + en.mainModified + " " +
+                        en.headerLength + " " + en.headerModified + "\n");
+            }
+        } finally {
+            w.close();
+        }
+        System.out.println("Translation cache: skipped " + skippedClasses + " unchanged classes, wrote " +
+                writtenFiles + " files, " + unchangedFiles + " generated files were identical");
+    }
+
+    /**
+     * Hex encoded SHA-1 of the given bytes
+     */
+    public static String digest(byte[] data) {
+        return toHex(createDigest().digest(data));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch(NoSuchAlgorithmException err) {
+            throw new RuntimeException(err);
+        }
+    }
+
+    private static String toHex(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for(int iter = 0 ; iter < b.length ; iter++) {
+            int v = b[iter] & 0xff;
+            if(v < 16) {
+                sb.append('0');
+            }
+            sb.append(Integer.toHexString(v));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest md, String s) {
+        try {
+            md.update(s.getBytes("UTF-8"));
+        } catch(IOException err) {
+            throw new RuntimeException(err);
+        }
+        md.update((byte)0);
+    }
+
+    /**
+     * Computes the key of every class, must be invoked once the optimizer finished and the constant pool
+     * contains all the strings the generated code refers to
+     *
+     * @param classes the classes that will be written
+     * @param constantPool the constant pool strings in order
+     */
+    public void computeKeys(List<ByteCodeClass> classes, List<String> constantPool) {
+        MessageDigest md = createDigest();
+        update(md, VERSION);
+        update(md, ByteCodeTranslator.output.name());
+        update(md, String.valueOf(BytecodeMethod.optimizerOn));
+        update(md, String.valueOf(ByteCodeClass.isSaveUnitTests()));
+        ByteCodeClass main = ByteCodeClass.getMainClass();
+        update(md, main == null ? "" : main.getClsName());
+        for(String s : constantPool) {
+            update(md, s);
+        }
+        for(String s : ByteCodeClass.getArrayTypes()) {
+            update(md, s);
+        }
+        for(String s : new TreeSet<String>(ByteCodeClass.getWritableFields())) {
+            update(md, s);
+        }
+        String global = toHex(md.digest());
+
+        Map<String, ByteCodeClass> byName = new HashMap<String, ByteCodeClass>();
+        for(ByteCodeClass bc : classes) {
+            byName.put(bc.getClsName(), bc);
+        }
+        Map<String, String> reachable = computeReachableKeys(byName, global, md);
+        for(ByteCodeClass bc : classes) {
+            String key = reachable.get(bc.getClsName());
+            if(bc.isIsInterface()) {
+                // the interface tables map every implementing class to its virtual methods
+                Set<String> implementations = new TreeSet<String>();
+                for(ByteCodeClass c : classes) {
+                    if(!c.isIsInterface() && c.doesImplement(bc)) {
+                        implementations.add(reachable.get(c.getClsName()));
+                    }
+                }
+                md.reset();
+                update(md, key);
+                for(String s : implementations) {
+                    update(md, s);
+                }
+                key = toHex(md.digest());
+            }
+            keys.put(bc.getClsName(), key);
+        }
+    }
+
+    /**
+     * The state of a single class, its class file, the methods the optimizer eliminated, the classes it references
+     * and the state that depends on its subclasses. A class without subclasses is marked final and its methods
+     * are invoked directly so adding a subclass changes the generated code of an unmodified class.
+     */
+    private static void updateState(MessageDigest md, ByteCodeClass bc) {
+        update(md, bc.getClsName());
+        update(md, bc.getContentDigest());
+        StringBuilder sb = new StringBuilder();
+        sb.append(bc.isFinalClass() ? 'F' : 'f');
+        for(BytecodeMethod m : bc.getMethods()) {
+            sb.append(m.isEliminated() ? '0' : '1');
+            sb.append(m.isVirtualOverriden() ? 'V' : 'v');
+            sb.append(m.isForceVirtual() ? 'W' : 'w');
+        }
+        // references to classes that aren't part of the translation are only covered by their name
+        for(String s : bc.getDependsClassesInterfaces()) {
+            sb.append(' ');
+            sb.append(s);
+        }
+        update(md, sb.toString());
+    }
+
+    /**
+     * Hashes every class together with the hashes of the classes it depends on, so the hash changes whenever
+     * anything reachable from the class changes. Classes that depend on each other form a strongly connected
+     * component which shares a single hash covering all of its members, the components are found with
+     * Tarjan's algorithm which completes a component only after every component reachable from it.
+     */
+    private static Map<String, String> computeReachableKeys(Map<String, ByteCodeClass> byName, String global, MessageDigest md) {
+        Map<String, String> result = new HashMap<String, String>();
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        Map<String, Integer> lowLink = new HashMap<String, Integer>();
+        ArrayList<String> stack = new ArrayList<String>();
+        Set<String> onStack = new HashSet<String>();
+        ArrayList<String> path = new ArrayList<String>();
+        ArrayList<Iterator<String>> pathEdges = new ArrayList<Iterator<String>>();
+        int counter = 0;
+        for(String root : new TreeSet<String>(byName.keySet())) {
+            if(index.containsKey(root)) {
+                continue;
+            }
+            index.put(root, counter);
+            lowLink.put(root, counter);
+            counter++;
+            stack.add(root);
+            onStack.add(root);
+            path.add(root);
+            pathEdges.add(byName.get(root).getDependsClassesInterfaces().iterator());
+            while(!path.isEmpty()) {
+                int top = path.size() - 1;
+                String node = path.get(top);
+                Iterator<String> edges = pathEdges.get(top);
+                if(edges.hasNext()) {
+                    String dep = edges.next();
+                    if(!byName.containsKey(dep)) {
+                        continue;
+                    }
+                    if(!index.containsKey(dep)) {
+                        index.put(dep, counter);
+                        lowLink.put(dep, counter);
+                        counter++;
+                        stack.add(dep);
+                        onStack.add(dep);
+                        path.add(dep);
+                        pathEdges.add(byName.get(dep).getDependsClassesInterfaces().iterator());
+                    } else if(onStack.contains(dep)) {
+                        lowLink.put(node, Math.min(lowLink.get(node), index.get(dep)));
+                    }
+                    continue;
+                }
+                path.remove(top);
+                pathEdges.remove(top);
+                if(top > 0) {
+                    String parent = path.get(top - 1);
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+                }
+                if(lowLink.get(node).intValue() != index.get(node).intValue()) {
+                    continue;
+                }
+                Set<String> members = new TreeSet<String>();
+                String member;
+                do {
+                    member = stack.remove(stack.size() - 1);
+                    onStack.remove(member);
+                    members.add(member);
+                } while(!member.equals(node));
+                Set<String> successors = new TreeSet<String>();
+                for(String m : members) {
+                    for(String dep : byName.get(m).getDependsClassesInterfaces()) {
+                        if(byName.containsKey(dep) && !members.contains(dep)) {
+                            successors.add(result.get(dep));
+                        }
+                    }
+                }
+                md.reset();
+                update(md, global);
+                for(String m : members) {
+                    updateState(md, byName.get(m));
+                }
+                for(String s : successors) {
+                    update(md, s);
+                }
+                String key = toHex(md.digest());
+                for(String m : members) {
+                    result.put(m, key);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the class was generated with the same key in the previous run and the files generated
+     * back then weren't modified since
+     *
+     * @param cls the class
+     */
+    public boolean isUpToDate(ByteCodeClass cls) {
+        if(!enabled) {
+            return false;
+        }
+        Entry e = previous.get(cls.getClsName());
+        String key = keys.get(cls.getClsName());
+        if(e == null || key == null || !key.equals(e.key)) {
+            return false;
+        }
+        if(!matches(mainFile(cls.getClsName()), e.mainLength, e.mainModified)) {
+            return false;
+        }
+        File header = headerFile(cls.getClsName());
+        if(header != null && !matches(header, e.headerLength, e.headerModified)) {
+            return false;
+        }
+        current.put(cls.getClsName(), e);
+        skippedClasses++;
+        return true;
+    }
+
+    /**
+     * Writes the generated files of the class if they differ from the files on disk and records them for the
+     * next run, this is invoked concurrently for different classes
+     *
+     * @param cls the class
+     * @param mainData the content of the source file
+     * @param headerData the content of the header file or null if this output type has no headers
+     */
+    public void write(ByteCodeClass cls, byte[] mainData, byte[] headerData) throws IOException {
+        File main = mainFile(cls.getClsName());
+        File header = headerFile(cls.getClsName());
+        count(writeIfChanged(main, mainData));
+        if(header != null) {
+            count(writeIfChanged(header, headerData));
+        }
+        String key = keys.get(cls.getClsName());
+        if(key != null) {
+            Entry e = new Entry();
+            e.key = key;
+            e.mainLength = main.length();
+            e.mainModified = main.lastModified();
+            if(header != null) {
+                e.headerLength = header.length();
+                e.headerModified = header.lastModified();
+            }
+            synchronized(current) {
+                current.put(cls.getClsName(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes a file that isn't tracked per class, e.g. the class and method index
+     */
+    public void write(File f, byte[] data) throws IOException {
+        count(writeIfChanged(f, data));
+    }
+
+    private synchronized void count(boolean written) {
+        if(written) {
+            writtenFiles++;
+        } else {
+            unchangedFiles++;
+        }
+    }
+
+    /**
+     * Writes the data to the file unless the file already contains exactly these bytes, leaving the
+     * modification time of unchanged files intact
+     *
+     * @return true if the file was written
+     */
+    public static boolean writeIfChanged(File f, byte[] data) throws IOException {
+        if(f.exists() && f.length() == data.length) {
+            byte[] existing = new byte[data.length];
+            DataInputStream di = new DataInputStream(new FileInputStream(f));
+            try {
+                di.readFully(existing);
+            } finally {
+                di.close();
+            }
+            if(Arrays.equals(existing, data)) {
+                return false;
+            }
+        }
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return true;
+    }
+
+    /**
+     * Copies the stream into the file unless the file already contains the same bytes, closes the stream
+     *
+     * @return true if the file was written
+     */
+    public static boolean copyIfChanged(InputStream i, File f) throws IOException {
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        ByteCodeTranslator.copy(i, bo);
+        return writeIfChanged(f, bo.toByteArray());
+    }
+}
@@ -34,9 +34,19 @@ public class BasicInstruction extends Instruction implements AssignableExpressio
     private final int value;
     private int maxStack;
     private int maxLocals;
-    private static boolean synchronizedMethod;
-    private static boolean staticMethod;
-    private static String className;
+    // classes are generated concurrently so the method being generated is tracked per thread
+    private static final ThreadLocal<MethodState> currentMethod = new ThreadLocal<MethodState>() {
+        @Override
+        protected MethodState initialValue() {
+            return new MethodState();
+        }
+    };
+    
+    static class MethodState {
+        boolean synchronizedMethod;
+        boolean staticMethod;
+        String className;
+    }
     
     public BasicInstruction(int opcode, int value) {
         super(opcode);
@@ -48,9 +58,10 @@ public class BasicInstruction extends Instruction implements AssignableExpressio
     }
     
     public static void setSynchronizedMethod(boolean b, boolean stat, String cls) {
-        synchronizedMethod = b;
-        staticMethod = stat;
-        className = cls;
+        MethodState m = currentMethod.get();
+        m.synchronizedMethod = b;
+        m.staticMethod = stat;
+        m.className = cls;
     }
     
     public void setMaxes(int maxStack, int maxLocals) {
@@ -59,10 +70,11 @@ public class BasicInstruction extends Instruction implements AssignableExpressio
     }
 
     private void appendSynchronized(StringBuilder b) {
-        if(synchronizedMethod) {
-            if(staticMethod) {
+        MethodState m = currentMethod.get();
+        if(m.synchronizedMethod) {
+            if(m.staticMethod) {
                 b.append("    monitorExitBlock(threadStateData, (JAVA_OBJECT)&class__");
-                b.append(className);
+                b.append(m.className);
                 b.append(");\n");
             } else {
                 b.append("    monitorExitBlock(threadStateData, __cn1ThisObject);\n");
@@ -71,7 +83,7 @@ public class BasicInstruction extends Instruction implements AssignableExpressio
     }
     
     public static boolean isSynchronizedMethod() {
-        return synchronizedMethod;
+        return currentMethod.get().synchronizedMethod;
     }
 
     @Override
@@ -581,7 +593,7 @@ public class BasicInstruction extends Instruction implements AssignableExpressio
             case Opcodes.RETURN:
                 appendSynchronized(b);
                 
-                if(!hasInstructions) {
+                if(!hasInstructions()) {
                     b.append("    return;\n");
                     break;
                 }
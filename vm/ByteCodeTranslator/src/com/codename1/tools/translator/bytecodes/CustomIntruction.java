@@ -50,7 +50,7 @@ public class CustomIntruction extends Instruction implements AssignableExpressio
     
     
     public void appendInstruction(StringBuilder b, List<Instruction> l) {
-        if(hasInstructions) {
+        if(hasInstructions()) {
             b.append(complexCode);
         } else {
             b.append(code);
@@ -58,13 +58,13 @@ public class CustomJump extends Instruction {
         
         if(TryCatch.isTryCatchInMethod()) {
             b.append("JUMP_TO(label_");
-            b.append(label.toString());
+            b.append(LabelInstruction.getLabelName(label));
             b.append(", ");
             b.append(LabelInstruction.getLabelCatchDepth(label, instructions));
             b.append(");\n");
         } else {
             b.append("goto label_");
-            b.append(label.toString());
+            b.append(LabelInstruction.getLabelName(label));
             b.append(";\n");
         }
     }
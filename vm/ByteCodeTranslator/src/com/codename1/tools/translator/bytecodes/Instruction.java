@@ -34,14 +34,19 @@ import java.util.List;
  */
 public abstract class Instruction implements SignatureSet
 {
-    static boolean hasInstructions;
+    // classes are generated concurrently so the state of the method being generated is kept per thread
+    private static final ThreadLocal<Boolean> hasInstructions = new ThreadLocal<Boolean>();
     private boolean optimized=false;
     private BytecodeMethod method;
     
     public static void setHasInstructions(boolean h) {
-        hasInstructions = h;
+        hasInstructions.set(h);
     }   
 
+    static boolean hasInstructions() {
+        return Boolean.TRUE.equals(hasInstructions.get());
+    }
+
     @Override
     public SignatureSet nextSignature() {
         return null;
@@ -95,7 +95,7 @@ public class Jump extends Instruction {
                 b.append("/* JSR TODO */");
                 /*b.append("PUSH_")
                 b.append("goto label_");
-                b.append(label.toString());
+                b.append(LabelInstruction.getLabelName(label));
                 b.append(";\n");
                 b.append("JSR_RETURN_LABEL_");
                 b.append(jsrCounter);
@@ -112,13 +112,13 @@ public class Jump extends Instruction {
        
         if(TryCatch.isTryCatchInMethod()) {
             b.append("JUMP_TO(label_");
-            b.append(label.toString());
+            b.append(LabelInstruction.getLabelName(label));
             b.append(", ");
             b.append(LabelInstruction.getLabelCatchDepth(label, instructions));
             b.append(");\n");
         } else {
             b.append("goto label_");
-            b.append(label.toString());
+            b.append(LabelInstruction.getLabelName(label));
             b.append(";\n");
         }
     }
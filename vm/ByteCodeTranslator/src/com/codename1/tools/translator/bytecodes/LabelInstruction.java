@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.Set;
 import java.util.TreeSet;
 import org.objectweb.asm.Label;
@@ -46,9 +47,10 @@ public class LabelInstruction extends Instruction {
             this.cls = cls; this.counter = counter;
         }
     }
-    private static Map<Label, List<Pair>> tryBeginLabels = new HashMap<Label, List<Pair>>();
-    private static Map<Label, Integer> tryEndLabels = new HashMap<Label, Integer>();    
-    private static Map<Label, Integer> labelCatchDepth = new HashMap<Label, Integer>();
+    // labels belong to a single method but methods of different classes are parsed and generated concurrently
+    private static Map<Label, List<Pair>> tryBeginLabels = new ConcurrentHashMap<Label, List<Pair>>();
+    private static Map<Label, Integer> tryEndLabels = new ConcurrentHashMap<Label, Integer>();    
+    private static Map<Label, Integer> labelCatchDepth = new ConcurrentHashMap<Label, Integer>();
     // [ddyer 4/2017] convert this from a tree of strings to use the label itself
     // this fixes the problem of mysterious "statement expected" errors from builds,
     // caused because labels created by the assembler are not globally unique.
@@ -56,6 +58,10 @@ public class LabelInstruction extends Instruction {
     // a lot of strings.
     private static Map<Label,Label> usedLabels = new Hashtable<Label,Label>();
     
+    // labels are named by their position within the method rather than by the identity
+    // hash of the asm label so translating the same class twice produces the same source
+    private static Map<Label,Integer> labelIds = new ConcurrentHashMap<Label,Integer>();
+    
     // cleanup between passes, free the garbage!
     public static void cleanup()
     {
@@ -63,6 +69,20 @@ public class LabelInstruction extends Instruction {
     	tryEndLabels.clear();
     	labelCatchDepth.clear();
     	usedLabels.clear();
+    	labelIds.clear();
+    }
+    
+    public static void setLabelId(Label l, int id) {
+        labelIds.put(l, Integer.valueOf(id));
+    }
+    
+    public static String getLabelName(Label l) {
+        Integer i = labelIds.get(l);
+        if(i == null) {
+            // the identity based name of the asm label isn't stable and could collide with the ids
+            throw new IllegalStateException("Label " + l + " wasn't added to the method being translated");
+        }
+        return "L" + i;
     }
     public LabelInstruction(org.objectweb.asm.Label parent) {
         super(-1);
@@ -133,7 +153,7 @@ public class LabelInstruction extends Instruction {
             return;
         }
         b.append("\nlabel_"); 
-        b.append(parent); 
+        b.append(getLabelName(parent)); 
         b.append(":\n");
         Integer tryCount = tryEndLabels.get(parent);
         if(tryCount != null) {
@@ -154,19 +174,19 @@ public class LabelInstruction extends Instruction {
                 for(int iter = strs.size() - 1;  iter >= 0 ; iter--) {
                     Pair s = strs.get(iter);
                     b.append(" tryBlockOffset");
-                    b.append(parent);
+                    b.append(getLabelName(parent));
                     b.append(s.cls);
                     b.append(s.counter);
                     b.append(" = threadStateData->tryBlockOffset;\n");
                     b.append("    BEGIN_TRY(");
                     b.append(s.cls);
                     b.append(", catch_");
-                    b.append(parent);
+                    b.append(getLabelName(parent));
                     b.append(s.cls);
                     b.append(s.counter);
                     //b.append("); NSLog(@\"Begin try on:  %s %d off: %i\\n\", __FILE__, __LINE__, getThreadLocalData()->tryBlockOffset);");
                     b.append(");\n    restoreTo");
-                    b.append(parent);
+                    b.append(getLabelName(parent));
                     b.append(s.cls);
                     b.append(s.counter);
                     b.append(" = threadStateData->threadObjectStackOffset;\n");
@@ -37,14 +37,25 @@ public class TryCatch extends Instruction {
     private Label end;
     private Label handler;
     private String type;
-    private static boolean firstException;
-    private static boolean hasTryCatch;
-    private static int counter;
+    // classes are generated concurrently so the state of the method being generated is kept per thread
+    private static final ThreadLocal<MethodState> currentMethod = new ThreadLocal<MethodState>() {
+        @Override
+        protected MethodState initialValue() {
+            return new MethodState();
+        }
+    };
+    
+    static class MethodState {
+        boolean firstException;
+        boolean hasTryCatch;
+        int counter;
+    }
     
     public static void reset() {
-        firstException = true;
-        hasTryCatch = false;
-        counter = 1;
+        MethodState m = currentMethod.get();
+        m.firstException = true;
+        m.hasTryCatch = false;
+        m.counter = 1;
     }
     
     public TryCatch(Label start, Label end, Label handler, String type) {
@@ -67,17 +78,19 @@ public class TryCatch extends Instruction {
     }
     
     public static boolean isTryCatchInMethod() {
-        return hasTryCatch;
+        return currentMethod.get().hasTryCatch;
     }
     
     @Override
     public void appendInstruction(StringBuilder b, List<Instruction> instructions) {
-        hasTryCatch = true;
-        if(firstException) {
+        MethodState m = currentMethod.get();
+        m.hasTryCatch = true;
+        if(m.firstException) {
             // we need to append basic exception handling logic
             //b.append("    DEFINE_EXCEPTION_HANDLING_CONSTANTS();\n");
-            firstException = false;
+            m.firstException = false;
         }
+        int counter = m.counter;
         
         String cid = "0";
         if(type != null) {
@@ -85,21 +98,21 @@ public class TryCatch extends Instruction {
         } 
         LabelInstruction.addTryBeginLabel(start, cid, counter);
         b.append("    int restoreTo");
-        b.append(start);
+        b.append(LabelInstruction.getLabelName(start));
         b.append(cid);
         b.append(counter);
         b.append(";\n    int tryBlockOffset");
-        b.append(start);
+        b.append(LabelInstruction.getLabelName(start));
         b.append(cid);
         b.append(counter);
         b.append(";\n    DEFINE_CATCH_BLOCK(catch_");
-        b.append(start);
+        b.append(LabelInstruction.getLabelName(start));
         b.append(cid);
         b.append(counter);
         b.append(", label_");
-        b.append(handler);
+        b.append(LabelInstruction.getLabelName(handler));
         b.append(", restoreTo");
-        b.append(start);
+        b.append(LabelInstruction.getLabelName(start));
         b.append(cid);
         b.append(counter);
         b.append(");\n");
@@ -112,7 +125,7 @@ public class TryCatch extends Instruction {
         // where there is a synchronized() block surrounding an exception
         // point.
         LabelInstruction.getLabelCatchDepth(end, instructions);
-        counter++;
+        m.counter++;
 //        b.append("/* try/catch start: ");
 //        b.append(start);
 //        b.append(", end: ");